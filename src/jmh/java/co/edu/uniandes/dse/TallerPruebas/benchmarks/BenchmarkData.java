@@ -0,0 +1,141 @@
+package co.edu.uniandes.dse.TallerPruebas.benchmarks;
+
+import java.util.Date;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import co.edu.uniandes.dse.TallerPruebas.MainApplication;
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.UserEntity;
+
+/**
+ * Levanta la capa JPA contra un H2 en memoria y siembra usuarios, cuentas,
+ * bolsillos y transacciones para los benchmarks.
+ */
+public class BenchmarkData {
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final ConfigurableApplicationContext context;
+    private final long[] accountIds;
+    private final long[][] pocketIds;
+
+    private BenchmarkData(ConfigurableApplicationContext context, long[] accountIds, long[][] pocketIds) {
+        this.context = context;
+        this.accountIds = accountIds;
+        this.pocketIds = pocketIds;
+    }
+
+    /**
+     * Levanta la aplicación sin servidor web y siembra los datos.
+     */
+    public static BenchmarkData start(int users, int accountsPerUser, int pocketsPerAccount,
+            int transactionsPerAccount, String... extraProperties) {
+        return start(WebApplicationType.NONE, users, accountsPerUser, pocketsPerAccount, transactionsPerAccount,
+                extraProperties);
+    }
+
+    /**
+     * Levanta la aplicación con el tipo de servidor web indicado y siembra los datos.
+     */
+    public static BenchmarkData start(WebApplicationType webApplicationType, int users, int accountsPerUser,
+            int pocketsPerAccount, int transactionsPerAccount, String... extraProperties) {
+        String[] properties = new String[extraProperties.length + 3];
+        properties[0] = "spring.datasource.url=jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1";
+        properties[1] = "logging.level.root=WARN";
+        properties[2] = "spring.jpa.show-sql=false";
+        System.arraycopy(extraProperties, 0, properties, 3, extraProperties.length);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MainApplication.class)
+                .web(webApplicationType).properties(properties).run();
+
+        long[] accountIds = new long[users * accountsPerUser];
+        long[][] pocketIds = new long[accountIds.length][pocketsPerAccount];
+
+        EntityManager em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        try {
+            em.getTransaction().begin();
+            int pending = 0;
+            int accountIndex = 0;
+            Date fecha = new Date();
+            for (int u = 0; u < users; u++) {
+                UserEntity user = new UserEntity();
+                user.setName("Usuario " + u);
+                user.setLogin("usuario" + u);
+                user.setEmail("usuario" + u + "@bench.test");
+                user.setCedula(String.valueOf(1_000_000 + u));
+                em.persist(user);
+
+                for (int a = 0; a < accountsPerUser; a++) {
+                    AccountEntity account = new AccountEntity();
+                    account.setNumeroCuenta(String.format("%010d", accountIndex));
+                    account.setEstado("ACTIVA");
+                    account.setSaldo(1_000_000_000.0);
+                    account.setUser(user);
+                    em.persist(account);
+
+                    for (int p = 0; p < pocketsPerAccount; p++) {
+                        PocketEntity pocket = new PocketEntity();
+                        pocket.setNombre("Bolsillo " + p);
+                        pocket.setSaldo(0.0);
+                        pocket.setMetaAhorro(1_000_000.0);
+                        pocket.setAccount(account);
+                        em.persist(pocket);
+                        pocketIds[accountIndex][p] = pocket.getId();
+                    }
+                    for (int t = 0; t < transactionsPerAccount; t++) {
+                        TransactionEntity transaction = new TransactionEntity();
+                        transaction.setMonto(10.0);
+                        transaction.setFecha(fecha);
+                        transaction.setTipo(t % 2 == 0 ? "SALIDA" : "ENTRADA");
+                        transaction.setAccount(account);
+                        em.persist(transaction);
+                    }
+                    accountIds[accountIndex++] = account.getId();
+
+                    pending += 1 + pocketsPerAccount + transactionsPerAccount;
+                    if (pending >= FLUSH_EVERY) {
+                        em.flush();
+                        em.clear();
+                        user = em.getReference(UserEntity.class, user.getId());
+                        pending = 0;
+                    }
+                }
+            }
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+        return new BenchmarkData(context, accountIds, pocketIds);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * @return el puerto en el que escucha el servidor web, si se levantó uno
+     */
+    public int getLocalPort() {
+        return context.getEnvironment().getProperty("local.server.port", Integer.class, -1);
+    }
+
+    public long[] getAccountIds() {
+        return accountIds;
+    }
+
+    public long[][] getPocketIds() {
+        return pocketIds;
+    }
+
+    public void close() {
+        context.close();
+    }
+}
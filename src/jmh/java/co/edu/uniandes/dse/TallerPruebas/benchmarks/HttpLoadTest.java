@@ -0,0 +1,134 @@
+package co.edu.uniandes.dse.TallerPruebas.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.WebApplicationType;
+
+/**
+ * Prueba de carga HTTP que compara el modo actual (hilos de plataforma de
+ * Tomcat) con el modo de hilos virtuales (perfil virtual).
+ *
+ * Cada cliente es un hilo virtual que repite GET /api/accounts/{id} sobre una
+ * cuenta aleatoria durante la duración indicada. Se reportan el throughput,
+ * la latencia p50/p99 y las respuestas 503 (pool de conexiones saturado).
+ *
+ * Ejecución:
+ * mvn -Pbenchmarks test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=co.edu.uniandes.dse.TallerPruebas.benchmarks.HttpLoadTest
+ *     -Dexec.args="1000 30"
+ */
+public class HttpLoadTest {
+
+    private static final int ACCOUNTS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+
+        run("platform", clients, seconds, "spring.threads.virtual.enabled=false");
+        run("virtual", clients, seconds, "spring.profiles.active=virtual");
+    }
+
+    private static void run(String mode, int clients, int seconds, String modeProperty) throws Exception {
+        BenchmarkData data = BenchmarkData.start(WebApplicationType.SERVLET, ACCOUNTS / 2, 2, 1, 20,
+                "server.port=0", "sql.budget.mode=LOG", modeProperty);
+        try {
+            long[] accountIds = data.getAccountIds();
+            String base = "http://localhost:" + data.getLocalPort() + "/api/accounts/";
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(10)).build();
+
+            // calentamiento corto para cargar clases y llenar el pool
+            drive(client, base, accountIds, Math.min(clients, 50), 5, new Result());
+
+            Result result = new Result();
+            drive(client, base, accountIds, clients, seconds, result);
+            result.print(mode, clients, seconds);
+        } finally {
+            data.close();
+        }
+    }
+
+    private static void drive(HttpClient client, String base, long[] accountIds, int clients, int seconds,
+            Result result) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long id = accountIds[ThreadLocalRandom.current().nextInt(accountIds.length)];
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(base + id))
+                                .timeout(Duration.ofSeconds(30)).GET().build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            result.record(response.statusCode(), System.nanoTime() - start);
+                        } catch (Exception e) {
+                            result.failures.increment();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Resultados acumulados de una corrida.
+     */
+    private static final class Result {
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final List<Long> latencies = new ArrayList<>();
+        private final AtomicLong sampled = new AtomicLong();
+
+        void record(int status, long nanos) {
+            if (status == 200) {
+                ok.increment();
+            } else if (status == 503) {
+                rejected.increment();
+            } else {
+                failures.increment();
+            }
+            // se muestrea una de cada 10 latencias para acotar la memoria
+            if (sampled.incrementAndGet() % 10 == 0) {
+                synchronized (latencies) {
+                    latencies.add(nanos);
+                }
+            }
+        }
+
+        void print(String mode, int clients, int seconds) {
+            List<Long> sorted;
+            synchronized (latencies) {
+                sorted = new ArrayList<>(latencies);
+            }
+            sorted.sort(null);
+            System.out.printf("%-8s clientes=%d ok/s=%.0f 503=%d fallos=%d p50=%.1fms p99=%.1fms%n", mode, clients,
+                    ok.sum() / (double) seconds, rejected.sum(), failures.sum(), percentile(sorted, 0.50),
+                    percentile(sorted, 0.99));
+        }
+
+        private static double percentile(List<Long> sorted, double p) {
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1);
+            return sorted.get(Math.max(index, 0)) / 1_000_000.0;
+        }
+    }
+}
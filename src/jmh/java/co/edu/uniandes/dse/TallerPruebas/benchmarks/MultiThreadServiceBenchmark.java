@@ -0,0 +1,10 @@
+package co.edu.uniandes.dse.TallerPruebas.benchmarks;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmarks de los servicios con un hilo por núcleo disponible
+ */
+@Threads(Threads.MAX)
+public class MultiThreadServiceBenchmark extends ServiceBenchmark {
+}
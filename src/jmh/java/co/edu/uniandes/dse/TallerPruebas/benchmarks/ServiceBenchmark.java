@@ -0,0 +1,97 @@
+package co.edu.uniandes.dse.TallerPruebas.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.services.PocketService;
+import co.edu.uniandes.dse.TallerPruebas.services.TransactionService;
+
+/**
+ * Benchmarks de los caminos críticos de los servicios. Mide throughput y
+ * latencia (Mode.SampleTime reporta los percentiles p50/p90/p99/p99.9). Las
+ * subclases fijan el número de hilos.
+ *
+ * ./mvnw -Pbenchmarks test -Djmh.args="ServiceBenchmark -p users=1000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public abstract class ServiceBenchmark {
+
+    @Param("200")
+    public int users;
+
+    @Param("2")
+    public int accountsPerUser;
+
+    @Param("3")
+    public int pocketsPerAccount;
+
+    @Param("20")
+    public int transactionsPerAccount;
+
+    private BenchmarkData data;
+    private TransactionService transactionService;
+    private PocketService pocketService;
+    private long[] accountIds;
+    private long[][] pocketIds;
+    private final AtomicLong pocketNames = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = BenchmarkData.start(users, accountsPerUser, pocketsPerAccount, transactionsPerAccount);
+        transactionService = data.getBean(TransactionService.class);
+        pocketService = data.getBean(PocketService.class);
+        accountIds = data.getAccountIds();
+        pocketIds = data.getPocketIds();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        data.close();
+    }
+
+    @Benchmark
+    public TransactionEntity transferirFondos() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(accountIds.length);
+        int destination = (source + 1 + random.nextInt(accountIds.length - 1)) % accountIds.length;
+        return transactionService.transferirFondos(accountIds[source], accountIds[destination], 1.0);
+    }
+
+    @Benchmark
+    public PocketEntity cargarBolsillo() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int account = random.nextInt(accountIds.length);
+        long pocket = pocketIds[account][random.nextInt(pocketIds[account].length)];
+        return pocketService.cargarBolsillo(accountIds[account], pocket, 1.0);
+    }
+
+    @Benchmark
+    public PocketEntity createPocket() throws Exception {
+        int account = ThreadLocalRandom.current().nextInt(accountIds.length);
+        PocketEntity pocket = new PocketEntity();
+        pocket.setNombre("Bench " + pocketNames.incrementAndGet());
+        pocket.setSaldo(0.0);
+        pocket.setMetaAhorro(1000.0);
+        return pocketService.createPocket(accountIds[account], pocket);
+    }
+}
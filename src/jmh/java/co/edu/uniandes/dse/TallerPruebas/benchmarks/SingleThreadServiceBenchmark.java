@@ -0,0 +1,10 @@
+package co.edu.uniandes.dse.TallerPruebas.benchmarks;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmarks de los servicios con un solo hilo
+ */
+@Threads(1)
+public class SingleThreadServiceBenchmark extends ServiceBenchmark {
+}
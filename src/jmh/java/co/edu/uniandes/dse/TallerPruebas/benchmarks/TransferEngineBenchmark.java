@@ -0,0 +1,83 @@
+package co.edu.uniandes.dse.TallerPruebas.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.services.TransactionService;
+import co.edu.uniandes.dse.TallerPruebas.transfers.TransferEngine;
+import co.edu.uniandes.dse.TallerPruebas.transfers.TransferTicket;
+
+/**
+ * Compara transferirFondos (síncrono, un commit por transferencia) con el
+ * motor de transferencias por shards (commits agrupados). En el motor cada
+ * operación envía la transferencia y espera a que quede persistida.
+ *
+ * ./mvnw -Pbenchmarks test -Djmh.args="TransferEngineBenchmark -p shards=4,8"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(Threads.MAX)
+public class TransferEngineBenchmark {
+
+    @Param("1000")
+    public int accounts;
+
+    @Param("4")
+    public int shards;
+
+    private BenchmarkData data;
+    private TransactionService transactionService;
+    private TransferEngine transferEngine;
+    private long[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = BenchmarkData.start(accounts, 1, 0, 0, "transfers.engine.enabled=true",
+                "transfers.engine.shards=" + shards);
+        transactionService = data.getBean(TransactionService.class);
+        transferEngine = data.getBean(TransferEngine.class);
+        accountIds = data.getAccountIds();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        data.close();
+    }
+
+    private long[] pair() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(accountIds.length);
+        int destination = (source + 1 + random.nextInt(accountIds.length - 1)) % accountIds.length;
+        return new long[] { accountIds[source], accountIds[destination] };
+    }
+
+    @Benchmark
+    public TransactionEntity transferirFondos() throws Exception {
+        long[] pair = pair();
+        return transactionService.transferirFondos(pair[0], pair[1], 1.0);
+    }
+
+    @Benchmark
+    public TransferTicket transferEngine() throws Exception {
+        long[] pair = pair();
+        return transferEngine.submit(pair[0], pair[1], 1.0).getCompletion().get(30, TimeUnit.SECONDS);
+    }
+}
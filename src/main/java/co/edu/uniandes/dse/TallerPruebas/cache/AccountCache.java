@@ -0,0 +1,191 @@
+package co.edu.uniandes.dse.TallerPruebas.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+
+/**
+ * Caché de lectura de los datos de validación de las cuentas
+ * ({@link AccountSnapshot}). También recuerda las cuentas que no existen, de
+ * modo que una operación sobre una cuenta inexistente o bloqueada se rechaza
+ * sin ir a la base de datos.
+ *
+ * Es un LRU acotado por tamaño y con tiempo de vida por entrada. Las entradas
+ * se invalidan cuando {@link AccountCacheListener} detecta que una cuenta se
+ * guardó con datos distintos a los de la caché.
+ */
+@Component
+public class AccountCache {
+
+    private final AccountRepository accountRepository;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final Map<Long, Entry> entries;
+
+    /**
+     * Se incrementa con cada invalidación. Una carga que empezó antes de una
+     * invalidación no guarda su resultado, porque pudo haber leído datos viejos.
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final class Entry {
+        private final AccountSnapshot snapshot;
+        private final long expiresAt;
+
+        private Entry(AccountSnapshot snapshot, long expiresAt) {
+            this.snapshot = snapshot;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @Autowired
+    public AccountCache(AccountRepository accountRepository, @Value("${accounts.cache.max-size:10000}") int maxSize,
+            @Value("${accounts.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.accountRepository = accountRepository;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > AccountCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Consulta los datos de validación de una cuenta, cargándolos si no están en caché.
+     *
+     * @param accountId id de la cuenta
+     * @return los datos de la cuenta, o vacío si la cuenta no existe
+     */
+    public Optional<AccountSnapshot> get(Long accountId) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(accountId);
+            if (entry != null) {
+                if (entry.expiresAt - now > 0) {
+                    hits.increment();
+                    return Optional.ofNullable(entry.snapshot);
+                }
+                entries.remove(accountId);
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        long loadEpoch = epoch.get();
+        Optional<AccountSnapshot> snapshot = accountRepository.findSnapshotById(accountId);
+        synchronized (entries) {
+            if (epoch.get() == loadEpoch) {
+                entries.put(accountId, new Entry(snapshot.orElse(null), System.nanoTime() + ttlNanos));
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Invalida la entrada de una cuenta.
+     *
+     * @param accountId id de la cuenta
+     */
+    public void evict(Long accountId) {
+        synchronized (entries) {
+            epoch.incrementAndGet();
+            if (entries.remove(accountId) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Notifica que una cuenta se guardó. Si cambiaron los datos en caché, la
+     * entrada se invalida de inmediato y otra vez al terminar la transacción,
+     * para descartar lo que otro hilo haya cargado antes del commit.
+     *
+     * @param account la cuenta guardada
+     */
+    public void onAccountWritten(AccountEntity account) {
+        Long accountId = account.getId();
+        if (accountId == null) {
+            return;
+        }
+        AccountSnapshot current = new AccountSnapshot(accountId, account.getNumeroCuenta(), account.getEstado(),
+                account.getUser() == null ? null : account.getUser().getId());
+        synchronized (entries) {
+            Entry entry = entries.get(accountId);
+            if (entry != null && Objects.equals(entry.snapshot, current)) {
+                return;
+            }
+        }
+
+        invalidate(accountId);
+    }
+
+    /**
+     * Notifica que una cuenta se eliminó.
+     *
+     * @param account la cuenta eliminada
+     */
+    public void onAccountRemoved(AccountEntity account) {
+        if (account.getId() != null) {
+            invalidate(account.getId());
+        }
+    }
+
+    private void invalidate(Long accountId) {
+        evict(accountId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(accountId);
+                }
+            });
+        }
+    }
+
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,36 @@
+package co.edu.uniandes.dse.TallerPruebas.cache;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+
+/**
+ * Listener JPA que avisa a {@link AccountCache} cada vez que se guarda o se
+ * elimina una cuenta. La caché se obtiene de forma perezosa porque Hibernate
+ * crea el listener antes de que exista el repositorio del que depende.
+ */
+public class AccountCacheListener {
+
+    @Autowired
+    private ObjectProvider<AccountCache> accountCache;
+
+    @PostPersist
+    @PostUpdate
+    public void accountWritten(AccountEntity account) {
+        if (accountCache != null) {
+            accountCache.ifAvailable(cache -> cache.onAccountWritten(account));
+        }
+    }
+
+    @PostRemove
+    public void accountRemoved(AccountEntity account) {
+        if (accountCache != null) {
+            accountCache.ifAvailable(cache -> cache.onAccountRemoved(account));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package co.edu.uniandes.dse.TallerPruebas.cache;
+
+import lombok.Value;
+
+/**
+ * Datos de una cuenta que cambian rara vez y bastan para validar una operación
+ * (existencia, estado y dueño). No incluye el saldo.
+ */
+@Value
+public class AccountSnapshot {
+
+    Long id;
+    String numeroCuenta;
+    String estado;
+    Long userId;
+
+    public boolean isBloqueada() {
+        return "BLOQUEADA".equals(estado);
+    }
+}
@@ -0,0 +1,159 @@
+package co.edu.uniandes.dse.TallerPruebas.concurrency;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Administrador de bloqueos por cuenta. Las cuentas se reparten en un número
+ * fijo de franjas (stripes); cada franja tiene su propio candado, de modo que
+ * las operaciones sobre cuentas disjuntas no compiten entre sí.
+ *
+ * Los candados se toman siempre en orden ascendente de franja, lo que evita el
+ * interbloqueo entre transferencias A→B y B→A, y se liberan cuando termina la
+ * transacción que los pidió (después del commit o del rollback), para que
+ * ninguna otra operación lea el saldo antes de que el cambio sea visible.
+ */
+@Slf4j
+@Component
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public AccountLockManager(@Value("${accounts.locks.stripes:64}") int stripeCount,
+            @Value("${accounts.locks.timeout-ms:5000}") long timeoutMillis) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("El número de franjas debe ser mayor que cero");
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Bloquea las cuentas indicadas hasta que termine la transacción actual.
+     *
+     * @param accountIds ids de las cuentas a bloquear (se ignoran los nulos)
+     * @throws IllegalStateException si no hay una transacción activa
+     * @throws CannotAcquireLockException si no se obtiene algún candado a tiempo
+     */
+    public void lockForTransaction(Long... accountIds) {
+        lockForTransaction(Arrays.asList(accountIds));
+    }
+
+    /**
+     * Bloquea las cuentas indicadas hasta que termine la transacción actual.
+     *
+     * @param accountIds ids de las cuentas a bloquear (se ignoran los nulos)
+     * @throws IllegalStateException si no hay una transacción activa
+     * @throws CannotAcquireLockException si no se obtiene algún candado a tiempo
+     */
+    public void lockForTransaction(Collection<Long> accountIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Los bloqueos de cuenta requieren una transacción activa");
+        }
+
+        int[] indexes = accountIds.stream().filter(Objects::nonNull).mapToInt(this::stripeOf).distinct().sorted()
+                .toArray();
+        ReentrantLock[] acquired = new ReentrantLock[indexes.length];
+        int count = 0;
+        try {
+            for (int index : indexes) {
+                acquire(stripes[index]);
+                acquired[count++] = stripes[index];
+            }
+        } catch (RuntimeException e) {
+            release(acquired, count);
+            throw e;
+        }
+
+        final int held = count;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(acquired, held);
+            }
+        });
+    }
+
+    private void acquire(ReentrantLock lock) {
+        acquisitions.increment();
+        if (lock.tryLock()) {
+            return;
+        }
+
+        contendedAcquisitions.increment();
+        long start = System.nanoTime();
+        boolean locked;
+        try {
+            locked = lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrumpido mientras se esperaba el bloqueo de la cuenta", e);
+        } finally {
+            long waited = System.nanoTime() - start;
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+
+        if (!locked) {
+            log.warn("No fue posible bloquear la cuenta después de {} ms", timeoutMillis);
+            throw new CannotAcquireLockException("No fue posible bloquear la cuenta, intente de nuevo");
+        }
+    }
+
+    private static void release(ReentrantLock[] locks, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    private int stripeOf(Long accountId) {
+        long h = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (stripes.length - 1);
+    }
+
+    public int getStripes() {
+        return stripes.length;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getContendedAcquisitions() {
+        return contendedAcquisitions.sum();
+    }
+
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.sum();
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+}
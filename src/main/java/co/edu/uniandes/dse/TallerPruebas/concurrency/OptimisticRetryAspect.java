@@ -0,0 +1,127 @@
+package co.edu.uniandes.dse.TallerPruebas.concurrency;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reintenta los métodos anotados con {@link RetryOnConflict} cuando la
+ * transacción falla por un conflicto de versión.
+ *
+ * El aspecto se ejecuta antes que el interceptor transaccional, de modo que
+ * cada intento corre en una transacción nueva y vuelve a leer los saldos. Si
+ * el método se invoca dentro de una transacción ya existente no se reintenta,
+ * porque esa transacción queda marcada para rollback. Entre intentos se espera
+ * un tiempo aleatorio (full jitter) acotado por un backoff exponencial; si el
+ * hilo se interrumpe durante la espera, se propaga el conflicto sin reintentar
+ * y el hilo queda marcado como interrumpido.
+ *
+ * Los reintentos y los abandonos se cuentan por operación, también en
+ * Micrometer (taller.retry.retries y taller.retry.give-ups).
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class OptimisticRetryAspect {
+
+    @Value("${accounts.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${accounts.retry.initial-backoff-ms:10}")
+    private long initialBackoffMillis;
+
+    @Value("${accounts.retry.max-backoff-ms:200}")
+    private long maxBackoffMillis;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, LongAdder> retries = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> giveUps = new ConcurrentHashMap<>();
+
+    @Around("@annotation(co.edu.uniandes.dse.TallerPruebas.concurrency.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String operation = joinPoint.getSignature().getName();
+        for (int attempt = 1;; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    counter(giveUps, operation).increment();
+                    record("taller.retry.give-ups", operation);
+                    log.warn("Conflicto de concurrencia en {} con argumentos {} después de {} intentos", operation,
+                            Arrays.toString(joinPoint.getArgs()), attempt);
+                    throw e;
+                }
+                try {
+                    backoff(attempt);
+                } catch (InterruptedException interrupted) {
+                    // el hilo debe terminar: se conserva la interrupción y se propaga el conflicto sin reintentar
+                    Thread.currentThread().interrupt();
+                    e.addSuppressed(interrupted);
+                    throw e;
+                }
+                counter(retries, operation).increment();
+                record("taller.retry.retries", operation);
+                log.debug("Conflicto de concurrencia en {}, reintento {}", operation, attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) throws InterruptedException {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    private void record(String meter, String operation) {
+        if (meterRegistry != null) {
+            meterRegistry.counter(meter, "operation", operation).increment();
+        }
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> counters, String operation) {
+        return counters.computeIfAbsent(operation, k -> new LongAdder());
+    }
+
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((operation, counter) -> result.put(operation, counter.sum()));
+        return result;
+    }
+
+    /**
+     * @return número de reintentos por operación
+     */
+    public Map<String, Long> getRetries() {
+        return snapshot(retries);
+    }
+
+    /**
+     * @return número de operaciones que agotaron sus intentos, por operación
+     */
+    public Map<String, Long> getGiveUps() {
+        return snapshot(giveUps);
+    }
+}
@@ -0,0 +1,17 @@
+package co.edu.uniandes.dse.TallerPruebas.concurrency;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca un método transaccional que debe reintentarse completo cuando falla
+ * por un conflicto de versión (bloqueo optimista). Ver {@link OptimisticRetryAspect}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
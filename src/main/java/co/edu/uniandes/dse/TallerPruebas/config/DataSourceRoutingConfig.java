@@ -0,0 +1,115 @@
+package co.edu.uniandes.dse.TallerPruebas.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import co.edu.uniandes.dse.TallerPruebas.datasource.H2ReplicaSynchronizer;
+import co.edu.uniandes.dse.TallerPruebas.datasource.ReadYourWritesFilter;
+import co.edu.uniandes.dse.TallerPruebas.datasource.ReplicaCacheModeJpaDialect;
+import co.edu.uniandes.dse.TallerPruebas.datasource.ReplicaRoutingDataSource;
+import co.edu.uniandes.dse.TallerPruebas.datasource.StalenessPolicy;
+
+/**
+ * Separa lecturas y escrituras cuando datasource.routing.enabled=true: las
+ * transacciones readOnly (historial, consultas de usuarios y cuentas) van al
+ * pool de la réplica y las demás al de la primaria.
+ *
+ * La primaria se configura con spring.datasource.* y la réplica con
+ * datasource.replica.*; cada una tiene su propio pool Hikari
+ * (spring.datasource.hikari.* y datasource.replica.hikari.*). Con el perfil
+ * replica-local la réplica es otra base H2 en memoria que se copia de la
+ * primaria cada datasource.replica.sync-interval-ms. Las transacciones que
+ * leen de la réplica no escriben en la caché de segundo nivel.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties primaryDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(
+            @Qualifier("primaryDataSourceProperties") DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Qualifier("replicaDataSourceProperties") DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Usa ReplicaCacheModeJpaDialect en la fábrica de EntityManager; el gestor
+     * de transacciones toma el dialecto de ella.
+     */
+    @Bean
+    public static BeanPostProcessor replicaCacheModeJpaDialect() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractEntityManagerFactoryBean entityManagerFactory) {
+                    entityManagerFactory.setJpaDialect(new ReplicaCacheModeJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${datasource.routing.staleness:READ_YOUR_WRITES}") StalenessPolicy policy,
+            @Value("${datasource.routing.read-your-writes-ms:5000}") long readYourWritesMillis,
+            @Value("${datasource.routing.client-header:X-Client-Id}") String clientHeader,
+            @Value("${datasource.routing.max-clients:100000}") int maxClients) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(
+                new ReadYourWritesFilter(policy, readYourWritesMillis, clientHeader, maxClients));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    @Profile("replica-local")
+    public H2ReplicaSynchronizer h2ReplicaSynchronizer(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica) {
+        return new H2ReplicaSynchronizer(primary, replica);
+    }
+}
@@ -0,0 +1,73 @@
+package co.edu.uniandes.dse.TallerPruebas.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountCache;
+import co.edu.uniandes.dse.TallerPruebas.concurrency.AccountLockManager;
+import co.edu.uniandes.dse.TallerPruebas.idempotency.IdempotencyStore;
+import co.edu.uniandes.dse.TallerPruebas.outbox.OutboxDispatcher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publica en Micrometer las estadísticas de los componentes propios. Las del
+ * pool de conexiones (hikaricp.*) y las de Hibernate (hibernate.*) las registra
+ * Spring Boot automáticamente.
+ */
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	public MeterBinder accountLockMetrics(AccountLockManager lockManager) {
+		return registry -> {
+			Gauge.builder("taller.locks.stripes", lockManager, AccountLockManager::getStripes).register(registry);
+			FunctionCounter.builder("taller.locks.acquisitions", lockManager, AccountLockManager::getAcquisitions)
+					.register(registry);
+			FunctionCounter.builder("taller.locks.contended", lockManager, AccountLockManager::getContendedAcquisitions)
+					.register(registry);
+			FunctionCounter.builder("taller.locks.wait", lockManager, m -> m.getTotalWaitNanos() / 1e9)
+					.baseUnit("seconds").register(registry);
+		};
+	}
+
+	@Bean
+	public MeterBinder accountCacheMetrics(AccountCache accountCache) {
+		return registry -> {
+			Gauge.builder("taller.account-cache.size", accountCache, AccountCache::getSize).register(registry);
+			FunctionCounter.builder("taller.account-cache.requests", accountCache, AccountCache::getHits)
+					.tag("result", "hit").register(registry);
+			FunctionCounter.builder("taller.account-cache.requests", accountCache, AccountCache::getMisses)
+					.tag("result", "miss").register(registry);
+			FunctionCounter.builder("taller.account-cache.evictions", accountCache, AccountCache::getEvictions)
+					.register(registry);
+		};
+	}
+
+	@Bean
+	public MeterBinder idempotencyMetrics(IdempotencyStore idempotencyStore) {
+		return registry -> {
+			Gauge.builder("taller.idempotency.window.size", idempotencyStore, IdempotencyStore::getSize)
+					.register(registry);
+			FunctionCounter.builder("taller.idempotency.requests", idempotencyStore, IdempotencyStore::getHits)
+					.tag("result", "hit").register(registry);
+			FunctionCounter.builder("taller.idempotency.requests", idempotencyStore, IdempotencyStore::getMisses)
+					.tag("result", "miss").register(registry);
+		};
+	}
+
+	@Bean
+	public MeterBinder outboxMetrics(OutboxDispatcher dispatcher) {
+		return registry -> {
+			FunctionCounter.builder("taller.outbox.events", dispatcher, OutboxDispatcher::getEntregados)
+					.tag("result", "delivered").register(registry);
+			FunctionCounter.builder("taller.outbox.events", dispatcher, OutboxDispatcher::getFallidos)
+					.tag("result", "failed").register(registry);
+			FunctionCounter.builder("taller.outbox.events", dispatcher, OutboxDispatcher::getDescartados)
+					.tag("result", "dead").register(registry);
+			Gauge.builder("taller.outbox.lag", dispatcher, d -> d.getLagMillis() / 1e3).baseUnit("seconds")
+					.register(registry);
+		};
+	}
+}
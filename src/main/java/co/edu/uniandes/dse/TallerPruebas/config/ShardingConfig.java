@@ -0,0 +1,126 @@
+package co.edu.uniandes.dse.TallerPruebas.config;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import co.edu.uniandes.dse.TallerPruebas.repositories.ShardSlotRepository;
+import co.edu.uniandes.dse.TallerPruebas.sharding.AccountShardFilter;
+import co.edu.uniandes.dse.TallerPruebas.sharding.H2ShardSchemaInitializer;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardContext;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardRebalancer;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardRouter;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardRoutingDataSource;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardTemplate;
+
+/**
+ * Reparte cuentas, bolsillos y transacciones en varias bases cuando
+ * sharding.enabled=true. sharding.shards lista los shards en orden; el primero
+ * es el catálogo, donde queda lo que no pertenece a una cuenta. Cada shard se
+ * configura con sharding.datasources.{shard}.* (url, username, password,
+ * driver-class-name) y todos comparten sharding.hikari.*.
+ *
+ * Con el perfil shards-local los shards son bases H2 en memoria que reciben
+ * el esquema del catálogo al iniciar. No se combina con datasource.routing.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource(Environment environment,
+            @Value("${sharding.shards}") List<String> shards) {
+        Binder binder = Binder.get(environment);
+        Map<String, DataSourceProperties> propiedades = binder.bind("sharding.datasources",
+                Bindable.mapOf(String.class, DataSourceProperties.class)).orElse(Map.of());
+
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        for (String shard : shards) {
+            DataSourceProperties properties = propiedades.get(shard);
+            if (properties == null) {
+                throw new IllegalStateException("Falta sharding.datasources." + shard + ".url");
+            }
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .build();
+            binder.bind("sharding.hikari", Bindable.ofInstance(dataSource));
+            dataSource.setPoolName(shard);
+            dataSources.put(shard, dataSource);
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(dataSources, shards.get(0));
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public ShardRouter shardRouter(@Value("${sharding.shards}") List<String> shards) {
+        ShardRouter router = new ShardRouter(shards);
+        ShardContext.instalar(router);
+        return router;
+    }
+
+    @PreDestroy
+    public void desinstalar() {
+        ShardContext.instalar(null);
+    }
+
+    @Bean
+    public ShardTemplate shardTemplate(ShardRouter router, PlatformTransactionManager transactionManager) {
+        return new ShardTemplate(router, transactionManager);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardRouter router, ShardRoutingDataSource routing,
+            ShardTemplate shardTemplate, ShardSlotRepository slotRepository) {
+        ShardRebalancer rebalancer = new ShardRebalancer(router, routing.getShards(), shardTemplate, slotRepository);
+        rebalancer.cargarAsignaciones();
+        return rebalancer;
+    }
+
+    @Bean
+    public FilterRegistrationBean<AccountShardFilter> accountShardFilter(ShardRouter router) {
+        FilterRegistrationBean<AccountShardFilter> registration = new FilterRegistrationBean<>(
+                new AccountShardFilter(router));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    @Profile("shards-local")
+    @DependsOn("entityManagerFactory")
+    public H2ShardSchemaInitializer h2ShardSchemaInitializer(ShardRoutingDataSource routing, ShardRouter router)
+            throws SQLException {
+        H2ShardSchemaInitializer initializer = new H2ShardSchemaInitializer(routing.getShards(),
+                router.getCatalogo());
+        initializer.inicializar();
+        return initializer;
+    }
+}
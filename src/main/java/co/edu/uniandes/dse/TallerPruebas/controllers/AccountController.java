@@ -0,0 +1,97 @@
+package co.edu.uniandes.dse.TallerPruebas.controllers;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.AccountDetailDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.BalanceDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.DailyAggregateDTO;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.services.AccountService;
+import co.edu.uniandes.dse.TallerPruebas.services.DailyAggregateService;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService;
+
+/**
+ * Controlador de las cuentas
+ */
+@RestController
+@RequestMapping("/accounts")
+public class AccountController {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private DailyAggregateService dailyAggregateService;
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    /**
+     * Consulta una cuenta con sus bolsillos y sus transacciones más recientes.
+     * Responde 304 sin cargar la cuenta si el If-None-Match coincide con su ETag.
+     */
+    @GetMapping("/{accountId}")
+    public ResponseEntity<AccountDetailDTO> findOne(@PathVariable Long accountId,
+            @RequestParam(defaultValue = "10") int ultimas, WebRequest request)
+            throws EntityNotFoundException, BusinessLogicException {
+        String etag = accountService.getEtagWithPockets(accountId);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        AccountDetailDTO account = modelMapper.map(accountService.getAccountWithPockets(accountId),
+                AccountDetailDTO.class);
+        account.setUltimasTransacciones(accountService.getRecentTransactions(accountId, ultimas));
+        return ResponseEntity.ok().eTag(etag).body(account);
+    }
+
+    /**
+     * Consulta el saldo de una cuenta según el libro mayor, actual o a una fecha.
+     * Responde 304 sin consultar el libro si el If-None-Match coincide con la ETag de la cuenta.
+     */
+    @GetMapping("/{accountId}/balance")
+    public ResponseEntity<BalanceDTO> balance(@PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date fecha,
+            WebRequest request) throws EntityNotFoundException, BusinessLogicException {
+        String etag = accountService.getEtag(accountId);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        BalanceDTO balance = new BalanceDTO();
+        balance.setLibro(LedgerService.LIBRO_CUENTA);
+        balance.setTitularId(accountId);
+        balance.setSaldo(ledgerService.getSaldo(LedgerService.LIBRO_CUENTA, accountId, fecha));
+        balance.setFecha(fecha != null ? fecha : new Date());
+        return ResponseEntity.ok().eTag(etag).body(balance);
+    }
+
+    /**
+     * Consulta los totales diarios de entradas y salidas de una cuenta en un rango de días.
+     */
+    @GetMapping("/{accountId}/daily")
+    @ResponseStatus(code = HttpStatus.OK)
+    public List<DailyAggregateDTO> daily(@PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta)
+            throws EntityNotFoundException, BusinessLogicException {
+        return dailyAggregateService.getTotalesDiarios(accountId, desde, hasta);
+    }
+}
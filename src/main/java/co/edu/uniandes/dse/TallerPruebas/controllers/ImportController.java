@@ -0,0 +1,47 @@
+package co.edu.uniandes.dse.TallerPruebas.controllers;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.ImportReportDTO;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.imports.BulkImportService;
+import co.edu.uniandes.dse.TallerPruebas.imports.ImportFormat;
+
+/**
+ * Controlador de la importación masiva de usuarios, cuentas y bolsillos
+ */
+@RestController
+@RequestMapping("/imports")
+public class ImportController {
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    /**
+     * Importa el archivo enviado como cuerpo de la petición. El cuerpo se lee
+     * en streaming, sin cargarlo completo en memoria.
+     */
+    @PostMapping
+    @ResponseStatus(code = HttpStatus.OK)
+    public ImportReportDTO importar(@RequestParam(defaultValue = "ndjson") String format, HttpServletRequest request)
+            throws BusinessLogicException, IOException {
+        ImportFormat importFormat;
+        try {
+            importFormat = ImportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessLogicException("El formato debe ser csv o ndjson");
+        }
+        return bulkImportService.importar(request.getInputStream(), importFormat);
+    }
+}
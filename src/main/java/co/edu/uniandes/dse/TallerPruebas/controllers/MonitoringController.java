@@ -0,0 +1,103 @@
+package co.edu.uniandes.dse.TallerPruebas.controllers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountCache;
+import co.edu.uniandes.dse.TallerPruebas.concurrency.AccountLockManager;
+import co.edu.uniandes.dse.TallerPruebas.concurrency.OptimisticRetryAspect;
+
+/**
+ * Expone estadísticas internas de la aplicación para dimensionar su configuración
+ */
+@RestController
+@RequestMapping("/monitoring")
+public class MonitoringController {
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private OptimisticRetryAspect optimisticRetryAspect;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @GetMapping("/locks")
+    @ResponseStatus(code = HttpStatus.OK)
+    public Map<String, Object> locks() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("stripes", accountLockManager.getStripes());
+        map.put("acquisitions", accountLockManager.getAcquisitions());
+        map.put("contendedAcquisitions", accountLockManager.getContendedAcquisitions());
+        map.put("totalWaitMillis", accountLockManager.getTotalWaitNanos() / 1_000_000);
+        map.put("maxWaitMillis", accountLockManager.getMaxWaitNanos() / 1_000_000);
+        return map;
+    }
+
+    @GetMapping("/retries")
+    @ResponseStatus(code = HttpStatus.OK)
+    public Map<String, Object> retries() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("retries", optimisticRetryAspect.getRetries());
+        map.put("giveUps", optimisticRetryAspect.getGiveUps());
+        return map;
+    }
+
+    @GetMapping("/account-cache")
+    @ResponseStatus(code = HttpStatus.OK)
+    public Map<String, Object> accountCache() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("size", accountCache.getSize());
+        map.put("maxSize", accountCache.getMaxSize());
+        map.put("hits", accountCache.getHits());
+        map.put("misses", accountCache.getMisses());
+        map.put("evictions", accountCache.getEvictions());
+        return map;
+    }
+
+    @GetMapping("/hibernate-cache")
+    @ResponseStatus(code = HttpStatus.OK)
+    public Map<String, Object> hibernateCache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> map = new HashMap<>();
+        map.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        map.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        map.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        map.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+        map.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        map.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+
+        Map<String, Object> regions = new HashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> regionMap = new HashMap<>();
+            regionMap.put("hits", region.getHitCount());
+            regionMap.put("misses", region.getMissCount());
+            regionMap.put("puts", region.getPutCount());
+            regionMap.put("elementsInMemory", region.getElementCountInMemory());
+            regions.put(regionName, regionMap);
+        }
+        map.put("regions", regions);
+        return map;
+    }
+}
@@ -0,0 +1,70 @@
+package co.edu.uniandes.dse.TallerPruebas.controllers;
+
+import java.util.List;
+
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.PocketDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.PocketLoadDTO;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.services.AccountService;
+import co.edu.uniandes.dse.TallerPruebas.services.PocketService;
+
+/**
+ * Controlador de los bolsillos de una cuenta
+ */
+@RestController
+@RequestMapping("/accounts")
+public class PocketController {
+
+    @Autowired
+    private PocketService pocketService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    /**
+     * Consulta los bolsillos de una cuenta. Responde 304 sin cargarlos si el
+     * If-None-Match coincide con su ETag.
+     */
+    @GetMapping("/{accountId}/pockets")
+    public ResponseEntity<List<PocketDTO>> findAll(@PathVariable Long accountId, WebRequest request)
+            throws EntityNotFoundException {
+        String etag = accountService.getEtagWithPockets(accountId);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        List<PocketDTO> pockets = pocketService.getPockets(accountId).stream()
+                .map(pocket -> modelMapper.map(pocket, PocketDTO.class)).toList();
+        return ResponseEntity.ok().eTag(etag).body(pockets);
+    }
+
+    /**
+     * Carga dinero de la cuenta al bolsillo. Con el encabezado
+     * Idempotency-Key, un reintento no vuelve a cargar el bolsillo.
+     */
+    @PostMapping("/{accountId}/pockets/{pocketId}/loads")
+    @ResponseStatus(code = HttpStatus.OK)
+    public PocketDTO load(@PathVariable Long accountId, @PathVariable Long pocketId, @RequestBody PocketLoadDTO load,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey)
+            throws EntityNotFoundException, BusinessLogicException {
+        return modelMapper.map(pocketService.cargarBolsillo(accountId, pocketId, load.getMonto(), idempotencyKey),
+                PocketDTO.class);
+    }
+}
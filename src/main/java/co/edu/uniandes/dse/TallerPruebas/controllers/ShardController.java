@@ -0,0 +1,74 @@
+package co.edu.uniandes.dse.TallerPruebas.controllers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardRebalancer;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardRouter;
+
+/**
+ * Controlador para consultar el reparto de slots entre shards y moverlos
+ */
+@RestController
+@RequestMapping("/shards")
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardController {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    /**
+     * Consulta cuántos slots tiene cada shard.
+     */
+    @GetMapping
+    @ResponseStatus(code = HttpStatus.OK)
+    public Map<String, Integer> slots() {
+        return shardRouter.contarSlots();
+    }
+
+    /**
+     * Mueve un slot, con todas sus cuentas, al shard destino.
+     */
+    @PostMapping("/slots/{slot}")
+    @ResponseStatus(code = HttpStatus.OK)
+    public Map<String, Object> moverSlot(@PathVariable int slot, @RequestParam String destino)
+            throws BusinessLogicException {
+        if (slot < 0 || slot >= ShardRouter.SLOTS) {
+            throw new BusinessLogicException("El slot debe estar entre 0 y " + (ShardRouter.SLOTS - 1));
+        }
+        Map<String, Object> map = new HashMap<>();
+        map.put("slot", slot);
+        map.put("origen", shardRouter.ownerDe(slot));
+        map.put("destino", destino);
+        map.put("cuentas", shardRebalancer.moverSlot(slot, destino));
+        return map;
+    }
+
+    /**
+     * Mueve cantidad slots del shard origen al shard destino.
+     */
+    @PostMapping("/{origen}/rebalance")
+    @ResponseStatus(code = HttpStatus.OK)
+    public Map<String, Object> rebalancear(@PathVariable String origen, @RequestParam String destino,
+            @RequestParam int cantidad) throws BusinessLogicException {
+        Map<String, Object> map = new HashMap<>();
+        map.put("cuentas", shardRebalancer.moverSlots(origen, destino, cantidad));
+        map.put("slots", shardRouter.contarSlots());
+        return map;
+    }
+}
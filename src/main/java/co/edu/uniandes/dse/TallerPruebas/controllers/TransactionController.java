@@ -0,0 +1,129 @@
+package co.edu.uniandes.dse.TallerPruebas.controllers;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionHistoryDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionSummaryDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransferRequestDTO;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.services.AccountService;
+import co.edu.uniandes.dse.TallerPruebas.services.StatementExportService;
+import co.edu.uniandes.dse.TallerPruebas.services.StatementFormat;
+import co.edu.uniandes.dse.TallerPruebas.services.TransactionService;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardedTransferService;
+
+/**
+ * Controlador de las transacciones de una cuenta
+ */
+@RestController
+@RequestMapping("/accounts")
+public class TransactionController {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private StatementExportService statementExportService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Autowired(required = false)
+    private ShardedTransferService shardedTransferService;
+
+    /**
+     * Transfiere desde la cuenta hacia la cuenta destino del cuerpo. Con el
+     * encabezado Idempotency-Key, un reintento devuelve la transacción original.
+     * Con sharding, la cuenta destino puede estar en otro shard.
+     */
+    @PostMapping("/{accountId}/transfers")
+    @ResponseStatus(code = HttpStatus.CREATED)
+    public TransactionSummaryDTO transfer(@PathVariable Long accountId, @RequestBody TransferRequestDTO transfer,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey)
+            throws EntityNotFoundException, BusinessLogicException {
+        TransactionEntity transaction = shardedTransferService != null
+                ? shardedTransferService.transferirFondos(accountId, transfer.getDestinationId(), transfer.getMonto(),
+                        idempotencyKey)
+                : transactionService.transferirFondos(accountId, transfer.getDestinationId(), transfer.getMonto(),
+                        idempotencyKey);
+        return modelMapper.map(transaction, TransactionSummaryDTO.class);
+    }
+
+    /**
+     * Consulta una página del historial de transacciones de una cuenta.
+     * Para pedir la página siguiente se envía el siguienteCursor recibido.
+     * Responde 304 sin consultar el historial si el If-None-Match coincide con
+     * la ETag de la cuenta, que cambia con cada transacción.
+     */
+    @GetMapping("/{accountId}/transactions")
+    public ResponseEntity<TransactionHistoryDTO> findHistory(@PathVariable Long accountId,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date hasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size, WebRequest request)
+            throws EntityNotFoundException, BusinessLogicException {
+        String etag = accountService.getEtag(accountId);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag)
+                .body(transactionService.getHistorial(accountId, tipo, desde, hasta, cursor, size));
+    }
+
+    /**
+     * Exporta el historial completo de una cuenta en CSV o NDJSON, escribiendo
+     * directamente sobre la respuesta y opcionalmente comprimido con gzip.
+     */
+    @GetMapping("/{accountId}/transactions/export")
+    public void export(@PathVariable Long accountId, @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip, HttpServletResponse response)
+            throws EntityNotFoundException, BusinessLogicException, IOException {
+        StatementFormat statementFormat;
+        try {
+            statementFormat = StatementFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessLogicException("El formato debe ser csv o ndjson");
+        }
+
+        statementExportService.exportar(accountId, statementFormat, () -> {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(statementFormat.getContentType());
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"extracto-" + accountId + "." + statementFormat.getExtension() + "\"");
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                return new GZIPOutputStream(response.getOutputStream(), 8192);
+            }
+            return response.getOutputStream();
+        });
+    }
+}
@@ -0,0 +1,61 @@
+package co.edu.uniandes.dse.TallerPruebas.controllers;
+
+import java.util.Optional;
+
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.TransferRequestDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransferStatusDTO;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.transfers.TransferEngine;
+import co.edu.uniandes.dse.TallerPruebas.transfers.TransferTicket;
+
+/**
+ * Controlador del motor de transferencias asíncronas
+ */
+@RestController
+@RequestMapping("/transfers")
+@ConditionalOnProperty(name = "transfers.engine.enabled", havingValue = "true")
+public class TransferController {
+
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    /**
+     * Envía una transferencia y devuelve su id sin esperar a que se procese.
+     */
+    @PostMapping
+    @ResponseStatus(code = HttpStatus.ACCEPTED)
+    public TransferStatusDTO submit(@RequestBody TransferRequestDTO transfer) throws BusinessLogicException {
+        TransferTicket ticket = transferEngine.submit(transfer.getSourceId(), transfer.getDestinationId(),
+                transfer.getMonto());
+        return modelMapper.map(ticket, TransferStatusDTO.class);
+    }
+
+    /**
+     * Consulta el estado de una transferencia enviada.
+     */
+    @GetMapping("/{transferId}")
+    @ResponseStatus(code = HttpStatus.OK)
+    public TransferStatusDTO findOne(@PathVariable String transferId) throws EntityNotFoundException {
+        Optional<TransferTicket> ticket = transferEngine.getTicket(transferId);
+        if (ticket.isEmpty()) {
+            throw new EntityNotFoundException("La transferencia no existe");
+        }
+        return modelMapper.map(ticket.get(), TransferStatusDTO.class);
+    }
+}
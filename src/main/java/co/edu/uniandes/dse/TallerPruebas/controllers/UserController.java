@@ -0,0 +1,37 @@
+package co.edu.uniandes.dse.TallerPruebas.controllers;
+
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.UserDetailDTO;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.services.UserService;
+
+/**
+ * Controlador de los usuarios
+ */
+@RestController
+@RequestMapping("/users")
+public class UserController {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    /**
+     * Consulta un usuario con sus cuentas.
+     */
+    @GetMapping("/{userId}")
+    @ResponseStatus(code = HttpStatus.OK)
+    public UserDetailDTO findOne(@PathVariable Long userId) throws EntityNotFoundException {
+        return modelMapper.map(userService.getUserWithAccounts(userId), UserDetailDTO.class);
+    }
+}
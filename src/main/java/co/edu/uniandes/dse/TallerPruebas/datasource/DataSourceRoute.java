@@ -0,0 +1,8 @@
+package co.edu.uniandes.dse.TallerPruebas.datasource;
+
+/**
+ * Pool al que se envía una transacción.
+ */
+public enum DataSourceRoute {
+    PRIMARY, REPLICA
+}
@@ -0,0 +1,62 @@
+package co.edu.uniandes.dse.TallerPruebas.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Réplica local para desarrollo y pruebas: copia periódicamente la base H2
+ * primaria en la réplica con SCRIPT y la vuelve a crear desde cero. Entre
+ * copias la réplica queda atrasada, como una réplica asíncrona real; durante
+ * la copia sus lecturas pueden fallar. No es para producción.
+ */
+@Slf4j
+public class H2ReplicaSynchronizer {
+
+    private final DataSource primary;
+    private final DataSource replica;
+
+    public H2ReplicaSynchronizer(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.sync-interval-ms:1000}")
+    public void run() {
+        try {
+            sincronizar();
+        } catch (SQLException e) {
+            log.error("Error copiando la base primaria en la réplica", e);
+        }
+    }
+
+    /**
+     * Copia el esquema y los datos de la primaria en la réplica.
+     */
+    public void sincronizar() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection connection = primary.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SCRIPT NOPASSWORDS NOSETTINGS")) {
+            while (rs.next()) {
+                script.add(rs.getString(1));
+            }
+        }
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+        log.debug("Réplica H2 sincronizada con {} sentencias", script.size());
+    }
+}
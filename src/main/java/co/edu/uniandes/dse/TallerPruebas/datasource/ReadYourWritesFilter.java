@@ -0,0 +1,83 @@
+package co.edu.uniandes.dse.TallerPruebas.datasource;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Aplica la política READ_YOUR_WRITES: recuerda cuándo escribió por última vez
+ * cada cliente y, durante readYourWritesMillis después, envía sus lecturas a
+ * la primaria para que vea sus propios cambios aunque la réplica esté atrasada.
+ *
+ * El cliente se identifica con el encabezado configurado o, si no lo envía,
+ * con su dirección IP. Solo cuentan las escrituras hechas en el hilo de la
+ * petición; las del motor de transferencias asíncrono no.
+ */
+@Slf4j
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final StalenessPolicy policy;
+    private final long readYourWritesNanos;
+    private final String clientHeader;
+    private final int maxClients;
+
+    /**
+     * Última escritura de cada cliente, en orden de acceso para descartar los más antiguos.
+     */
+    private final Map<String, Long> lastWrites;
+
+    public ReadYourWritesFilter(StalenessPolicy policy, long readYourWritesMillis, String clientHeader,
+            int maxClients) {
+        this.policy = policy;
+        this.readYourWritesNanos = readYourWritesMillis * 1_000_000;
+        this.clientHeader = clientHeader;
+        this.maxClients = maxClients;
+        this.lastWrites = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > ReadYourWritesFilter.this.maxClients;
+            }
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String client = clientId(request);
+        if (policy == StalenessPolicy.READ_YOUR_WRITES && escribioHacePoco(client)) {
+            RoutingContext.forcePrimary();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (policy == StalenessPolicy.READ_YOUR_WRITES && RoutingContext.hasWritten()) {
+                synchronized (lastWrites) {
+                    lastWrites.put(client, System.nanoTime());
+                }
+            }
+            RoutingContext.clear();
+        }
+    }
+
+    private boolean escribioHacePoco(String client) {
+        Long lastWrite;
+        synchronized (lastWrites) {
+            lastWrite = lastWrites.get(client);
+        }
+        return lastWrite != null && System.nanoTime() - lastWrite < readYourWritesNanos;
+    }
+
+    private String clientId(HttpServletRequest request) {
+        String header = request.getHeader(clientHeader);
+        return header != null && !header.isBlank() ? header : request.getRemoteAddr();
+    }
+}
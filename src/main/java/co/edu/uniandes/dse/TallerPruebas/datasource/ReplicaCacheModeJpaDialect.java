@@ -0,0 +1,63 @@
+package co.edu.uniandes.dse.TallerPruebas.datasource;
+
+import java.sql.SQLException;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * Dialecto JPA que impide que las transacciones enrutadas a la réplica
+ * escriban en la caché de segundo nivel.
+ *
+ * La réplica puede estar atrasada: si sus lecturas llenaran la caché de
+ * entidades o de consultas, una transacción posterior en la primaria leería
+ * de la caché un saldo viejo. Las sesiones de esas transacciones usan
+ * CacheStoreMode.BYPASS (CacheMode.GET en Hibernate), que sigue leyendo la
+ * caché pero no agrega ni reemplaza entradas, tanto en find como en las
+ * consultas. Con spring.jpa.open-in-view=false cada transacción abre su
+ * propia sesión y la cierra al terminar; aun así, al terminar se restaura el
+ * modo anterior, por si la sesión ya estaba ligada al hilo y sigue en la
+ * transacción siguiente.
+ */
+public class ReplicaCacheModeJpaDialect extends HibernateJpaDialect {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String STORE_MODE = AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE;
+
+    /**
+     * Estado de la transacción: el de HibernateJpaDialect y el modo de caché a restaurar.
+     */
+    private record ReplicaTransactionData(Object transactionData, EntityManager entityManager, Object anterior) {
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        // el mismo criterio con el que ReplicaRoutingDataSource elige la réplica
+        if (!definition.isReadOnly() || RoutingContext.isPrimaryForced()) {
+            return transactionData;
+        }
+        Object anterior = entityManager.getProperties().get(STORE_MODE);
+        entityManager.setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+        return new ReplicaTransactionData(transactionData, entityManager, anterior);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReplicaTransactionData replica) {
+            replica.entityManager().setProperty(STORE_MODE,
+                    replica.anterior() != null ? replica.anterior() : CacheStoreMode.USE);
+            super.cleanupTransaction(replica.transactionData());
+        } else {
+            super.cleanupTransaction(transactionData);
+        }
+    }
+}
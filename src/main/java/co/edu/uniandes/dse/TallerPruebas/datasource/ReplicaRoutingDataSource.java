@@ -0,0 +1,37 @@
+package co.edu.uniandes.dse.TallerPruebas.datasource;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource que envía las transacciones de solo lectura a la réplica y todo
+ * lo demás a la primaria.
+ *
+ * La ruta se decide al pedir la conexión, así que debe usarse detrás de un
+ * LazyConnectionDataSourceProxy: el gestor de transacciones pide la conexión
+ * antes de marcar la transacción como de solo lectura, pero el proxy solo la
+ * obtiene en la primera sentencia.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(DataSourceRoute.PRIMARY, primary, DataSourceRoute.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return DataSourceRoute.PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            RoutingContext.markWrite();
+            return DataSourceRoute.PRIMARY;
+        }
+        return RoutingContext.isPrimaryForced() ? DataSourceRoute.PRIMARY : DataSourceRoute.REPLICA;
+    }
+}
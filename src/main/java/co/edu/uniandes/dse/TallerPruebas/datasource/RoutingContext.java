@@ -0,0 +1,38 @@
+package co.edu.uniandes.dse.TallerPruebas.datasource;
+
+/**
+ * Estado de enrutamiento del hilo actual: si sus lecturas deben ir a la
+ * primaria y si ya abrió una transacción de escritura.
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = ThreadLocal.withInitial(() -> false);
+    private static final ThreadLocal<Boolean> WROTE = ThreadLocal.withInitial(() -> false);
+
+    private RoutingContext() {
+    }
+
+    /**
+     * Envía a la primaria también las transacciones de solo lectura del hilo.
+     */
+    public static void forcePrimary() {
+        PRIMARY_FORCED.set(true);
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY_FORCED.get();
+    }
+
+    static void markWrite() {
+        WROTE.set(true);
+    }
+
+    public static boolean hasWritten() {
+        return WROTE.get();
+    }
+
+    public static void clear() {
+        PRIMARY_FORCED.remove();
+        WROTE.remove();
+    }
+}
@@ -0,0 +1,14 @@
+package co.edu.uniandes.dse.TallerPruebas.datasource;
+
+/**
+ * Qué tan desactualizada puede ser una lectura de la réplica.
+ */
+public enum StalenessPolicy {
+    /** Toda transacción de solo lectura va a la réplica */
+    EVENTUAL,
+    /**
+     * Las lecturas de un cliente que escribió hace menos de
+     * datasource.routing.read-your-writes-ms van a la primaria
+     */
+    READ_YOUR_WRITES
+}
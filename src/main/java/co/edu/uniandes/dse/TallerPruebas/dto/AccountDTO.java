@@ -0,0 +1,15 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import lombok.Data;
+
+/**
+ * Datos básicos de una cuenta
+ */
+@Data
+public class AccountDTO {
+
+    private Long id;
+    private String numeroCuenta;
+    private Double saldo;
+    private String estado;
+}
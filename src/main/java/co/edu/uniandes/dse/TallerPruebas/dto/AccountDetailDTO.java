@@ -0,0 +1,18 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Cuenta con sus bolsillos y sus transacciones más recientes
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class AccountDetailDTO extends AccountDTO {
+
+    private List<PocketDTO> pockets = new ArrayList<>();
+    private List<TransactionSummaryDTO> ultimasTransacciones = new ArrayList<>();
+}
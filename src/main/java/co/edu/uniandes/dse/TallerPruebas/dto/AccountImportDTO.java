@@ -0,0 +1,18 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Cuenta de un archivo de importación masiva
+ */
+@Data
+public class AccountImportDTO {
+
+    private String numeroCuenta;
+    private Double saldo;
+    private String estado;
+    private List<PocketImportDTO> pockets = new ArrayList<>();
+}
@@ -0,0 +1,17 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import java.util.Date;
+
+import lombok.Data;
+
+/**
+ * Saldo de una cuenta o bolsillo según el libro mayor
+ */
+@Data
+public class BalanceDTO {
+
+    private String libro;
+    private Long titularId;
+    private Double saldo;
+    private Date fecha;
+}
@@ -0,0 +1,18 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import java.time.LocalDate;
+
+import lombok.Data;
+
+/**
+ * Totales de un día de las transacciones de una cuenta
+ */
+@Data
+public class DailyAggregateDTO {
+
+    private LocalDate dia;
+    private Double totalEntradas = 0.0;
+    private Long cantidadEntradas = 0L;
+    private Double totalSalidas = 0.0;
+    private Long cantidadSalidas = 0L;
+}
@@ -0,0 +1,21 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import lombok.Data;
+
+/**
+ * Resultado de una importación masiva. Los registros rechazados y su motivo
+ * quedan en archivoErrores.
+ */
+@Data
+public class ImportReportDTO {
+
+    private long leidos;
+    private long importados;
+    private long rechazados;
+    private long usuarios;
+    private long cuentas;
+    private long bolsillos;
+    private String archivoErrores;
+    private double segundos;
+    private double registrosPorSegundo;
+}
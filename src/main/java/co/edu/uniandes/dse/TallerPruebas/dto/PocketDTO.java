@@ -0,0 +1,15 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import lombok.Data;
+
+/**
+ * Datos de un bolsillo
+ */
+@Data
+public class PocketDTO {
+
+    private Long id;
+    private String nombre;
+    private Double saldo;
+    private Double metaAhorro;
+}
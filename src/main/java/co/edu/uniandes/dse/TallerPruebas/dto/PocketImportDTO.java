@@ -0,0 +1,14 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import lombok.Data;
+
+/**
+ * Bolsillo de un archivo de importación masiva
+ */
+@Data
+public class PocketImportDTO {
+
+    private String nombre;
+    private Double saldo;
+    private Double metaAhorro;
+}
@@ -0,0 +1,12 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import lombok.Data;
+
+/**
+ * Carga de dinero de una cuenta a uno de sus bolsillos
+ */
+@Data
+public class PocketLoadDTO {
+
+    private Double monto;
+}
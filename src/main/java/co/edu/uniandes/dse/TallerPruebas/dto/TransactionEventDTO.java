@@ -0,0 +1,23 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import java.util.Date;
+
+import lombok.Data;
+
+/**
+ * Evento de una transferencia o una carga de bolsillo para los consumidores
+ * del outbox. eventId identifica la entrega: un consumidor puede recibir el
+ * mismo evento más de una vez.
+ */
+@Data
+public class TransactionEventDTO {
+
+    private Long eventId;
+    private String tipo; // TRANSFERENCIA, CARGA_BOLSILLO
+    private Long transactionId;
+    private Long sourceId;
+    private Long destinationId;
+    private Long pocketId;
+    private Double monto;
+    private Date fecha;
+}
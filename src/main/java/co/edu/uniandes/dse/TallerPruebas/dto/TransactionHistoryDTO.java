@@ -0,0 +1,17 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Página del historial de transacciones de una cuenta. siguienteCursor es nulo
+ * cuando no hay más páginas.
+ */
+@Data
+public class TransactionHistoryDTO {
+
+    private List<TransactionSummaryDTO> transacciones = new ArrayList<>();
+    private String siguienteCursor;
+}
@@ -0,0 +1,21 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Proyección liviana de una transacción para consultar el historial
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSummaryDTO {
+
+    private Long id;
+    private Double monto;
+    private Date fecha;
+    private String tipo;
+}
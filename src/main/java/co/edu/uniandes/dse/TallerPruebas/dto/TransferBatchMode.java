@@ -0,0 +1,11 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+/**
+ * Semántica de fallo de un lote de transferencias
+ */
+public enum TransferBatchMode {
+    /** Si alguna transferencia es inválida no se aplica ninguna */
+    ALL_OR_NOTHING,
+    /** Se aplican las transferencias válidas y se reporta el error de las demás */
+    PER_ITEM
+}
@@ -0,0 +1,18 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Solicitud de una transferencia dentro de un lote
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferRequestDTO {
+
+    private Long sourceId;
+    private Long destinationId;
+    private Double monto;
+}
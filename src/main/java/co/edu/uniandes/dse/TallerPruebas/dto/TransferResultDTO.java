@@ -0,0 +1,15 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import lombok.Data;
+
+/**
+ * Resultado de una transferencia dentro de un lote
+ */
+@Data
+public class TransferResultDTO {
+
+    private int posicion;
+    private boolean exitosa;
+    private Long transactionId;
+    private String mensaje;
+}
@@ -0,0 +1,22 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import java.util.Date;
+
+import co.edu.uniandes.dse.TallerPruebas.transfers.TransferStatus;
+import lombok.Data;
+
+/**
+ * Estado de una transferencia enviada al motor de transferencias
+ */
+@Data
+public class TransferStatusDTO {
+
+    private String id;
+    private Long sourceId;
+    private Long destinationId;
+    private Double monto;
+    private Date fechaEnvio;
+    private TransferStatus estado;
+    private Long transactionId;
+    private String mensaje;
+}
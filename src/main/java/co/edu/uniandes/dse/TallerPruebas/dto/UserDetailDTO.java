@@ -0,0 +1,19 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Usuario con sus cuentas
+ */
+@Data
+public class UserDetailDTO {
+
+    private Long id;
+    private String name;
+    private String email;
+    private String login;
+    private List<AccountDTO> accounts = new ArrayList<>();
+}
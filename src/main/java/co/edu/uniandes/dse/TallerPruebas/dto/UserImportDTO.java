@@ -0,0 +1,19 @@
+package co.edu.uniandes.dse.TallerPruebas.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Usuario de un archivo de importación masiva, con sus cuentas y bolsillos
+ */
+@Data
+public class UserImportDTO {
+
+    private String name;
+    private String email;
+    private String login;
+    private String cedula;
+    private List<AccountImportDTO> accounts = new ArrayList<>();
+}
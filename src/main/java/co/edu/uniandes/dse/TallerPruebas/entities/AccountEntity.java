@@ -3,11 +3,20 @@ package co.edu.uniandes.dse.TallerPruebas.entities;
 import java.util.ArrayList;
 import java.util.List;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Version;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountCacheListener;
 import lombok.Data;
 import uk.co.jemos.podam.common.PodamExclude;
 
@@ -16,12 +25,23 @@ import uk.co.jemos.podam.common.PodamExclude;
  */
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "accounts")
+@EntityListeners(AccountCacheListener.class)
+@NamedEntityGraph(name = AccountEntity.WITH_POCKETS, attributeNodes = @NamedAttributeNode("pockets"))
 public class AccountEntity extends BaseEntity {
 
+    /** Grafo que carga la cuenta junto con sus bolsillos en una sola consulta */
+    public static final String WITH_POCKETS = "AccountEntity.withPockets";
+
     private String numeroCuenta;
     private Double saldo;
     private String estado; // ACTIVA, BLOQUEADA
 
+    @PodamExclude
+    @Version
+    private Long version;
+
     @PodamExclude
     @ManyToOne
     private UserEntity user;
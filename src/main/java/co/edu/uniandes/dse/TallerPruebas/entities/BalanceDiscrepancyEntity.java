@@ -0,0 +1,34 @@
+package co.edu.uniandes.dse.TallerPruebas.entities;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+
+import lombok.Data;
+
+/**
+ * Clase que representa en la persistencia una diferencia encontrada por la
+ * conciliación entre el saldo guardado y el que resulta de las transacciones.
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_discrepancy_ejecucion", columnList = "ejecucion"))
+public class BalanceDiscrepancyEntity extends BaseEntity {
+
+    private String ejecucion;
+    private String tipo; // CUENTA, BOLSILLO
+    private Long titularId;
+    private Double saldoRegistrado;
+    private Double saldoEsperado;
+
+    /** Marca desde la cual se sumaron las transacciones */
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date desde;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fecha;
+}
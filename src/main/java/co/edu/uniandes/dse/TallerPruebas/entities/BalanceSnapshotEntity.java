@@ -0,0 +1,28 @@
+package co.edu.uniandes.dse.TallerPruebas.entities;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+
+import lombok.Data;
+
+/**
+ * Clase que representa en la persistencia el saldo de un titular del libro
+ * mayor incluyendo todos sus asientos con fecha anterior a corte
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_snapshot_titular_corte", columnList = "libro, titular_id, corte"))
+public class BalanceSnapshotEntity extends BaseEntity {
+
+    private String libro;
+    private Long titularId;
+    private Double saldo;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date corte;
+}
@@ -25,10 +25,11 @@ SOFTWARE.
 package co.edu.uniandes.dse.TallerPruebas.entities;
 
 import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
 
+import org.hibernate.annotations.GenericGenerator;
+
 import lombok.Data;
 import uk.co.jemos.podam.common.PodamExclude;
 
@@ -45,6 +46,7 @@ public abstract class BaseEntity {
 
 	@PodamExclude
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(generator = "pooled_sequence")
+	@GenericGenerator(name = "pooled_sequence", type = PooledSequenceGenerator.class)
 	private Long id;
 }
@@ -0,0 +1,32 @@
+package co.edu.uniandes.dse.TallerPruebas.entities;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import jakarta.persistence.UniqueConstraint;
+
+import lombok.Data;
+
+/**
+ * Clase que representa en la persistencia un bloque terminado de una tarea
+ * por lotes: las cuentas con id en (desdeId, hastaId] ya se procesaron para
+ * el periodo. Se guarda en la misma transacción que los cambios del bloque.
+ */
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_checkpoint_job_periodo_hasta", columnNames = { "job", "periodo", "hasta_id" }))
+public class BatchCheckpointEntity extends BaseEntity {
+
+    private String job;
+    private String periodo;
+    private Long desdeId;
+    private Long hastaId;
+    private Integer procesados;
+    private Integer movimientos;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fecha;
+}
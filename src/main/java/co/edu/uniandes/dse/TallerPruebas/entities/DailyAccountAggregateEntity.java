@@ -0,0 +1,27 @@
+package co.edu.uniandes.dse.TallerPruebas.entities;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import lombok.Data;
+
+/**
+ * Clase que representa en la persistencia los totales de un día de las
+ * transacciones de una cuenta. Se actualiza en la misma transacción que
+ * inserta cada TransactionEntity.
+ */
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_daily_aggregate_cuenta_dia", columnNames = { "account_id", "dia" }))
+public class DailyAccountAggregateEntity extends BaseEntity {
+
+    private Long accountId;
+    private LocalDate dia;
+    private Double totalEntradas;
+    private Long cantidadEntradas;
+    private Double totalSalidas;
+    private Long cantidadSalidas;
+}
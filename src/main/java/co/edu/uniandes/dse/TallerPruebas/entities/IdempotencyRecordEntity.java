@@ -0,0 +1,30 @@
+package co.edu.uniandes.dse.TallerPruebas.entities;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import jakarta.persistence.UniqueConstraint;
+
+import lombok.Data;
+
+/**
+ * Clase que representa en la persistencia el resultado de una operación
+ * enviada con una clave de idempotencia
+ */
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_operacion_clave", columnNames = { "operacion", "clave" }))
+public class IdempotencyRecordEntity extends BaseEntity {
+
+    private String operacion;
+    private String clave;
+    private String huella;
+    private Long resultadoId;
+    private Long accountId; // cuenta de la que sale el dinero: con sharding el registro vive en su shard
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fecha;
+}
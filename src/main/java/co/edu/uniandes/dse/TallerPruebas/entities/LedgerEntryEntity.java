@@ -0,0 +1,34 @@
+package co.edu.uniandes.dse.TallerPruebas.entities;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+
+import org.hibernate.annotations.Immutable;
+
+import lombok.Data;
+
+/**
+ * Clase que representa un asiento del libro mayor en la persistencia. Los
+ * asientos no se modifican ni se borran; los de un mismo movimiento suman cero.
+ * monto es positivo para los créditos y negativo para los débitos.
+ */
+@Data
+@Entity
+@Immutable
+@Table(indexes = @Index(name = "idx_ledger_titular_fecha", columnList = "libro, titular_id, fecha"))
+public class LedgerEntryEntity extends BaseEntity {
+
+    private String libro; // CUENTA, BOLSILLO
+    private Long titularId;
+    private Double monto;
+    private String movimiento;
+    private String concepto;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fecha;
+}
@@ -0,0 +1,42 @@
+package co.edu.uniandes.dse.TallerPruebas.entities;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+
+import lombok.Data;
+
+/**
+ * Clase que representa en la persistencia un evento pendiente de entregar a
+ * los consumidores. Se inserta en la misma transacción que la
+ * TransactionEntity que lo origina y se borra cuando se entrega. Un evento
+ * cuyo payload no se puede leer se descarta: queda en la tabla con la fecha
+ * de descarte para revisarlo a mano y no se vuelve a entregar.
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_outbox_proximo_intento", columnList = "proximo_intento, fecha"))
+public class OutboxEventEntity extends BaseEntity {
+
+    private String tipo; // TRANSFERENCIA, CARGA_BOLSILLO
+    private Long transactionId;
+
+    @Column(length = 2000)
+    private String payload;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fecha;
+
+    private Integer intentos;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date proximoIntento;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date descartado;
+}
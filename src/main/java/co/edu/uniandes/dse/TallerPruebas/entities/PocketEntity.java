@@ -1,7 +1,14 @@
 package co.edu.uniandes.dse.TallerPruebas.entities;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import lombok.Data;
 import uk.co.jemos.podam.common.PodamExclude;
@@ -11,12 +18,21 @@ import uk.co.jemos.podam.common.PodamExclude;
  */
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pockets")
+@Table(uniqueConstraints = @UniqueConstraint(name = PocketEntity.UK_NOMBRE, columnNames = { "account_id", "nombre" }))
 public class PocketEntity extends BaseEntity {
 
+    public static final String UK_NOMBRE = "uk_pocket_account_nombre";
+
     private String nombre;
     private Double saldo;
     private Double metaAhorro;
 
+    @PodamExclude
+    @Version
+    private Long version;
+
     @PodamExclude
     @ManyToOne
     private AccountEntity account;
@@ -0,0 +1,61 @@
+package co.edu.uniandes.dse.TallerPruebas.entities;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardContext;
+
+/**
+ * Generador de ids basado en una secuencia por entidad con optimizador
+ * pooled/pooled-lo. Cada viaje a la base de datos reserva un bloque de ids, de
+ * modo que Hibernate no necesita ejecutar cada insert de inmediato y puede
+ * agruparlos en lotes JDBC.
+ *
+ * El tamaño del bloque se toma de la propiedad taller.id.allocation_size y el
+ * optimizador de hibernate.id.optimizer.pooled.preferred (pooled-lo por defecto).
+ *
+ * Con sharding, una cuenta nueva salta los ids que el hash asigna a otro
+ * shard: toma el siguiente id que le corresponde al shard donde se crea.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE_SETTING = "taller.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<String, Object> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+
+        int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE_SETTING, settings, DEFAULT_ALLOCATION_SIZE);
+        parameters.put(INCREMENT_PARAM, String.valueOf(allocationSize));
+        parameters.putIfAbsent(OPT_PARAM, ConfigurationHelper.getString(AvailableSettings.PREFERRED_POOLED_OPTIMIZER,
+                settings, StandardOptimizerDescriptor.POOLED_LO.getExternalName()));
+
+        String entityName = parameters.getProperty(JPA_ENTITY_NAME);
+        if (entityName != null) {
+            parameters.putIfAbsent(SEQUENCE_PARAM, entityName + "_SEQ");
+        }
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Object id = super.generate(session, object);
+        if (object instanceof AccountEntity) {
+            while (!ShardContext.aceptaCuenta((Long) id)) {
+                id = super.generate(session, object);
+            }
+        }
+        return id;
+    }
+}
@@ -0,0 +1,30 @@
+package co.edu.uniandes.dse.TallerPruebas.entities;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import jakarta.persistence.UniqueConstraint;
+
+import lombok.Data;
+
+/**
+ * Clase que representa en la persistencia el último punto conciliado sin
+ * diferencias de una cuenta o un bolsillo: su saldo incluyendo todas las
+ * transacciones con fecha anterior a marca. La conciliación siguiente solo
+ * lee las transacciones con fecha igual o posterior.
+ */
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_reconciliation_mark_titular", columnNames = { "tipo", "titular_id" }))
+public class ReconciliationMarkEntity extends BaseEntity {
+
+    private String tipo; // CUENTA, BOLSILLO
+    private Long titularId;
+    private Double saldo;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date marca;
+}
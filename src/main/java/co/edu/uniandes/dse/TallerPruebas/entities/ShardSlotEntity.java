@@ -0,0 +1,28 @@
+package co.edu.uniandes.dse.TallerPruebas.entities;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import jakarta.persistence.UniqueConstraint;
+
+import lombok.Data;
+
+/**
+ * Clase que representa en la persistencia un slot de cuentas que
+ * ShardRebalancer movió fuera del shard que le asigna el hash consistente.
+ * Solo existe en el catálogo y se carga al iniciar.
+ */
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_shard_slot_slot", columnNames = "slot"))
+public class ShardSlotEntity extends BaseEntity {
+
+    private Integer slot;
+    private String shard;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fecha;
+}
@@ -3,7 +3,9 @@ package co.edu.uniandes.dse.TallerPruebas.entities;
 import java.util.Date;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
 
@@ -15,6 +17,7 @@ import uk.co.jemos.podam.common.PodamExclude;
  */
 @Data
 @Entity
+@Table(indexes = @Index(name = "idx_transaction_account_fecha", columnList = "account_id, fecha, id"))
 public class TransactionEntity extends BaseEntity {
 
     private Double monto;
@@ -24,7 +27,14 @@ public class TransactionEntity extends BaseEntity {
     
     private String tipo; // ENTRADA, SALIDA
 
+    private String concepto; // TRANSFERENCIA, INTERES, CUOTA_MANEJO
+
     @PodamExclude
     @ManyToOne
     private AccountEntity account;
+
+    /** Bolsillo afectado, o null si el movimiento afecta el saldo de la cuenta */
+    @PodamExclude
+    @ManyToOne
+    private PocketEntity pocket;
 }
@@ -0,0 +1,45 @@
+package co.edu.uniandes.dse.TallerPruebas.entities;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+
+import lombok.Data;
+
+/**
+ * Clase que representa en la persistencia un paso de una transferencia entre
+ * cuentas de shards distintos. El shard de la cuenta origen guarda la fila
+ * ORIGEN, que sigue el estado de la transferencia; el de la cuenta destino
+ * guarda la fila DESTINO cuando la acredita, para no acreditarla dos veces.
+ */
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_transfer_saga_referencia_rol", columnNames = { "referencia", "rol" }),
+        indexes = @Index(name = "idx_transfer_saga_estado_fecha", columnList = "rol, estado, fecha"))
+public class TransferSagaEntity extends BaseEntity {
+
+    private String referencia;
+    private String rol; // ORIGEN, DESTINO
+    private String estado; // PENDIENTE, COMPLETADA, COMPENSADA en ORIGEN; ACREDITADA en DESTINO
+    private Long sourceId;
+    private Long destinationId;
+    private Double monto;
+
+    /** Id de la fila ORIGEN, titular de los asientos en tránsito en ambos shards */
+    private Long sagaId;
+
+    /** Transacción SALIDA en ORIGEN, ENTRADA en DESTINO */
+    private Long transactionId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fecha;
+
+    @Version
+    private Long version;
+}
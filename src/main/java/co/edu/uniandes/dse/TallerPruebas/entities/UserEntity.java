@@ -3,10 +3,16 @@ package co.edu.uniandes.dse.TallerPruebas.entities;
 import java.util.ArrayList;
 import java.util.List;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToMany;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import lombok.Data;
 import uk.co.jemos.podam.common.PodamExclude;
 
@@ -15,8 +21,14 @@ import uk.co.jemos.podam.common.PodamExclude;
  */
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "users")
+@NamedEntityGraph(name = UserEntity.WITH_ACCOUNTS, attributeNodes = @NamedAttributeNode("accounts"))
 public class UserEntity extends BaseEntity {
 
+    /** Grafo que carga el usuario junto con sus cuentas en una sola consulta */
+    public static final String WITH_ACCOUNTS = "UserEntity.withAccounts";
+
     private String name;
     private String email;
     private String login;
@@ -1,15 +1,28 @@
 package co.edu.uniandes.dse.TallerPruebas.exceptions;
 
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.metrics.QueryBudgetExceededException;
+
 @Order(Ordered.HIGHEST_PRECEDENCE)
 @ControllerAdvice
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
@@ -42,6 +55,116 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
         return buildResponseEntity(apiError);
     }
 
+    /**
+     * Handles BusinessLogicException.
+     *
+     * @param ex the BusinessLogicException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(BusinessLogicException.class)
+    protected ResponseEntity<Object> handleBusinessLogic(
+    		BusinessLogicException ex) {
+        ApiError apiError = new ApiError(PRECONDITION_FAILED);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+
+    /**
+     * Handles ConcurrencyFailureException, raised when a balance update keeps
+     * conflicting after its retries or an account lock cannot be acquired.
+     *
+     * @param ex the ConcurrencyFailureException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    protected ResponseEntity<Object> handleConcurrencyFailure(
+    		ConcurrencyFailureException ex) {
+        ApiError apiError = new ApiError(CONFLICT);
+        apiError.setMessage("La cuenta está siendo modificada por otra operación, intente de nuevo");
+        return buildResponseEntity(apiError);
+    }
+
+    /**
+     * Handles DataIntegrityViolationException. A violation of the pocket name
+     * unique key means a concurrent request already created the pocket, so it
+     * is a conflict; any other violation is an internal error.
+     *
+     * @param ex the DataIntegrityViolationException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    protected ResponseEntity<Object> handleDataIntegrityViolation(
+    		DataIntegrityViolationException ex) {
+        if (violates(ex, PocketEntity.UK_NOMBRE)) {
+            ApiError apiError = new ApiError(CONFLICT);
+            apiError.setMessage("Ya existe un bolsillo con el mismo nombre en esta cuenta");
+            return buildResponseEntity(apiError);
+        }
+        ApiError apiError = new ApiError(INTERNAL_SERVER_ERROR);
+        apiError.setMessage("Los datos violan una restricción de integridad");
+        return buildResponseEntity(apiError);
+    }
+
+    /**
+     * Handles CannotCreateTransactionException, raised when no pooled
+     * connection becomes available within the pool's connection timeout. The
+     * pool is the concurrency limit, so the request is rejected right away.
+     *
+     * @param ex the CannotCreateTransactionException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    protected ResponseEntity<Object> handleCannotCreateTransaction(
+    		CannotCreateTransactionException ex) {
+        ApiError apiError = new ApiError(SERVICE_UNAVAILABLE);
+        apiError.setMessage("El servicio está saturado, intente de nuevo");
+        return buildResponseEntity(apiError);
+    }
+
+    /**
+     * Handles RejectedExecutionException, raised when the transfer engine's
+     * queue for a shard is full.
+     *
+     * @param ex the RejectedExecutionException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    protected ResponseEntity<Object> handleRejectedExecution(
+    		RejectedExecutionException ex) {
+        ApiError apiError = new ApiError(SERVICE_UNAVAILABLE);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+
+    /**
+     * Handles QueryBudgetExceededException, raised in REJECT mode when a request
+     * runs more SQL statements than its budget.
+     *
+     * @param ex the QueryBudgetExceededException
+     * @return the ApiError object
+     */
+    @ExceptionHandler(QueryBudgetExceededException.class)
+    protected ResponseEntity<Object> handleQueryBudgetExceeded(
+    		QueryBudgetExceededException ex) {
+        ApiError apiError = new ApiError(INTERNAL_SERVER_ERROR);
+        apiError.setMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+
+    /**
+     * Indicates whether the exception was caused by the given constraint. The
+     * database may report the name in upper case or with a prefix.
+     */
+    private static boolean violates(DataIntegrityViolationException ex, String constraint) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String name = violation.getConstraintName();
+                return name != null && name.toLowerCase(Locale.ROOT).contains(constraint);
+            }
+        }
+        return false;
+    }
+
     private ResponseEntity<Object> buildResponseEntity(ApiError apiError) {
         return new ResponseEntity<>(apiError, apiError.getStatus());
     }
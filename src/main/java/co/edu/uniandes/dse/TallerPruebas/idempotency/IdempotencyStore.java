@@ -0,0 +1,196 @@
+package co.edu.uniandes.dse.TallerPruebas.idempotency;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.IdempotencyRecordEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.repositories.IdempotencyRecordRepository;
+
+/**
+ * Recuerda el resultado de las operaciones enviadas con una clave de
+ * idempotencia, para que un reintento del cliente devuelva el resultado
+ * original en lugar de repetir la operación.
+ *
+ * Los resultados se persisten en la misma transacción que la operación
+ * (IdempotencyRecordEntity) y, después del commit, se guardan en una ventana
+ * en memoria acotada por tamaño y antigüedad. La ventana se consulta antes de
+ * bloquear las cuentas; la tabla, después de bloquearlas, así que dos
+ * reintentos concurrentes de la misma operación no se ejecutan ambos.
+ *
+ * La huella resume los datos de la operación: reutilizar una clave con otros
+ * datos es un error del cliente. IdempotencyPurgeJob borra los registros de la
+ * tabla cuando superan idempotency.retention-hours; después de eso una clave
+ * repetida se trata como una operación nueva.
+ */
+@Component
+public class IdempotencyStore {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final Map<String, Entry> window;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static final class Entry {
+        private final String huella;
+        private final Long resultadoId;
+        private final long createdAt;
+
+        private Entry(String huella, Long resultadoId, long createdAt) {
+            this.huella = huella;
+            this.resultadoId = resultadoId;
+            this.createdAt = createdAt;
+        }
+    }
+
+    @Autowired
+    public IdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository,
+            @Value("${idempotency.window.max-size:100000}") int maxSize,
+            @Value("${idempotency.window.ttl-seconds:3600}") long ttlSeconds) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        // en orden de inserción: la entrada más vieja siempre está al principio
+        this.window = new LinkedHashMap<>(16, 0.75f, false) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyStore.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Busca el resultado de una operación solo en la ventana en memoria.
+     *
+     * @return el id del resultado original, o vacío si la clave no está en la ventana
+     * @throws BusinessLogicException si la clave se usó con otros datos
+     */
+    public Optional<Long> findRecent(String operacion, String clave, String huella) throws BusinessLogicException {
+        String key = operacion + ":" + clave;
+        Entry entry;
+        synchronized (window) {
+            entry = window.get(key);
+            if (entry != null && System.nanoTime() - entry.createdAt > ttlNanos) {
+                window.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        checkHuella(entry.huella, huella);
+        return Optional.of(entry.resultadoId);
+    }
+
+    /**
+     * Busca el resultado de una operación en la ventana y luego en la tabla.
+     * Debe llamarse con las cuentas de la operación ya bloqueadas.
+     *
+     * @return el id del resultado original, o vacío si la operación no se ha ejecutado
+     * @throws BusinessLogicException si la clave se usó con otros datos
+     */
+    public Optional<Long> find(String operacion, String clave, String huella) throws BusinessLogicException {
+        Optional<Long> recent = findRecent(operacion, clave, huella);
+        if (recent.isPresent()) {
+            return recent;
+        }
+        Optional<IdempotencyRecordEntity> record = idempotencyRecordRepository.findByOperacionAndClave(operacion, clave);
+        if (record.isEmpty()) {
+            return Optional.empty();
+        }
+        checkHuella(record.get().getHuella(), huella);
+        remember(operacion, clave, huella, record.get().getResultadoId());
+        return Optional.of(record.get().getResultadoId());
+    }
+
+    /**
+     * Guarda el resultado de una operación en la transacción actual. Entra a
+     * la ventana en memoria solo si la transacción hace commit.
+     *
+     * @param accountId cuenta de la que sale el dinero; ShardRebalancer mueve
+     *                  el registro junto con ella
+     */
+    public void record(String operacion, String clave, String huella, Long resultadoId, Long accountId) {
+        IdempotencyRecordEntity record = new IdempotencyRecordEntity();
+        record.setOperacion(operacion);
+        record.setClave(clave);
+        record.setHuella(huella);
+        record.setResultadoId(resultadoId);
+        record.setAccountId(accountId);
+        record.setFecha(new Date());
+        idempotencyRecordRepository.save(record);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(operacion, clave, huella, resultadoId);
+                }
+            });
+        } else {
+            remember(operacion, clave, huella, resultadoId);
+        }
+    }
+
+    private void remember(String operacion, String clave, String huella, Long resultadoId) {
+        long now = System.nanoTime();
+        synchronized (window) {
+            window.put(operacion + ":" + clave, new Entry(huella, resultadoId, now));
+            // descarta desde el principio las entradas vencidas
+            Iterator<Entry> iterator = window.values().iterator();
+            while (iterator.hasNext() && now - iterator.next().createdAt > ttlNanos) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Borra de la tabla los registros guardados antes de una fecha. La ventana
+     * en memoria no cambia: su antigüedad máxima es mucho menor.
+     *
+     * @return número de registros borrados
+     */
+    @Transactional
+    public int purgar(Date antes) {
+        return idempotencyRecordRepository.deleteByFechaBefore(antes);
+    }
+
+    private static void checkHuella(String original, String huella) throws BusinessLogicException {
+        if (original != null && !original.equals(huella)) {
+            throw new BusinessLogicException("La clave de idempotencia ya se usó con datos diferentes");
+        }
+    }
+
+    public int getSize() {
+        synchronized (window) {
+            return window.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+}
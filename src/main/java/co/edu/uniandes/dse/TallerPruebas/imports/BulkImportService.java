@@ -0,0 +1,418 @@
+package co.edu.uniandes.dse.TallerPruebas.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.AccountImportDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.ImportReportDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.PocketImportDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.UserImportDTO;
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.UserEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardRouter;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Importación masiva de usuarios con sus cuentas y bolsillos.
+ *
+ * El archivo se lee en streaming y se parte en bloques de import.chunk-size
+ * usuarios. Hasta import.validation-threads bloques se validan en paralelo
+ * mientras el hilo que llama escribe, en orden, los bloques ya validados: cada
+ * bloque en su propia transacción, con inserts en lotes JDBC y flush/clear
+ * cada import.flush-size entidades, sin pasar por la caché de segundo nivel.
+ * La memoria usada depende del tamaño de los bloques, no del archivo.
+ *
+ * Con sharding cada usuario se escribe con sus cuentas en el shard dueño del
+ * slot de su cédula, y cada bloque en una transacción por shard: si falla la
+ * de un shard, solo se rechazan los usuarios de ese shard.
+ *
+ * Los usuarios rechazados se escriben con su línea y motivo en un archivo
+ * NDJSON de errores; el resto del archivo se sigue importando.
+ */
+@Slf4j
+@Service
+public class BulkImportService {
+
+    private static final Set<String> ESTADOS = Set.of("ACTIVA", "BLOQUEADA");
+
+    @Value("${import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${import.validation-threads:4}")
+    private int validationThreads;
+
+    @Value("${import.flush-size:500}")
+    private int flushSize;
+
+    @Value("${import.errors-dir:${java.io.tmpdir}}")
+    private String errorsDir;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private ShardTemplate shardTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * Importa un archivo completo.
+     *
+     * @param input contenido del archivo en UTF-8; no se cierra
+     * @param format formato del archivo
+     * @return los totales de la importación y la ruta del archivo de errores
+     * @throws IOException si falla la lectura del archivo o la escritura de errores
+     */
+    public ImportReportDTO importar(InputStream input, ImportFormat format) throws IOException {
+        long inicio = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        ImportReader importReader = format == ImportFormat.CSV ? new CsvImportReader(reader)
+                : new NdjsonImportReader(reader, objectMapper);
+        Path errores = Path.of(errorsDir, "import-" + UUID.randomUUID() + "-errores.ndjson");
+        ImportReportDTO report = new ImportReportDTO();
+        log.info("Inicia importación masiva en formato {}", format);
+
+        ExecutorService executor = Executors.newFixedThreadPool(validationThreads);
+        try (Writer errorWriter = new LazyFileWriter(errores)) {
+            Deque<Future<List<ImportRecord>>> enValidacion = new ArrayDeque<>();
+            List<ImportRecord> chunk;
+            while (!(chunk = leerBloque(importReader)).isEmpty()) {
+                report.setLeidos(report.getLeidos() + chunk.size());
+                List<ImportRecord> bloque = chunk;
+                enValidacion.add(executor.submit(() -> validar(bloque)));
+                if (enValidacion.size() >= validationThreads) {
+                    escribir(esperar(enValidacion.poll()), report, errorWriter, inicio);
+                }
+            }
+            while (!enValidacion.isEmpty()) {
+                escribir(esperar(enValidacion.poll()), report, errorWriter, inicio);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        report.setSegundos((System.nanoTime() - inicio) / 1e9);
+        report.setRegistrosPorSegundo(report.getSegundos() == 0 ? 0 : report.getLeidos() / report.getSegundos());
+        if (report.getRechazados() > 0) {
+            report.setArchivoErrores(errores.toString());
+        }
+        log.info("Termina importación masiva: {} leídos, {} importados, {} rechazados en {} s ({} registros/s)",
+                report.getLeidos(), report.getImportados(), report.getRechazados(),
+                String.format("%.1f", report.getSegundos()), String.format("%.0f", report.getRegistrosPorSegundo()));
+        return report;
+    }
+
+    private List<ImportRecord> leerBloque(ImportReader reader) throws IOException {
+        List<ImportRecord> chunk = new ArrayList<>(chunkSize);
+        ImportRecord record;
+        while (chunk.size() < chunkSize && (record = reader.next()) != null) {
+            chunk.add(record);
+        }
+        return chunk;
+    }
+
+    private static List<ImportRecord> esperar(Future<List<ImportRecord>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("La importación se interrumpió", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error validando un bloque de la importación", e.getCause());
+        }
+    }
+
+    /**
+     * Valida un bloque. No consulta la BD, así que puede correr en cualquier hilo.
+     */
+    private List<ImportRecord> validar(List<ImportRecord> chunk) {
+        List<ImportRecord> validated = new ArrayList<>(chunk.size());
+        for (ImportRecord record : chunk) {
+            validated.add(record.error() != null ? record : record.conError(validar(record.user())));
+        }
+        return validated;
+    }
+
+    private static String validar(UserImportDTO user) {
+        if (isBlank(user.getCedula())) {
+            return "La cédula es obligatoria";
+        }
+        if (isBlank(user.getName())) {
+            return "El nombre es obligatorio";
+        }
+        if (user.getAccounts() == null) {
+            user.setAccounts(new ArrayList<>());
+        }
+        for (AccountImportDTO account : user.getAccounts()) {
+            if (account == null) {
+                return "La lista de cuentas no puede tener elementos vacíos";
+            }
+            if (account.getPockets() == null) {
+                account.setPockets(new ArrayList<>());
+            }
+            if (isBlank(account.getNumeroCuenta())) {
+                return "El número de cuenta es obligatorio";
+            }
+            if (account.getEstado() == null || !ESTADOS.contains(account.getEstado())) {
+                return "Cuenta " + account.getNumeroCuenta() + ": el estado debe ser ACTIVA o BLOQUEADA";
+            }
+            if (!monto(account.getSaldo(), false)) {
+                return "Cuenta " + account.getNumeroCuenta() + ": el saldo debe ser mayor o igual a cero";
+            }
+            Set<String> nombres = new HashSet<>();
+            for (PocketImportDTO pocket : account.getPockets()) {
+                if (pocket == null || isBlank(pocket.getNombre())) {
+                    return "Cuenta " + account.getNumeroCuenta() + ": el nombre del bolsillo es obligatorio";
+                }
+                if (!nombres.add(pocket.getNombre())) {
+                    return "Cuenta " + account.getNumeroCuenta() + ": ya existe un bolsillo con el nombre "
+                            + pocket.getNombre();
+                }
+                if (!monto(pocket.getSaldo(), true) || !monto(pocket.getMetaAhorro(), true)) {
+                    return "Cuenta " + account.getNumeroCuenta() + ": el saldo y la meta del bolsillo "
+                            + pocket.getNombre() + " deben ser mayores o iguales a cero";
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean monto(Double monto, boolean opcional) {
+        if (monto == null) {
+            return opcional;
+        }
+        return monto >= 0 && !monto.isInfinite() && !monto.isNaN();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Escribe los usuarios válidos de un bloque en una transacción por shard
+     * y los rechazados en el archivo de errores.
+     */
+    private void escribir(List<ImportRecord> chunk, ImportReportDTO report, Writer errorWriter, long inicio)
+            throws IOException {
+        List<ImportRecord> validos = new ArrayList<>(chunk.size());
+        for (ImportRecord record : chunk) {
+            if (record.error() != null) {
+                rechazar(record, record.error(), report, errorWriter);
+            } else {
+                validos.add(record);
+            }
+        }
+
+        Map<String, List<ImportRecord>> grupos = new LinkedHashMap<>();
+        for (ImportRecord record : validos) {
+            grupos.computeIfAbsent(shardDe(record.user()), shard -> new ArrayList<>()).add(record);
+        }
+        Timer.Sample sample = meterRegistry == null ? null : Timer.start(meterRegistry);
+        try {
+            for (Map.Entry<String, List<ImportRecord>> grupo : grupos.entrySet()) {
+                List<ImportRecord> registros = grupo.getValue();
+                long[] escritos = new long[3];
+                try {
+                    escribirEn(grupo.getKey(), registros, escritos);
+                } catch (RuntimeException | EntityNotFoundException | BusinessLogicException e) {
+                    log.error("Error escribiendo un bloque de {} usuarios de la importación", registros.size(), e);
+                    for (ImportRecord record : registros) {
+                        rechazar(record, "Error al escribir el bloque: " + e.getMessage(), report, errorWriter);
+                    }
+                    continue;
+                }
+                report.setImportados(report.getImportados() + registros.size());
+                report.setUsuarios(report.getUsuarios() + escritos[0]);
+                report.setCuentas(report.getCuentas() + escritos[1]);
+                report.setBolsillos(report.getBolsillos() + escritos[2]);
+                contar("importado", registros.size());
+            }
+        } finally {
+            if (sample != null) {
+                sample.stop(meterRegistry.timer("taller.import.chunk"));
+            }
+        }
+
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        log.info("Importación en curso: {} leídos, {} importados, {} rechazados ({} registros/s)",
+                report.getLeidos(), report.getImportados(), report.getRechazados(),
+                String.format("%.0f", segundos == 0 ? 0 : report.getLeidos() / segundos));
+    }
+
+    /**
+     * Shard donde se escriben el usuario y sus cuentas: el dueño del slot que
+     * le toca a la cédula, así que los usuarios se reparten como los slots.
+     *
+     * @return el shard, o null sin sharding
+     */
+    private String shardDe(UserImportDTO user) {
+        if (shardTemplate == null) {
+            return null;
+        }
+        ShardRouter router = shardTemplate.getRouter();
+        return router.ownerDe(Math.floorMod(user.getCedula().hashCode(), ShardRouter.SLOTS));
+    }
+
+    /**
+     * Escribe usuarios en una transacción sobre su shard. Los ids de las
+     * cuentas salen de los slots del shard, que no se mueven mientras tanto.
+     */
+    private void escribirEn(String shard, List<ImportRecord> registros, long[] escritos)
+            throws EntityNotFoundException, BusinessLogicException {
+        if (shard == null) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> persistir(registros, escritos));
+            return;
+        }
+        shardTemplate.enSlotsDe(shard, () -> {
+            persistir(registros, escritos);
+            return null;
+        });
+    }
+
+    private void persistir(List<ImportRecord> validos, long[] escritos) {
+        // las entidades importadas no se llevan a la caché de segundo nivel
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+        int pendientes = 0;
+        for (ImportRecord record : validos) {
+            UserEntity user = toEntity(record.user());
+            entityManager.persist(user);
+            escritos[0]++;
+            pendientes++;
+            for (AccountEntity account : user.getAccounts()) {
+                escritos[1]++;
+                escritos[2] += account.getPockets().size();
+                pendientes += 1 + account.getPockets().size();
+            }
+            if (pendientes >= flushSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pendientes = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static UserEntity toEntity(UserImportDTO dto) {
+        UserEntity user = new UserEntity();
+        user.setCedula(dto.getCedula());
+        user.setName(dto.getName());
+        user.setEmail(dto.getEmail());
+        user.setLogin(dto.getLogin());
+        for (AccountImportDTO accountDto : dto.getAccounts()) {
+            AccountEntity account = new AccountEntity();
+            account.setNumeroCuenta(accountDto.getNumeroCuenta());
+            account.setSaldo(accountDto.getSaldo());
+            account.setEstado(accountDto.getEstado());
+            account.setUser(user);
+            for (PocketImportDTO pocketDto : accountDto.getPockets()) {
+                PocketEntity pocket = new PocketEntity();
+                pocket.setNombre(pocketDto.getNombre());
+                pocket.setSaldo(pocketDto.getSaldo() == null ? 0.0 : pocketDto.getSaldo());
+                pocket.setMetaAhorro(pocketDto.getMetaAhorro());
+                pocket.setAccount(account);
+                account.getPockets().add(pocket);
+            }
+            user.getAccounts().add(account);
+        }
+        return user;
+    }
+
+    private void rechazar(ImportRecord record, String error, ImportReportDTO report, Writer errorWriter)
+            throws IOException {
+        report.setRechazados(report.getRechazados() + 1);
+        contar("rechazado", 1);
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("linea", record.linea());
+        line.put("cedula", record.user() == null ? null : record.user().getCedula());
+        line.put("error", error);
+        errorWriter.write(objectMapper.writeValueAsString(line));
+        errorWriter.write('\n');
+    }
+
+    private void contar(String resultado, long cantidad) {
+        if (meterRegistry != null) {
+            meterRegistry.counter("taller.import.records", "resultado", resultado).increment(cantidad);
+        }
+    }
+
+    /**
+     * Crea el archivo de errores solo cuando se escribe el primer error.
+     */
+    private static final class LazyFileWriter extends Writer {
+        private final Path path;
+        private Writer delegate;
+
+        LazyFileWriter(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            if (delegate == null) {
+                delegate = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            }
+            delegate.write(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (delegate != null) {
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (delegate != null) {
+                delegate.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package co.edu.uniandes.dse.TallerPruebas.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.AccountImportDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.PocketImportDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.UserImportDTO;
+
+/**
+ * Lee filas CSV y agrupa las consecutivas con la misma cédula en un usuario, y
+ * dentro de él las consecutivas con el mismo número de cuenta en una cuenta.
+ * Una fila inválida no corta el grupo: se rechaza por separado y el usuario
+ * sigue con las filas válidas que vienen después con su misma cédula. Solo
+ * mantiene en memoria la fila siguiente al usuario que entrega y las filas
+ * rechazadas que se saltaron mientras lo agrupaba.
+ */
+class CsvImportReader implements ImportReader {
+
+    static final String HEADER = "cedula,name,email,login,numeroCuenta,saldo,estado,bolsillo,saldoBolsillo,metaAhorro";
+    private static final int COLUMNS = 10;
+
+    /**
+     * Una fila interpretada, o el error que impidió interpretarla.
+     */
+    private record Row(long linea, String[] values, Double saldo, Double saldoBolsillo, Double metaAhorro,
+            String error) {
+
+        String get(int column) {
+            return values[column];
+        }
+    }
+
+    private final BufferedReader reader;
+    private long linea;
+    private Row pending;
+    private boolean started;
+    private final Deque<ImportRecord> rechazados = new ArrayDeque<>();
+
+    CsvImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        if (!started) {
+            started = true;
+            String header = reader.readLine();
+            linea++;
+            if (header == null) {
+                return null;
+            }
+            if (!HEADER.equals(header.strip())) {
+                throw new IOException("El encabezado del CSV debe ser " + HEADER);
+            }
+        }
+        if (!rechazados.isEmpty()) {
+            return rechazados.poll();
+        }
+        if (pending == null) {
+            pending = readRow();
+        }
+        if (pending == null) {
+            return null;
+        }
+        if (pending.error() != null) {
+            ImportRecord rechazado = new ImportRecord(pending.linea(), null, pending.error());
+            pending = null;
+            return rechazado;
+        }
+
+        Row first = pending;
+        UserImportDTO user = new UserImportDTO();
+        user.setCedula(first.get(0));
+        user.setName(first.get(1));
+        user.setEmail(first.get(2));
+        user.setLogin(first.get(3));
+        AccountImportDTO account = null;
+        do {
+            Row row = pending;
+            String numeroCuenta = row.get(4);
+            if (!numeroCuenta.isEmpty()) {
+                if (account == null || !numeroCuenta.equals(account.getNumeroCuenta())) {
+                    account = new AccountImportDTO();
+                    account.setNumeroCuenta(numeroCuenta);
+                    account.setSaldo(row.saldo());
+                    account.setEstado(row.get(6));
+                    user.getAccounts().add(account);
+                }
+                if (!row.get(7).isEmpty()) {
+                    PocketImportDTO pocket = new PocketImportDTO();
+                    pocket.setNombre(row.get(7));
+                    pocket.setSaldo(row.saldoBolsillo());
+                    pocket.setMetaAhorro(row.metaAhorro());
+                    account.getPockets().add(pocket);
+                }
+            }
+            pending = readRow();
+            // la cédula de una fila inválida no es confiable: se rechaza y se sigue con la siguiente
+            while (pending != null && pending.error() != null) {
+                rechazados.add(new ImportRecord(pending.linea(), null, pending.error()));
+                pending = readRow();
+            }
+        } while (pending != null && pending.get(0).equals(user.getCedula()));
+        return new ImportRecord(first.linea(), user, null);
+    }
+
+    private Row readRow() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            linea++;
+        } while (line != null && line.isBlank());
+        if (line == null) {
+            return null;
+        }
+        List<String> values = split(line);
+        if (values == null || values.size() != COLUMNS) {
+            return new Row(linea, null, null, null, null, "La fila debe tener " + COLUMNS + " columnas");
+        }
+        String[] row = values.toArray(new String[0]);
+        try {
+            return new Row(linea, row, number(row[5]), number(row[8]), number(row[9]), null);
+        } catch (NumberFormatException e) {
+            return new Row(linea, null, null, null, null, "Valor numérico inválido: " + e.getMessage());
+        }
+    }
+
+    private static Double number(String value) {
+        return value.isEmpty() ? null : Double.valueOf(value);
+    }
+
+    /**
+     * Separa una línea CSV con campos opcionalmente entre comillas ("" escapa una comilla).
+     *
+     * @return los campos sin espacios alrededor, o null si una comilla no se cierra
+     */
+    static List<String> split(String line) {
+        List<String> values = new ArrayList<>(COLUMNS);
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString().strip());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        values.add(value.toString().strip());
+        return values;
+    }
+}
@@ -0,0 +1,13 @@
+package co.edu.uniandes.dse.TallerPruebas.imports;
+
+/**
+ * Formatos de los archivos de importación masiva.
+ *
+ * NDJSON: un usuario por línea, con sus cuentas y bolsillos anidados.
+ * CSV: una fila por bolsillo (o por cuenta sin bolsillos) con las columnas
+ * cedula,name,email,login,numeroCuenta,saldo,estado,bolsillo,saldoBolsillo,metaAhorro;
+ * las filas consecutivas con la misma cédula forman un usuario.
+ */
+public enum ImportFormat {
+    CSV, NDJSON
+}
@@ -0,0 +1,16 @@
+package co.edu.uniandes.dse.TallerPruebas.imports;
+
+import java.io.IOException;
+
+/**
+ * Lector de un archivo de importación que entrega un usuario a la vez, sin
+ * cargar el archivo completo en memoria.
+ */
+interface ImportReader {
+
+    /**
+     * @return el siguiente usuario, o null al final del archivo. Un registro
+     *         que no se pudo interpretar se entrega con su error.
+     */
+    ImportRecord next() throws IOException;
+}
@@ -0,0 +1,14 @@
+package co.edu.uniandes.dse.TallerPruebas.imports;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.UserImportDTO;
+
+/**
+ * Un usuario leído del archivo, con la línea donde empieza y el error que lo
+ * rechaza, si lo hay.
+ */
+record ImportRecord(long linea, UserImportDTO user, String error) {
+
+    ImportRecord conError(String error) {
+        return new ImportRecord(linea, user, error);
+    }
+}
@@ -0,0 +1,41 @@
+package co.edu.uniandes.dse.TallerPruebas.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.UserImportDTO;
+
+/**
+ * Lee un usuario por línea. Una línea mal formada solo rechaza ese usuario.
+ */
+class NdjsonImportReader implements ImportReader {
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private long linea;
+
+    NdjsonImportReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            linea++;
+        } while (line != null && line.isBlank());
+        if (line == null) {
+            return null;
+        }
+        try {
+            return new ImportRecord(linea, objectMapper.readValue(line, UserImportDTO.class), null);
+        } catch (JsonProcessingException e) {
+            return new ImportRecord(linea, null, "JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package co.edu.uniandes.dse.TallerPruebas.jobs;
+
+import java.util.List;
+
+/**
+ * Lógica de una tarea por lotes sobre un bloque de cuentas. Corre dentro de
+ * la transacción del bloque, junto con su checkpoint: si falla, no queda
+ * ningún cambio del bloque y la siguiente ejecución lo vuelve a procesar.
+ */
+@FunctionalInterface
+public interface ChunkProcessor {
+
+    /**
+     * @param accountIds ids de las cuentas del bloque, en orden
+     * @return número de registros que escribió el bloque (movimientos, diferencias)
+     */
+    int procesar(List<Long> accountIds);
+}
@@ -0,0 +1,257 @@
+package co.edu.uniandes.dse.TallerPruebas.jobs;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.BatchCheckpointEntity;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.BatchCheckpointRepository;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardContext;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ejecuta una tarea por lotes sobre todas las cuentas.
+ *
+ * Las cuentas se recorren por keyset (id > cursor) en bloques de
+ * jobs.batch.chunk-size ids. Cada bloque se procesa en su propia transacción
+ * en un pool de jobs.batch.threads hilos; la cola es del mismo tamaño y,
+ * cuando se llena, el hilo que lee procesa el bloque, así que la lectura
+ * nunca se adelanta más de unos pocos bloques.
+ *
+ * Cada bloque guarda en su transacción un checkpoint con su rango de ids. Una
+ * nueva ejecución del mismo job y periodo salta los rangos ya terminados y
+ * procesa solo los huecos, sin que los rangos nuevos se solapen con los
+ * anteriores. Los bloques que fallan por conflicto de concurrencia se
+ * reintentan hasta jobs.batch.max-attempts veces.
+ *
+ * Con sharding, ejecutar recorre las cuentas y guarda los checkpoints en el
+ * shard del hilo que lo llama; los hilos del pool trabajan en ese mismo shard.
+ * enCadaShard repite una tarea en todos los shards.
+ */
+@Slf4j
+@Component
+public class ChunkedJobRunner {
+
+    @Value("${jobs.batch.threads:4}")
+    private int threads;
+
+    @Value("${jobs.batch.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${jobs.batch.max-attempts:3}")
+    private int maxAttempts;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BatchCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private ShardRouter shardRouter;
+
+    /**
+     * Totales de una ejecución, actualizados desde los hilos del pool.
+     */
+    private static class Totales {
+        private final AtomicInteger bloques = new AtomicInteger();
+        private final AtomicInteger fallidos = new AtomicInteger();
+        private final AtomicLong cuentas = new AtomicLong();
+        private final AtomicLong movimientos = new AtomicLong();
+    }
+
+    /**
+     * Ejecuta la tarea una vez por shard, con el shard fijado en el hilo, y
+     * suma sus totales. Un shard que falla no impide ejecutar los demás; la
+     * primera falla se lanza al terminar. Sin sharding la ejecuta una vez.
+     *
+     * @param tarea ejecución del job en el shard actual
+     * @return los totales de todos los shards
+     */
+    public JobResult enCadaShard(Supplier<JobResult> tarea) {
+        if (shardRouter == null) {
+            return tarea.get();
+        }
+        JobResult total = null;
+        RuntimeException error = null;
+        for (String shard : shardRouter.getShards()) {
+            String anterior = ShardContext.usar(shard);
+            try {
+                JobResult result = tarea.get();
+                total = total == null ? result : total.sumar(result);
+            } catch (RuntimeException e) {
+                log.error("Error ejecutando el job en el shard {}", shard, e);
+                if (error == null) {
+                    error = e;
+                }
+            } finally {
+                ShardContext.usar(anterior);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return total;
+    }
+
+    /**
+     * Procesa todas las cuentas que aún no tienen checkpoint para el job y periodo.
+     *
+     * @param job nombre de la tarea
+     * @param periodo periodo que se procesa, por ejemplo 2026-09
+     * @param processor lógica de cada bloque
+     * @return los totales de la ejecución
+     */
+    public JobResult ejecutar(String job, String periodo, ChunkProcessor processor) {
+        long inicio = System.nanoTime();
+        // rangos (desde, hasta] ya terminados, sin solapes
+        NavigableMap<Long, Long> terminados = new TreeMap<>();
+        for (BatchCheckpointEntity checkpoint : checkpointRepository.findByJobAndPeriodoOrderByDesdeIdAsc(job,
+                periodo)) {
+            terminados.put(checkpoint.getDesdeId(), checkpoint.getHastaId());
+        }
+        log.info("Inicia el job {} del periodo {} con {} bloques ya terminados", job, periodo, terminados.size());
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String shard = ShardContext.current();
+        Totales totales = new Totales();
+        int omitidos = 0;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            long cursor = 0L;
+            while (true) {
+                // un bloque nunca pasa del inicio del siguiente rango terminado
+                Map.Entry<Long, Long> siguiente = terminados.ceilingEntry(cursor);
+                long limite = siguiente == null ? Long.MAX_VALUE : siguiente.getKey();
+                List<Long> ids = limite > cursor
+                        ? accountRepository.findIdsBetween(cursor, limite, PageRequest.of(0, chunkSize))
+                        : List.of();
+                if (!ids.isEmpty()) {
+                    long desde = cursor;
+                    cursor = ids.get(ids.size() - 1);
+                    executor.execute(() -> {
+                        String anterior = ShardContext.usar(shard);
+                        try {
+                            procesar(job, periodo, desde, ids, processor, transactionTemplate, totales);
+                        } finally {
+                            ShardContext.usar(anterior);
+                        }
+                    });
+                }
+                if (ids.size() < chunkSize) {
+                    if (siguiente == null) {
+                        break;
+                    }
+                    cursor = siguiente.getValue();
+                    omitidos++;
+                }
+            }
+        } finally {
+            executor.shutdown();
+            esperar(executor);
+        }
+
+        JobResult result = new JobResult(job, periodo, totales.bloques.get(), totales.fallidos.get(), omitidos,
+                totales.cuentas.get(), totales.movimientos.get(), (System.nanoTime() - inicio) / 1e9);
+        log.info("Termina el job {} del periodo {}: {} bloques, {} fallidos, {} omitidos, {} cuentas y {} "
+                + "movimientos en {} s ({} cuentas/s)", job, periodo, result.bloques(), result.fallidos(),
+                result.omitidos(), result.cuentas(), result.movimientos(), String.format("%.1f", result.segundos()),
+                String.format("%.0f", result.cuentasPorSegundo()));
+        return result;
+    }
+
+    private void procesar(String job, String periodo, long desde, List<Long> ids, ChunkProcessor processor,
+            TransactionTemplate transactionTemplate, Totales totales) {
+        long hasta = ids.get(ids.size() - 1);
+        Timer.Sample sample = meterRegistry == null ? null : Timer.start(meterRegistry);
+        long inicio = System.nanoTime();
+        for (int intento = 1;; intento++) {
+            try {
+                int movimientos = transactionTemplate.execute(status -> {
+                    int registrados = processor.procesar(ids);
+                    BatchCheckpointEntity checkpoint = new BatchCheckpointEntity();
+                    checkpoint.setJob(job);
+                    checkpoint.setPeriodo(periodo);
+                    checkpoint.setDesdeId(desde);
+                    checkpoint.setHastaId(hasta);
+                    checkpoint.setProcesados(ids.size());
+                    checkpoint.setMovimientos(registrados);
+                    checkpoint.setFecha(new Date());
+                    checkpointRepository.save(checkpoint);
+                    return registrados;
+                });
+                totales.bloques.incrementAndGet();
+                totales.cuentas.addAndGet(ids.size());
+                totales.movimientos.addAndGet(movimientos);
+                contar(job, "procesada", ids.size());
+                log.debug("Bloque ({}, {}] del job {}: {} cuentas en {} ms", desde, hasta, job, ids.size(),
+                        (System.nanoTime() - inicio) / 1_000_000);
+                break;
+            } catch (ConcurrencyFailureException e) {
+                if (intento < maxAttempts) {
+                    log.debug("Conflicto en el bloque ({}, {}] del job {}, intento {}", desde, hasta, job, intento);
+                    continue;
+                }
+                fallar(job, desde, hasta, ids.size(), totales, e);
+                break;
+            } catch (RuntimeException e) {
+                fallar(job, desde, hasta, ids.size(), totales, e);
+                break;
+            }
+        }
+        if (sample != null) {
+            sample.stop(meterRegistry.timer("taller.jobs.chunk", "job", job));
+        }
+    }
+
+    private void fallar(String job, long desde, long hasta, int cuentas, Totales totales, RuntimeException e) {
+        log.error("Error procesando el bloque ({}, {}] del job {}; queda pendiente para la siguiente ejecución",
+                desde, hasta, job, e);
+        totales.fallidos.incrementAndGet();
+        contar(job, "fallida", cuentas);
+    }
+
+    private void contar(String job, String resultado, int cuentas) {
+        if (meterRegistry != null) {
+            meterRegistry.counter("taller.jobs.accounts", "job", job, "resultado", resultado).increment(cuentas);
+        }
+    }
+
+    private static void esperar(ThreadPoolExecutor executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Esperando {} bloques en curso", executor.getActiveCount() + executor.getQueue().size());
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package co.edu.uniandes.dse.TallerPruebas.jobs;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import co.edu.uniandes.dse.TallerPruebas.idempotency.IdempotencyStore;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardContext;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tarea diaria que borra los registros de idempotencia con más de
+ * idempotency.retention-hours de antigüedad, para que la tabla no crezca sin
+ * límite. Con sharding cada ejecución recorre todos los shards.
+ */
+@Slf4j
+@Component
+public class IdempotencyPurgeJob {
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired(required = false)
+    private ShardRouter shardRouter;
+
+    @Value("${idempotency.retention-hours:168}")
+    private long retentionHours;
+
+    @Scheduled(cron = "${idempotency.purge.cron:0 15 4 * * *}", zone = "${aggregates.daily.zone:America/Bogota}")
+    public void run() {
+        Date antes = new Date(System.currentTimeMillis() - retentionHours * 3_600_000L);
+        List<String> shards = shardRouter == null ? List.of() : shardRouter.getShards();
+        if (shards.isEmpty()) {
+            purgar(antes);
+            return;
+        }
+        for (String shard : shards) {
+            String anterior = ShardContext.usar(shard);
+            try {
+                purgar(antes);
+            } finally {
+                ShardContext.usar(anterior);
+            }
+        }
+    }
+
+    private void purgar(Date antes) {
+        try {
+            int borrados = idempotencyStore.purgar(antes);
+            if (borrados > 0) {
+                log.info("Se borraron {} registros de idempotencia anteriores a {}", borrados, antes);
+            }
+        } catch (RuntimeException e) {
+            log.error("Error borrando registros de idempotencia anteriores a {} en el shard {}", antes,
+                    ShardContext.current(), e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package co.edu.uniandes.dse.TallerPruebas.jobs;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.PocketRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import co.edu.uniandes.dse.TallerPruebas.services.DailyAggregateService;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService.Posting;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tarea mensual que cobra la cuota de manejo de las cuentas activas y abona
+ * los intereses de sus bolsillos.
+ *
+ * La cuota es jobs.interest-fees.monthly-fee, limitada al saldo de la cuenta.
+ * El interés es jobs.interest-fees.monthly-rate sobre el saldo del bolsillo
+ * hasta su meta de ahorro (todo el saldo si no tiene meta). Cada movimiento
+ * queda como una TransactionEntity (SALIDA de la cuenta para la cuota,
+ * ENTRADA del bolsillo para el interés) y como asientos contra el libro BANCO.
+ *
+ * Corre sobre ChunkedJobRunner, así que una ejecución interrumpida se retoma
+ * sin cobrar dos veces el mismo periodo. Con sharding corre en cada shard,
+ * cada uno con su propio titular del banco.
+ */
+@Slf4j
+@Component
+public class InterestAndFeesJob {
+
+    public static final String JOB = "INTERESES_Y_CUOTAS";
+
+    private static final String CONCEPTO_INTERES = "INTERES";
+    private static final String CONCEPTO_CUOTA = "CUOTA_MANEJO";
+
+    @Autowired
+    private ChunkedJobRunner runner;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private DailyAggregateService dailyAggregateService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${jobs.interest-fees.monthly-fee:9900}")
+    private double cuota;
+
+    @Value("${jobs.interest-fees.monthly-rate:0.005}")
+    private double tasa;
+
+    @Value("${aggregates.daily.zone:America/Bogota}")
+    private ZoneId zone;
+
+    @Scheduled(cron = "${jobs.interest-fees.cron:0 0 2 1 * *}", zone = "${aggregates.daily.zone:America/Bogota}")
+    public void run() {
+        YearMonth periodo = YearMonth.now(zone).minusMonths(1);
+        try {
+            ejecutar(periodo);
+        } catch (RuntimeException e) {
+            log.error("Error ejecutando intereses y cuotas del periodo {}", periodo, e);
+        }
+    }
+
+    /**
+     * Cobra cuotas y abona intereses del periodo a las cuentas que aún no los tienen.
+     *
+     * @param periodo mes liquidado
+     * @return los totales de la ejecución
+     */
+    public JobResult ejecutar(YearMonth periodo) {
+        return runner.enCadaShard(() -> {
+            // el titular del banco se abre una sola vez, no en bloques paralelos
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> ledgerService
+                    .abrir(LedgerService.LIBRO_BANCO, Map.of(LedgerService.TITULAR_BANCO, 0.0), new Date()));
+            return runner.ejecutar(JOB, periodo.toString(), this::procesar);
+        });
+    }
+
+    private int procesar(List<Long> accountIds) {
+        List<AccountEntity> accounts = accountRepository.findAllByIdForUpdate(accountIds);
+        Date fecha = ledgerService.abrirCuentas(accountIds);
+        Map<Long, List<PocketEntity>> pockets = new HashMap<>();
+        for (PocketEntity pocket : pocketRepository.findByAccountIds(accountIds)) {
+            pockets.computeIfAbsent(pocket.getAccount().getId(), k -> new ArrayList<>()).add(pocket);
+        }
+
+        List<TransactionEntity> cuotas = new ArrayList<>();
+        List<TransactionEntity> intereses = new ArrayList<>();
+        Map<Long, Double> saldosBolsillos = new HashMap<>();
+        for (AccountEntity account : accounts) {
+            if (!"ACTIVA".equals(account.getEstado())) {
+                continue;
+            }
+            double saldo = account.getSaldo() == null ? 0.0 : account.getSaldo();
+            double monto = redondear(Math.min(saldo, cuota));
+            if (monto > 0) {
+                account.setSaldo(saldo - monto);
+                cuotas.add(transaction(account, null, "SALIDA", monto, fecha));
+                ledgerService.registrar(CONCEPTO_CUOTA, fecha,
+                        new Posting(LedgerService.LIBRO_CUENTA, account.getId(), -monto),
+                        new Posting(LedgerService.LIBRO_BANCO, LedgerService.TITULAR_BANCO, monto));
+            }
+            for (PocketEntity pocket : pockets.getOrDefault(account.getId(), List.of())) {
+                double saldoBolsillo = pocket.getSaldo() == null ? 0.0 : pocket.getSaldo();
+                double base = pocket.getMetaAhorro() == null ? saldoBolsillo
+                        : Math.min(saldoBolsillo, pocket.getMetaAhorro());
+                double interes = redondear(base * tasa);
+                if (interes > 0) {
+                    saldosBolsillos.put(pocket.getId(), saldoBolsillo);
+                    intereses.add(transaction(account, pocket, "ENTRADA", interes, fecha));
+                }
+            }
+        }
+
+        // una sola apertura para todos los bolsillos del bloque, con su saldo antes del interés
+        ledgerService.abrir(LedgerService.LIBRO_BOLSILLO, saldosBolsillos, fecha);
+        for (TransactionEntity interes : intereses) {
+            PocketEntity pocket = interes.getPocket();
+            pocket.setSaldo(saldosBolsillos.get(pocket.getId()) + interes.getMonto());
+            ledgerService.registrar(CONCEPTO_INTERES, fecha,
+                    new Posting(LedgerService.LIBRO_BOLSILLO, pocket.getId(), interes.getMonto()),
+                    new Posting(LedgerService.LIBRO_BANCO, LedgerService.TITULAR_BANCO, -interes.getMonto()));
+        }
+
+        transactionRepository.saveAll(cuotas);
+        transactionRepository.saveAll(intereses);
+        // los totales diarios son del saldo de la cuenta; los intereses van al bolsillo
+        dailyAggregateService.registrar(cuotas);
+        return cuotas.size() + intereses.size();
+    }
+
+    private static TransactionEntity transaction(AccountEntity account, PocketEntity pocket, String tipo,
+            double monto, Date fecha) {
+        TransactionEntity transaction = new TransactionEntity();
+        transaction.setAccount(account);
+        transaction.setPocket(pocket);
+        transaction.setTipo(tipo);
+        transaction.setConcepto(pocket == null ? CONCEPTO_CUOTA : CONCEPTO_INTERES);
+        transaction.setMonto(monto);
+        transaction.setFecha(fecha);
+        return transaction;
+    }
+
+    private static double redondear(double monto) {
+        return Math.round(monto * 100) / 100.0;
+    }
+}
@@ -0,0 +1,25 @@
+package co.edu.uniandes.dse.TallerPruebas.jobs;
+
+/**
+ * Totales de una ejecución de una tarea por lotes.
+ *
+ * @param bloques bloques procesados en esta ejecución
+ * @param fallidos bloques que fallaron y quedan pendientes para la siguiente
+ * @param omitidos bloques que ya estaban terminados por una ejecución anterior
+ */
+public record JobResult(String job, String periodo, int bloques, int fallidos, int omitidos, long cuentas,
+        long movimientos, double segundos) {
+
+    /**
+     * Suma los totales de dos ejecuciones del mismo job, por ejemplo en shards distintos.
+     */
+    public JobResult sumar(JobResult otro) {
+        return new JobResult(job, periodo, bloques + otro.bloques, fallidos + otro.fallidos,
+                omitidos + otro.omitidos, cuentas + otro.cuentas, movimientos + otro.movimientos,
+                segundos + otro.segundos);
+    }
+
+    public double cuentasPorSegundo() {
+        return segundos == 0 ? 0 : cuentas / segundos;
+    }
+}
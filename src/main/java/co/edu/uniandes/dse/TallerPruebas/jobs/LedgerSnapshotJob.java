@@ -0,0 +1,70 @@
+package co.edu.uniandes.dse.TallerPruebas.jobs;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardContext;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tarea que consolida periódicamente los asientos del libro mayor en snapshots
+ * de saldo, para que las consultas de saldo lean una cola corta de asientos.
+ *
+ * El corte se toma ledger.snapshots.lag-seconds en el pasado: una transacción
+ * que todavía no hizo commit puede tener asientos con fecha anterior a ahora,
+ * pero no anteriores al corte. Con sharding cada ejecución recorre todos los shards.
+ */
+@Slf4j
+@Component
+public class LedgerSnapshotJob {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired(required = false)
+    private ShardRouter shardRouter;
+
+    @Value("${ledger.snapshots.lag-seconds:60}")
+    private long lagSeconds;
+
+    @Value("${ledger.snapshots.min-entries:100}")
+    private long minEntries;
+
+    @Value("${ledger.snapshots.max-per-run:1000}")
+    private int maxPerRun;
+
+    @Scheduled(fixedDelayString = "${ledger.snapshots.interval-ms:60000}",
+            initialDelayString = "${ledger.snapshots.interval-ms:60000}")
+    public void run() {
+        Date corte = new Date(System.currentTimeMillis() - lagSeconds * 1000);
+        List<String> shards = shardRouter == null ? List.of() : shardRouter.getShards();
+        if (shards.isEmpty()) {
+            tomarSnapshots(corte);
+            return;
+        }
+        for (String shard : shards) {
+            String anterior = ShardContext.usar(shard);
+            try {
+                tomarSnapshots(corte);
+            } finally {
+                ShardContext.usar(anterior);
+            }
+        }
+    }
+
+    private void tomarSnapshots(Date corte) {
+        try {
+            ledgerService.tomarSnapshots(corte, minEntries, maxPerRun);
+        } catch (RuntimeException e) {
+            log.error("Error tomando snapshots de saldo con corte {} en el shard {}", corte, ShardContext.current(),
+                    e);
+        }
+    }
+}
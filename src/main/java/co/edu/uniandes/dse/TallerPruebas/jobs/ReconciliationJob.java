@@ -0,0 +1,220 @@
+package co.edu.uniandes.dse.TallerPruebas.jobs;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.BalanceDiscrepancyEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.BalanceSnapshotEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.ReconciliationMarkEntity;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.BalanceDiscrepancyRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.BalanceSnapshotRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.PocketRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.ReconciliationMarkRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tarea nocturna que verifica que el saldo de cada cuenta y bolsillo sea el
+ * que resulta de sus transacciones, y guarda las diferencias en
+ * BalanceDiscrepancyEntity.
+ *
+ * Cada titular tiene una marca con su saldo conciliado a una fecha, así que
+ * cada ejecución solo suma, agrupadas en la BD, las transacciones desde la
+ * marca. Si no hay diferencia la marca avanza al corte de la ejecución
+ * (jobs.reconciliation.lag-seconds en el pasado, como los snapshots del libro
+ * mayor); si la hay, la marca se queda donde estaba y la diferencia se vuelve
+ * a reportar hasta que se corrija. La primera marca de un titular es su
+ * apertura en el libro mayor o, si nunca tuvo movimientos, su saldo actual.
+ *
+ * Las cuentas del bloque se leen con bloqueo de fila: los escritores actualizan
+ * la cuenta en la misma transacción que insertan sus transacciones, así que
+ * saldo y transacciones se leen consistentes. Corre sobre ChunkedJobRunner con
+ * una ejecución por día, que se retoma si se interrumpe; con sharding
+ * concilia cada shard.
+ */
+@Slf4j
+@Component
+public class ReconciliationJob {
+
+    public static final String JOB = "CONCILIACION";
+    public static final String CUENTA = "CUENTA";
+    public static final String BOLSILLO = "BOLSILLO";
+
+    private static final double TOLERANCIA = 0.005;
+    private static final double[] SIN_MOVIMIENTOS = { 0.0, 0.0 };
+
+    @Autowired
+    private ChunkedJobRunner runner;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private ReconciliationMarkRepository markRepository;
+
+    @Autowired
+    private BalanceDiscrepancyRepository discrepancyRepository;
+
+    @Value("${jobs.reconciliation.lag-seconds:60}")
+    private long lagSeconds;
+
+    @Value("${aggregates.daily.zone:America/Bogota}")
+    private ZoneId zone;
+
+    @Scheduled(cron = "${jobs.reconciliation.cron:0 30 3 * * *}", zone = "${aggregates.daily.zone:America/Bogota}")
+    public void run() {
+        String ejecucion = LocalDate.now(zone).toString();
+        try {
+            ejecutar(ejecucion);
+        } catch (RuntimeException e) {
+            log.error("Error ejecutando la conciliación {}", ejecucion, e);
+        }
+    }
+
+    /**
+     * Concilia las cuentas que aún no tienen checkpoint para la ejecución.
+     *
+     * @param ejecucion identificador de la ejecución, por ejemplo la fecha
+     * @return los totales; movimientos es el número de diferencias encontradas
+     */
+    public JobResult ejecutar(String ejecucion) {
+        Date corte = new Date(System.currentTimeMillis() - lagSeconds * 1000);
+        JobResult result = runner.enCadaShard(
+                () -> runner.ejecutar(JOB, ejecucion, accountIds -> conciliar(ejecucion, corte, accountIds)));
+        if (result.movimientos() > 0) {
+            log.warn("La conciliación {} encontró {} diferencias de saldo", ejecucion, result.movimientos());
+        }
+        return result;
+    }
+
+    private int conciliar(String ejecucion, Date corte, List<Long> accountIds) {
+        Map<Long, Double> saldosCuentas = new HashMap<>();
+        for (AccountEntity account : accountRepository.findAllByIdForUpdate(accountIds)) {
+            saldosCuentas.put(account.getId(), account.getSaldo() == null ? 0.0 : account.getSaldo());
+        }
+        Map<Long, Double> saldosBolsillos = new HashMap<>();
+        for (PocketEntity pocket : pocketRepository.findByAccountIds(accountIds)) {
+            saldosBolsillos.put(pocket.getId(), pocket.getSaldo() == null ? 0.0 : pocket.getSaldo());
+        }
+
+        // las marcas nuevas deben existir antes de sumar, la consulta se une con ellas
+        Map<Long, ReconciliationMarkEntity> marcasCuentas = marcas(CUENTA, LedgerService.LIBRO_CUENTA,
+                saldosCuentas.keySet(), corte);
+        Map<Long, ReconciliationMarkEntity> marcasBolsillos = marcas(BOLSILLO, LedgerService.LIBRO_BOLSILLO,
+                saldosBolsillos.keySet(), corte);
+
+        List<BalanceDiscrepancyEntity> diferencias = new ArrayList<>();
+        comparar(ejecucion, CUENTA, saldosCuentas, marcasCuentas,
+                netos(transactionRepository.streamNetoCuentasDesdeMarca(accountIds, corte)), corte, diferencias);
+        if (!saldosBolsillos.isEmpty()) {
+            comparar(ejecucion, BOLSILLO, saldosBolsillos, marcasBolsillos,
+                    netos(transactionRepository.streamNetoBolsillosDesdeMarca(accountIds, corte)), corte,
+                    diferencias);
+        }
+        discrepancyRepository.saveAll(diferencias);
+        return diferencias.size();
+    }
+
+    private Map<Long, ReconciliationMarkEntity> marcas(String tipo, String libro, Collection<Long> titularIds,
+            Date corte) {
+        Map<Long, ReconciliationMarkEntity> marcas = new HashMap<>();
+        if (titularIds.isEmpty()) {
+            return marcas;
+        }
+        for (ReconciliationMarkEntity marca : markRepository.findByTipoAndTitularIdIn(tipo, titularIds)) {
+            marcas.put(marca.getTitularId(), marca);
+        }
+        Set<Long> nuevas = new HashSet<>(titularIds);
+        nuevas.removeAll(marcas.keySet());
+        if (nuevas.isEmpty()) {
+            return marcas;
+        }
+
+        List<ReconciliationMarkEntity> creadas = new ArrayList<>(nuevas.size());
+        for (BalanceSnapshotEntity apertura : balanceSnapshotRepository.findAperturas(libro, nuevas)) {
+            creadas.add(marca(tipo, apertura.getTitularId(), apertura.getSaldo(), apertura.getCorte()));
+            nuevas.remove(apertura.getTitularId());
+        }
+        // sin apertura no hay contra qué comparar: el saldo se fija en comparar
+        for (Long titularId : nuevas) {
+            creadas.add(marca(tipo, titularId, null, corte));
+        }
+        markRepository.saveAll(creadas);
+        creadas.forEach(marca -> marcas.put(marca.getTitularId(), marca));
+        return marcas;
+    }
+
+    private void comparar(String ejecucion, String tipo, Map<Long, Double> saldos,
+            Map<Long, ReconciliationMarkEntity> marcas, Map<Long, double[]> netos, Date corte,
+            List<BalanceDiscrepancyEntity> diferencias) {
+        for (Map.Entry<Long, Double> entry : saldos.entrySet()) {
+            double saldo = entry.getValue();
+            ReconciliationMarkEntity marca = marcas.get(entry.getKey());
+            double[] neto = netos.getOrDefault(entry.getKey(), SIN_MOVIMIENTOS);
+            if (marca.getSaldo() == null) {
+                marca.setSaldo(saldo - neto[1]);
+                continue;
+            }
+            double esperado = marca.getSaldo() + neto[0];
+            if (Math.abs(esperado - saldo) > TOLERANCIA) {
+                BalanceDiscrepancyEntity diferencia = new BalanceDiscrepancyEntity();
+                diferencia.setEjecucion(ejecucion);
+                diferencia.setTipo(tipo);
+                diferencia.setTitularId(entry.getKey());
+                diferencia.setSaldoRegistrado(saldo);
+                diferencia.setSaldoEsperado(esperado);
+                diferencia.setDesde(marca.getMarca());
+                diferencia.setFecha(new Date());
+                diferencias.add(diferencia);
+            } else if (corte.after(marca.getMarca())) {
+                marca.setSaldo(saldo - neto[1]);
+                marca.setMarca(corte);
+            }
+        }
+    }
+
+    private static Map<Long, double[]> netos(Stream<Object[]> rows) {
+        Map<Long, double[]> netos = new HashMap<>();
+        try (rows) {
+            rows.forEach(row -> netos.put((Long) row[0],
+                    new double[] { ((Number) row[1]).doubleValue(), ((Number) row[2]).doubleValue() }));
+        }
+        return netos;
+    }
+
+    private static ReconciliationMarkEntity marca(String tipo, Long titularId, Double saldo, Date fecha) {
+        ReconciliationMarkEntity marca = new ReconciliationMarkEntity();
+        marca.setTipo(tipo);
+        marca.setTitularId(titularId);
+        marca.setSaldo(saldo);
+        marca.setMarca(fecha);
+        return marca;
+    }
+}
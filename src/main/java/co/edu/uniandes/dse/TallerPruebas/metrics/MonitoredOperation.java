@@ -0,0 +1,22 @@
+package co.edu.uniandes.dse.TallerPruebas.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca una operación de servicio cuya latencia y resultado se registran en
+ * Micrometer. Ver {@link OperationMetricsAspect}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MonitoredOperation {
+
+    /**
+     * @return nombre de la operación; por defecto, el nombre del método
+     */
+    String value() default "";
+}
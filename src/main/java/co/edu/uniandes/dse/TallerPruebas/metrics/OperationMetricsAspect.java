@@ -0,0 +1,99 @@
+package co.edu.uniandes.dse.TallerPruebas.metrics;
+
+import java.util.Locale;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Registra la latencia y el resultado de las operaciones anotadas con
+ * {@link MonitoredOperation}:
+ *
+ * taller.operation (timer con histograma de percentiles) por operación y resultado.
+ * taller.operation.results (contador) por operación, resultado y motivo.
+ * taller.operation.statements (resumen) sentencias SQL por operación.
+ *
+ * El resultado es success, not_found (EntityNotFoundException), business_error
+ * (BusinessLogicException) o error. El motivo es el mensaje de la excepción con
+ * los dígitos reemplazados, para que su cardinalidad quede acotada. Se ejecuta
+ * por fuera de los reintentos, así que la latencia incluye el tiempo reintentando.
+ * Fuera de una petición (tareas programadas, motor de transferencias) el
+ * aspecto abre y cierra su propio conteo de sentencias.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OperationMetricsAspect {
+
+    private static final int MAX_REASON_LENGTH = 80;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("@annotation(monitoredOperation)")
+    public Object measure(ProceedingJoinPoint joinPoint, MonitoredOperation monitoredOperation) throws Throwable {
+        String operation = monitoredOperation.value().isEmpty() ? joinPoint.getSignature().getName()
+                : monitoredOperation.value();
+        String outcome = "success";
+        String reason = "none";
+
+        boolean ownCount = !QueryCounter.isActive();
+        if (ownCount) {
+            QueryCounter.start();
+        }
+        int statementsBefore = QueryCounter.current().getStatements();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return joinPoint.proceed();
+        } catch (EntityNotFoundException e) {
+            outcome = "not_found";
+            reason = reason(e.getMessage());
+            throw e;
+        } catch (BusinessLogicException e) {
+            outcome = "business_error";
+            reason = reason(e.getMessage());
+            throw e;
+        } catch (Throwable e) {
+            outcome = "error";
+            reason = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("taller.operation")
+                    .description("Latencia de las operaciones de servicio")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+            meterRegistry.counter("taller.operation.results", "operation", operation, "outcome", outcome, "reason",
+                    reason).increment();
+            DistributionSummary.builder("taller.operation.statements")
+                    .description("Sentencias SQL ejecutadas por operación de servicio")
+                    .tag("operation", operation)
+                    .register(meterRegistry)
+                    .record(QueryCounter.current().getStatements() - statementsBefore);
+            if (ownCount) {
+                QueryCounter.reset();
+            }
+        }
+    }
+
+    private static String reason(String message) {
+        if (message == null || message.isBlank()) {
+            return "unknown";
+        }
+        String reason = message.replaceAll("\\d+", "#").toLowerCase(Locale.ROOT);
+        return reason.length() > MAX_REASON_LENGTH ? reason.substring(0, MAX_REASON_LENGTH) : reason;
+    }
+}
@@ -0,0 +1,13 @@
+package co.edu.uniandes.dse.TallerPruebas.metrics;
+
+/*
+ * Excepción que se lanza cuando una petición ejecuta más sentencias SQL que su presupuesto
+ */
+public class QueryBudgetExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public QueryBudgetExceededException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,80 @@
+package co.edu.uniandes.dse.TallerPruebas.metrics;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Aplica a cada petición HTTP un presupuesto de sentencias SQL.
+ *
+ * Al terminar la petición se registra una advertencia si se superó el
+ * presupuesto o si una misma sentencia se ejecutó más veces que el umbral de
+ * repetición (un N+1 probable). En modo REJECT, la sentencia que excede el
+ * presupuesto falla con {@link QueryBudgetExceededException}.
+ *
+ * Las rutas de sql.budget.excluded-paths (procesos masivos como la
+ * importación) no tienen presupuesto.
+ */
+@Slf4j
+@Component
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    /**
+     * Qué hacer cuando una petición excede su presupuesto.
+     */
+    public enum Mode {
+        LOG, REJECT
+    }
+
+    @Value("${sql.budget.statements-per-request:50}")
+    private int statementsPerRequest;
+
+    @Value("${sql.budget.mode:LOG}")
+    private Mode mode;
+
+    @Value("${sql.budget.repeated-statement-threshold:10}")
+    private int repeatedStatementThreshold;
+
+    @Value("${sql.budget.excluded-paths:}")
+    private List<String> excludedPaths;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return excludedPaths.stream().anyMatch(excluded -> !excluded.isEmpty() && path.startsWith(excluded));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCounter.start();
+        QueryCounter.setBudget(statementsPerRequest, mode == Mode.REJECT);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCounter.Counts counts = QueryCounter.current();
+            String path = request.getMethod() + " " + request.getRequestURI();
+            if (counts.getStatements() > statementsPerRequest) {
+                log.warn("{} ejecutó {} sentencias SQL (presupuesto {}), {} entidades cargadas, {} colecciones inicializadas",
+                        path, counts.getStatements(), statementsPerRequest, counts.getEntityLoads(),
+                        counts.getCollectionFetches());
+            }
+            Map<String, Integer> repeated = counts.getRepeatedStatements(repeatedStatementThreshold);
+            if (!repeated.isEmpty()) {
+                log.warn("Posible N+1 en {}: {}", path, repeated);
+            }
+            QueryCounter.reset();
+        }
+    }
+}
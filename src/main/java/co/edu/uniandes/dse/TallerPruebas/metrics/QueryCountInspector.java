@@ -0,0 +1,18 @@
+package co.edu.uniandes.dse.TallerPruebas.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * StatementInspector de Hibernate que cuenta cada sentencia SQL preparada.
+ * Se registra con hibernate.session_factory.statement_inspector.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String inspect(String sql) {
+        QueryCounter.statementPrepared(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,171 @@
+package co.edu.uniandes.dse.TallerPruebas.metrics;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Contadores por hilo de las sentencias SQL, las entidades cargadas y las
+ * colecciones inicializadas por Hibernate. Los alimentan
+ * {@link QueryCountInspector} y {@link QueryCountIntegrator}; los consultan el
+ * filtro de presupuesto por petición, las métricas por operación y las pruebas.
+ *
+ * Solo cuenta el hilo que abrió un conteo con start (una petición, una
+ * operación monitoreada o una prueba) hasta su reset. Los hilos de los pools
+ * y de las tareas programadas no acumulan contadores que nadie reinicia.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Counts> COUNTS = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    /**
+     * Contadores acumulados del hilo actual desde el último reset.
+     */
+    public static final class Counts {
+        private int statements;
+        private int entityLoads;
+        private int collectionFetches;
+        private final Map<String, Integer> statementsBySql = new HashMap<>();
+        private int budget;
+        private boolean rejectOverBudget;
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public int getEntityLoads() {
+            return entityLoads;
+        }
+
+        public int getCollectionFetches() {
+            return collectionFetches;
+        }
+
+        public int getBudget() {
+            return budget;
+        }
+
+        /**
+         * @param tipo select, insert, update o delete
+         * @return las sentencias de ese tipo, sin contar las que piden valores de secuencias
+         */
+        public int getStatements(String tipo) {
+            int total = 0;
+            for (Map.Entry<String, Integer> entry : statementsBySql.entrySet()) {
+                String sql = entry.getKey().stripLeading().toLowerCase(Locale.ROOT);
+                if (sql.startsWith(tipo) && !esSecuencia(sql)) {
+                    total += entry.getValue();
+                }
+            }
+            return total;
+        }
+
+        /**
+         * @return las sentencias que piden el siguiente valor de una secuencia
+         */
+        public int getSequenceCalls() {
+            int total = 0;
+            for (Map.Entry<String, Integer> entry : statementsBySql.entrySet()) {
+                if (esSecuencia(entry.getKey().toLowerCase(Locale.ROOT))) {
+                    total += entry.getValue();
+                }
+            }
+            return total;
+        }
+
+        private static boolean esSecuencia(String sql) {
+            return sql.contains("next value for") || sql.contains("nextval(");
+        }
+
+        /**
+         * @param threshold número mínimo de ejecuciones
+         * @return las sentencias ejecutadas al menos threshold veces, señal típica de un N+1
+         */
+        public Map<String, Integer> getRepeatedStatements(int threshold) {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            statementsBySql.forEach((sql, count) -> {
+                if (count >= threshold) {
+                    repeated.put(sql, count);
+                }
+            });
+            return repeated;
+        }
+    }
+
+    /**
+     * @return los contadores del hilo actual, en cero si no está contando
+     */
+    public static Counts current() {
+        Counts counts = COUNTS.get();
+        return counts != null ? counts : new Counts();
+    }
+
+    /**
+     * Empieza a contar desde cero en el hilo actual.
+     */
+    public static void start() {
+        COUNTS.set(new Counts());
+    }
+
+    /**
+     * @return true si el hilo actual está contando
+     */
+    public static boolean isActive() {
+        return COUNTS.get() != null;
+    }
+
+    /**
+     * Deja de contar en el hilo actual y retira el presupuesto.
+     */
+    public static void reset() {
+        COUNTS.remove();
+    }
+
+    /**
+     * Fija un presupuesto de sentencias para el conteo del hilo actual, y lo
+     * empieza si aún no está contando.
+     *
+     * @param budget número máximo de sentencias; 0 para no limitar
+     * @param reject si es true, la sentencia que excede el presupuesto lanza
+     *               {@link QueryBudgetExceededException}
+     */
+    public static void setBudget(int budget, boolean reject) {
+        if (!isActive()) {
+            start();
+        }
+        Counts counts = COUNTS.get();
+        counts.budget = budget;
+        counts.rejectOverBudget = reject;
+    }
+
+    static void statementPrepared(String sql) {
+        Counts counts = COUNTS.get();
+        if (counts == null) {
+            return;
+        }
+        counts.statements++;
+        counts.statementsBySql.merge(sql, 1, Integer::sum);
+        if (counts.rejectOverBudget && counts.budget > 0 && counts.statements > counts.budget) {
+            throw new QueryBudgetExceededException(
+                    "La petición superó el presupuesto de " + counts.budget + " sentencias SQL");
+        }
+    }
+
+    static void entityLoaded() {
+        Counts counts = COUNTS.get();
+        if (counts != null) {
+            counts.entityLoads++;
+        }
+    }
+
+    static void collectionFetched() {
+        Counts counts = COUNTS.get();
+        if (counts != null) {
+            counts.collectionFetches++;
+        }
+    }
+}
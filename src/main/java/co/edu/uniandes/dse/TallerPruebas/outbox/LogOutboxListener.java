@@ -0,0 +1,26 @@
+package co.edu.uniandes.dse.TallerPruebas.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionEventDTO;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumidor que escribe cada evento del outbox en el log "outbox.events",
+ * una línea por evento, para que un recolector de logs lo envíe a donde se
+ * necesite. Se desactiva con outbox.log-listener.enabled=false.
+ */
+@Slf4j(topic = "outbox.events")
+@Component
+@ConditionalOnProperty(name = "outbox.log-listener.enabled", havingValue = "true", matchIfMissing = true)
+public class LogOutboxListener implements OutboxListener {
+
+    @Override
+    public void onEvent(TransactionEventDTO event) {
+        log.info("eventId={} tipo={} transactionId={} sourceId={} destinationId={} pocketId={} monto={} fecha={}",
+                event.getEventId(), event.getTipo(), event.getTransactionId(), event.getSourceId(),
+                event.getDestinationId(), event.getPocketId(), event.getMonto(),
+                event.getFecha() == null ? null : event.getFecha().toInstant());
+    }
+}
@@ -0,0 +1,224 @@
+package co.edu.uniandes.dse.TallerPruebas.outbox;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionEventDTO;
+import co.edu.uniandes.dse.TallerPruebas.entities.OutboxEventEntity;
+import co.edu.uniandes.dse.TallerPruebas.repositories.OutboxEventRepository;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardContext;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Entrega los eventos del outbox a los OutboxListener del contexto.
+ *
+ * Cada outbox.dispatcher.interval-ms lee lotes de outbox.dispatcher.batch-size
+ * eventos bloqueados, los entrega y borra los entregados en la misma
+ * transacción, hasta vaciar el outbox o completar max-batches-per-run lotes.
+ * Si la transacción falla después de entregar, los eventos se entregan otra
+ * vez: la entrega es al menos una vez. Un evento que algún consumidor rechaza
+ * se reintenta con espera exponencial desde outbox.dispatcher.backoff-ms hasta
+ * max-backoff-ms. Un evento cuyo payload no se puede leer se descarta (queda
+ * marcado en la tabla y no se vuelve a leer) al fallar
+ * outbox.dispatcher.max-attempts veces. Con sharding, cada ejecución recorre
+ * el outbox de todos los shards.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    @Value("${outbox.dispatcher.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.dispatcher.max-batches-per-run:50}")
+    private int maxBatches;
+
+    @Value("${outbox.dispatcher.backoff-ms:1000}")
+    private long backoffMs;
+
+    @Value("${outbox.dispatcher.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    @Value("${outbox.dispatcher.max-attempts:5}")
+    private int maxAttempts;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private List<OutboxListener> listeners = List.of();
+
+    @Autowired(required = false)
+    private ShardRouter shardRouter;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final LongAdder entregados = new LongAdder();
+    private final LongAdder fallidos = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private volatile long lagMillis;
+
+    /**
+     * Resultado de entregar un evento a los consumidores.
+     */
+    private enum Entrega {
+        ENTREGADO, RECHAZADO, ILEGIBLE
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.dispatcher.interval-ms:500}",
+            initialDelayString = "${outbox.dispatcher.interval-ms:500}")
+    public void run() {
+        try {
+            despachar();
+        } catch (RuntimeException e) {
+            log.error("Error despachando eventos del outbox", e);
+        }
+    }
+
+    /**
+     * Entrega los eventos pendientes. Con sharding recorre todos los shards;
+     * si uno falla se registra el error y se sigue con los demás, y el lag
+     * solo considera los shards que respondieron.
+     *
+     * @return número de eventos entregados
+     */
+    public int despachar() {
+        long[] resultado;
+        if (shardRouter == null) {
+            resultado = despacharShard();
+        } else {
+            resultado = new long[2];
+            for (String shard : shardRouter.getShards()) {
+                String anterior = ShardContext.usar(shard);
+                try {
+                    long[] shardResultado = despacharShard();
+                    resultado[0] += shardResultado[0];
+                    resultado[1] = Math.max(resultado[1], shardResultado[1]);
+                } catch (RuntimeException e) {
+                    // un shard caído no detiene la entrega de los demás
+                    log.error("Error despachando eventos del outbox del shard {}", shard, e);
+                } finally {
+                    ShardContext.usar(anterior);
+                }
+            }
+        }
+        lagMillis = resultado[1];
+        return (int) resultado[0];
+    }
+
+    /**
+     * @return [eventos entregados, antigüedad del evento pendiente más antiguo al terminar]
+     */
+    private long[] despacharShard() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            int[] lote = transactionTemplate.execute(status -> despacharLote());
+            total += lote[1];
+            if (lote[0] < batchSize) {
+                break;
+            }
+        }
+        // incluye los eventos que esperan un reintento, que findPendientes no lee
+        Date masAntigua = transactionTemplate.execute(status -> outboxEventRepository.findFechaPendienteMasAntigua());
+        long lag = masAntigua == null ? 0 : Math.max(0, System.currentTimeMillis() - masAntigua.getTime());
+        return new long[] { total, lag };
+    }
+
+    /**
+     * @return [eventos leídos, eventos entregados]
+     */
+    private int[] despacharLote() {
+        Date ahora = new Date();
+        List<OutboxEventEntity> eventos = outboxEventRepository.findPendientes(ahora, PageRequest.of(0, batchSize));
+        if (eventos.isEmpty()) {
+            return new int[] { 0, 0 };
+        }
+
+        List<OutboxEventEntity> entregadosLote = new ArrayList<>(eventos.size());
+        int descartadosLote = 0;
+        for (OutboxEventEntity evento : eventos) {
+            Entrega entrega = entregar(evento);
+            if (entrega == Entrega.ENTREGADO) {
+                entregadosLote.add(evento);
+                continue;
+            }
+            int intentos = evento.getIntentos() == null ? 1 : evento.getIntentos() + 1;
+            evento.setIntentos(intentos);
+            if (entrega == Entrega.ILEGIBLE && intentos >= maxAttempts) {
+                log.error("El evento {} del outbox se descarta después de {} intentos", evento.getId(), intentos);
+                evento.setDescartado(ahora);
+                descartadosLote++;
+            } else {
+                long espera = Math.min(maxBackoffMs, backoffMs << Math.min(intentos - 1, 20));
+                evento.setProximoIntento(new Date(ahora.getTime() + espera));
+            }
+        }
+        outboxEventRepository.deleteAllInBatch(entregadosLote);
+
+        entregados.add(entregadosLote.size());
+        fallidos.add(eventos.size() - entregadosLote.size() - descartadosLote);
+        descartados.add(descartadosLote);
+        log.debug("Lote del outbox: {} eventos leídos, {} entregados", eventos.size(), entregadosLote.size());
+        return new int[] { eventos.size(), entregadosLote.size() };
+    }
+
+    private Entrega entregar(OutboxEventEntity evento) {
+        TransactionEventDTO event;
+        try {
+            event = objectMapper.readValue(evento.getPayload(), TransactionEventDTO.class);
+        } catch (Exception e) {
+            log.error("El evento {} del outbox no se puede leer", evento.getId(), e);
+            return Entrega.ILEGIBLE;
+        }
+        event.setEventId(evento.getId());
+        for (OutboxListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                log.warn("El consumidor {} rechazó el evento {}", listener.getClass().getSimpleName(),
+                        evento.getId(), e);
+                return Entrega.RECHAZADO;
+            }
+        }
+        return Entrega.ENTREGADO;
+    }
+
+    public long getEntregados() {
+        return entregados.sum();
+    }
+
+    public long getFallidos() {
+        return fallidos.sum();
+    }
+
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    /**
+     * @return antigüedad, al final de la última ejecución, del evento pendiente
+     *         más antiguo, incluidos los que esperan un reintento
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+}
@@ -0,0 +1,14 @@
+package co.edu.uniandes.dse.TallerPruebas.outbox;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionEventDTO;
+
+/**
+ * Consumidor en proceso de los eventos del outbox. Los beans que implementan
+ * esta interfaz reciben todos los eventos; la entrega es al menos una vez, así
+ * que deben ignorar un eventId ya procesado. Si lanzan una excepción el evento
+ * se vuelve a entregar, también a los demás consumidores.
+ */
+public interface OutboxListener {
+
+    void onEvent(TransactionEventDTO event);
+}
@@ -0,0 +1,98 @@
+package co.edu.uniandes.dse.TallerPruebas.outbox;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionEventDTO;
+import co.edu.uniandes.dse.TallerPruebas.entities.OutboxEventEntity;
+import co.edu.uniandes.dse.TallerPruebas.repositories.OutboxEventRepository;
+
+/**
+ * Escribe los eventos de transferencias y cargas de bolsillo en el outbox.
+ * Debe llamarse dentro de la transacción que inserta las transacciones, así
+ * que un evento existe si y solo si su movimiento hizo commit.
+ * OutboxDispatcher los entrega después, fuera de la ruta de la petición.
+ */
+@Service
+public class OutboxService {
+
+    public static final String TRANSFERENCIA = "TRANSFERENCIA";
+    public static final String CARGA_BOLSILLO = "CARGA_BOLSILLO";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Crea el evento de una transferencia.
+     *
+     * @param transactionId id de la fila SALIDA de la transferencia
+     */
+    public static TransactionEventDTO transferencia(Long transactionId, Long sourceId, Long destinationId,
+            Double monto, Date fecha) {
+        TransactionEventDTO event = new TransactionEventDTO();
+        event.setTipo(TRANSFERENCIA);
+        event.setTransactionId(transactionId);
+        event.setSourceId(sourceId);
+        event.setDestinationId(destinationId);
+        event.setMonto(monto);
+        event.setFecha(fecha);
+        return event;
+    }
+
+    /**
+     * Crea el evento de una carga de bolsillo.
+     *
+     * @param transactionId id de la fila SALIDA de la cuenta
+     */
+    public static TransactionEventDTO cargaBolsillo(Long transactionId, Long accountId, Long pocketId, Double monto,
+            Date fecha) {
+        TransactionEventDTO event = new TransactionEventDTO();
+        event.setTipo(CARGA_BOLSILLO);
+        event.setTransactionId(transactionId);
+        event.setSourceId(accountId);
+        event.setPocketId(pocketId);
+        event.setMonto(monto);
+        event.setFecha(fecha);
+        return event;
+    }
+
+    /**
+     * Inserta los eventos en el outbox, en lote.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Collection<TransactionEventDTO> events) {
+        Date ahora = new Date();
+        List<OutboxEventEntity> entities = new ArrayList<>(events.size());
+        for (TransactionEventDTO event : events) {
+            OutboxEventEntity entity = new OutboxEventEntity();
+            entity.setTipo(event.getTipo());
+            entity.setTransactionId(event.getTransactionId());
+            entity.setPayload(json(event));
+            entity.setFecha(ahora);
+            entity.setIntentos(0);
+            entity.setProximoIntento(ahora);
+            entities.add(entity);
+        }
+        outboxEventRepository.saveAll(entities);
+    }
+
+    private String json(TransactionEventDTO event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento " + event.getTipo(), e);
+        }
+    }
+}
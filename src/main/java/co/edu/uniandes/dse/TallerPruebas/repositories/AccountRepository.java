@@ -1,8 +1,20 @@
 package co.edu.uniandes.dse.TallerPruebas.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountSnapshot;
 import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
 
 /**
@@ -11,4 +23,52 @@ import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
 @Repository
 public interface AccountRepository extends JpaRepository<AccountEntity, Long> {
 
+    /**
+     * Consulta los datos de validación de una cuenta sin cargar la entidad.
+     */
+    @Query("select new co.edu.uniandes.dse.TallerPruebas.cache.AccountSnapshot(a.id, a.numeroCuenta, a.estado, u.id) "
+            + "from AccountEntity a left join a.user u where a.id = :id")
+    Optional<AccountSnapshot> findSnapshotById(@Param("id") Long id);
+
+    /**
+     * Consulta una cuenta con sus bolsillos ya cargados.
+     */
+    @EntityGraph(AccountEntity.WITH_POCKETS)
+    Optional<AccountEntity> findWithPocketsById(Long id);
+
+    /**
+     * Consulta id, saldo y versión de varias cuentas sin pasar por las cachés.
+     */
+    @Query("select a.id, a.saldo, a.version from AccountEntity a where a.id in :ids")
+    List<Object[]> findBalances(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Consulta id y versión de varias cuentas.
+     */
+    @Query("select a.id, a.version from AccountEntity a where a.id in :ids")
+    List<Object[]> findVersions(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Consulta la versión de una cuenta y el id y la versión de cada uno de sus
+     * bolsillos, sin cargar las entidades. Devuelve una fila por bolsillo, o una
+     * fila con el bolsillo nulo si la cuenta no tiene bolsillos.
+     */
+    @Query("select a.version, p.id, p.version from AccountEntity a left join a.pockets p where a.id = :id "
+            + "order by p.id")
+    List<Object[]> findVersionWithPockets(@Param("id") Long id);
+
+    /**
+     * Consulta varias cuentas bloqueando sus filas hasta el fin de la
+     * transacción, en orden de id para no generar deadlocks.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from AccountEntity a where a.id in :ids order by a.id")
+    List<AccountEntity> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Consulta en orden los ids de cuenta en (desde, hasta], para recorrer
+     * todas las cuentas por keyset sin offset.
+     */
+    @Query("select a.id from AccountEntity a where a.id > :desde and a.id <= :hasta order by a.id")
+    List<Long> findIdsBetween(@Param("desde") Long desde, @Param("hasta") Long hasta, Pageable pageable);
 }
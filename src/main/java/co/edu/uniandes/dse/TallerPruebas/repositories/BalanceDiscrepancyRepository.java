@@ -0,0 +1,20 @@
+package co.edu.uniandes.dse.TallerPruebas.repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.BalanceDiscrepancyEntity;
+
+/**
+ * Interface that persists the discrepancies found by the reconciliation
+ */
+@Repository
+public interface BalanceDiscrepancyRepository extends JpaRepository<BalanceDiscrepancyEntity, Long> {
+
+    /**
+     * Consulta las diferencias de una ejecución.
+     */
+    List<BalanceDiscrepancyEntity> findByEjecucionOrderByTitularIdAsc(String ejecucion);
+}
@@ -0,0 +1,40 @@
+package co.edu.uniandes.dse.TallerPruebas.repositories;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.BalanceSnapshotEntity;
+
+/**
+ * Interface that persists a balance snapshot
+ */
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshotEntity, Long> {
+
+    /**
+     * Consulta el snapshot más reciente de un titular con corte hasta la fecha dada.
+     */
+    Optional<BalanceSnapshotEntity> findFirstByLibroAndTitularIdAndCorteLessThanEqualOrderByCorteDesc(String libro,
+            Long titularId, Date corte);
+
+    /**
+     * Consulta cuáles de los titulares dados ya tienen snapshot.
+     */
+    @Query("select distinct s.titularId from BalanceSnapshotEntity s where s.libro = :libro and s.titularId in :ids")
+    List<Long> findTitularesConSnapshot(@Param("libro") String libro, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Consulta el snapshot de apertura (el de menor corte) de varios titulares.
+     */
+    @Query("select s from BalanceSnapshotEntity s where s.libro = :libro and s.titularId in :ids "
+            + "and s.corte = (select min(s2.corte) from BalanceSnapshotEntity s2 "
+            + "where s2.libro = s.libro and s2.titularId = s.titularId)")
+    List<BalanceSnapshotEntity> findAperturas(@Param("libro") String libro, @Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,20 @@
+package co.edu.uniandes.dse.TallerPruebas.repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.BatchCheckpointEntity;
+
+/**
+ * Interface that persists the checkpoints of the batch jobs
+ */
+@Repository
+public interface BatchCheckpointRepository extends JpaRepository<BatchCheckpointEntity, Long> {
+
+    /**
+     * Consulta los bloques terminados de una ejecución, en orden de id.
+     */
+    List<BatchCheckpointEntity> findByJobAndPeriodoOrderByDesdeIdAsc(String job, String periodo);
+}
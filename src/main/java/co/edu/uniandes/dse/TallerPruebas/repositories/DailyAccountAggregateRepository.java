@@ -0,0 +1,40 @@
+package co.edu.uniandes.dse.TallerPruebas.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.DailyAccountAggregateEntity;
+
+/**
+ * Interface that persists the daily aggregates of an account
+ */
+@Repository
+public interface DailyAccountAggregateRepository extends JpaRepository<DailyAccountAggregateEntity, Long> {
+
+    /**
+     * Consulta los días con movimientos de una cuenta en el rango [desde, hasta], en orden.
+     */
+    List<DailyAccountAggregateEntity> findByAccountIdAndDiaBetweenOrderByDiaAsc(Long accountId, LocalDate desde,
+            LocalDate hasta);
+
+    /**
+     * Suma los totales al día de la cuenta en la BD, sin leer la fila.
+     *
+     * @return 1 si el día ya existía, 0 si hay que insertarlo
+     */
+    @Modifying
+    @Query("update DailyAccountAggregateEntity a set a.totalEntradas = a.totalEntradas + :totalEntradas, "
+            + "a.cantidadEntradas = a.cantidadEntradas + :cantidadEntradas, "
+            + "a.totalSalidas = a.totalSalidas + :totalSalidas, "
+            + "a.cantidadSalidas = a.cantidadSalidas + :cantidadSalidas "
+            + "where a.accountId = :accountId and a.dia = :dia")
+    int incrementar(@Param("accountId") Long accountId, @Param("dia") LocalDate dia,
+            @Param("totalEntradas") Double totalEntradas, @Param("cantidadEntradas") Long cantidadEntradas,
+            @Param("totalSalidas") Double totalSalidas, @Param("cantidadSalidas") Long cantidadSalidas);
+}
@@ -0,0 +1,30 @@
+package co.edu.uniandes.dse.TallerPruebas.repositories;
+
+import java.util.Date;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.IdempotencyRecordEntity;
+
+/**
+ * Interface that persists an idempotency record
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecordEntity, Long> {
+
+    Optional<IdempotencyRecordEntity> findByOperacionAndClave(String operacion, String clave);
+
+    /**
+     * Borra los registros guardados antes de una fecha.
+     *
+     * @return número de registros borrados
+     */
+    @Modifying
+    @Query("delete from IdempotencyRecordEntity r where r.fecha < :antes")
+    int deleteByFechaBefore(@Param("antes") Date antes);
+}
@@ -0,0 +1,41 @@
+package co.edu.uniandes.dse.TallerPruebas.repositories;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.LedgerEntryEntity;
+
+/**
+ * Interface that persists a ledger entry
+ */
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntryEntity, Long> {
+
+    /**
+     * Suma los asientos de un titular con fecha en [desde, hasta).
+     */
+    @Query("select coalesce(sum(e.monto), 0) from LedgerEntryEntity e where e.libro = :libro "
+            + "and e.titularId = :titularId and e.fecha >= :desde and e.fecha < :hasta")
+    Double sumBetween(@Param("libro") String libro, @Param("titularId") Long titularId, @Param("desde") Date desde,
+            @Param("hasta") Date hasta);
+
+    /**
+     * Consulta los titulares que acumulan al menos minAsientos asientos
+     * posteriores a su último snapshot y anteriores a corte. Cada fila es
+     * [libro, titularId].
+     */
+    @Query("select e.libro, e.titularId from LedgerEntryEntity e, BalanceSnapshotEntity s "
+            + "where s.libro = e.libro and s.titularId = e.titularId "
+            + "and s.corte = (select max(s2.corte) from BalanceSnapshotEntity s2 "
+            + "where s2.libro = e.libro and s2.titularId = e.titularId) "
+            + "and e.fecha >= s.corte and e.fecha < :corte "
+            + "group by e.libro, e.titularId having count(e) >= :minAsientos")
+    List<Object[]> findSnapshotCandidates(@Param("corte") Date corte, @Param("minAsientos") long minAsientos,
+            Pageable pageable);
+}
@@ -0,0 +1,42 @@
+package co.edu.uniandes.dse.TallerPruebas.repositories;
+
+import java.util.Date;
+import java.util.List;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.OutboxEventEntity;
+
+/**
+ * Interface that persists the outbox events
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+    /**
+     * Consulta los eventos más antiguos listos para entregar, bloqueándolos.
+     * Las filas que otro despachador ya tiene bloqueadas se saltan (SKIP
+     * LOCKED) en las bases de datos que lo soportan.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEventEntity e where e.proximoIntento <= :ahora and e.descartado is null"
+            + " order by e.fecha, e.id")
+    List<OutboxEventEntity> findPendientes(@Param("ahora") Date ahora, Pageable pageable);
+
+    /**
+     * Consulta la fecha del evento pendiente más antiguo, incluidos los que
+     * esperan un reintento.
+     */
+    @Query("select min(e.fecha) from OutboxEventEntity e where e.descartado is null")
+    Date findFechaPendienteMasAntigua();
+}
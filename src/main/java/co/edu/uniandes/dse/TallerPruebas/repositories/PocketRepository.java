@@ -1,6 +1,11 @@
 package co.edu.uniandes.dse.TallerPruebas.repositories;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
@@ -11,4 +16,15 @@ import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
 @Repository
 public interface PocketRepository extends JpaRepository<PocketEntity, Long> {
 
+    /**
+     * Indica si la cuenta ya tiene un bolsillo con el nombre dado, usando el
+     * índice único (account_id, nombre) sin cargar los bolsillos de la cuenta.
+     */
+    boolean existsByAccountIdAndNombre(Long accountId, String nombre);
+
+    /**
+     * Consulta los bolsillos de varias cuentas en una sola consulta.
+     */
+    @Query("select p from PocketEntity p where p.account.id in :accountIds order by p.id")
+    List<PocketEntity> findByAccountIds(@Param("accountIds") Collection<Long> accountIds);
 }
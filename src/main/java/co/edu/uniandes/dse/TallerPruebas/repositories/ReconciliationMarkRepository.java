@@ -0,0 +1,21 @@
+package co.edu.uniandes.dse.TallerPruebas.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.ReconciliationMarkEntity;
+
+/**
+ * Interface that persists the reconciliation marks
+ */
+@Repository
+public interface ReconciliationMarkRepository extends JpaRepository<ReconciliationMarkEntity, Long> {
+
+    /**
+     * Consulta las marcas de varios titulares del mismo tipo.
+     */
+    List<ReconciliationMarkEntity> findByTipoAndTitularIdIn(String tipo, Collection<Long> titularIds);
+}
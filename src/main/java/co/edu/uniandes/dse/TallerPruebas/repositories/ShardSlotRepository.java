@@ -0,0 +1,17 @@
+package co.edu.uniandes.dse.TallerPruebas.repositories;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.ShardSlotEntity;
+
+/**
+ * Interface that persists the slots moved between shards
+ */
+@Repository
+public interface ShardSlotRepository extends JpaRepository<ShardSlotEntity, Long> {
+
+    Optional<ShardSlotEntity> findBySlot(Integer slot);
+}
@@ -1,8 +1,21 @@
 package co.edu.uniandes.dse.TallerPruebas.repositories;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionSummaryDTO;
 import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
 
 /**
@@ -11,4 +24,72 @@ import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
 @Repository
 public interface TransactionRepository extends JpaRepository<TransactionEntity, Long> {
 
+    /**
+     * Consulta una página del historial de una cuenta, de la más reciente a la
+     * más antigua, a partir de la posición (cursorFecha, cursorId) exclusiva.
+     * Como las demás consultas del historial, solo incluye las transacciones
+     * del saldo de la cuenta: las de sus bolsillos (pocket no nulo) no.
+     * Recorre el índice (account_id, fecha, id), por lo que una página profunda
+     * cuesta lo mismo que la primera.
+     */
+    @Query("select new co.edu.uniandes.dse.TallerPruebas.dto.TransactionSummaryDTO(t.id, t.monto, t.fecha, t.tipo) "
+            + "from TransactionEntity t where t.account.id = :accountId and t.pocket is null "
+            + "and (:tipo is null or t.tipo = :tipo) "
+            + "and t.fecha >= :desde and t.fecha < :hasta "
+            + "and (t.fecha < :cursorFecha or (t.fecha = :cursorFecha and t.id < :cursorId)) "
+            + "order by t.fecha desc, t.id desc")
+    List<TransactionSummaryDTO> findHistory(@Param("accountId") Long accountId, @Param("tipo") String tipo,
+            @Param("desde") Date desde, @Param("hasta") Date hasta, @Param("cursorFecha") Date cursorFecha,
+            @Param("cursorId") Long cursorId, Pageable pageable);
+
+    /**
+     * Consulta las transacciones más recientes de una cuenta, sin cargar la
+     * colección transactions de la cuenta.
+     */
+    @Query("select new co.edu.uniandes.dse.TallerPruebas.dto.TransactionSummaryDTO(t.id, t.monto, t.fecha, t.tipo) "
+            + "from TransactionEntity t where t.account.id = :accountId and t.pocket is null "
+            + "order by t.fecha desc, t.id desc")
+    List<TransactionSummaryDTO> findRecentByAccountId(@Param("accountId") Long accountId, Pageable pageable);
+
+    /**
+     * Recorre todo el historial de una cuenta, del más antiguo al más reciente,
+     * como un cursor de solo avance. Las filas se leen en bloques de 500 y se
+     * proyectan sin pasar por el contexto de persistencia. El Stream debe
+     * cerrarse y consumirse dentro de una transacción.
+     */
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("select new co.edu.uniandes.dse.TallerPruebas.dto.TransactionSummaryDTO(t.id, t.monto, t.fecha, t.tipo) "
+            + "from TransactionEntity t where t.account.id = :accountId and t.pocket is null "
+            + "order by t.fecha asc, t.id asc")
+    Stream<TransactionSummaryDTO> streamByAccountId(@Param("accountId") Long accountId);
+
+    /**
+     * Suma por cuenta las transacciones del saldo de la cuenta (sin bolsillo)
+     * con fecha igual o posterior a su marca de conciliación. Cada fila es
+     * [accountId, neto desde la marca, neto desde corte].
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select t.account.id, sum(case when t.tipo = 'ENTRADA' then t.monto else -t.monto end), "
+            + "sum(case when t.fecha < :corte then 0.0 when t.tipo = 'ENTRADA' then t.monto else -t.monto end) "
+            + "from TransactionEntity t, ReconciliationMarkEntity m "
+            + "where t.account.id in :accountIds and t.pocket is null "
+            + "and m.tipo = 'CUENTA' and m.titularId = t.account.id and t.fecha >= m.marca "
+            + "group by t.account.id")
+    Stream<Object[]> streamNetoCuentasDesdeMarca(@Param("accountIds") Collection<Long> accountIds,
+            @Param("corte") Date corte);
+
+    /**
+     * Igual a streamNetoCuentasDesdeMarca para los bolsillos de las cuentas
+     * dadas. Cada fila es [pocketId, neto desde la marca, neto desde corte].
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select t.pocket.id, sum(case when t.tipo = 'ENTRADA' then t.monto else -t.monto end), "
+            + "sum(case when t.fecha < :corte then 0.0 when t.tipo = 'ENTRADA' then t.monto else -t.monto end) "
+            + "from TransactionEntity t, ReconciliationMarkEntity m "
+            + "where t.account.id in :accountIds and t.pocket is not null "
+            + "and m.tipo = 'BOLSILLO' and m.titularId = t.pocket.id and t.fecha >= m.marca "
+            + "group by t.pocket.id")
+    Stream<Object[]> streamNetoBolsillosDesdeMarca(@Param("accountIds") Collection<Long> accountIds,
+            @Param("corte") Date corte);
 }
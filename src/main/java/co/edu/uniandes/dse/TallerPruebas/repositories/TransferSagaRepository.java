@@ -0,0 +1,26 @@
+package co.edu.uniandes.dse.TallerPruebas.repositories;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.TransferSagaEntity;
+
+/**
+ * Interface that persists the steps of the cross-shard transfers
+ */
+@Repository
+public interface TransferSagaRepository extends JpaRepository<TransferSagaEntity, Long> {
+
+    Optional<TransferSagaEntity> findByReferenciaAndRol(String referencia, String rol);
+
+    /**
+     * Consulta las transferencias en un estado desde antes de una fecha, las más antiguas primero.
+     */
+    List<TransferSagaEntity> findByRolAndEstadoAndFechaBeforeOrderByFechaAsc(String rol, String estado, Date fecha,
+            Pageable pageable);
+}
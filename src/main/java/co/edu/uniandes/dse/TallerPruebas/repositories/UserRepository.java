@@ -1,6 +1,13 @@
 package co.edu.uniandes.dse.TallerPruebas.repositories;
 
+import java.util.Optional;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import co.edu.uniandes.dse.TallerPruebas.entities.UserEntity;
@@ -11,4 +18,16 @@ import co.edu.uniandes.dse.TallerPruebas.entities.UserEntity;
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
 
+    /**
+     * Busca un usuario por su login. El resultado queda en la caché de consultas.
+     */
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "query.users") })
+    Optional<UserEntity> findByLogin(String login);
+
+    /**
+     * Consulta un usuario con sus cuentas ya cargadas.
+     */
+    @EntityGraph(UserEntity.WITH_ACCOUNTS)
+    Optional<UserEntity> findWithAccountsById(Long id);
 }
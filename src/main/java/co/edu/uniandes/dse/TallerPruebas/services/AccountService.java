@@ -1,4 +1,123 @@
 package co.edu.uniandes.dse.TallerPruebas.services;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionSummaryDTO;
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consultas de cuentas. Cada método carga en su transacción todo lo que el
+ * llamador va a leer, porque fuera de ella las colecciones perezosas ya no se
+ * pueden inicializar (open-in-view está desactivado).
+ */
+@Slf4j
+@Service
 public class AccountService {
+
+    private static final int MAX_RECENT_TRANSACTIONS = 100;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    /**
+     * Consulta una cuenta con sus bolsillos
+     *
+     * @param accountId id de la cuenta
+     * @return la cuenta con la colección de bolsillos inicializada
+     * @throws EntityNotFoundException si la cuenta no existe
+     */
+    @Transactional(readOnly = true)
+    public AccountEntity getAccountWithPockets(Long accountId) throws EntityNotFoundException {
+        log.info("Inicia proceso de consultar la cuenta con id = {} y sus bolsillos", accountId);
+        Optional<AccountEntity> accountEntity = accountRepository.findWithPocketsById(accountId);
+        if (accountEntity.isEmpty()) {
+            throw new EntityNotFoundException("La cuenta no existe");
+        }
+        log.info("Termina proceso de consultar la cuenta con id = {} y sus bolsillos", accountId);
+        return accountEntity.get();
+    }
+
+    /**
+     * Calcula la ETag de las representaciones que dependen solo de la cuenta:
+     * su saldo y sus transacciones. Cada movimiento de la cuenta cambia su
+     * versión: los que no cambian el saldo (un lote con neto cero para la
+     * cuenta) fuerzan el incremento, así que la versión basta.
+     *
+     * @param accountId id de la cuenta
+     * @return la ETag, sin comillas
+     * @throws EntityNotFoundException si la cuenta no existe
+     */
+    @Transactional(readOnly = true)
+    public String getEtag(Long accountId) throws EntityNotFoundException {
+        List<Object[]> versions = accountRepository.findVersions(List.of(accountId));
+        if (versions.isEmpty()) {
+            throw new EntityNotFoundException("La cuenta no existe");
+        }
+        return "a" + version(versions.get(0)[1]);
+    }
+
+    /**
+     * Calcula la ETag de las representaciones que incluyen los bolsillos de la
+     * cuenta, que también cambia cuando cambia, se crea o se borra un bolsillo.
+     *
+     * @param accountId id de la cuenta
+     * @return la ETag, sin comillas
+     * @throws EntityNotFoundException si la cuenta no existe
+     */
+    @Transactional(readOnly = true)
+    public String getEtagWithPockets(Long accountId) throws EntityNotFoundException {
+        List<Object[]> versions = accountRepository.findVersionWithPockets(accountId);
+        if (versions.isEmpty()) {
+            throw new EntityNotFoundException("La cuenta no existe");
+        }
+        StringBuilder bolsillos = new StringBuilder();
+        for (Object[] row : versions) {
+            if (row[1] != null) {
+                bolsillos.append(row[1]).append(':').append(version(row[2])).append(',');
+            }
+        }
+        return "a" + version(versions.get(0)[0]) + "-p"
+                + DigestUtils.md5DigestAsHex(bolsillos.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long version(Object version) {
+        return version == null ? 0 : ((Number) version).longValue();
+    }
+
+    /**
+     * Consulta las transacciones más recientes de una cuenta
+     *
+     * @param accountId id de la cuenta
+     * @param limit número máximo de transacciones
+     * @return las transacciones de la más reciente a la más antigua
+     * @throws EntityNotFoundException si la cuenta no existe
+     * @throws BusinessLogicException si el límite es inválido
+     */
+    @Transactional(readOnly = true)
+    public List<TransactionSummaryDTO> getRecentTransactions(Long accountId, int limit)
+            throws EntityNotFoundException, BusinessLogicException {
+        if (limit < 1 || limit > MAX_RECENT_TRANSACTIONS) {
+            throw new BusinessLogicException("El límite debe estar entre 1 y " + MAX_RECENT_TRANSACTIONS);
+        }
+        if (!accountRepository.existsById(accountId)) {
+            throw new EntityNotFoundException("La cuenta no existe");
+        }
+        return transactionRepository.findRecentByAccountId(accountId, PageRequest.of(0, limit));
+    }
 }
@@ -0,0 +1,157 @@
+package co.edu.uniandes.dse.TallerPruebas.services;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.DailyAggregateDTO;
+import co.edu.uniandes.dse.TallerPruebas.entities.DailyAccountAggregateEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.DailyAccountAggregateRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Clase que mantiene los totales diarios por cuenta, un modelo de lectura
+ * para reportes que evita recorrer el historial de transacciones.
+ *
+ * Quien inserta transacciones llama a registrar en la misma transacción, así
+ * que los totales nunca quedan desfasados. Cada día de cada cuenta cuesta un
+ * update relativo y, solo la primera vez en el día, un insert. El insert
+ * supone que la cuenta está bloqueada por quien escribe (AccountLockManager o
+ * el update de saldo del motor de transferencias); si dos escritores sin
+ * bloqueo crean el mismo día a la vez, uno falla por la restricción única.
+ */
+@Slf4j
+@Service
+public class DailyAggregateService {
+
+    private static final int MAX_DIAS = 366;
+
+    /**
+     * Llave de los totales: una cuenta en un día.
+     */
+    private record Dia(Long accountId, LocalDate dia) {
+        private static final Comparator<Dia> ORDEN = Comparator.comparing(Dia::accountId).thenComparing(Dia::dia);
+    }
+
+    @Autowired
+    private DailyAccountAggregateRepository aggregateRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Value("${aggregates.daily.zone:America/Bogota}")
+    private ZoneId zone;
+
+    /**
+     * Suma las transacciones recién insertadas a los totales de su día.
+     *
+     * @param transactions transacciones con cuenta, tipo, monto y fecha
+     */
+    @Transactional
+    public void registrar(Collection<TransactionEntity> transactions) {
+        // en orden de cuenta y día, para que dos escritores no bloqueen las filas en orden inverso
+        Map<Dia, DailyAggregateDTO> totales = new TreeMap<>(Dia.ORDEN);
+        for (TransactionEntity transaction : transactions) {
+            Dia dia = new Dia(transaction.getAccount().getId(), diaDe(transaction.getFecha()));
+            DailyAggregateDTO total = totales.computeIfAbsent(dia, k -> new DailyAggregateDTO());
+            if ("ENTRADA".equals(transaction.getTipo())) {
+                total.setTotalEntradas(total.getTotalEntradas() + transaction.getMonto());
+                total.setCantidadEntradas(total.getCantidadEntradas() + 1);
+            } else {
+                total.setTotalSalidas(total.getTotalSalidas() + transaction.getMonto());
+                total.setCantidadSalidas(total.getCantidadSalidas() + 1);
+            }
+        }
+
+        // primero todos los updates: un insert pendiente forzaría un flush antes del siguiente update
+        List<DailyAccountAggregateEntity> nuevos = new ArrayList<>();
+        for (Map.Entry<Dia, DailyAggregateDTO> entry : totales.entrySet()) {
+            Dia dia = entry.getKey();
+            DailyAggregateDTO total = entry.getValue();
+            if (aggregateRepository.incrementar(dia.accountId(), dia.dia(), total.getTotalEntradas(),
+                    total.getCantidadEntradas(), total.getTotalSalidas(), total.getCantidadSalidas()) == 0) {
+                DailyAccountAggregateEntity aggregate = new DailyAccountAggregateEntity();
+                aggregate.setAccountId(dia.accountId());
+                aggregate.setDia(dia.dia());
+                aggregate.setTotalEntradas(total.getTotalEntradas());
+                aggregate.setCantidadEntradas(total.getCantidadEntradas());
+                aggregate.setTotalSalidas(total.getTotalSalidas());
+                aggregate.setCantidadSalidas(total.getCantidadSalidas());
+                nuevos.add(aggregate);
+            }
+        }
+        aggregateRepository.saveAll(nuevos);
+    }
+
+    /**
+     * Consulta los totales diarios de una cuenta. Los días sin movimientos se
+     * devuelven en cero, así que la respuesta tiene un elemento por día.
+     *
+     * @param accountId ID de la cuenta
+     * @param desde primer día (inclusivo)
+     * @param hasta último día (inclusivo)
+     * @return los totales de cada día del rango, en orden
+     * @throws EntityNotFoundException Si la cuenta no existe
+     * @throws BusinessLogicException Si el rango es inválido o mayor a 366 días
+     */
+    @Transactional(readOnly = true)
+    public List<DailyAggregateDTO> getTotalesDiarios(Long accountId, LocalDate desde, LocalDate hasta)
+            throws EntityNotFoundException, BusinessLogicException {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new BusinessLogicException("El rango de días es inválido");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= MAX_DIAS) {
+            throw new BusinessLogicException("El rango no puede ser mayor a " + MAX_DIAS + " días");
+        }
+        if (!accountRepository.existsById(accountId)) {
+            throw new EntityNotFoundException("La cuenta no existe");
+        }
+
+        Map<LocalDate, DailyAccountAggregateEntity> porDia = new HashMap<>();
+        for (DailyAccountAggregateEntity aggregate : aggregateRepository
+                .findByAccountIdAndDiaBetweenOrderByDiaAsc(accountId, desde, hasta)) {
+            porDia.put(aggregate.getDia(), aggregate);
+        }
+
+        List<DailyAggregateDTO> result = new ArrayList<>();
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            DailyAggregateDTO total = new DailyAggregateDTO();
+            total.setDia(dia);
+            DailyAccountAggregateEntity aggregate = porDia.get(dia);
+            if (aggregate != null) {
+                total.setTotalEntradas(aggregate.getTotalEntradas());
+                total.setCantidadEntradas(aggregate.getCantidadEntradas());
+                total.setTotalSalidas(aggregate.getTotalSalidas());
+                total.setCantidadSalidas(aggregate.getCantidadSalidas());
+            }
+            result.add(total);
+        }
+        log.debug("Totales diarios de la cuenta {}: {} días, {} con movimientos", accountId, result.size(),
+                porDia.size());
+        return result;
+    }
+
+    /**
+     * @return el día, en la zona de los reportes, de la fecha dada
+     */
+    public LocalDate diaDe(Date fecha) {
+        return fecha.toInstant().atZone(zone).toLocalDate();
+    }
+}
@@ -0,0 +1,275 @@
+package co.edu.uniandes.dse.TallerPruebas.services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.BalanceSnapshotEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.LedgerEntryEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.BalanceSnapshotRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.LedgerEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Libro mayor de partida doble. Cada movimiento (transferencia, carga de
+ * bolsillo) escribe asientos que suman cero y que nunca se modifican.
+ *
+ * El saldo de un titular es el de su último snapshot más los asientos con
+ * fecha igual o posterior al corte del snapshot, así que una consulta lee un
+ * snapshot y una cola corta de asientos. El primer movimiento de un titular
+ * crea un snapshot de apertura con el saldo que tenía antes del movimiento;
+ * tomarSnapshots consolida periódicamente las colas largas.
+ */
+@Slf4j
+@Service
+public class LedgerService {
+
+    public static final String LIBRO_CUENTA = "CUENTA";
+    public static final String LIBRO_BOLSILLO = "BOLSILLO";
+    /** Libro del banco, contrapartida de intereses y cuotas; tiene un único titular */
+    public static final String LIBRO_BANCO = "BANCO";
+    public static final Long TITULAR_BANCO = 0L;
+    /** Dinero de una transferencia entre shards que salió de un shard y aún no llega al otro */
+    public static final String LIBRO_TRANSITO = "TRANSITO";
+
+    private static final Date MAX_FECHA = Date.from(Instant.parse("9999-12-31T23:59:59Z"));
+    private static final double TOLERANCIA = 1e-6;
+
+    /**
+     * Un asiento de un movimiento: monto positivo acredita, negativo debita.
+     */
+    public record Posting(String libro, Long titularId, double monto) {
+    }
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Value("${ledger.open-titulares.max-size:100000}")
+    private int maxOpenTitulares;
+
+    /**
+     * Titulares de cuentas y bolsillos que ya tienen snapshot, para no
+     * consultarlo en cada movimiento. El banco y los titulares en tránsito no se
+     * recuerdan: tienen el mismo id en cada shard y sus snapshots se pueden
+     * borrar sin que este conjunto se entere, así que se verifican siempre en la BD.
+     */
+    private final Set<String> openTitulares = ConcurrentHashMap.newKeySet();
+
+    private static final Set<String> LIBROS_RECORDADOS = Set.of(LIBRO_CUENTA, LIBRO_BOLSILLO);
+
+    /**
+     * Crea el snapshot de apertura de los titulares que aún no tienen uno. Debe
+     * llamarse con los titulares bloqueados y antes de registrar su primer movimiento.
+     *
+     * @param libro libro de los titulares
+     * @param saldosAntes saldo de cada titular antes del movimiento
+     * @param corte fecha desde la cual los asientos no están incluidos en la
+     *              apertura; no puede ser posterior a la fecha de los asientos
+     */
+    @Transactional
+    public void abrir(String libro, Map<Long, Double> saldosAntes, Date corte) {
+        Set<Long> pendientes = sinSnapshot(libro, saldosAntes.keySet());
+        Map<Long, Double> aperturas = new HashMap<>();
+        pendientes.forEach(titularId -> aperturas.put(titularId, saldosAntes.get(titularId)));
+        guardarAperturas(libro, aperturas, saldosAntes.keySet(), corte);
+    }
+
+    /**
+     * Crea el snapshot de apertura de las cuentas que aún no tienen uno,
+     * leyendo su saldo con la fila bloqueada. Lo usan los escritores que no
+     * tienen en memoria el saldo previo al movimiento.
+     *
+     * @param accountIds cuentas del movimiento
+     * @return el corte de las aperturas; los asientos deben tener esta fecha o una posterior
+     */
+    @Transactional
+    public Date abrirCuentas(Collection<Long> accountIds) {
+        Date corte = new Date();
+        Set<Long> pendientes = sinSnapshot(LIBRO_CUENTA, accountIds);
+        Map<Long, Double> aperturas = new HashMap<>();
+        if (!pendientes.isEmpty()) {
+            for (AccountEntity account : accountRepository.findAllByIdForUpdate(pendientes)) {
+                aperturas.put(account.getId(), account.getSaldo());
+            }
+        }
+        guardarAperturas(LIBRO_CUENTA, aperturas, accountIds, corte);
+        return corte;
+    }
+
+    /**
+     * Registra un movimiento. Los titulares ya deben estar abiertos.
+     *
+     * @param concepto TRANSFERENCIA, CARGA_BOLSILLO, etc.
+     * @param fecha fecha de los asientos
+     * @param postings asientos del movimiento; deben sumar cero
+     * @return el identificador del movimiento
+     */
+    @Transactional
+    public String registrar(String concepto, Date fecha, Posting... postings) {
+        double total = 0;
+        for (Posting posting : postings) {
+            total += posting.monto();
+        }
+        if (postings.length < 2 || Math.abs(total) > TOLERANCIA) {
+            throw new IllegalArgumentException("Los asientos de un movimiento deben sumar cero");
+        }
+
+        String movimiento = UUID.randomUUID().toString();
+        List<LedgerEntryEntity> entries = new ArrayList<>(postings.length);
+        for (Posting posting : postings) {
+            LedgerEntryEntity entry = new LedgerEntryEntity();
+            entry.setLibro(posting.libro());
+            entry.setTitularId(posting.titularId());
+            entry.setMonto(posting.monto());
+            entry.setMovimiento(movimiento);
+            entry.setConcepto(concepto);
+            entry.setFecha(fecha);
+            entries.add(entry);
+        }
+        ledgerEntryRepository.saveAll(entries);
+        return movimiento;
+    }
+
+    /**
+     * Consulta el saldo de un titular según el libro mayor.
+     *
+     * @param libro libro del titular
+     * @param titularId id de la cuenta o del bolsillo
+     * @param fecha fecha de corte inclusiva, o null para el saldo actual
+     * @return el saldo incluyendo los asientos hasta la fecha
+     * @throws BusinessLogicException si el libro no tiene historial del titular para esa fecha
+     */
+    @Transactional(readOnly = true)
+    public double getSaldo(String libro, Long titularId, Date fecha) throws BusinessLogicException {
+        Date hasta = fecha == null ? MAX_FECHA : new Date(fecha.getTime() + 1);
+        Optional<BalanceSnapshotEntity> snapshot = balanceSnapshotRepository
+                .findFirstByLibroAndTitularIdAndCorteLessThanEqualOrderByCorteDesc(libro, titularId, hasta);
+        if (snapshot.isEmpty()) {
+            throw new BusinessLogicException("El libro mayor no tiene historial del titular para esa fecha");
+        }
+        return snapshot.get().getSaldo()
+                + ledgerEntryRepository.sumBetween(libro, titularId, snapshot.get().getCorte(), hasta);
+    }
+
+    /**
+     * Crea un snapshot nuevo para los titulares que acumulan al menos
+     * minAsientos asientos desde su último snapshot.
+     *
+     * @param corte los asientos anteriores a esta fecha quedan consolidados;
+     *              debe ser lo bastante antigua para que no queden
+     *              transacciones abiertas con asientos anteriores
+     * @param minAsientos tamaño de cola a partir del cual se consolida
+     * @param maxTitulares máximo de snapshots por llamada
+     * @return número de snapshots creados
+     */
+    @Transactional
+    public int tomarSnapshots(Date corte, long minAsientos, int maxTitulares) {
+        List<Object[]> candidatos = ledgerEntryRepository.findSnapshotCandidates(corte, minAsientos,
+                PageRequest.of(0, maxTitulares));
+        List<BalanceSnapshotEntity> snapshots = new ArrayList<>(candidatos.size());
+        for (Object[] candidato : candidatos) {
+            String libro = (String) candidato[0];
+            Long titularId = (Long) candidato[1];
+            BalanceSnapshotEntity anterior = balanceSnapshotRepository
+                    .findFirstByLibroAndTitularIdAndCorteLessThanEqualOrderByCorteDesc(libro, titularId, corte)
+                    .orElse(null);
+            if (anterior == null) {
+                continue;
+            }
+            BalanceSnapshotEntity snapshot = new BalanceSnapshotEntity();
+            snapshot.setLibro(libro);
+            snapshot.setTitularId(titularId);
+            snapshot.setSaldo(anterior.getSaldo()
+                    + ledgerEntryRepository.sumBetween(libro, titularId, anterior.getCorte(), corte));
+            snapshot.setCorte(corte);
+            snapshots.add(snapshot);
+        }
+        balanceSnapshotRepository.saveAll(snapshots);
+        log.info("Se crearon {} snapshots de saldo con corte {}", snapshots.size(), corte);
+        return snapshots.size();
+    }
+
+    private Set<Long> sinSnapshot(String libro, Collection<Long> titularIds) {
+        Set<Long> pendientes = new HashSet<>();
+        for (Long titularId : titularIds) {
+            if (!LIBROS_RECORDADOS.contains(libro) || !openTitulares.contains(key(libro, titularId))) {
+                pendientes.add(titularId);
+            }
+        }
+        if (!pendientes.isEmpty()) {
+            pendientes.removeAll(balanceSnapshotRepository.findTitularesConSnapshot(libro, pendientes));
+        }
+        return pendientes;
+    }
+
+    private void guardarAperturas(String libro, Map<Long, Double> saldos, Collection<Long> titularIds, Date corte) {
+        List<BalanceSnapshotEntity> aperturas = new ArrayList<>(saldos.size());
+        for (Map.Entry<Long, Double> saldo : saldos.entrySet()) {
+            BalanceSnapshotEntity snapshot = new BalanceSnapshotEntity();
+            snapshot.setLibro(libro);
+            snapshot.setTitularId(saldo.getKey());
+            snapshot.setSaldo(saldo.getValue() == null ? 0.0 : saldo.getValue());
+            snapshot.setCorte(corte);
+            aperturas.add(snapshot);
+        }
+        balanceSnapshotRepository.saveAll(aperturas);
+
+        if (LIBROS_RECORDADOS.contains(libro)) {
+            List<String> keys = new ArrayList<>(titularIds.size());
+            titularIds.forEach(titularId -> keys.add(key(libro, titularId)));
+            markOpen(keys);
+        }
+    }
+
+    private void markOpen(List<String> keys) {
+        keys.removeIf(openTitulares::contains);
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (openTitulares.size() + keys.size() > maxOpenTitulares) {
+            openTitulares.clear();
+        }
+        openTitulares.addAll(keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // si la transacción se revierte, las aperturas no existen
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        keys.forEach(openTitulares::remove);
+                    }
+                }
+            });
+        }
+    }
+
+    private static String key(String libro, Long titularId) {
+        return libro + ":" + titularId;
+    }
+}
@@ -1,17 +1,30 @@
 package co.edu.uniandes.dse.TallerPruebas.services;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountCache;
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountSnapshot;
+import co.edu.uniandes.dse.TallerPruebas.concurrency.AccountLockManager;
+import co.edu.uniandes.dse.TallerPruebas.concurrency.RetryOnConflict;
 import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
 import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
 import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
 import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.idempotency.IdempotencyStore;
+import co.edu.uniandes.dse.TallerPruebas.metrics.MonitoredOperation;
+import co.edu.uniandes.dse.TallerPruebas.outbox.OutboxService;
 import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
 import co.edu.uniandes.dse.TallerPruebas.repositories.PocketRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService.Posting;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -21,12 +34,36 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class PocketService {
 
+    private static final String OPERACION_CARGA = "cargarBolsillo";
+    private static final String CONCEPTO_CARGA = "CARGA_BOLSILLO";
+
     @Autowired
     private PocketRepository pocketRepository;
 
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DailyAggregateService dailyAggregateService;
+
+    @Autowired
+    private OutboxService outboxService;
+
 
 
     /**
@@ -38,34 +75,48 @@ public class PocketService {
      * @throws EntityNotFoundException si la cuenta no existe
      * @throws BusinessLogicException si la cuenta está bloqueada o si ya existe un bolsillo con el mismo nombre en la cuenta
      */
+    @MonitoredOperation
     @Transactional
     public PocketEntity createPocket(Long accountId, PocketEntity pocketEntity) throws EntityNotFoundException, BusinessLogicException {
         log.info("Inicia proceso de creación de un bolsillo para la cuenta con id = {}", accountId);
         
         // 1. Verificar que la cuenta existe
-        Optional<AccountEntity> accountEntity = accountRepository.findById(accountId);
-        if (accountEntity.isEmpty()) {
+        Optional<AccountSnapshot> accountSnapshot = accountCache.get(accountId);
+        if (accountSnapshot.isEmpty()) {
             throw new EntityNotFoundException("La cuenta no existe");
         }
 
         // 2. Verificar que la cuenta esté activa
-        if (!"ACTIVA".equals(accountEntity.get().getEstado())) {
+        if (!"ACTIVA".equals(accountSnapshot.get().getEstado())) {
             throw new BusinessLogicException("La cuenta debe estar en estado ACTIVA para crear bolsillos");
         }
 
         // 3. Verificar que no exista un bolsillo con el mismo nombre en esa cuenta
-        for (PocketEntity p : accountEntity.get().getPockets()) {
-            if (p.getNombre().equals(pocketEntity.getNombre())) {
-                throw new BusinessLogicException("Ya existe un bolsillo con el mismo nombre en esta cuenta");
-            }
+        if (pocketRepository.existsByAccountIdAndNombre(accountId, pocketEntity.getNombre())) {
+            throw new BusinessLogicException("Ya existe un bolsillo con el mismo nombre en esta cuenta");
         }
 
         // 4. Asociar el bolsillo a la cuenta y guardar
-        pocketEntity.setAccount(accountEntity.get());
+        pocketEntity.setAccount(accountRepository.getReferenceById(accountId));
         log.info("Termina proceso de creación de un bolsillo para la cuenta con id = {}", accountId);
         return pocketRepository.save(pocketEntity);
     }
 
+    /**
+     * Consulta los bolsillos de una cuenta
+     *
+     * @param accountId id de la cuenta
+     * @return los bolsillos en orden de id
+     * @throws EntityNotFoundException si la cuenta no existe
+     */
+    @Transactional(readOnly = true)
+    public List<PocketEntity> getPockets(Long accountId) throws EntityNotFoundException {
+        if (!accountRepository.existsById(accountId)) {
+            throw new EntityNotFoundException("La cuenta no existe");
+        }
+        return pocketRepository.findByAccountIds(List.of(accountId));
+    }
+
     /**
      * Carga dinero a un bolsillo
      *
@@ -76,8 +127,39 @@ public class PocketService {
      * @throws EntityNotFoundException si la cuenta o el bolsillo no existen
      * @throws BusinessLogicException si el saldo es insuficiente o el monto es inválido
      */
+    @MonitoredOperation
+    @RetryOnConflict
     @Transactional
     public PocketEntity cargarBolsillo(Long accountId, Long pocketId, Double monto) throws EntityNotFoundException, BusinessLogicException {
+        return cargarBolsillo(accountId, pocketId, monto, null);
+    }
+
+    /**
+     * Carga dinero a un bolsillo con una clave de idempotencia. Si la clave ya
+     * se usó para esta misma carga, se devuelve el bolsillo sin repetirla.
+     *
+     * @param accountId id de la cuenta origen
+     * @param pocketId id del bolsillo
+     * @param monto cantidad a cargar
+     * @param idempotencyKey clave elegida por el cliente, o null para no usarla
+     * @return la entidad del bolsillo actualizada
+     * @throws EntityNotFoundException si la cuenta o el bolsillo no existen
+     * @throws BusinessLogicException si la cuenta está bloqueada, el saldo es
+     *                                insuficiente, el monto es inválido o la clave
+     *                                se usó con otros datos
+     */
+    @MonitoredOperation("cargarBolsillo")
+    @RetryOnConflict
+    @Transactional
+    public PocketEntity cargarBolsillo(Long accountId, Long pocketId, Double monto, String idempotencyKey)
+            throws EntityNotFoundException, BusinessLogicException {
+        // un reintento reciente se resuelve sin validar ni bloquear
+        String huella = accountId + ">" + pocketId + ":" + monto;
+        if (idempotencyKey != null
+                && idempotencyStore.findRecent(OPERACION_CARGA, idempotencyKey, huella).isPresent()) {
+            return bolsilloOriginal(pocketId);
+        }
+
         log.info("Inicia proceso de mover dinero de la cuenta {} al bolsillo {}", accountId, pocketId);
 
         // 1. validar que el monto sea mayor a cero (y menor a infinito)
@@ -85,11 +167,28 @@ public class PocketService {
             throw new BusinessLogicException("El monto de carga debe ser mayor a cero");
         }
 
-        // 2. validar que la cuenta existe usando Optional
+        // 2. validar que la cuenta existe y no está bloqueada, primero en caché y luego en la BD
+        Optional<AccountSnapshot> accountSnapshot = accountCache.get(accountId);
+        if (accountSnapshot.isEmpty()) {
+            throw new EntityNotFoundException("La cuenta no existe");
+        }
+        if (accountSnapshot.get().isBloqueada()) {
+            throw new BusinessLogicException("No se puede cargar un bolsillo desde una cuenta bloqueada");
+        }
+        accountLockManager.lockForTransaction(accountId);
+
+        // con la cuenta bloqueada, un reintento concurrente ya dejó su registro
+        if (idempotencyKey != null && idempotencyStore.find(OPERACION_CARGA, idempotencyKey, huella).isPresent()) {
+            return bolsilloOriginal(pocketId);
+        }
         Optional<AccountEntity> accountEntity = accountRepository.findById(accountId);
         if (accountEntity.isEmpty()) {
             throw new EntityNotFoundException("La cuenta no existe");
         }
+        if ("BLOQUEADA".equals(accountEntity.get().getEstado())) {
+            // la caché pudo tenerla activa: el estado que vale es el de la cuenta ya bloqueada
+            throw new BusinessLogicException("No se puede cargar un bolsillo desde una cuenta bloqueada");
+        }
 
         // 3. validar que el bolsillo existe
         Optional<PocketEntity> pocketEntity = pocketRepository.findById(pocketId);
@@ -107,17 +206,60 @@ public class PocketService {
             throw new BusinessLogicException("El monto de la transferencia debe ser menor o igual al saldo de la cuenta"); // [cite: 82]
         }
 
-        // 6. restar el monto de la cuenta
+        // 6. abrir la cuenta y el bolsillo en el libro mayor con su saldo previo a la carga
+        Date fecha = new Date();
+        Double saldoActualBolsillo = pocketEntity.get().getSaldo() != null ? pocketEntity.get().getSaldo() : 0.0;
+        ledgerService.abrir(LedgerService.LIBRO_CUENTA, Map.of(accountId, accountEntity.get().getSaldo()), fecha);
+        ledgerService.abrir(LedgerService.LIBRO_BOLSILLO, Map.of(pocketId, saldoActualBolsillo), fecha);
+
+        // 7. restar el monto de la cuenta
         accountEntity.get().setSaldo(accountEntity.get().getSaldo() - monto);
 
-        // 7. Sumar el monto al bolsillo
-        Double saldoActualBolsillo = pocketEntity.get().getSaldo() != null ? pocketEntity.get().getSaldo() : 0.0;
+        // 8. Sumar el monto al bolsillo
         pocketEntity.get().setSaldo(saldoActualBolsillo + monto);
 
-        // 8. persistir los cambios en la BD
+        // 9. persistir los cambios en la BD, la salida de la cuenta, la entrada del bolsillo y los asientos
         accountRepository.save(accountEntity.get());
+        TransactionEntity salida = transaction(accountEntity.get(), null, "SALIDA", monto, fecha);
+        transactionRepository.saveAll(List.of(salida,
+                transaction(accountEntity.get(), pocketEntity.get(), "ENTRADA", monto, fecha)));
+        dailyAggregateService.registrar(List.of(salida));
+        outboxService.registrar(
+                List.of(OutboxService.cargaBolsillo(salida.getId(), accountId, pocketId, monto, fecha)));
+        ledgerService.registrar(CONCEPTO_CARGA, fecha,
+                new Posting(LedgerService.LIBRO_CUENTA, accountId, -monto),
+                new Posting(LedgerService.LIBRO_BOLSILLO, pocketId, monto));
 
+        PocketEntity saved = pocketRepository.save(pocketEntity.get());
+        if (idempotencyKey != null) {
+            idempotencyStore.record(OPERACION_CARGA, idempotencyKey, huella, saved.getId(), accountId);
+        }
         log.info("Termina proceso de mover dinero al bolsillo {} con éxito", pocketId);
-        return pocketRepository.save(pocketEntity.get());
+        return saved;
+    }
+
+    /**
+     * Crea una transacción de la carga. Con bolsillo afecta el saldo del
+     * bolsillo; sin bolsillo, el de la cuenta.
+     */
+    private static TransactionEntity transaction(AccountEntity account, PocketEntity pocket, String tipo,
+            Double monto, Date fecha) {
+        TransactionEntity transaction = new TransactionEntity();
+        transaction.setAccount(account);
+        transaction.setPocket(pocket);
+        transaction.setTipo(tipo);
+        transaction.setConcepto(CONCEPTO_CARGA);
+        transaction.setMonto(monto);
+        transaction.setFecha(fecha);
+        return transaction;
+    }
+
+    private PocketEntity bolsilloOriginal(Long pocketId) throws EntityNotFoundException {
+        log.info("Carga repetida, se devuelve el bolsillo {}", pocketId);
+        Optional<PocketEntity> pocketEntity = pocketRepository.findById(pocketId);
+        if (pocketEntity.isEmpty()) {
+            throw new EntityNotFoundException("El bolsillo no existe");
+        }
+        return pocketEntity.get();
     }
 }
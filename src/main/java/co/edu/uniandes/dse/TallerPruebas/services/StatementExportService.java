@@ -0,0 +1,128 @@
+package co.edu.uniandes.dse.TallerPruebas.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionSummaryDTO;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Clase que implementa la exportación del extracto de una cuenta. Las
+ * transacciones se leen con un cursor de solo avance y se escriben a medida que
+ * llegan, por lo que la memoria usada no depende del tamaño del historial.
+ */
+@Slf4j
+@Service
+public class StatementExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    /**
+     * Destino del extracto. Se abre solo después de validar la cuenta, para que
+     * un error de validación pueda responderse sin haber escrito nada.
+     */
+    @FunctionalInterface
+    public interface StatementOutput {
+        OutputStream open() throws IOException;
+    }
+
+    /**
+     * Escribe todas las transacciones de una cuenta, de la más antigua a la más reciente.
+     *
+     * @param accountId ID de la cuenta
+     * @param format formato del extracto
+     * @param output destino del extracto; se cierra al terminar
+     * @return el número de transacciones escritas
+     * @throws EntityNotFoundException Si la cuenta no existe
+     * @throws IOException Si falla la escritura
+     */
+    @Transactional(readOnly = true)
+    public long exportar(Long accountId, StatementFormat format, StatementOutput output)
+            throws EntityNotFoundException, IOException {
+        log.info("Inicia exportación del extracto de la cuenta {} en formato {}", accountId, format);
+
+        if (!accountRepository.existsById(accountId)) {
+            throw new EntityNotFoundException("La cuenta no existe");
+        }
+
+        long count = 0;
+        try (Stream<TransactionSummaryDTO> rows = transactionRepository.streamByAccountId(accountId);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(output.open(), StandardCharsets.UTF_8),
+                        BUFFER_SIZE)) {
+            if (format == StatementFormat.CSV) {
+                writer.write("id,fecha,tipo,monto\n");
+            }
+            Iterator<TransactionSummaryDTO> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                TransactionSummaryDTO row = iterator.next();
+                if (format == StatementFormat.CSV) {
+                    writeCsv(writer, row);
+                } else {
+                    writeNdjson(writer, row);
+                }
+                count++;
+            }
+        }
+
+        log.info("Termina exportación del extracto de la cuenta {}: {} transacciones", accountId, count);
+        return count;
+    }
+
+    private static void writeCsv(Writer writer, TransactionSummaryDTO row) throws IOException {
+        writer.write(String.valueOf(row.getId()));
+        writer.write(',');
+        writer.write(row.getFecha() == null ? "" : row.getFecha().toInstant().toString());
+        writer.write(',');
+        writer.write(row.getTipo() == null ? "" : csv(row.getTipo()));
+        writer.write(',');
+        writer.write(row.getMonto() == null ? "" : amount(row.getMonto()));
+        writer.write('\n');
+    }
+
+    private static void writeNdjson(Writer writer, TransactionSummaryDTO row) throws IOException {
+        writer.write("{\"id\":");
+        writer.write(String.valueOf(row.getId()));
+        writer.write(",\"fecha\":");
+        writer.write(row.getFecha() == null ? "null" : "\"" + row.getFecha().toInstant() + "\"");
+        writer.write(",\"tipo\":");
+        writer.write(row.getTipo() == null ? "null" : "\"" + json(row.getTipo()) + "\"");
+        writer.write(",\"monto\":");
+        writer.write(row.getMonto() == null ? "null" : amount(row.getMonto()));
+        writer.write("}\n");
+    }
+
+    private static String amount(Double monto) {
+        return BigDecimal.valueOf(monto).toPlainString();
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String json(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
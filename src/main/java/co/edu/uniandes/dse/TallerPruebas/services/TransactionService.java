@@ -1,30 +1,82 @@
 package co.edu.uniandes.dse.TallerPruebas.services;
 
-import java.util.Optional;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountCache;
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountSnapshot;
+import co.edu.uniandes.dse.TallerPruebas.concurrency.AccountLockManager;
+import co.edu.uniandes.dse.TallerPruebas.concurrency.RetryOnConflict;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionEventDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionHistoryDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionSummaryDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransferBatchMode;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransferRequestDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransferResultDTO;
 import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
 import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
 import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
 import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.idempotency.IdempotencyStore;
+import co.edu.uniandes.dse.TallerPruebas.metrics.MonitoredOperation;
+import co.edu.uniandes.dse.TallerPruebas.outbox.OutboxService;
 import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
 import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService.Posting;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Service
 public class TransactionService {
 
+    private static final Date MIN_FECHA = new Date(0);
+    private static final Date MAX_FECHA = Date.from(Instant.parse("9999-12-31T23:59:59Z"));
+    private static final int MAX_PAGE_SIZE = 100;
+    public static final String OPERACION_TRANSFERENCIA = "transferirFondos";
+    private static final String CONCEPTO_TRANSFERENCIA = "TRANSFERENCIA";
+
     @Autowired
     private AccountRepository accountRepository;
 
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private DailyAggregateService dailyAggregateService;
+
+    @Autowired
+    private OutboxService outboxService;
+
     /**
      * Realiza una transferencia entre dos cuentas.
      * @param sourceId ID de la cuenta origen
@@ -34,55 +86,335 @@ public class TransactionService {
      * @throws EntityNotFoundException Si alguna de las cuentas no existe
      * @throws BusinessLogicException Si son la misma cuenta, fondos insuficientes o monto inválido
      */
+    @MonitoredOperation
+    @RetryOnConflict
     @Transactional
     public TransactionEntity transferirFondos(Long sourceId, Long destinationId, Double monto)
             throws EntityNotFoundException, BusinessLogicException {
+        return transferirFondos(sourceId, destinationId, monto, null);
+    }
+
+    /**
+     * Realiza una transferencia entre dos cuentas con una clave de idempotencia.
+     * Si la clave ya se usó para esta misma transferencia, se devuelve la
+     * transacción original sin repetirla.
+     * @param sourceId ID de la cuenta origen
+     * @param destinationId ID de la cuenta destino
+     * @param monto Cantidad a transferir
+     * @param idempotencyKey Clave elegida por el cliente, o null para no usarla
+     * @return La entidad de la transacción creada en la cuenta origen
+     * @throws EntityNotFoundException Si alguna de las cuentas no existe
+     * @throws BusinessLogicException Si son la misma cuenta, alguna está bloqueada,
+     *                                fondos insuficientes, monto inválido o la clave
+     *                                se usó con otros datos
+     */
+    @MonitoredOperation("transferirFondos")
+    @RetryOnConflict
+    @Transactional
+    public TransactionEntity transferirFondos(Long sourceId, Long destinationId, Double monto, String idempotencyKey)
+            throws EntityNotFoundException, BusinessLogicException {
+
+        // un reintento reciente se resuelve sin validar ni bloquear
+        String huella = sourceId + ">" + destinationId + ":" + monto;
+        if (idempotencyKey != null) {
+            Optional<Long> original = idempotencyStore.findRecent(OPERACION_TRANSFERENCIA, idempotencyKey, huella);
+            if (original.isPresent()) {
+                return transaccionOriginal(original.get());
+            }
+        }
 
         log.info("Inicia proceso de transferencia de {} desde {} hacia {}", monto, sourceId, destinationId);
 
         // 1. validar monto positivo
-        if (monto <= 0 || monto.isInfinite()) {
-            throw new BusinessLogicException("El monto de la transferencia debe ser mayor que cero");
-        }
+        TransferValidator.validarMonto(monto);
 
-        // 2. validar que la cuenta origen existe
-        Optional<AccountEntity> sourceAccount = accountRepository.findById(sourceId);
-        if (sourceAccount.isEmpty()) {
+        // rechazar cuentas inexistentes o bloqueadas desde la caché, antes de bloquear o ir a la BD
+        Optional<AccountSnapshot> origen = accountCache.get(sourceId);
+        if (origen.isEmpty()) {
             throw new EntityNotFoundException("La cuenta origen no existe");
         }
-
-        // 3. validar que la cuenta destino exista
-        Optional<AccountEntity> destinationAccount = accountRepository.findById(destinationId);
-        if (destinationAccount.isEmpty()) {
+        Optional<AccountSnapshot> destino = accountCache.get(destinationId);
+        if (destino.isEmpty()) {
             throw new EntityNotFoundException("La cuenta destino no existe");
         }
-
-        // 4. validar que la cuenta origen no sea la misma que la destino
-        if (sourceId.equals(destinationId)) {
-            throw new BusinessLogicException("La cuenta destino debe ser diferente a la cuenta origen");
+        if (origen.get().isBloqueada() || destino.get().isBloqueada()) {
+            throw new BusinessLogicException(TransferValidator.MENSAJE_BLOQUEADA);
         }
 
-        // 5. validar fondos suficientes en origen
-        if (sourceAccount.get().getSaldo() < monto) {
-            throw new BusinessLogicException("El monto de la transferencia debe ser menor o igual al saldo de la cuenta");
+        // bloquear ambas cuentas antes de leer sus saldos
+        accountLockManager.lockForTransaction(sourceId, destinationId);
+
+        // con las cuentas bloqueadas, un reintento concurrente ya dejó su registro
+        if (idempotencyKey != null) {
+            Optional<Long> original = idempotencyStore.find(OPERACION_TRANSFERENCIA, idempotencyKey, huella);
+            if (original.isPresent()) {
+                return transaccionOriginal(original.get());
+            }
         }
 
-        // 6. actualizar ambos saldos
-        sourceAccount.get().setSaldo(sourceAccount.get().getSaldo() - monto);
-        destinationAccount.get().setSaldo(destinationAccount.get().getSaldo() + monto);
+        // 2. validar sobre las cuentas ya bloqueadas: existencia, que sean distintas, estado y fondos
+        AccountEntity source = accountRepository.findById(sourceId).orElse(null);
+        AccountEntity destination = accountRepository.findById(destinationId).orElse(null);
+        TransferValidator.validar(source, destination, monto, 0);
+
+        // 3. abrir las cuentas en el libro mayor con el saldo previo a la transferencia
+        Date fecha = new Date();
+        Map<Long, Double> saldosAntes = new HashMap<>();
+        saldosAntes.put(sourceId, source.getSaldo());
+        saldosAntes.put(destinationId, destination.getSaldo());
+        ledgerService.abrir(LedgerService.LIBRO_CUENTA, saldosAntes, fecha);
+
+        // 4. actualizar ambos saldos
+        source.setSaldo(source.getSaldo() - monto);
+        destination.setSaldo(destination.getSaldo() + monto);
 
-        // 7. guardar cambios en las cuentas
-        accountRepository.save(sourceAccount.get());
-        accountRepository.save(destinationAccount.get());
+        // 5. guardar cambios en las cuentas
+        accountRepository.save(source);
+        accountRepository.save(destination);
 
-        // 8. crear el registro de la transacción para el historial
+        // 6. crear los registros de la transacción para el historial y los asientos del libro mayor
         TransactionEntity transaction = new TransactionEntity();
         transaction.setMonto(monto);
-        transaction.setFecha(new Date());
+        transaction.setFecha(fecha);
         transaction.setTipo("SALIDA");
-        transaction.setAccount(sourceAccount.get());
+        transaction.setConcepto(CONCEPTO_TRANSFERENCIA);
+        transaction.setAccount(source);
+        TransactionEntity entrada = transactionRepository.save(entrada(destination, monto, fecha));
+        ledgerService.registrar(CONCEPTO_TRANSFERENCIA, fecha,
+                new Posting(LedgerService.LIBRO_CUENTA, sourceId, -monto),
+                new Posting(LedgerService.LIBRO_CUENTA, destinationId, monto));
 
+        TransactionEntity saved = transactionRepository.save(transaction);
+        dailyAggregateService.registrar(List.of(saved, entrada));
+        outboxService.registrar(List.of(OutboxService.transferencia(saved.getId(), sourceId, destinationId, monto,
+                fecha)));
+        if (idempotencyKey != null) {
+            idempotencyStore.record(OPERACION_TRANSFERENCIA, idempotencyKey, huella, saved.getId(), sourceId);
+        }
         log.info("Transferencia completada exitosamente");
-        return transactionRepository.save(transaction);
+        return saved;
+    }
+
+    private static TransactionEntity entrada(AccountEntity destination, Double monto, Date fecha) {
+        TransactionEntity transaction = new TransactionEntity();
+        transaction.setMonto(monto);
+        transaction.setFecha(fecha);
+        transaction.setTipo("ENTRADA");
+        transaction.setConcepto(CONCEPTO_TRANSFERENCIA);
+        transaction.setAccount(destination);
+        return transaction;
+    }
+
+    private TransactionEntity transaccionOriginal(Long transactionId) throws EntityNotFoundException {
+        log.info("Transferencia repetida, se devuelve la transacción original {}", transactionId);
+        Optional<TransactionEntity> transaction = transactionRepository.findById(transactionId);
+        if (transaction.isEmpty()) {
+            throw new EntityNotFoundException("La transacción original no existe");
+        }
+        return transaction.get();
+    }
+
+    /**
+     * Realiza un lote de transferencias en una sola transacción. Las cuentas
+     * involucradas se cargan con una sola consulta, cada transferencia se valida
+     * contra el saldo que dejan las anteriores y al final cada cuenta se
+     * actualiza una sola vez con el neto de sus movimientos.
+     *
+     * @param transfers transferencias a realizar, en orden
+     * @param mode ALL_OR_NOTHING para rechazar el lote ante cualquier error o
+     *             PER_ITEM para aplicar solo las transferencias válidas
+     * @return el resultado de cada transferencia, en el mismo orden
+     * @throws EntityNotFoundException Si en modo ALL_OR_NOTHING alguna cuenta no existe
+     * @throws BusinessLogicException Si el lote está vacío o, en modo ALL_OR_NOTHING,
+     *                                alguna transferencia es inválida
+     */
+    @MonitoredOperation
+    @RetryOnConflict
+    @Transactional
+    public List<TransferResultDTO> transferirFondosBatch(List<TransferRequestDTO> transfers, TransferBatchMode mode)
+            throws EntityNotFoundException, BusinessLogicException {
+
+        log.info("Inicia proceso de transferencia en lote de {} transferencias ({})",
+                transfers == null ? 0 : transfers.size(), mode);
+
+        // 1. validar que el lote no esté vacío
+        if (transfers == null || transfers.isEmpty()) {
+            throw new BusinessLogicException("El lote debe contener al menos una transferencia");
+        }
+
+        // 2. bloquear y cargar todas las cuentas involucradas con una sola consulta
+        Set<Long> accountIds = new HashSet<>();
+        for (TransferRequestDTO transfer : transfers) {
+            accountIds.add(transfer.getSourceId());
+            accountIds.add(transfer.getDestinationId());
+        }
+        accountIds.remove(null);
+        accountLockManager.lockForTransaction(accountIds);
+
+        Map<Long, AccountEntity> accounts = new HashMap<>();
+        for (AccountEntity account : accountRepository.findAllById(accountIds)) {
+            accounts.put(account.getId(), account);
+        }
+
+        // 3. validar cada transferencia contra el saldo neto acumulado
+        Map<Long, Double> deltas = new HashMap<>();
+        List<TransferResultDTO> results = new ArrayList<>(transfers.size());
+        List<TransactionEntity> transactions = new ArrayList<>();
+        List<TransactionEntity> entradas = new ArrayList<>();
+        List<Posting[]> asientos = new ArrayList<>();
+        Date fecha = new Date();
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequestDTO transfer = transfers.get(i);
+            TransferResultDTO result = new TransferResultDTO();
+            result.setPosicion(i);
+            results.add(result);
+
+            Exception error = validarTransferencia(transfer, accounts, deltas);
+            if (error != null) {
+                if (mode == TransferBatchMode.ALL_OR_NOTHING) {
+                    String mensaje = "Transferencia " + i + ": " + error.getMessage();
+                    if (error instanceof EntityNotFoundException) {
+                        throw new EntityNotFoundException(mensaje);
+                    }
+                    throw new BusinessLogicException(mensaje);
+                }
+                result.setMensaje(error.getMessage());
+                continue;
+            }
+
+            deltas.merge(transfer.getSourceId(), -transfer.getMonto(), Double::sum);
+            deltas.merge(transfer.getDestinationId(), transfer.getMonto(), Double::sum);
+
+            TransactionEntity transaction = new TransactionEntity();
+            transaction.setMonto(transfer.getMonto());
+            transaction.setFecha(fecha);
+            transaction.setTipo("SALIDA");
+            transaction.setConcepto(CONCEPTO_TRANSFERENCIA);
+            transaction.setAccount(accounts.get(transfer.getSourceId()));
+            transactions.add(transaction);
+            entradas.add(entrada(accounts.get(transfer.getDestinationId()), transfer.getMonto(), fecha));
+            asientos.add(new Posting[] {
+                    new Posting(LedgerService.LIBRO_CUENTA, transfer.getSourceId(), -transfer.getMonto()),
+                    new Posting(LedgerService.LIBRO_CUENTA, transfer.getDestinationId(), transfer.getMonto()) });
+            result.setExitosa(true);
+        }
+
+        // 4. abrir en el libro mayor las cuentas con movimientos, con su saldo previo al lote
+        Map<Long, Double> saldosAntes = new HashMap<>();
+        deltas.keySet().forEach(accountId -> saldosAntes.put(accountId, accounts.get(accountId).getSaldo()));
+        ledgerService.abrir(LedgerService.LIBRO_CUENTA, saldosAntes, fecha);
+
+        // 5. aplicar el neto de cada cuenta y guardar el historial y los asientos en lote
+        deltas.forEach((accountId, delta) -> {
+            AccountEntity account = accounts.get(accountId);
+            if (account.getSaldo() + delta != account.getSaldo()) {
+                account.setSaldo(account.getSaldo() + delta);
+            } else {
+                // un neto cero no cambia la fila, pero la cuenta tiene movimientos nuevos y su ETag debe cambiar
+                entityManager.lock(account, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+            }
+        });
+        List<TransactionEntity> saved = transactionRepository.saveAll(transactions);
+        transactionRepository.saveAll(entradas);
+        List<TransactionEventDTO> events = new ArrayList<>(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            TransactionEntity salida = saved.get(i);
+            events.add(OutboxService.transferencia(salida.getId(), salida.getAccount().getId(),
+                    entradas.get(i).getAccount().getId(), salida.getMonto(), fecha));
+        }
+        entradas.addAll(saved);
+        dailyAggregateService.registrar(entradas);
+        outboxService.registrar(events);
+        for (Posting[] postings : asientos) {
+            ledgerService.registrar(CONCEPTO_TRANSFERENCIA, fecha, postings);
+        }
+
+        int next = 0;
+        for (TransferResultDTO result : results) {
+            if (result.isExitosa()) {
+                result.setTransactionId(saved.get(next++).getId());
+            }
+        }
+
+        log.info("Termina proceso de transferencia en lote: {} de {} transferencias aplicadas", saved.size(),
+                transfers.size());
+        return results;
+    }
+
+    /**
+     * Valida una transferencia de un lote con las mismas reglas de
+     * transferirFondos, sobre las cuentas ya bloqueadas y el neto que dejan
+     * las transferencias anteriores del lote.
+     *
+     * @return la excepción que describe el error, o null si la transferencia es válida
+     */
+    private Exception validarTransferencia(TransferRequestDTO transfer, Map<Long, AccountEntity> accounts,
+            Map<Long, Double> deltas) {
+        AccountEntity source = transfer.getSourceId() == null ? null : accounts.get(transfer.getSourceId());
+        AccountEntity destination = transfer.getDestinationId() == null ? null
+                : accounts.get(transfer.getDestinationId());
+        try {
+            TransferValidator.validar(source, destination, transfer.getMonto(),
+                    source == null ? 0 : deltas.getOrDefault(source.getId(), 0.0));
+            return null;
+        } catch (EntityNotFoundException | BusinessLogicException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Consulta una página del historial de transacciones de una cuenta, de la
+     * más reciente a la más antigua, usando paginación por cursor (fecha, id).
+     *
+     * @param accountId ID de la cuenta
+     * @param tipo ENTRADA o SALIDA para filtrar, o null para ambos
+     * @param desde fecha inicial (inclusiva), o null
+     * @param hasta fecha final (exclusiva), o null
+     * @param cursor siguienteCursor de la página anterior, o null para la primera página
+     * @param size tamaño de la página, entre 1 y 100
+     * @return la página del historial y el cursor de la siguiente
+     * @throws EntityNotFoundException Si la cuenta no existe
+     * @throws BusinessLogicException Si el tipo, el cursor o el tamaño son inválidos
+     */
+    @Transactional(readOnly = true)
+    public TransactionHistoryDTO getHistorial(Long accountId, String tipo, Date desde, Date hasta, String cursor,
+            int size) throws EntityNotFoundException, BusinessLogicException {
+
+        if (tipo != null && !"ENTRADA".equals(tipo) && !"SALIDA".equals(tipo)) {
+            throw new BusinessLogicException("El tipo de transacción debe ser ENTRADA o SALIDA");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BusinessLogicException("El tamaño de la página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        if (!accountRepository.existsById(accountId)) {
+            throw new EntityNotFoundException("La cuenta no existe");
+        }
+
+        Date cursorFecha = MAX_FECHA;
+        Long cursorId = Long.MAX_VALUE;
+        if (cursor != null) {
+            String[] partes = cursor.split("_");
+            try {
+                cursorFecha = new Date(Long.parseLong(partes[0]));
+                cursorId = Long.parseLong(partes[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new BusinessLogicException("El cursor de paginación es inválido");
+            }
+        }
+
+        // se pide un elemento extra para saber si existe una página siguiente
+        List<TransactionSummaryDTO> rows = transactionRepository.findHistory(accountId, tipo,
+                desde != null ? desde : MIN_FECHA, hasta != null ? hasta : MAX_FECHA, cursorFecha, cursorId,
+                PageRequest.of(0, size + 1));
+
+        TransactionHistoryDTO page = new TransactionHistoryDTO();
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            TransactionSummaryDTO last = rows.get(size - 1);
+            page.setSiguienteCursor(last.getFecha().getTime() + "_" + last.getId());
+        }
+        page.setTransacciones(new ArrayList<>(rows));
+        return page;
     }
 }
@@ -0,0 +1,99 @@
+package co.edu.uniandes.dse.TallerPruebas.services;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+
+/**
+ * Reglas de una transferencia entre cuentas. Las usan transferirFondos, el
+ * lote, el motor de transferencias y las transferencias entre shards, siempre
+ * sobre las cuentas leídas después de bloquearlas: la caché solo sirve para
+ * rechazar antes, porque el estado de una cuenta puede cambiar mientras tanto.
+ */
+public final class TransferValidator {
+
+    public static final String MENSAJE_MONTO = "El monto de la transferencia debe ser mayor que cero";
+    public static final String MENSAJE_FONDOS = "El monto de la transferencia debe ser menor o igual al saldo de la cuenta";
+    public static final String MENSAJE_BLOQUEADA = "No se puede transferir desde o hacia una cuenta bloqueada";
+
+    private TransferValidator() {
+    }
+
+    /**
+     * Valida todas las reglas de una transferencia.
+     *
+     * @param source cuenta origen bloqueada, o null si no existe
+     * @param destination cuenta destino bloqueada, o null si no existe
+     * @param monto monto de la transferencia
+     * @param pendiente neto de los movimientos de la cuenta origen que aún no
+     *                  están en su saldo, como los anteriores de un lote
+     * @throws EntityNotFoundException si alguna de las cuentas no existe
+     * @throws BusinessLogicException si el monto es inválido, son la misma cuenta,
+     *                                alguna está bloqueada o no hay fondos suficientes
+     */
+    public static void validar(AccountEntity source, AccountEntity destination, Double monto, double pendiente)
+            throws EntityNotFoundException, BusinessLogicException {
+        validarMonto(monto);
+        validarCuentas(source, destination);
+        validarFondos(source.getSaldo() + pendiente, monto);
+    }
+
+    public static void validarMonto(Double monto) throws BusinessLogicException {
+        if (monto == null || monto <= 0 || monto.isInfinite() || monto.isNaN()) {
+            throw new BusinessLogicException(MENSAJE_MONTO);
+        }
+    }
+
+    /**
+     * Valida que ambas cuentas existan, sean distintas y ninguna esté bloqueada.
+     */
+    public static void validarCuentas(AccountEntity source, AccountEntity destination)
+            throws EntityNotFoundException, BusinessLogicException {
+        if (source == null) {
+            throw new EntityNotFoundException("La cuenta origen no existe");
+        }
+        if (destination == null) {
+            throw new EntityNotFoundException("La cuenta destino no existe");
+        }
+        if (source.getId().equals(destination.getId())) {
+            throw new BusinessLogicException("La cuenta destino debe ser diferente a la cuenta origen");
+        }
+        validarOrigen(source);
+        validarDestino(destination);
+    }
+
+    /**
+     * Valida la cuenta origen cuando la destino está en otro shard.
+     */
+    public static void validarOrigen(AccountEntity source) throws EntityNotFoundException, BusinessLogicException {
+        if (source == null) {
+            throw new EntityNotFoundException("La cuenta origen no existe");
+        }
+        if (bloqueada(source)) {
+            throw new BusinessLogicException(MENSAJE_BLOQUEADA);
+        }
+    }
+
+    /**
+     * Valida la cuenta destino cuando la origen está en otro shard.
+     */
+    public static void validarDestino(AccountEntity destination)
+            throws EntityNotFoundException, BusinessLogicException {
+        if (destination == null) {
+            throw new EntityNotFoundException("La cuenta destino no existe");
+        }
+        if (bloqueada(destination)) {
+            throw new BusinessLogicException(MENSAJE_BLOQUEADA);
+        }
+    }
+
+    public static void validarFondos(double saldo, Double monto) throws BusinessLogicException {
+        if (saldo < monto) {
+            throw new BusinessLogicException(MENSAJE_FONDOS);
+        }
+    }
+
+    private static boolean bloqueada(AccountEntity account) {
+        return "BLOQUEADA".equals(account.getEstado());
+    }
+}
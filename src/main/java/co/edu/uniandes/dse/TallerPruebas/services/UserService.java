@@ -0,0 +1,87 @@
+package co.edu.uniandes.dse.TallerPruebas.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.UserEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.repositories.UserRepository;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardRouter;
+import co.edu.uniandes.dse.TallerPruebas.sharding.ShardTemplate;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consultas de usuarios
+ */
+@Slf4j
+@Service
+public class UserService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired(required = false)
+    private ShardTemplate shardTemplate;
+
+    /**
+     * Consulta un usuario con sus cuentas
+     *
+     * @param userId id del usuario
+     * @return el usuario con la colección de cuentas inicializada
+     * @throws EntityNotFoundException si el usuario no existe
+     */
+    @Transactional(readOnly = true)
+    public UserEntity getUserWithAccounts(Long userId) throws EntityNotFoundException {
+        log.info("Inicia proceso de consultar el usuario con id = {} y sus cuentas", userId);
+        Optional<UserEntity> userEntity = shardTemplate == null ? userRepository.findWithAccountsById(userId)
+                : buscarEnShards(userId);
+        if (userEntity.isEmpty()) {
+            throw new EntityNotFoundException("El usuario no existe");
+        }
+        log.info("Termina proceso de consultar el usuario con id = {} y sus cuentas", userId);
+        return userEntity.get();
+    }
+
+    /**
+     * Con sharding el usuario está en cada shard donde tiene cuentas. Junta
+     * las cuentas de todos los shards en la primera copia del usuario; una
+     * cuenta que se está moviendo solo se toma del shard que es su dueño.
+     */
+    private Optional<UserEntity> buscarEnShards(Long userId) {
+        ShardRouter router = shardTemplate.getRouter();
+        UserEntity user = null;
+        List<AccountEntity> accounts = new ArrayList<>();
+        for (String shard : router.getShards()) {
+            Optional<UserEntity> copia;
+            try {
+                copia = shardTemplate.enShard(shard, () -> userRepository.findWithAccountsById(userId));
+            } catch (EntityNotFoundException | BusinessLogicException e) {
+                // la consulta no lanza excepciones de negocio
+                throw new IllegalStateException(e);
+            }
+            if (copia.isEmpty()) {
+                continue;
+            }
+            if (user == null) {
+                user = copia.get();
+            }
+            for (AccountEntity account : copia.get().getAccounts()) {
+                if (router.shardDe(account.getId()).equals(shard)) {
+                    accounts.add(account);
+                }
+            }
+        }
+        if (user == null) {
+            return Optional.empty();
+        }
+        user.setAccounts(accounts);
+        return Optional.of(user);
+    }
+}
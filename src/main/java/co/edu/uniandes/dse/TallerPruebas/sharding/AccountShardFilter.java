@@ -0,0 +1,63 @@
+package co.edu.uniandes.dse.TallerPruebas.sharding;
+
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Fija el shard de las peticiones sobre una cuenta (/accounts/{accountId}/...)
+ * antes de que el controlador abra cualquier transacción, así que los
+ * servicios de cuentas, bolsillos e historial trabajan contra el shard de la
+ * cuenta sin cambios. Mientras dura la petición el slot de la cuenta no se
+ * puede mover. Las demás peticiones usan el catálogo; las que tocan cuentas
+ * de varios shards los recorren en su servicio, como la consulta de un
+ * usuario con sus cuentas (UserService) y la importación masiva
+ * (BulkImportService).
+ */
+public class AccountShardFilter extends OncePerRequestFilter {
+
+    private static final Pattern CUENTA = Pattern.compile("^/accounts/(\\d+)(/.*)?$");
+
+    private final ShardRouter router;
+
+    public AccountShardFilter(ShardRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Matcher matcher = CUENTA.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+        Long accountId = null;
+        if (matcher.matches()) {
+            try {
+                accountId = Long.valueOf(matcher.group(1));
+            } catch (NumberFormatException e) {
+                // un id fuera de rango lo rechaza el controlador
+            }
+        }
+        if (accountId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        int slot = router.slotDe(accountId);
+        Lock lock = router.lockDe(slot).readLock();
+        lock.lock();
+        String anterior = ShardContext.usar(router.ownerDe(slot));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ShardContext.usar(anterior);
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package co.edu.uniandes.dse.TallerPruebas.sharding;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shards locales para desarrollo y pruebas: Hibernate crea el esquema solo en
+ * el catálogo, así que este inicializador lo copia con SCRIPT NODATA en los
+ * demás shards H2.
+ *
+ * Además reinicia las secuencias del shard i en i * RANGO_IDS + 1. Los ids se
+ * reservan por bloques en memoria y un bloque pedido a un shard puede usarse
+ * en otro, así que las secuencias de los shards no pueden solaparse. En una
+ * instalación real cada shard se crea con sus secuencias en su propio rango.
+ */
+@Slf4j
+public class H2ShardSchemaInitializer {
+
+    public static final long RANGO_IDS = 1L << 40;
+
+    private final Map<String, DataSource> shards;
+    private final String catalogo;
+
+    /**
+     * @param shards los shards en orden; el índice de cada uno fija el rango de sus ids
+     * @param catalogo shard donde Hibernate creó el esquema; debe ser el primero
+     */
+    public H2ShardSchemaInitializer(Map<String, DataSource> shards, String catalogo) {
+        this.shards = shards;
+        this.catalogo = catalogo;
+    }
+
+    public void inicializar() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection connection = shards.get(catalogo).getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SCRIPT NODATA NOPASSWORDS NOSETTINGS")) {
+            while (rs.next()) {
+                script.add(rs.getString(1));
+            }
+        }
+
+        int indice = 0;
+        for (Map.Entry<String, DataSource> shard : shards.entrySet()) {
+            if (shard.getKey().equals(catalogo)) {
+                indice++;
+                continue;
+            }
+            try (Connection connection = shard.getValue().getConnection();
+                    Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                for (String sql : script) {
+                    statement.execute(sql);
+                }
+                for (String secuencia : secuencias(statement)) {
+                    statement.execute("ALTER SEQUENCE \"" + secuencia + "\" RESTART WITH " + (indice * RANGO_IDS + 1));
+                }
+            }
+            indice++;
+        }
+        log.info("Esquema copiado del catálogo {} en {} shards H2", catalogo, shards.size() - 1);
+    }
+
+    private static List<String> secuencias(Statement statement) throws SQLException {
+        List<String> secuencias = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery(
+                "select sequence_name from information_schema.sequences where sequence_schema = 'PUBLIC'")) {
+            while (rs.next()) {
+                secuencias.add(rs.getString(1));
+            }
+        }
+        return secuencias;
+    }
+}
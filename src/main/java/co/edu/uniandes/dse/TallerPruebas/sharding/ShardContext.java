@@ -0,0 +1,60 @@
+package co.edu.uniandes.dse.TallerPruebas.sharding;
+
+/**
+ * Shard en el que trabaja el hilo actual. ShardRoutingDataSource lo consulta
+ * al obtener cada conexión, así que debe fijarse antes de la primera
+ * sentencia de la transacción; sin shard se usa el catálogo (el primero).
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private static volatile ShardRouter router;
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Cambia el shard del hilo.
+     *
+     * @param shard nombre del shard, o null para volver al catálogo
+     * @return el shard anterior, para restaurarlo al terminar
+     */
+    public static String usar(String shard) {
+        String anterior = CURRENT.get();
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+        return anterior;
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Registra el ShardRouter que usa aceptaCuenta, o null al apagar el sharding.
+     */
+    public static void instalar(ShardRouter shardRouter) {
+        router = shardRouter;
+    }
+
+    /**
+     * Indica si una cuenta nueva con este id puede crearse en el shard del
+     * hilo. Lo usa el generador de ids: sin sharding acepta cualquier id.
+     */
+    public static boolean aceptaCuenta(Long accountId) {
+        ShardRouter shardRouter = router;
+        if (shardRouter == null) {
+            return true;
+        }
+        String shard = CURRENT.get();
+        return shardRouter.shardDe(accountId).equals(shard != null ? shard : shardRouter.getCatalogo());
+    }
+}
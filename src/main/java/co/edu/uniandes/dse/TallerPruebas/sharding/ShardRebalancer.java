@@ -0,0 +1,294 @@
+package co.edu.uniandes.dse.TallerPruebas.sharding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.ShardSlotEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.repositories.ShardSlotRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mueve slots de cuentas entre shards. Mientras mueve un slot tiene su
+ * candado de escritura, así que las operaciones sobre cuentas del slot
+ * esperan; las de otros slots siguen normalmente.
+ *
+ * Las filas se copian por JDBC en bloques de BLOQUE cuentas: la cuenta, sus
+ * bolsillos, transacciones, eventos del outbox sin entregar, totales diarios,
+ * asientos, snapshots, marcas de conciliación, registros de idempotencia y
+ * pasos de transferencias entre shards con los asientos de su libro TRANSITO,
+ * y los usuarios dueños que el shard destino aún no tenga. Una transferencia
+ * entre shards pendiente sigue en el shard nuevo con su libro TRANSITO; un
+ * evento copiado se puede entregar desde ambos shards mientras dura el
+ * movimiento, lo que la entrega al menos una vez ya admite. Cada bloque borra antes lo que el destino
+ * tenga de esas cuentas, así que un movimiento interrumpido se puede repetir.
+ * Cuando todo está copiado se guarda el nuevo dueño en el catálogo, se cambia
+ * en el ShardRouter y se borran las filas del origen.
+ */
+@Slf4j
+public class ShardRebalancer {
+
+    private static final int BLOQUE = 500;
+
+    /**
+     * Una tabla que se mueve con las cuentas: sus filas son las que cumplen
+     * condicion, donde :cuentas son los ids de las cuentas y :bolsillos los de sus bolsillos.
+     */
+    private record Tabla(String nombre, String condicion) {
+    }
+
+    private static final String SAGAS = "(rol = 'ORIGEN' and source_id in (:cuentas))"
+            + " or (rol = 'DESTINO' and destination_id in (:cuentas))";
+
+    /** El libro TRANSITO usa el id de la saga como titular */
+    private static final String TRANSITO = "libro = 'TRANSITO' and titular_id in"
+            + " (select saga_id from transfer_saga_entity where " + SAGAS + ")";
+
+    /** En orden de inserción; se borran en orden inverso */
+    private static final List<Tabla> TABLAS = List.of(
+            new Tabla("account_entity", "id in (:cuentas)"),
+            new Tabla("pocket_entity", "account_id in (:cuentas)"),
+            new Tabla("transaction_entity", "account_id in (:cuentas)"),
+            new Tabla("outbox_event_entity",
+                    "transaction_id in (select id from transaction_entity where account_id in (:cuentas))"),
+            new Tabla("idempotency_record_entity", "account_id in (:cuentas)"),
+            new Tabla("daily_account_aggregate_entity", "account_id in (:cuentas)"),
+            new Tabla("ledger_entry_entity",
+                    "(libro = 'CUENTA' and titular_id in (:cuentas)) or (libro = 'BOLSILLO' and titular_id in (:bolsillos))"),
+            new Tabla("balance_snapshot_entity",
+                    "(libro = 'CUENTA' and titular_id in (:cuentas)) or (libro = 'BOLSILLO' and titular_id in (:bolsillos))"),
+            new Tabla("reconciliation_mark_entity",
+                    "(tipo = 'CUENTA' and titular_id in (:cuentas)) or (tipo = 'BOLSILLO' and titular_id in (:bolsillos))"),
+            new Tabla("transfer_saga_entity", SAGAS),
+            // después de las sagas, para que se borren antes que ellas
+            new Tabla("ledger_entry_entity", TRANSITO),
+            new Tabla("balance_snapshot_entity", TRANSITO));
+
+    private final ShardRouter router;
+    private final Map<String, DataSource> shards;
+    private final ShardTemplate shardTemplate;
+    private final ShardSlotRepository slotRepository;
+
+    public ShardRebalancer(ShardRouter router, Map<String, DataSource> shards, ShardTemplate shardTemplate,
+            ShardSlotRepository slotRepository) {
+        this.router = router;
+        this.shards = shards;
+        this.shardTemplate = shardTemplate;
+        this.slotRepository = slotRepository;
+    }
+
+    /**
+     * Aplica al ShardRouter los slots movidos antes, guardados en el catálogo.
+     */
+    public void cargarAsignaciones() {
+        for (ShardSlotEntity asignacion : slotRepository.findAll()) {
+            router.asignar(asignacion.getSlot(), asignacion.getShard());
+        }
+    }
+
+    /**
+     * Mueve un slot con todas sus cuentas a otro shard.
+     *
+     * @param slot slot entre 0 y ShardRouter.SLOTS - 1
+     * @param destino shard que queda como dueño del slot
+     * @return número de cuentas movidas
+     * @throws BusinessLogicException si el slot o el shard no existen
+     */
+    public int moverSlot(int slot, String destino) throws BusinessLogicException {
+        if (slot < 0 || slot >= ShardRouter.SLOTS) {
+            throw new BusinessLogicException("El slot debe estar entre 0 y " + (ShardRouter.SLOTS - 1));
+        }
+        if (!shards.containsKey(destino)) {
+            throw new BusinessLogicException("El shard " + destino + " no existe");
+        }
+
+        Lock lock = router.lockDe(slot).writeLock();
+        lock.lock();
+        try {
+            String origen = router.ownerDe(slot);
+            if (origen.equals(destino)) {
+                return 0;
+            }
+            JdbcTemplate desde = new JdbcTemplate(shards.get(origen));
+            JdbcTemplate hacia = new JdbcTemplate(shards.get(destino));
+            TransactionTemplate enOrigen = new TransactionTemplate(new DataSourceTransactionManager(shards.get(origen)));
+            TransactionTemplate enDestino = new TransactionTemplate(
+                    new DataSourceTransactionManager(shards.get(destino)));
+
+            List<Long> cuentas = cuentasDelSlot(desde, slot);
+            List<List<Long>> bloques = new ArrayList<>();
+            for (int i = 0; i < cuentas.size(); i += BLOQUE) {
+                bloques.add(cuentas.subList(i, Math.min(i + BLOQUE, cuentas.size())));
+            }
+            for (List<Long> bloque : bloques) {
+                List<Long> bolsillos = bolsillosDe(desde, bloque);
+                enDestino.executeWithoutResult(status -> copiar(desde, hacia, bloque, bolsillos));
+            }
+
+            guardarAsignacion(slot, destino);
+            router.asignar(slot, destino);
+
+            for (List<Long> bloque : bloques) {
+                List<Long> bolsillos = bolsillosDe(desde, bloque);
+                enOrigen.executeWithoutResult(status -> borrar(desde, bloque, bolsillos));
+            }
+            log.info("Slot {} movido de {} a {}: {} cuentas", slot, origen, destino, cuentas.size());
+            return cuentas.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mueve slots de origen a destino hasta mover cantidad slots o quedarse sin slots en origen.
+     *
+     * @return número de cuentas movidas
+     */
+    public int moverSlots(String origen, String destino, int cantidad) throws BusinessLogicException {
+        List<Integer> slots = router.slotsDe(origen);
+        int movidas = 0;
+        for (int i = 0; i < Math.min(cantidad, slots.size()); i++) {
+            movidas += moverSlot(slots.get(i), destino);
+        }
+        return movidas;
+    }
+
+    private List<Long> cuentasDelSlot(JdbcTemplate desde, int slot) {
+        List<Long> cuentas = new ArrayList<>();
+        long cursor = Long.MIN_VALUE;
+        while (true) {
+            List<Long> ids = desde.queryForList(
+                    "select id from account_entity where id > ? order by id fetch first " + BLOQUE + " rows only",
+                    Long.class, cursor);
+            for (Long id : ids) {
+                if (router.slotDe(id) == slot) {
+                    cuentas.add(id);
+                }
+            }
+            if (ids.size() < BLOQUE) {
+                return cuentas;
+            }
+            cursor = ids.get(ids.size() - 1);
+        }
+    }
+
+    private static List<Long> bolsillosDe(JdbcTemplate jdbc, List<Long> cuentas) {
+        return jdbc.queryForList("select id from pocket_entity where account_id in (" + marcas(cuentas.size()) + ")",
+                Long.class, cuentas.toArray());
+    }
+
+    private void copiar(JdbcTemplate desde, JdbcTemplate hacia, List<Long> cuentas, List<Long> bolsillos) {
+        borrar(hacia, cuentas, bolsillos);
+        copiarUsuarios(desde, hacia, cuentas);
+        for (Tabla tabla : TABLAS) {
+            Condicion condicion = condicion(tabla, cuentas, bolsillos);
+            insertar(hacia, tabla.nombre(), desde.queryForList(
+                    "select * from " + tabla.nombre() + " where " + condicion.sql(), condicion.args()));
+        }
+    }
+
+    private void borrar(JdbcTemplate jdbc, List<Long> cuentas, List<Long> bolsillos) {
+        List<Tabla> inverso = new ArrayList<>(TABLAS);
+        Collections.reverse(inverso);
+        for (Tabla tabla : inverso) {
+            Condicion condicion = condicion(tabla, cuentas, bolsillos);
+            jdbc.update("delete from " + tabla.nombre() + " where " + condicion.sql(), condicion.args());
+        }
+    }
+
+    /**
+     * Copia los usuarios dueños de las cuentas que el destino no tenga. Los
+     * usuarios no se borran del origen: pueden tener otras cuentas allí.
+     */
+    private static void copiarUsuarios(JdbcTemplate desde, JdbcTemplate hacia, List<Long> cuentas) {
+        List<Long> usuarios = desde.queryForList("select distinct user_id from account_entity where user_id is not null"
+                + " and id in (" + marcas(cuentas.size()) + ")", Long.class, cuentas.toArray());
+        if (usuarios.isEmpty()) {
+            return;
+        }
+        Set<Long> existentes = new HashSet<>(hacia.queryForList(
+                "select id from user_entity where id in (" + marcas(usuarios.size()) + ")", Long.class,
+                usuarios.toArray()));
+        usuarios.removeAll(existentes);
+        if (!usuarios.isEmpty()) {
+            insertar(hacia, "user_entity", desde.queryForList(
+                    "select * from user_entity where id in (" + marcas(usuarios.size()) + ")", usuarios.toArray()));
+        }
+    }
+
+    private static void insertar(JdbcTemplate jdbc, String tabla, List<Map<String, Object>> filas) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        List<String> columnas = new ArrayList<>(filas.get(0).keySet());
+        String sql = "insert into " + tabla + " (" + String.join(", ", columnas) + ") values ("
+                + marcas(columnas.size()) + ")";
+        List<Object[]> valores = new ArrayList<>(filas.size());
+        for (Map<String, Object> fila : filas) {
+            valores.add(columnas.stream().map(fila::get).toArray());
+        }
+        jdbc.batchUpdate(sql, valores);
+    }
+
+    private void guardarAsignacion(int slot, String destino) throws BusinessLogicException {
+        try {
+            shardTemplate.enShard(router.getCatalogo(), () -> {
+                ShardSlotEntity asignacion = slotRepository.findBySlot(slot).orElseGet(ShardSlotEntity::new);
+                asignacion.setSlot(slot);
+                asignacion.setShard(destino);
+                asignacion.setFecha(new Date());
+                return slotRepository.save(asignacion);
+            });
+        } catch (EntityNotFoundException e) {
+            throw new BusinessLogicException(e.getMessage());
+        }
+    }
+
+    private record Condicion(String sql, Object[] args) {
+    }
+
+    /**
+     * Arma la condición de una tabla con marcas ? para los ids; una lista vacía no coincide con nada.
+     */
+    private static Condicion condicion(Tabla tabla, List<Long> cuentas, List<Long> bolsillos) {
+        List<Object> args = new ArrayList<>();
+        String sql = tabla.condicion();
+        // cada aparición de :cuentas o :bolsillos agrega sus ids en el orden del texto
+        StringBuilder armado = new StringBuilder();
+        int i = 0;
+        while (i < sql.length()) {
+            String nombre = sql.startsWith(":cuentas", i) ? ":cuentas"
+                    : sql.startsWith(":bolsillos", i) ? ":bolsillos" : null;
+            if (nombre != null) {
+                List<Long> ids = nombre.equals(":cuentas") ? cuentas : bolsillos;
+                if (ids.isEmpty()) {
+                    armado.append("null");
+                } else {
+                    armado.append(marcas(ids.size()));
+                    args.addAll(ids);
+                }
+                i += nombre.length();
+            } else {
+                armado.append(sql.charAt(i++));
+            }
+        }
+        return new Condicion(armado.toString(), args.toArray());
+    }
+
+    private static String marcas(int cantidad) {
+        return String.join(", ", Collections.nCopies(cantidad, "?"));
+    }
+}
@@ -0,0 +1,124 @@
+package co.edu.uniandes.dse.TallerPruebas.sharding;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Decide en qué shard vive cada cuenta. El id de la cuenta se reparte con un
+ * hash en SLOTS slots fijos y cada slot pertenece a un shard; sus bolsillos y
+ * transacciones viven en el mismo shard.
+ *
+ * La asignación inicial de los slots sale de un anillo de hash consistente con
+ * VIRTUAL_NODES nodos por shard, así que agregar un shard solo mueve cerca de
+ * 1/N de los slots. ShardRebalancer cambia después el dueño de slots sueltos.
+ *
+ * Cada slot tiene un candado de lectura/escritura: quien trabaja con cuentas
+ * del slot toma el de lectura y ShardRebalancer el de escritura mientras lo
+ * mueve. Los candados son de esta instancia de la aplicación.
+ */
+public class ShardRouter {
+
+    public static final int SLOTS = 1024;
+    private static final int VIRTUAL_NODES = 64;
+
+    private final List<String> shards;
+    private final AtomicReferenceArray<String> owners = new AtomicReferenceArray<>(SLOTS);
+    private final ReadWriteLock[] locks = new ReadWriteLock[SLOTS];
+
+    /**
+     * @param shards nombres de los shards; el primero es el catálogo
+     */
+    public ShardRouter(List<String> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("Debe haber al menos un shard");
+        }
+        this.shards = List.copyOf(shards);
+
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String shard : this.shards) {
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                ring.put(mix(((long) shard.hashCode() << 32) | v) >>> 32, shard);
+            }
+        }
+        long paso = (1L << 32) / SLOTS;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            Map.Entry<Long, String> owner = ring.ceilingEntry(slot * paso);
+            owners.set(slot, owner != null ? owner.getValue() : ring.firstEntry().getValue());
+            locks[slot] = new ReentrantReadWriteLock();
+        }
+    }
+
+    public int slotDe(Long accountId) {
+        return (int) Math.floorMod(mix(accountId), (long) SLOTS);
+    }
+
+    public String shardDe(Long accountId) {
+        return owners.get(slotDe(accountId));
+    }
+
+    public String ownerDe(int slot) {
+        return owners.get(slot);
+    }
+
+    public List<String> getShards() {
+        return shards;
+    }
+
+    /**
+     * @return el shard con los datos que no se reparten por cuenta
+     */
+    public String getCatalogo() {
+        return shards.get(0);
+    }
+
+    /**
+     * @return los slots de un shard, en orden
+     */
+    public List<Integer> slotsDe(String shard) {
+        List<Integer> slots = new ArrayList<>();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (owners.get(slot).equals(shard)) {
+                slots.add(slot);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * @return número de slots de cada shard
+     */
+    public Map<String, Integer> contarSlots() {
+        Map<String, Integer> conteo = new LinkedHashMap<>();
+        shards.forEach(shard -> conteo.put(shard, 0));
+        for (int slot = 0; slot < SLOTS; slot++) {
+            conteo.merge(owners.get(slot), 1, Integer::sum);
+        }
+        return conteo;
+    }
+
+    void asignar(int slot, String shard) {
+        if (!shards.contains(shard)) {
+            throw new IllegalArgumentException("El shard " + shard + " no existe");
+        }
+        owners.set(slot, shard);
+    }
+
+    ReadWriteLock lockDe(int slot) {
+        return locks[slot];
+    }
+
+    /**
+     * Mezcla de SplitMix64: ids consecutivos quedan en slots no relacionados.
+     */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+}
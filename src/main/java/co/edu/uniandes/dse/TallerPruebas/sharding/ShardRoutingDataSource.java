@@ -0,0 +1,55 @@
+package co.edu.uniandes.dse.TallerPruebas.sharding;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * DataSource que entrega conexiones del shard fijado en ShardContext, o del
+ * catálogo si el hilo no fijó ninguno. Igual que ReplicaRoutingDataSource,
+ * debe usarse detrás de un LazyConnectionDataSourceProxy para que el shard se
+ * resuelva en la primera sentencia y no al iniciar la transacción.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Map<String, DataSource> shards;
+
+    /**
+     * @param shards los DataSource de cada shard, en el orden de ShardRouter
+     * @param catalogo shard que se usa si el hilo no fijó ninguno
+     */
+    public ShardRoutingDataSource(Map<String, DataSource> shards, String catalogo) {
+        this.shards = new LinkedHashMap<>(shards);
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(catalogo));
+        // un shard desconocido es un error, no el catálogo
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    /**
+     * @return los DataSource de cada shard, en orden
+     */
+    public Map<String, DataSource> getShards() {
+        return shards;
+    }
+
+    /**
+     * Cierra los pools de los shards.
+     */
+    public void close() throws Exception {
+        for (DataSource shard : shards.values()) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
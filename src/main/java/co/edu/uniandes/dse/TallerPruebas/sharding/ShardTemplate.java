@@ -0,0 +1,168 @@
+package co.edu.uniandes.dse.TallerPruebas.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+
+/**
+ * Ejecuta código en una transacción nueva sobre el shard de una o varias
+ * cuentas, con los slots de esas cuentas protegidos contra ShardRebalancer.
+ * Los repositorios y servicios llamados desde el callback trabajan contra ese
+ * shard sin saber que existe más de uno.
+ */
+public class ShardTemplate {
+
+    /**
+     * Código que se ejecuta dentro de un shard.
+     */
+    @FunctionalInterface
+    public interface ShardCallback<T> {
+        T ejecutar() throws EntityNotFoundException, BusinessLogicException;
+    }
+
+    private final ShardRouter router;
+    private final TransactionTemplate transactionTemplate;
+
+    public ShardTemplate(ShardRouter router, PlatformTransactionManager transactionManager) {
+        this.router = router;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public <T> T enCuenta(Long accountId, ShardCallback<T> callback)
+            throws EntityNotFoundException, BusinessLogicException {
+        return enCuentas(List.of(accountId), callback);
+    }
+
+    /**
+     * Ejecuta el callback en el shard de las cuentas, que debe ser el mismo
+     * para todas.
+     *
+     * @throws IllegalArgumentException si las cuentas están en shards distintos
+     */
+    public <T> T enCuentas(Collection<Long> accountIds, ShardCallback<T> callback)
+            throws EntityNotFoundException, BusinessLogicException {
+        return conSlots(accountIds, shard -> enShard(shard, callback));
+    }
+
+    /**
+     * Como enCuentas, pero sin abrir una transacción: el callback abre las
+     * suyas contra el shard de las cuentas. Lo usan los servicios que manejan
+     * su propia transacción, porque @RetryOnConflict solo reintenta cuando no
+     * hay una transacción activa.
+     *
+     * @throws IllegalArgumentException si las cuentas están en shards distintos
+     */
+    public <T> T conCuentas(Collection<Long> accountIds, ShardCallback<T> callback)
+            throws EntityNotFoundException, BusinessLogicException {
+        return conSlots(accountIds, shard -> {
+            String anterior = ShardContext.usar(shard);
+            try {
+                return callback.ejecutar();
+            } finally {
+                ShardContext.usar(anterior);
+            }
+        });
+    }
+
+    /**
+     * Código que se ejecuta en el shard de unas cuentas, con sus slots protegidos.
+     */
+    @FunctionalInterface
+    private interface SlotsCallback<T> {
+        T ejecutar(String shard) throws EntityNotFoundException, BusinessLogicException;
+    }
+
+    private <T> T conSlots(Collection<Long> accountIds, SlotsCallback<T> callback)
+            throws EntityNotFoundException, BusinessLogicException {
+        // en orden de slot; ShardRebalancer solo toma un candado a la vez, así que no hay ciclos
+        TreeSet<Integer> slots = new TreeSet<>();
+        accountIds.forEach(accountId -> slots.add(router.slotDe(accountId)));
+        List<Lock> tomados = new ArrayList<>(slots.size());
+        try {
+            for (Integer slot : slots) {
+                Lock lock = router.lockDe(slot).readLock();
+                lock.lock();
+                tomados.add(lock);
+            }
+            String shard = router.ownerDe(slots.first());
+            for (Integer slot : slots) {
+                if (!router.ownerDe(slot).equals(shard)) {
+                    throw new IllegalArgumentException("Las cuentas " + accountIds + " están en shards distintos");
+                }
+            }
+            return callback.ejecutar(shard);
+        } finally {
+            tomados.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Ejecuta el callback en un shard dado, por ejemplo para recorrer todos.
+     */
+    public <T> T enShard(String shard, ShardCallback<T> callback)
+            throws EntityNotFoundException, BusinessLogicException {
+        String anterior = ShardContext.usar(shard);
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    return callback.ejecutar();
+                } catch (EntityNotFoundException | BusinessLogicException e) {
+                    // una excepción de negocio también revierte la transacción del shard
+                    throw new ShardCallbackException(e);
+                }
+            });
+        } catch (ShardCallbackException e) {
+            if (e.getCause() instanceof EntityNotFoundException notFound) {
+                throw notFound;
+            }
+            throw (BusinessLogicException) e.getCause();
+        } finally {
+            ShardContext.usar(anterior);
+        }
+    }
+
+    /**
+     * Como enShard, pero con todos los slots del shard protegidos. Lo usa
+     * quien crea cuentas sin conocer antes sus ids: el generador los toma de
+     * los slots del shard, que así no se mueven mientras se escriben.
+     */
+    public <T> T enSlotsDe(String shard, ShardCallback<T> callback)
+            throws EntityNotFoundException, BusinessLogicException {
+        // en orden de slot, como conSlots
+        List<Lock> tomados = new ArrayList<>();
+        try {
+            for (int slot = 0; slot < ShardRouter.SLOTS; slot++) {
+                if (router.ownerDe(slot).equals(shard)) {
+                    Lock lock = router.lockDe(slot).readLock();
+                    lock.lock();
+                    tomados.add(lock);
+                }
+            }
+            return enShard(shard, callback);
+        } finally {
+            tomados.forEach(Lock::unlock);
+        }
+    }
+
+    public ShardRouter getRouter() {
+        return router;
+    }
+
+    private static class ShardCallbackException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ShardCallbackException(Exception cause) {
+            super(cause);
+        }
+    }
+}
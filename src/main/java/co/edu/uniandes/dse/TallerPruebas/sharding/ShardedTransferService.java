@@ -0,0 +1,367 @@
+package co.edu.uniandes.dse.TallerPruebas.sharding;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransferSagaEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.idempotency.IdempotencyStore;
+import co.edu.uniandes.dse.TallerPruebas.outbox.OutboxService;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransferSagaRepository;
+import co.edu.uniandes.dse.TallerPruebas.services.DailyAggregateService;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService.Posting;
+import co.edu.uniandes.dse.TallerPruebas.services.TransactionService;
+import co.edu.uniandes.dse.TallerPruebas.services.TransferValidator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transferencias con las cuentas repartidas en shards. Si ambas cuentas están
+ * en el mismo shard, la transferencia es la de TransactionService en ese
+ * shard. Si no, es una saga de tres pasos, cada uno en una transacción local:
+ *
+ * 1. en el shard origen se debita la cuenta y se guarda la fila ORIGEN PENDIENTE;
+ * 2. en el shard destino se acredita la cuenta y se guarda la fila DESTINO;
+ * 3. en el shard origen la fila ORIGEN pasa a COMPLETADA y se publica el evento.
+ *
+ * Si el paso 2 falla por una regla de negocio, el débito se compensa en el
+ * shard origen y la transferencia queda COMPENSADA. Si falla por otra causa
+ * (un shard caído), queda PENDIENTE y reanudarPendientes la termina después:
+ * el paso 2 es idempotente gracias a la fila DESTINO. Entre los pasos el
+ * dinero está en el libro TRANSITO de ambos shards, que siempre cuadran.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardedTransferService {
+
+    public static final String ORIGEN = "ORIGEN";
+    public static final String DESTINO = "DESTINO";
+    public static final String PENDIENTE = "PENDIENTE";
+    public static final String COMPLETADA = "COMPLETADA";
+    public static final String COMPENSADA = "COMPENSADA";
+    public static final String ACREDITADA = "ACREDITADA";
+
+    private static final String CONCEPTO_TRANSFERENCIA = "TRANSFERENCIA";
+    private static final String CONCEPTO_REVERSO = "REVERSO_TRANSFERENCIA";
+
+    @Value("${sharding.sagas.lag-seconds:60}")
+    private long lagSeconds;
+
+    @Value("${sharding.sagas.batch-size:100}")
+    private int batchSize;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransferSagaRepository sagaRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private DailyAggregateService dailyAggregateService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    /**
+     * Realiza una transferencia entre dos cuentas, estén o no en el mismo shard.
+     * @param sourceId ID de la cuenta origen
+     * @param destinationId ID de la cuenta destino
+     * @param monto Cantidad a transferir
+     * @param idempotencyKey Clave elegida por el cliente, o null para no usarla
+     * @return La entidad de la transacción creada en la cuenta origen
+     * @throws EntityNotFoundException Si alguna de las cuentas no existe
+     * @throws BusinessLogicException Si son la misma cuenta, alguna está bloqueada,
+     *                                fondos insuficientes o monto inválido
+     */
+    public TransactionEntity transferirFondos(Long sourceId, Long destinationId, Double monto, String idempotencyKey)
+            throws EntityNotFoundException, BusinessLogicException {
+        if (sourceId == null) {
+            throw new EntityNotFoundException("La cuenta origen no existe");
+        }
+        if (destinationId == null) {
+            throw new EntityNotFoundException("La cuenta destino no existe");
+        }
+        ShardRouter router = shardTemplate.getRouter();
+        if (sourceId.equals(destinationId) || router.shardDe(sourceId).equals(router.shardDe(destinationId))) {
+            // transferirFondos abre su propia transacción para poder reintentar un conflicto de versión
+            return shardTemplate.conCuentas(List.of(sourceId, destinationId),
+                    () -> transactionService.transferirFondos(sourceId, destinationId, monto, idempotencyKey));
+        }
+
+        TransferValidator.validarMonto(monto);
+        // validar el destino antes de debitar evita casi todas las compensaciones; acreditar lo valida otra vez
+        shardTemplate.enCuenta(destinationId, () -> {
+            TransferValidator.validarDestino(accountRepository.findById(destinationId).orElse(null));
+            return null;
+        });
+
+        String referencia = idempotencyKey != null ? idempotencyKey : UUID.randomUUID().toString();
+        TransferSagaEntity saga = shardTemplate.enCuenta(sourceId,
+                () -> debitar(referencia, idempotencyKey != null, sourceId, destinationId, monto));
+        if (PENDIENTE.equals(saga.getEstado())) {
+            continuar(saga);
+        }
+        return shardTemplate.enCuenta(sourceId, () -> transactionRepository.findById(saga.getTransactionId())
+                .orElseThrow(() -> new EntityNotFoundException("La transacción original no existe")));
+    }
+
+    /**
+     * Termina las transferencias entre shards que quedaron pendientes hace más
+     * de sharding.sagas.lag-seconds, por ejemplo porque el shard destino no respondía.
+     *
+     * @return número de transferencias terminadas o compensadas
+     */
+    @Scheduled(fixedDelayString = "${sharding.sagas.interval-ms:30000}")
+    public int reanudarPendientes() {
+        Date antes = new Date(System.currentTimeMillis() - lagSeconds * 1000);
+        int terminadas = 0;
+        for (String shard : shardTemplate.getRouter().getShards()) {
+            List<TransferSagaEntity> pendientes;
+            try {
+                pendientes = shardTemplate.enShard(shard, () -> sagaRepository
+                        .findByRolAndEstadoAndFechaBeforeOrderByFechaAsc(ORIGEN, PENDIENTE, antes,
+                                PageRequest.of(0, batchSize)));
+            } catch (EntityNotFoundException | BusinessLogicException | DataAccessException
+                    | TransactionException e) {
+                log.warn("No se pudieron leer las transferencias pendientes del shard {}", shard, e);
+                continue;
+            }
+            for (TransferSagaEntity saga : pendientes) {
+                try {
+                    if (continuar(saga)) {
+                        terminadas++;
+                    }
+                } catch (EntityNotFoundException | BusinessLogicException e) {
+                    // quedó compensada
+                    terminadas++;
+                } catch (RuntimeException e) {
+                    log.warn("No se pudo terminar la transferencia {}", saga.getReferencia(), e);
+                }
+            }
+        }
+        if (terminadas > 0) {
+            log.info("Se terminaron {} transferencias entre shards pendientes", terminadas);
+        }
+        return terminadas;
+    }
+
+    /**
+     * Ejecuta los pasos 2 y 3, o la compensación. Si un shard no responde o su
+     * commit falla, la transferencia queda PENDIENTE para reanudarPendientes;
+     * acreditar y completar se pueden repetir sin duplicar nada.
+     *
+     * @return true si la transferencia quedó COMPLETADA o COMPENSADA
+     */
+    private boolean continuar(TransferSagaEntity saga) throws BusinessLogicException, EntityNotFoundException {
+        try {
+            shardTemplate.enCuenta(saga.getDestinationId(), () -> acreditar(saga));
+        } catch (EntityNotFoundException | BusinessLogicException e) {
+            log.warn("Se compensa la transferencia {}: {}", saga.getReferencia(), e.getMessage());
+            shardTemplate.enCuenta(saga.getSourceId(), () -> compensar(saga.getReferencia()));
+            throw e;
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("La transferencia {} queda pendiente: no se pudo acreditar la cuenta {}", saga.getReferencia(),
+                    saga.getDestinationId(), e);
+            return false;
+        }
+        try {
+            shardTemplate.enCuenta(saga.getSourceId(), () -> completar(saga.getReferencia()));
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("La transferencia {} queda pendiente: no se pudo completar en la cuenta {}",
+                    saga.getReferencia(), saga.getSourceId(), e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Paso 1, en el shard origen. Una referencia repetida devuelve la fila
+     * original. Con clave de idempotencia también se consulta y se guarda el
+     * registro de IdempotencyStore, que comparte con las transferencias dentro
+     * de un shard: si la cuenta cambió de shard después de la transferencia
+     * original, el reintento la encuentra igual.
+     */
+    private TransferSagaEntity debitar(String referencia, boolean idempotente, Long sourceId, Long destinationId,
+            Double monto) throws EntityNotFoundException, BusinessLogicException {
+        Optional<TransferSagaEntity> original = sagaRepository.findByReferenciaAndRol(referencia, ORIGEN);
+        if (original.isPresent()) {
+            TransferSagaEntity saga = original.get();
+            if (!saga.getSourceId().equals(sourceId) || !saga.getDestinationId().equals(destinationId)
+                    || !saga.getMonto().equals(monto)) {
+                throw new BusinessLogicException("La clave de idempotencia ya se usó con datos diferentes");
+            }
+            log.info("Transferencia repetida, se devuelve la transferencia original {}", referencia);
+            return saga;
+        }
+
+        List<AccountEntity> cuentas = accountRepository.findAllByIdForUpdate(List.of(sourceId));
+        if (cuentas.isEmpty()) {
+            throw new EntityNotFoundException("La cuenta origen no existe");
+        }
+        AccountEntity source = cuentas.get(0);
+        String huella = sourceId + ">" + destinationId + ":" + monto;
+        if (idempotente) {
+            Optional<Long> anterior = idempotencyStore.find(TransactionService.OPERACION_TRANSFERENCIA, referencia,
+                    huella);
+            if (anterior.isPresent()) {
+                // la transferencia original se hizo con ambas cuentas en el mismo shard
+                log.info("Transferencia repetida, se devuelve la transacción original {}", anterior.get());
+                TransferSagaEntity mismoShard = new TransferSagaEntity();
+                mismoShard.setEstado(COMPLETADA);
+                mismoShard.setTransactionId(anterior.get());
+                return mismoShard;
+            }
+        }
+        TransferValidator.validarOrigen(source);
+        TransferValidator.validarFondos(source.getSaldo(), monto);
+
+        Date fecha = new Date();
+        ledgerService.abrir(LedgerService.LIBRO_CUENTA, Map.of(sourceId, source.getSaldo()), fecha);
+        source.setSaldo(source.getSaldo() - monto);
+        TransactionEntity salida = transactionRepository.save(transaccion(source, "SALIDA",
+                CONCEPTO_TRANSFERENCIA, monto, fecha));
+
+        TransferSagaEntity saga = new TransferSagaEntity();
+        saga.setReferencia(referencia);
+        saga.setRol(ORIGEN);
+        saga.setEstado(PENDIENTE);
+        saga.setSourceId(sourceId);
+        saga.setDestinationId(destinationId);
+        saga.setMonto(monto);
+        saga.setTransactionId(salida.getId());
+        saga.setFecha(fecha);
+        sagaRepository.save(saga);
+        saga.setSagaId(saga.getId());
+        if (idempotente) {
+            idempotencyStore.record(TransactionService.OPERACION_TRANSFERENCIA, referencia, huella, salida.getId(),
+                    sourceId);
+        }
+
+        ledgerService.abrir(LedgerService.LIBRO_TRANSITO, Map.of(saga.getId(), 0.0), fecha);
+        ledgerService.registrar(CONCEPTO_TRANSFERENCIA, fecha,
+                new Posting(LedgerService.LIBRO_CUENTA, sourceId, -monto),
+                new Posting(LedgerService.LIBRO_TRANSITO, saga.getId(), monto));
+        dailyAggregateService.registrar(List.of(salida));
+        return saga;
+    }
+
+    /**
+     * Paso 2, en el shard destino. No hace nada si ya se acreditó; si la
+     * cuenta destino ya no existe o está bloqueada, la transferencia se compensa.
+     */
+    private Void acreditar(TransferSagaEntity saga) throws EntityNotFoundException, BusinessLogicException {
+        if (sagaRepository.findByReferenciaAndRol(saga.getReferencia(), DESTINO).isPresent()) {
+            return null;
+        }
+        List<AccountEntity> cuentas = accountRepository.findAllByIdForUpdate(List.of(saga.getDestinationId()));
+        TransferValidator.validarDestino(cuentas.isEmpty() ? null : cuentas.get(0));
+        AccountEntity destination = cuentas.get(0);
+
+        Date fecha = new Date();
+        ledgerService.abrir(LedgerService.LIBRO_CUENTA, Map.of(destination.getId(), destination.getSaldo()), fecha);
+        destination.setSaldo(destination.getSaldo() + saga.getMonto());
+        TransactionEntity entrada = transactionRepository.save(transaccion(destination, "ENTRADA",
+                CONCEPTO_TRANSFERENCIA, saga.getMonto(), fecha));
+
+        TransferSagaEntity acreditada = new TransferSagaEntity();
+        acreditada.setReferencia(saga.getReferencia());
+        acreditada.setRol(DESTINO);
+        acreditada.setEstado(ACREDITADA);
+        acreditada.setSourceId(saga.getSourceId());
+        acreditada.setDestinationId(saga.getDestinationId());
+        acreditada.setMonto(saga.getMonto());
+        acreditada.setSagaId(saga.getId());
+        acreditada.setTransactionId(entrada.getId());
+        acreditada.setFecha(fecha);
+        sagaRepository.save(acreditada);
+
+        ledgerService.abrir(LedgerService.LIBRO_TRANSITO, Map.of(saga.getId(), 0.0), fecha);
+        ledgerService.registrar(CONCEPTO_TRANSFERENCIA, fecha,
+                new Posting(LedgerService.LIBRO_TRANSITO, saga.getId(), -saga.getMonto()),
+                new Posting(LedgerService.LIBRO_CUENTA, destination.getId(), saga.getMonto()));
+        dailyAggregateService.registrar(List.of(entrada));
+        return null;
+    }
+
+    /**
+     * Paso 3, en el shard origen.
+     */
+    private Void completar(String referencia) throws EntityNotFoundException {
+        TransferSagaEntity saga = sagaRepository.findByReferenciaAndRol(referencia, ORIGEN)
+                .orElseThrow(() -> new EntityNotFoundException("La transferencia no existe"));
+        if (!PENDIENTE.equals(saga.getEstado())) {
+            return null;
+        }
+        saga.setEstado(COMPLETADA);
+        outboxService.registrar(List.of(OutboxService.transferencia(saga.getTransactionId(), saga.getSourceId(),
+                saga.getDestinationId(), saga.getMonto(), saga.getFecha())));
+        log.info("Transferencia entre shards {} completada", referencia);
+        return null;
+    }
+
+    /**
+     * Devuelve el débito del paso 1, en el shard origen.
+     */
+    private Void compensar(String referencia) throws EntityNotFoundException {
+        TransferSagaEntity saga = sagaRepository.findByReferenciaAndRol(referencia, ORIGEN)
+                .orElseThrow(() -> new EntityNotFoundException("La transferencia no existe"));
+        if (!PENDIENTE.equals(saga.getEstado())) {
+            return null;
+        }
+        AccountEntity source = accountRepository.findAllByIdForUpdate(List.of(saga.getSourceId())).get(0);
+        Date fecha = new Date();
+        source.setSaldo(source.getSaldo() + saga.getMonto());
+        TransactionEntity reverso = transactionRepository.save(transaccion(source, "ENTRADA", CONCEPTO_REVERSO,
+                saga.getMonto(), fecha));
+        ledgerService.registrar(CONCEPTO_REVERSO, fecha,
+                new Posting(LedgerService.LIBRO_TRANSITO, saga.getId(), -saga.getMonto()),
+                new Posting(LedgerService.LIBRO_CUENTA, saga.getSourceId(), saga.getMonto()));
+        dailyAggregateService.registrar(List.of(reverso));
+        saga.setEstado(COMPENSADA);
+        return null;
+    }
+
+    private static TransactionEntity transaccion(AccountEntity account, String tipo, String concepto, Double monto,
+            Date fecha) {
+        TransactionEntity transaction = new TransactionEntity();
+        transaction.setMonto(monto);
+        transaction.setFecha(fecha);
+        transaction.setTipo(tipo);
+        transaction.setConcepto(concepto);
+        transaction.setAccount(account);
+        return transaction;
+    }
+}
@@ -0,0 +1,179 @@
+package co.edu.uniandes.dse.TallerPruebas.transfers;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountCache;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.outbox.OutboxService;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import co.edu.uniandes.dse.TallerPruebas.services.DailyAggregateService;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Motor de transferencias asíncronas para picos de carga, alternativo a
+ * TransactionService.transferirFondos. submit devuelve de inmediato un
+ * ticket; la transferencia la procesa el {@link TransferShard} dueño de la
+ * cuenta origen (id de la cuenta módulo el número de shards).
+ *
+ * Mientras el motor está activo es el dueño de los saldos de las cuentas que
+ * transfieren por él: las escrituras por otros caminos no se pierden, pero
+ * pueden hacer que un lote se rechace por conflicto y se vuelva a planear.
+ * Se activa con transfers.engine.enabled=true y no arranca con
+ * sharding.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "transfers.engine.enabled", havingValue = "true")
+public class TransferEngine {
+
+    @Value("${sharding.enabled:false}")
+    private boolean shardingEnabled;
+
+    @Value("${transfers.engine.shards:4}")
+    private int shardCount;
+
+    @Value("${transfers.engine.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${transfers.engine.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${transfers.engine.max-accounts:10000}")
+    private int maxAccounts;
+
+    @Value("${transfers.engine.status-retention:100000}")
+    private int statusRetention;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private DailyAggregateService dailyAggregateService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private TransferShard[] shards;
+
+    private final Map<String, TransferTicket> tickets = new ConcurrentHashMap<>();
+    private final Queue<String> ticketOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger retainedTickets = new AtomicInteger();
+
+    @PostConstruct
+    void start() {
+        // los saldos en memoria y el reparto por módulo no conocen los shards de la base
+        if (shardingEnabled) {
+            throw new IllegalStateException("transfers.engine.enabled no se puede usar con sharding.enabled=true");
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        shards = new TransferShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new TransferShard(i, this, accountRepository, entityManager, transactionRepository, accountCache,
+                    ledgerService, dailyAggregateService, outboxService, transactionTemplate, meterRegistry,
+                    queueCapacity, maxBatch, maxAccounts);
+            if (meterRegistry != null) {
+                TransferShard shard = shards[i];
+                Gauge.builder("taller.transfers.queue", shard, TransferShard::getQueueSize)
+                        .description("Transferencias en espera por shard").tag("shard", String.valueOf(i))
+                        .register(meterRegistry);
+            }
+            shards[i].start();
+        }
+        log.info("Motor de transferencias iniciado con {} shards", shardCount);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        for (TransferShard shard : shards) {
+            shard.stop();
+        }
+    }
+
+    /**
+     * Envía una transferencia al shard de su cuenta origen.
+     *
+     * @param sourceId id de la cuenta origen
+     * @param destinationId id de la cuenta destino
+     * @param monto monto a transferir
+     * @return el ticket para consultar el estado de la transferencia
+     * @throws BusinessLogicException si faltan datos de la transferencia
+     * @throws RejectedExecutionException si la cola del shard está llena
+     */
+    public TransferTicket submit(Long sourceId, Long destinationId, Double monto) throws BusinessLogicException {
+        if (sourceId == null || destinationId == null || monto == null) {
+            throw new BusinessLogicException("La transferencia debe indicar cuenta origen, cuenta destino y monto");
+        }
+        TransferTicket ticket = new TransferTicket(UUID.randomUUID().toString(), sourceId, destinationId, monto);
+        tickets.put(ticket.getId(), ticket);
+        if (!shards[shardOf(sourceId)].offer(ticket)) {
+            tickets.remove(ticket.getId());
+            throw new RejectedExecutionException("El motor de transferencias está saturado, intente de nuevo");
+        }
+        ticketOrder.add(ticket.getId());
+        // se olvida el estado de las transferencias más antiguas
+        if (retainedTickets.incrementAndGet() > statusRetention) {
+            String oldest = ticketOrder.poll();
+            if (oldest != null) {
+                retainedTickets.decrementAndGet();
+                tickets.remove(oldest);
+            }
+        }
+        return ticket;
+    }
+
+    /**
+     * @param transferId id devuelto por submit
+     * @return el ticket, si todavía se conserva su estado
+     */
+    public Optional<TransferTicket> getTicket(String transferId) {
+        return Optional.ofNullable(tickets.get(transferId));
+    }
+
+    int shardOf(Long accountId) {
+        return (int) Math.floorMod(accountId, (long) shardCount);
+    }
+
+    void credit(Long accountId, double delta, long version) {
+        shards[shardOf(accountId)].credit(accountId, delta, version);
+    }
+}
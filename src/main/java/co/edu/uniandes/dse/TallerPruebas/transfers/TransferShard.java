@@ -0,0 +1,486 @@
+package co.edu.uniandes.dse.TallerPruebas.transfers;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+
+import org.springframework.transaction.support.TransactionTemplate;
+
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountCache;
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountSnapshot;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionEventDTO;
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.outbox.OutboxService;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import co.edu.uniandes.dse.TallerPruebas.services.DailyAggregateService;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService.Posting;
+import co.edu.uniandes.dse.TallerPruebas.services.TransferValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shard del motor de transferencias. Un único hilo es dueño de los saldos en
+ * memoria de las cuentas que le corresponden y es el único que debita de ellas.
+ *
+ * Cada ciclo toma hasta maxBatch transferencias en orden de llegada, las valida
+ * contra los saldos en memoria y las persiste en una sola transacción: el
+ * saldo de cada cuenta, leído con bloqueo de fila en orden de id para no
+ * generar deadlocks entre shards, una fila SALIDA y una ENTRADA por
+ * transferencia, sus asientos en el libro mayor y los totales diarios de las
+ * cuentas. Los saldos se suman sobre la fila bloqueada y ninguno puede quedar
+ * negativo, así que un saldo en memoria desactualizado nunca sobregira una
+ * cuenta: el lote se vuelve a planear una vez con saldos recargados. Como se
+ * actualizan las entidades, la caché de segundo nivel solo cambia en las
+ * cuentas del lote.
+ *
+ * Un saldo en memoria también puede estar atrasado frente a un depósito hecho
+ * por otro camino; antes de rechazar por fondos insuficientes se recargan de
+ * la BD las cuentas origen rechazadas y el lote se planea otra vez.
+ *
+ * Las reglas de transferirFondos se aplican dos veces: contra la memoria y la
+ * caché al planear, y con TransferValidator sobre las filas bloqueadas al
+ * persistir; una transferencia que falla allí, por ejemplo porque una cuenta
+ * se bloqueó, se rechaza y el resto del lote se planea otra vez. Los saldos en
+ * memoria son un LRU de a lo sumo transfers.engine.max-accounts cuentas.
+ *
+ * Protocolo entre shards: el shard de la cuenta origen persiste también el
+ * crédito de la cuenta destino en su lote. Después del commit envía al shard
+ * destino un crédito con la versión que dejó en la fila; el shard destino solo
+ * lo suma si esa versión es posterior a la que leyó al cargar la cuenta, por lo
+ * que un crédito ya incluido en la carga no se cuenta dos veces.
+ */
+@Slf4j
+class TransferShard implements Runnable {
+
+    private static final String CONCEPTO_TRANSFERENCIA = "TRANSFERENCIA";
+    private static final String MENSAJE_CONFLICTO = "El saldo de la cuenta cambió durante la transferencia, intente de nuevo";
+
+    /**
+     * Crédito ya persistido que el shard debe reflejar en memoria.
+     */
+    private record Credit(Long accountId, double delta, long version) {
+    }
+
+    /**
+     * Resultado de validar un lote contra los saldos en memoria.
+     */
+    private static final class Plan {
+        private final List<TransferTicket> accepted = new ArrayList<>();
+        private final Map<TransferTicket, String> rejected = new LinkedHashMap<>();
+        private final Map<Long, Double> deltas = new TreeMap<>();
+        private final Map<Long, Double> working = new HashMap<>();
+        private final List<Long> transactionIds = new ArrayList<>();
+        private final Set<Long> insufficient = new HashSet<>();
+    }
+
+    /**
+     * El update relativo no se aplicó porque el saldo real no alcanza.
+     */
+    private static final class StaleBalanceException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Alguna transferencia aceptada no pasa las reglas sobre las filas bloqueadas.
+     */
+    private static final class InvalidTransfersException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Map<TransferTicket, String> errors;
+
+        private InvalidTransfersException(Map<TransferTicket, String> errors) {
+            this.errors = errors;
+        }
+    }
+
+    private final int index;
+    private final TransferEngine engine;
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+    private final TransactionRepository transactionRepository;
+    private final AccountCache accountCache;
+    private final LedgerService ledgerService;
+    private final DailyAggregateService dailyAggregateService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxBatch;
+
+    private final BlockingQueue<TransferTicket> submissions;
+    private final Queue<Credit> credits = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Double> balances;
+    private final Map<Long, Long> loadedVersions = new HashMap<>();
+
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    TransferShard(int index, TransferEngine engine, AccountRepository accountRepository, EntityManager entityManager,
+            TransactionRepository transactionRepository, AccountCache accountCache, LedgerService ledgerService,
+            DailyAggregateService dailyAggregateService, OutboxService outboxService,
+            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry, int queueCapacity, int maxBatch,
+            int maxAccounts) {
+        this.index = index;
+        this.engine = engine;
+        this.accountRepository = accountRepository;
+        this.entityManager = entityManager;
+        this.transactionRepository = transactionRepository;
+        this.accountCache = accountCache;
+        this.ledgerService = ledgerService;
+        this.dailyAggregateService = dailyAggregateService;
+        this.outboxService = outboxService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxBatch = maxBatch;
+        this.submissions = new ArrayBlockingQueue<>(queueCapacity);
+        // un lote toca a lo sumo 2 * maxBatch cuentas, que deben caber a la vez
+        int capacity = Math.max(maxAccounts, 2 * maxBatch);
+        this.balances = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Double> eldest) {
+                if (size() > capacity) {
+                    loadedVersions.remove(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.thread = new Thread(this, "transfer-shard-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+        List<TransferTicket> pending = new ArrayList<>();
+        submissions.drainTo(pending);
+        pending.forEach(ticket -> ticket.reject("El motor de transferencias se detuvo"));
+    }
+
+    boolean offer(TransferTicket ticket) {
+        return running && submissions.offer(ticket);
+    }
+
+    void credit(Long accountId, double delta, long version) {
+        credits.add(new Credit(accountId, delta, version));
+    }
+
+    int getQueueSize() {
+        return submissions.size();
+    }
+
+    @Override
+    public void run() {
+        List<TransferTicket> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            TransferTicket first;
+            try {
+                first = submissions.poll(50, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            applyCredits();
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            submissions.drainTo(batch, maxBatch - 1);
+            try {
+                process(batch);
+            } catch (RuntimeException e) {
+                log.error("Error procesando un lote de {} transferencias en el shard {}", batch.size(), index, e);
+                batch.stream().filter(t -> t.getEstado() == TransferStatus.PENDIENTE)
+                        .forEach(t -> t.reject("Error interno del motor de transferencias"));
+                balances.clear();
+                loadedVersions.clear();
+            }
+            batch.clear();
+        }
+    }
+
+    private void applyCredits() {
+        Credit credit;
+        while ((credit = credits.poll()) != null) {
+            Long loadedVersion = loadedVersions.get(credit.accountId());
+            // si la cuenta no está cargada, la próxima carga ya incluye el crédito
+            if (loadedVersion != null && credit.version() > loadedVersion) {
+                balances.merge(credit.accountId(), credit.delta(), Double::sum);
+            }
+        }
+    }
+
+    private void process(List<TransferTicket> batch) {
+        Timer.Sample sample = meterRegistry == null ? null : Timer.start(meterRegistry);
+        load(batch);
+        Map<TransferTicket, String> invalid = new HashMap<>();
+        Plan plan = plan(batch, invalid);
+        if (!plan.insufficient.isEmpty()) {
+            // el saldo en memoria puede no incluir depósitos hechos por fuera del motor
+            plan.insufficient.forEach(accountId -> {
+                balances.remove(accountId);
+                loadedVersions.remove(accountId);
+            });
+            load(batch);
+            plan = plan(batch, invalid);
+        }
+        Map<Long, Long> versions = null;
+        boolean stale = false;
+        while (versions == null) {
+            try {
+                versions = persist(plan);
+            } catch (InvalidTransfersException e) {
+                // una cuenta se bloqueó o se eliminó: esas transferencias se rechazan y el resto se planea otra vez
+                invalid.putAll(e.errors);
+                e.errors.keySet().forEach(ticket -> {
+                    balances.remove(ticket.getSourceId());
+                    loadedVersions.remove(ticket.getSourceId());
+                });
+                load(batch);
+                plan = plan(batch, invalid);
+            } catch (StaleBalanceException e) {
+                // otro escritor cambió algún saldo: se recargan las cuentas del shard y se planea otra vez
+                evictOwned(plan);
+                if (stale) {
+                    plan.rejected.forEach(TransferTicket::reject);
+                    plan.accepted.forEach(ticket -> ticket.reject(MENSAJE_CONFLICTO));
+                    return;
+                }
+                stale = true;
+                load(batch);
+                plan = plan(batch, invalid);
+            }
+        }
+
+        balances.putAll(plan.working);
+        plan.rejected.forEach(TransferTicket::reject);
+        // los créditos se envían antes de completar, para que quien espere el ticket ya los vea aplicados
+        for (Map.Entry<Long, Long> version : versions.entrySet()) {
+            engine.credit(version.getKey(), plan.deltas.get(version.getKey()), version.getValue());
+        }
+        for (int i = 0; i < plan.accepted.size(); i++) {
+            plan.accepted.get(i).complete(plan.transactionIds.get(i));
+        }
+
+        if (sample != null) {
+            sample.stop(meterRegistry.timer("taller.transfers.batch", "shard", String.valueOf(index)));
+            meterRegistry.summary("taller.transfers.batch.size", "shard", String.valueOf(index))
+                    .record(batch.size());
+        }
+    }
+
+    /**
+     * Carga con una sola consulta los saldos de las cuentas origen que el shard aún no conoce.
+     */
+    private void load(List<TransferTicket> batch) {
+        Set<Long> missing = new HashSet<>();
+        for (TransferTicket ticket : batch) {
+            if (ticket.getSourceId() != null && !balances.containsKey(ticket.getSourceId())) {
+                missing.add(ticket.getSourceId());
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        for (Object[] row : accountRepository.findBalances(missing)) {
+            Long accountId = (Long) row[0];
+            balances.put(accountId, row[1] == null ? 0.0 : (Double) row[1]);
+            loadedVersions.put(accountId, row[2] == null ? 0L : (Long) row[2]);
+        }
+    }
+
+    private void evictOwned(Plan plan) {
+        for (Long accountId : plan.deltas.keySet()) {
+            if (owns(accountId)) {
+                balances.remove(accountId);
+                loadedVersions.remove(accountId);
+            }
+        }
+    }
+
+    private boolean owns(Long accountId) {
+        return engine.shardOf(accountId) == index;
+    }
+
+    private Double balance(Plan plan, Long accountId) {
+        Double working = plan.working.get(accountId);
+        return working != null ? working : balances.get(accountId);
+    }
+
+    /**
+     * @param invalid transferencias que ya fallaron sobre las filas bloqueadas, con su error
+     */
+    private Plan plan(List<TransferTicket> batch, Map<TransferTicket, String> invalid) {
+        Plan plan = new Plan();
+        for (TransferTicket ticket : batch) {
+            String error = invalid.containsKey(ticket) ? invalid.get(ticket) : validar(plan, ticket);
+            if (error != null) {
+                plan.rejected.put(ticket, error);
+                continue;
+            }
+            Long sourceId = ticket.getSourceId();
+            Long destinationId = ticket.getDestinationId();
+            double monto = ticket.getMonto();
+
+            plan.working.put(sourceId, balance(plan, sourceId) - monto);
+            if (owns(destinationId) && balance(plan, destinationId) != null) {
+                plan.working.put(destinationId, balance(plan, destinationId) + monto);
+            }
+            plan.deltas.merge(sourceId, -monto, Double::sum);
+            plan.deltas.merge(destinationId, monto, Double::sum);
+            plan.accepted.add(ticket);
+        }
+        return plan;
+    }
+
+    /**
+     * Valida una transferencia contra los saldos en memoria y la caché de
+     * cuentas, para rechazar sin bloquear filas. persist aplica después
+     * TransferValidator sobre las filas bloqueadas, como transferirFondos.
+     */
+    private String validar(Plan plan, TransferTicket ticket) {
+        Double monto = ticket.getMonto();
+        if (monto == null || monto <= 0 || monto.isInfinite() || monto.isNaN()) {
+            return TransferValidator.MENSAJE_MONTO;
+        }
+        Double saldo = balance(plan, ticket.getSourceId());
+        if (saldo == null) {
+            return "La cuenta origen no existe";
+        }
+        Optional<AccountSnapshot> destino = accountCache.get(ticket.getDestinationId());
+        if (destino.isEmpty()) {
+            return "La cuenta destino no existe";
+        }
+        if (ticket.getSourceId().equals(ticket.getDestinationId())) {
+            return "La cuenta destino debe ser diferente a la cuenta origen";
+        }
+        if (destino.get().isBloqueada()
+                || accountCache.get(ticket.getSourceId()).map(AccountSnapshot::isBloqueada).orElse(false)) {
+            return TransferValidator.MENSAJE_BLOQUEADA;
+        }
+        if (saldo < monto) {
+            plan.insufficient.add(ticket.getSourceId());
+            return TransferValidator.MENSAJE_FONDOS;
+        }
+        return null;
+    }
+
+    /**
+     * Persiste el lote en una sola transacción y guarda en el plan el id de la
+     * fila SALIDA de cada transferencia aceptada.
+     *
+     * @return la versión resultante de cada cuenta destino de otro shard
+     */
+    private Map<Long, Long> persist(Plan plan) {
+        if (plan.accepted.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Long> versions = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            // las cuentas nuevas en el libro mayor se abren con el saldo previo al lote
+            ledgerService.abrirCuentas(plan.deltas.keySet());
+            List<AccountEntity> accounts = accountRepository.findAllByIdForUpdate(plan.deltas.keySet());
+            Map<Long, AccountEntity> locked = new HashMap<>();
+            accounts.forEach(account -> locked.put(account.getId(), account));
+            Map<TransferTicket, String> errors = new LinkedHashMap<>();
+            for (TransferTicket ticket : plan.accepted) {
+                try {
+                    TransferValidator.validarCuentas(locked.get(ticket.getSourceId()),
+                            locked.get(ticket.getDestinationId()));
+                } catch (EntityNotFoundException | BusinessLogicException e) {
+                    errors.put(ticket, e.getMessage());
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new InvalidTransfersException(errors);
+            }
+            for (AccountEntity account : accounts) {
+                double delta = plan.deltas.get(account.getId());
+                double saldo = account.getSaldo() == null ? 0.0 : account.getSaldo();
+                if (saldo + delta < 0) {
+                    throw new StaleBalanceException();
+                }
+                if (saldo + delta != saldo) {
+                    account.setSaldo(saldo + delta);
+                } else {
+                    // la cuenta tiene movimientos nuevos aunque su saldo no cambie: su ETag depende de la versión
+                    entityManager.lock(account, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+                }
+            }
+
+            Date fecha = new Date();
+            List<TransactionEntity> transactions = new ArrayList<>(plan.accepted.size());
+            List<TransactionEntity> entradas = new ArrayList<>(plan.accepted.size());
+            for (TransferTicket ticket : plan.accepted) {
+                transactions.add(transaction(ticket.getSourceId(), ticket.getMonto(), fecha, "SALIDA"));
+                entradas.add(transaction(ticket.getDestinationId(), ticket.getMonto(), fecha, "ENTRADA"));
+            }
+            transactionRepository.saveAll(transactions);
+            transactionRepository.saveAll(entradas);
+            transactions.forEach(transaction -> plan.transactionIds.add(transaction.getId()));
+            entradas.addAll(transactions);
+            dailyAggregateService.registrar(entradas);
+            List<TransactionEventDTO> events = new ArrayList<>(plan.accepted.size());
+            for (int i = 0; i < plan.accepted.size(); i++) {
+                TransferTicket ticket = plan.accepted.get(i);
+                events.add(OutboxService.transferencia(transactions.get(i).getId(), ticket.getSourceId(),
+                        ticket.getDestinationId(), ticket.getMonto(), fecha));
+            }
+            outboxService.registrar(events);
+            for (TransferTicket ticket : plan.accepted) {
+                ledgerService.registrar(CONCEPTO_TRANSFERENCIA, fecha,
+                        new Posting(LedgerService.LIBRO_CUENTA, ticket.getSourceId(), -ticket.getMonto()),
+                        new Posting(LedgerService.LIBRO_CUENTA, ticket.getDestinationId(), ticket.getMonto()));
+            }
+
+            Set<Long> remote = new HashSet<>();
+            for (Long accountId : plan.deltas.keySet()) {
+                if (!owns(accountId)) {
+                    remote.add(accountId);
+                }
+            }
+            if (!remote.isEmpty()) {
+                for (Object[] row : accountRepository.findVersions(remote)) {
+                    versions.put((Long) row[0], (Long) row[1]);
+                }
+            }
+        });
+        return versions;
+    }
+
+    private TransactionEntity transaction(Long accountId, Double monto, Date fecha, String tipo) {
+        TransactionEntity transaction = new TransactionEntity();
+        transaction.setMonto(monto);
+        transaction.setFecha(fecha);
+        transaction.setTipo(tipo);
+        transaction.setConcepto(CONCEPTO_TRANSFERENCIA);
+        transaction.setAccount(accountRepository.getReferenceById(accountId));
+        return transaction;
+    }
+}
@@ -0,0 +1,8 @@
+package co.edu.uniandes.dse.TallerPruebas.transfers;
+
+/**
+ * Estado de una transferencia enviada al motor de transferencias
+ */
+public enum TransferStatus {
+    PENDIENTE, COMPLETADA, RECHAZADA
+}
@@ -0,0 +1,46 @@
+package co.edu.uniandes.dse.TallerPruebas.transfers;
+
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+
+import lombok.Getter;
+
+/**
+ * Transferencia enviada al motor. El estado lo cambia únicamente el hilo del
+ * shard dueño de la cuenta origen; completion se completa cuando la
+ * transferencia queda persistida o rechazada.
+ */
+@Getter
+public class TransferTicket {
+
+    private final String id;
+    private final Long sourceId;
+    private final Long destinationId;
+    private final Double monto;
+    private final Date fechaEnvio = new Date();
+
+    private volatile TransferStatus estado = TransferStatus.PENDIENTE;
+    private volatile Long transactionId;
+    private volatile String mensaje;
+
+    private final CompletableFuture<TransferTicket> completion = new CompletableFuture<>();
+
+    TransferTicket(String id, Long sourceId, Long destinationId, Double monto) {
+        this.id = id;
+        this.sourceId = sourceId;
+        this.destinationId = destinationId;
+        this.monto = monto;
+    }
+
+    void complete(Long transactionId) {
+        this.transactionId = transactionId;
+        this.estado = TransferStatus.COMPLETADA;
+        completion.complete(this);
+    }
+
+    void reject(String mensaje) {
+        this.mensaje = mensaje;
+        this.estado = TransferStatus.RECHAZADA;
+        completion.complete(this);
+    }
+}
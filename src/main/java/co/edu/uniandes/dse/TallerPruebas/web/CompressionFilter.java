@@ -0,0 +1,168 @@
+package co.edu.uniandes.dse.TallerPruebas.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Comprime con gzip las respuestas JSON de los GET que superan
+ * http.compression.min-size bytes, cuando el cliente acepta gzip.
+ *
+ * La compresión de Tomcat no comprime respuestas con ETag fuerte, porque el
+ * cuerpo comprimido es otra representación. Este filtro sí las comprime y, como
+ * hace Apache, agrega -gzip a la ETag de la versión comprimida; antes de llegar
+ * al controlador quita ese sufijo del If-None-Match para que la comparación
+ * use la ETag original y un 304 devuelva la misma ETag que el cliente envió.
+ *
+ * La respuesta se acumula en memoria, así que las rutas que escriben en
+ * streaming (http.compression.excluded-paths) no pasan por el filtro.
+ */
+@Component
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final String SUFIJO_GZIP = "-gzip";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Value("${http.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${http.compression.min-size:2048}")
+    private int minSize;
+
+    @Value("${http.compression.excluded-paths:}")
+    private List<String> excludedPaths;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"GET".equals(request.getMethod()) || !aceptaGzip(request)) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return excludedPaths.stream().anyMatch(excluded -> !excluded.isEmpty() && pathMatcher.match(excluded, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        boolean pidioGzip = ifNoneMatch != null && ifNoneMatch.contains(SUFIJO_GZIP + "\"");
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        filterChain.doFilter(sinSufijo(request, ifNoneMatch), wrapper);
+
+        if (wrapper.getStatus() == HttpStatus.NOT_MODIFIED.value()) {
+            if (pidioGzip) {
+                marcarEtag(response);
+            }
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        if (!comprimible(wrapper)) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        ByteArrayOutputStream comprimido = new ByteArrayOutputStream(wrapper.getContentSize() / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(comprimido)) {
+            wrapper.getContentInputStream().transferTo(gzip);
+        }
+        marcarEtag(response);
+        response.setContentType(wrapper.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setContentLength(comprimido.size());
+        comprimido.writeTo(response.getOutputStream());
+    }
+
+    private boolean comprimible(ContentCachingResponseWrapper wrapper) {
+        if (wrapper.getStatus() != HttpStatus.OK.value() || wrapper.getContentSize() < minSize
+                || wrapper.getHeader(HttpHeaders.CONTENT_ENCODING) != null || wrapper.getContentType() == null) {
+            return false;
+        }
+        MediaType contentType = MediaType.parseMediaType(wrapper.getContentType());
+        return MediaType.APPLICATION_JSON.isCompatibleWith(contentType);
+    }
+
+    /**
+     * Agrega el sufijo -gzip dentro de las comillas de la ETag de la respuesta, si tiene.
+     */
+    private static void marcarEtag(HttpServletResponse response) {
+        String etag = response.getHeader(HttpHeaders.ETAG);
+        if (etag != null && etag.endsWith("\"") && !etag.endsWith(SUFIJO_GZIP + "\"")) {
+            response.setHeader(HttpHeaders.ETAG, etag.substring(0, etag.length() - 1) + SUFIJO_GZIP + "\"");
+        }
+    }
+
+    /**
+     * Quita el sufijo -gzip de las ETags del If-None-Match.
+     */
+    private static HttpServletRequest sinSufijo(HttpServletRequest request, String ifNoneMatch) {
+        if (ifNoneMatch == null || !ifNoneMatch.contains(SUFIJO_GZIP + "\"")) {
+            return request;
+        }
+        String original = ifNoneMatch.replace(SUFIJO_GZIP + "\"", "\"");
+        return new HttpServletRequestWrapper(request) {
+            @Override
+            public String getHeader(String name) {
+                return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name) ? original : super.getHeader(name);
+            }
+
+            @Override
+            public Enumeration<String> getHeaders(String name) {
+                return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name)
+                        ? Collections.enumeration(List.of(original))
+                        : super.getHeaders(name);
+            }
+        };
+    }
+
+    /**
+     * Indica si el Accept-Encoding incluye gzip (o *) sin q=0.
+     */
+    static boolean aceptaGzip(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String codificacion : headers.nextElement().split(",")) {
+                String[] partes = codificacion.trim().toLowerCase(Locale.ROOT).split(";");
+                if (!partes[0].trim().equals("gzip") && !partes[0].trim().equals("*")) {
+                    continue;
+                }
+                boolean rechazada = false;
+                for (int i = 1; i < partes.length; i++) {
+                    String parametro = partes[i].trim();
+                    if (parametro.startsWith("q=")) {
+                        try {
+                            rechazada = Double.parseDouble(parametro.substring(2)) == 0;
+                        } catch (NumberFormatException e) {
+                            rechazada = true;
+                        }
+                    }
+                }
+                if (!rechazada) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
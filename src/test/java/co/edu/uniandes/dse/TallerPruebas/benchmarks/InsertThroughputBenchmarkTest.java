@@ -0,0 +1,93 @@
+package co.edu.uniandes.dse.TallerPruebas.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Date;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+
+import co.edu.uniandes.dse.TallerPruebas.MainApplication;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.benchmarks.IdentityInsertProbeEntity;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compara inserts por segundo en H2 entre ids IDENTITY (línea base) y la
+ * secuencia pooled de BaseEntity. Se ejecuta solo con -Dbenchmarks=true:
+ *
+ * ./mvnw test -Dtest=InsertThroughputBenchmarkTest -Dbenchmarks=true
+ */
+@Slf4j
+@DataJpaTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class InsertThroughputBenchmarkTest {
+
+    private static final int ROWS = 20_000;
+    private static final int FLUSH_EVERY = 100;
+    private static final int WARMUP_ROWS = 2_000;
+
+    /**
+     * Agrega IdentityInsertProbeEntity a las entidades de la aplicación solo en este benchmark.
+     */
+    @TestConfiguration
+    @EntityScan(basePackageClasses = { MainApplication.class, IdentityInsertProbeEntity.class })
+    static class Config {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    /**
+     * Inserta filas en bloques de FLUSH_EVERY y retorna los inserts por segundo.
+     */
+    private double insertsPerSecond(int rows, Supplier<Object> factory) {
+        long start = System.nanoTime();
+        for (int i = 1; i <= rows; i++) {
+            entityManager.persist(factory.get());
+            if (i % FLUSH_EVERY == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return rows / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private Object identityRow() {
+        IdentityInsertProbeEntity entity = new IdentityInsertProbeEntity();
+        entity.setMonto(100.0);
+        entity.setFecha(new Date());
+        entity.setTipo("SALIDA");
+        return entity;
+    }
+
+    private Object pooledSequenceRow() {
+        TransactionEntity entity = new TransactionEntity();
+        entity.setMonto(100.0);
+        entity.setFecha(new Date());
+        entity.setTipo("SALIDA");
+        return entity;
+    }
+
+    @Test
+    void compareIdStrategies() {
+        insertsPerSecond(WARMUP_ROWS, this::identityRow);
+        insertsPerSecond(WARMUP_ROWS, this::pooledSequenceRow);
+
+        double identity = insertsPerSecond(ROWS, this::identityRow);
+        double pooled = insertsPerSecond(ROWS, this::pooledSequenceRow);
+
+        log.info("IDENTITY: {} inserts/s", String.format("%.0f", identity));
+        log.info("Secuencia pooled: {} inserts/s ({}x)", String.format("%.0f", pooled),
+                String.format("%.2f", pooled / identity));
+        assertTrue(pooled > 0 && identity > 0);
+    }
+}
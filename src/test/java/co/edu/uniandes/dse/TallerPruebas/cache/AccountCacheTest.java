@@ -0,0 +1,93 @@
+package co.edu.uniandes.dse.TallerPruebas.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+
+/**
+ * Pruebas de AccountCache
+ */
+public class AccountCacheTest {
+
+    private AccountRepository accountRepository;
+    private AccountCache accountCache;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        accountCache = new AccountCache(accountRepository, 2, 60);
+        when(accountRepository.findSnapshotById(anyLong())).thenAnswer(
+                invocation -> Optional.of(new AccountSnapshot(invocation.getArgument(0), "123", "ACTIVA", null)));
+    }
+
+    private AccountEntity account(Long id, String estado) {
+        AccountEntity account = new AccountEntity();
+        account.setId(id);
+        account.setNumeroCuenta("123");
+        account.setEstado(estado);
+        return account;
+    }
+
+    /**
+     * Prueba que la segunda consulta de una cuenta no vaya a la BD.
+     */
+    @Test
+    void testReadThrough() {
+        assertEquals("ACTIVA", accountCache.get(1L).get().getEstado());
+        assertEquals("ACTIVA", accountCache.get(1L).get().getEstado());
+
+        verify(accountRepository, times(1)).findSnapshotById(1L);
+        assertEquals(1, accountCache.getHits());
+        assertEquals(1, accountCache.getMisses());
+    }
+
+    /**
+     * Prueba que también se recuerden las cuentas inexistentes.
+     */
+    @Test
+    void testNegativeEntry() {
+        when(accountRepository.findSnapshotById(9L)).thenReturn(Optional.empty());
+
+        assertTrue(accountCache.get(9L).isEmpty());
+        assertTrue(accountCache.get(9L).isEmpty());
+
+        verify(accountRepository, times(1)).findSnapshotById(9L);
+    }
+
+    /**
+     * Prueba que guardar una cuenta con otro estado invalide su entrada, y que
+     * guardarla con los mismos datos (p. ej. solo cambió el saldo) no lo haga.
+     */
+    @Test
+    void testInvalidationOnWrite() {
+        accountCache.get(1L);
+
+        accountCache.onAccountWritten(account(1L, "ACTIVA"));
+        accountCache.get(1L);
+        verify(accountRepository, times(1)).findSnapshotById(1L);
+
+        accountCache.onAccountWritten(account(1L, "BLOQUEADA"));
+        accountCache.get(1L);
+        verify(accountRepository, times(2)).findSnapshotById(1L);
+    }
+
+    /**
+     * Prueba que la caché no supere su tamaño máximo.
+     */
+    @Test
+    void testBoundedSize() {
+        accountCache.get(1L);
+        accountCache.get(2L);
+        accountCache.get(3L);
+
+        assertEquals(2, accountCache.getSize());
+        assertEquals(1, accountCache.getEvictions());
+    }
+}
@@ -0,0 +1,98 @@
+package co.edu.uniandes.dse.TallerPruebas.concurrency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Pruebas de AccountLockManager
+ */
+public class AccountLockManagerTest {
+
+    private AccountLockManager lockManager = new AccountLockManager(16, 200);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            completeTransaction();
+        }
+    }
+
+    /**
+     * Simula el fin de la transacción actual en el hilo que la inició.
+     */
+    private void completeTransaction() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    /**
+     * Ejecuta un bloqueo en otro hilo, dentro de su propia "transacción".
+     */
+    private CompletableFuture<Void> lockInOtherThread(Long... accountIds) {
+        return CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                lockManager.lockForTransaction(accountIds);
+            } finally {
+                completeTransaction();
+            }
+        });
+    }
+
+    /**
+     * Prueba que se exija una transacción activa.
+     */
+    @Test
+    void testLockWithoutTransaction() {
+        assertThrows(IllegalStateException.class, () -> lockManager.lockForTransaction(1L));
+    }
+
+    /**
+     * Prueba que el bloqueo se mantenga hasta el fin de la transacción.
+     */
+    @Test
+    void testLockHeldUntilCompletion() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        lockManager.lockForTransaction(1L, 2L);
+
+        CompletableFuture<Void> other = lockInOtherThread(2L);
+        assertThrows(Exception.class, () -> other.get(5, TimeUnit.SECONDS));
+        assertTrue(lockManager.getContendedAcquisitions() > 0);
+
+        completeTransaction();
+        lockInOtherThread(2L, 1L).get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Prueba que un bloqueo que no se obtiene a tiempo falle con CannotAcquireLockException.
+     */
+    @Test
+    void testLockTimeout() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        lockManager.lockForTransaction(7L);
+
+        CompletableFuture<Void> other = lockInOtherThread(7L);
+        Exception e = assertThrows(Exception.class, () -> other.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CannotAcquireLockException.class, e.getCause());
+    }
+
+    /**
+     * Prueba que las cuentas repetidas o nulas no causen bloqueos dobles.
+     */
+    @Test
+    void testLockSameAccountTwice() {
+        TransactionSynchronizationManager.initSynchronization();
+        lockManager.lockForTransaction(3L, 3L, null);
+        assertEquals(1, lockManager.getAcquisitions());
+    }
+}
@@ -0,0 +1,96 @@
+package co.edu.uniandes.dse.TallerPruebas.concurrency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Pruebas de OptimisticRetryAspect
+ */
+public class OptimisticRetryAspectTest {
+
+    private OptimisticRetryAspect aspect;
+
+    /**
+     * Operación que falla por conflicto de versión un número dado de veces.
+     */
+    static class ConflictingOperation {
+        int failures;
+        int calls;
+
+        @RetryOnConflict
+        public String run() {
+            calls++;
+            if (calls <= failures) {
+                throw new OptimisticLockingFailureException("conflicto");
+            }
+            return "ok";
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        aspect = new OptimisticRetryAspect();
+        ReflectionTestUtils.setField(aspect, "maxAttempts", 3);
+        ReflectionTestUtils.setField(aspect, "initialBackoffMillis", 1L);
+        ReflectionTestUtils.setField(aspect, "maxBackoffMillis", 2L);
+    }
+
+    private ConflictingOperation proxy(ConflictingOperation target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    /**
+     * Prueba que un conflicto transitorio se resuelva reintentando.
+     */
+    @Test
+    void testRetrySucceeds() {
+        ConflictingOperation target = new ConflictingOperation();
+        target.failures = 2;
+
+        assertEquals("ok", proxy(target).run());
+        assertEquals(3, target.calls);
+        assertEquals(2L, aspect.getRetries().get("run"));
+        assertNull(aspect.getGiveUps().get("run"));
+    }
+
+    /**
+     * Prueba que se propague el conflicto al agotar los intentos.
+     */
+    @Test
+    void testRetryGivesUp() {
+        ConflictingOperation target = new ConflictingOperation();
+        target.failures = 5;
+
+        assertThrows(OptimisticLockingFailureException.class, () -> proxy(target).run());
+        assertEquals(3, target.calls);
+        assertEquals(1L, aspect.getGiveUps().get("run"));
+    }
+
+    /**
+     * Prueba que una interrupción durante la espera detenga los reintentos y
+     * deje el hilo marcado como interrumpido.
+     */
+    @Test
+    void testRetryInterrupted() {
+        ConflictingOperation target = new ConflictingOperation();
+        target.failures = 5;
+        ConflictingOperation proxy = proxy(target);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(OptimisticLockingFailureException.class, proxy::run);
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+        assertEquals(1, target.calls);
+        assertNull(aspect.getRetries().get("run"));
+    }
+}
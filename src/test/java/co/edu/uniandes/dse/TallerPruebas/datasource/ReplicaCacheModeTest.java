@@ -0,0 +1,93 @@
+package co.edu.uniandes.dse.TallerPruebas.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import co.edu.uniandes.dse.TallerPruebas.config.DataSourceRoutingConfig;
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+
+/**
+ * Pruebas de la caché de segundo nivel con lecturas en la réplica local. La
+ * réplica solo se actualiza cuando la prueba la sincroniza, así que la prueba
+ * no corre dentro de una transacción y limpia los datos al terminar.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ActiveProfiles("replica-local")
+@Import(DataSourceRoutingConfig.class)
+public class ReplicaCacheModeTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private H2ReplicaSynchronizer synchronizer;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate writes;
+    private TransactionTemplate reads;
+
+    @BeforeEach
+    void setUp() {
+        writes = new TransactionTemplate(transactionManager);
+        reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+        accountRepository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        accountRepository.deleteAll();
+        RoutingContext.clear();
+    }
+
+    private double saldo(TransactionTemplate transactionTemplate, Long id) {
+        return transactionTemplate.execute(status -> accountRepository.findById(id).orElseThrow().getSaldo());
+    }
+
+    /**
+     * Prueba que una lectura atrasada de la réplica no llene la caché que luego lee la primaria.
+     */
+    @Test
+    void testLecturaEnReplicaNoLlenaCache() throws Exception {
+        AccountEntity account = new AccountEntity();
+        account.setNumeroCuenta("0001");
+        account.setEstado("ACTIVA");
+        account.setSaldo(100.0);
+        Long id = accountRepository.save(account).getId();
+        synchronizer.sincronizar();
+
+        writes.executeWithoutResult(status -> accountRepository.findById(id).orElseThrow().setSaldo(200.0));
+        entityManagerFactory.getCache().evictAll();
+
+        // la réplica aún no tiene la escritura
+        assertEquals(100.0, saldo(reads, id));
+        assertFalse(entityManagerFactory.getCache().contains(AccountEntity.class, id));
+        assertEquals(200.0, saldo(writes, id));
+
+        // una lectura en la primaria sí llena la caché, y la réplica la puede leer
+        assertTrue(entityManagerFactory.getCache().contains(AccountEntity.class, id));
+        assertEquals(200.0, saldo(reads, id));
+    }
+}
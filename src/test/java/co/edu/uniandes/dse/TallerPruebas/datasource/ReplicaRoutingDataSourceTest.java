@@ -0,0 +1,150 @@
+package co.edu.uniandes.dse.TallerPruebas.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Pruebas del enrutamiento entre primaria y réplica con dos bases H2 en
+ * memoria; la réplica solo se actualiza cuando se sincroniza.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private H2ReplicaSynchronizer synchronizer;
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate writes;
+    private TransactionTemplate reads;
+
+    private static DataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource primary = h2("routing-primary");
+        DataSource replica = h2("routing-replica");
+        primaryJdbc = new JdbcTemplate(primary);
+        primaryJdbc.execute("DROP ALL OBJECTS");
+        primaryJdbc.execute("create table cuenta (id bigint primary key, saldo double)");
+        primaryJdbc.update("insert into cuenta values (1, 100.0)");
+        synchronizer = new H2ReplicaSynchronizer(primary, replica);
+        synchronizer.sincronizar();
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica);
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writes = new TransactionTemplate(transactionManager);
+        reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RoutingContext.clear();
+    }
+
+    private void escribir(double saldo) {
+        writes.executeWithoutResult(status -> jdbc.update("update cuenta set saldo = ? where id = 1", saldo));
+    }
+
+    private double leer() {
+        return reads.execute(status -> jdbc.queryForObject("select saldo from cuenta where id = 1", Double.class));
+    }
+
+    /**
+     * Prueba que las escrituras vayan a la primaria y las lecturas a la réplica.
+     */
+    @Test
+    void testEnrutamiento() throws SQLException {
+        escribir(50.0);
+
+        assertEquals(50.0, primaryJdbc.queryForObject("select saldo from cuenta where id = 1", Double.class));
+        assertTrue(RoutingContext.hasWritten());
+        // la réplica aún no tiene la escritura
+        assertEquals(100.0, leer());
+
+        synchronizer.sincronizar();
+        assertEquals(50.0, leer());
+    }
+
+    /**
+     * Prueba que un cliente lea de la primaria justo después de escribir, y otro no.
+     */
+    @Test
+    void testReadYourWrites() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(StalenessPolicy.READ_YOUR_WRITES, 60_000,
+                "X-Client-Id", 100);
+
+        filter.doFilter(request("POST", "a"), new MockHttpServletResponse(),
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest req,
+                            HttpServletResponse resp) {
+                        escribir(50.0);
+                    }
+                }));
+
+        double[] saldos = new double[2];
+        filter.doFilter(request("GET", "a"), new MockHttpServletResponse(), lectura(saldos, 0));
+        filter.doFilter(request("GET", "b"), new MockHttpServletResponse(), lectura(saldos, 1));
+
+        assertEquals(50.0, saldos[0]);
+        assertEquals(100.0, saldos[1]);
+        assertFalse(RoutingContext.isPrimaryForced());
+    }
+
+    /**
+     * Prueba que con la política EVENTUAL las lecturas siempre vayan a la réplica.
+     */
+    @Test
+    void testEventual() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(StalenessPolicy.EVENTUAL, 60_000, "X-Client-Id",
+                100);
+        escribir(50.0);
+
+        double[] saldos = new double[1];
+        filter.doFilter(request("GET", "a"), new MockHttpServletResponse(), lectura(saldos, 0));
+
+        assertEquals(100.0, saldos[0]);
+    }
+
+    private static MockHttpServletRequest request(String method, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/accounts/1");
+        request.addHeader("X-Client-Id", client);
+        return request;
+    }
+
+    private MockFilterChain lectura(double[] saldos, int posicion) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req,
+                    HttpServletResponse resp) {
+                saldos[posicion] = leer();
+            }
+        });
+    }
+}
@@ -0,0 +1,88 @@
+package co.edu.uniandes.dse.TallerPruebas.exceptions;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.IdempotencyRecordEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.IdempotencyRecordRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.PocketRepository;
+
+/**
+ * Pruebas del manejo de las violaciones de integridad con las excepciones
+ * reales de la base de datos.
+ */
+@DataJpaTest
+public class RestExceptionHandlerTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final RestExceptionHandler handler = new RestExceptionHandler();
+
+    private PocketEntity pocket(AccountEntity account) {
+        PocketEntity pocket = new PocketEntity();
+        pocket.setNombre("Viaje");
+        pocket.setSaldo(0.0);
+        pocket.setAccount(account);
+        return pocket;
+    }
+
+    private IdempotencyRecordEntity record() {
+        IdempotencyRecordEntity record = new IdempotencyRecordEntity();
+        record.setOperacion("TRANSFERENCIA");
+        record.setClave("clave");
+        record.setHuella("1>2:10.0");
+        record.setFecha(new Date());
+        return record;
+    }
+
+    /**
+     * Prueba que un nombre de bolsillo repetido en la cuenta sea un conflicto.
+     */
+    @Test
+    void testNombreBolsilloDuplicado() {
+        AccountEntity account = new AccountEntity();
+        account.setNumeroCuenta("0001");
+        account.setEstado("ACTIVA");
+        account.setSaldo(0.0);
+        accountRepository.save(account);
+        pocketRepository.saveAndFlush(pocket(account));
+
+        DataIntegrityViolationException ex = assertThrows(DataIntegrityViolationException.class,
+                () -> pocketRepository.saveAndFlush(pocket(account)));
+        ResponseEntity<Object> response = handler.handleDataIntegrityViolation(ex);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    /**
+     * Prueba que las demás violaciones de integridad no se reporten como conflicto.
+     */
+    @Test
+    void testOtraViolacion() {
+        idempotencyRecordRepository.saveAndFlush(record());
+
+        DataIntegrityViolationException ex = assertThrows(DataIntegrityViolationException.class,
+                () -> idempotencyRecordRepository.saveAndFlush(record()));
+        ResponseEntity<Object> response = handler.handleDataIntegrityViolation(ex);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+}
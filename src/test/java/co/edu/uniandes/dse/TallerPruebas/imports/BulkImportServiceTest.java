@@ -0,0 +1,153 @@
+package co.edu.uniandes.dse.TallerPruebas.imports;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.ImportReportDTO;
+
+/**
+ * Pruebas de la importación masiva. Los bloques pequeños obligan a validar en
+ * paralelo y a escribir en varios bloques.
+ */
+@DataJpaTest
+@Transactional
+@Import(BulkImportService.class)
+@TestPropertySource(properties = { "import.chunk-size=2", "import.validation-threads=2", "import.flush-size=3" })
+public class BulkImportServiceTest {
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private ImportReportDTO importar(String content, ImportFormat format) throws IOException {
+        return bulkImportService.importar(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    private long count(String entity) {
+        return entityManager.getEntityManager().createQuery("select count(e) from " + entity + " e", Long.class)
+                .getSingleResult();
+    }
+
+    private List<String> errores(ImportReportDTO report) throws IOException {
+        Path path = Path.of(report.getArchivoErrores());
+        List<String> lines = Files.readAllLines(path);
+        Files.delete(path);
+        return lines;
+    }
+
+    /**
+     * Prueba un NDJSON con un usuario válido y tres rechazados.
+     */
+    @Test
+    void testImportarNdjson() throws IOException {
+        long usuariosAntes = count("UserEntity");
+        String content = String.join("\n",
+                "{\"cedula\":\"1\",\"name\":\"Ana\",\"accounts\":[{\"numeroCuenta\":\"100\",\"saldo\":50.0,"
+                        + "\"estado\":\"ACTIVA\",\"pockets\":[{\"nombre\":\"Viaje\",\"saldo\":10.0},{\"nombre\":\"Casa\"}]}]}",
+                "{\"cedula\":\"2\",\"name\":\"Luis\",\"accounts\":[{\"numeroCuenta\":\"200\",\"saldo\":0.0,"
+                        + "\"estado\":\"CERRADA\"}]}",
+                "{\"cedula\":\"3\",\"name\":\"Eva\",\"accounts\":[{\"numeroCuenta\":\"300\",\"saldo\":0.0,"
+                        + "\"estado\":\"ACTIVA\",\"pockets\":[{\"nombre\":\"Viaje\"},{\"nombre\":\"Viaje\"}]}]}",
+                "{\"cedula\":\"4\",");
+
+        ImportReportDTO report = importar(content, ImportFormat.NDJSON);
+
+        assertEquals(4, report.getLeidos());
+        assertEquals(1, report.getImportados());
+        assertEquals(3, report.getRechazados());
+        assertEquals(1, report.getUsuarios());
+        assertEquals(1, report.getCuentas());
+        assertEquals(2, report.getBolsillos());
+        assertEquals(usuariosAntes + 1, count("UserEntity"));
+
+        List<String> errores = errores(report);
+        assertEquals(3, errores.size());
+        assertTrue(errores.get(0).contains("\"linea\":2"));
+        assertTrue(errores.get(1).contains("ya existe un bolsillo"));
+        assertTrue(errores.get(2).contains("\"linea\":4"));
+    }
+
+    /**
+     * Prueba que las filas CSV consecutivas se agrupen por usuario y por cuenta.
+     */
+    @Test
+    void testImportarCsv() throws IOException {
+        long bolsillosAntes = count("PocketEntity");
+        String content = String.join("\n", CsvImportReader.HEADER,
+                "1,Ana,ana@correo.com,ana,100,50,ACTIVA,Viaje,10,100",
+                "1,Ana,ana@correo.com,ana,100,50,ACTIVA,\"Casa, arriendo\",,",
+                "1,Ana,ana@correo.com,ana,101,0,BLOQUEADA,,,",
+                "2,Luis,luis@correo.com,luis,200,abc,ACTIVA,,,",
+                "3,Eva,eva@correo.com,eva,300,20,ACTIVA,Viaje,5,",
+                "");
+
+        ImportReportDTO report = importar(content, ImportFormat.CSV);
+
+        assertEquals(3, report.getLeidos());
+        assertEquals(2, report.getImportados());
+        assertEquals(1, report.getRechazados());
+        assertEquals(2, report.getUsuarios());
+        assertEquals(3, report.getCuentas());
+        assertEquals(3, report.getBolsillos());
+        assertEquals(bolsillosAntes + 3, count("PocketEntity"));
+        assertTrue(errores(report).get(0).contains("\"linea\":5"));
+    }
+
+    /**
+     * Prueba que una fila inválida entre las de un usuario no lo parta en dos.
+     */
+    @Test
+    void testImportarCsvConErrorEnUsuario() throws IOException {
+        long usuariosAntes = count("UserEntity");
+        long bolsillosAntes = count("PocketEntity");
+        String content = String.join("\n", CsvImportReader.HEADER,
+                "1,Ana,ana@correo.com,ana,100,50,ACTIVA,Viaje,10,100",
+                "1,Ana,ana@correo.com,ana,100,abc,ACTIVA,Carro,,",
+                "1,Ana,ana@correo.com,ana,100,50,ACTIVA,Casa,,",
+                "1,Ana,ana@correo.com,ana,101,0,ACTIVA,,,",
+                "2,Luis,luis@correo.com,luis,200,0,ACTIVA,,,",
+                "");
+
+        ImportReportDTO report = importar(content, ImportFormat.CSV);
+
+        assertEquals(3, report.getLeidos());
+        assertEquals(2, report.getImportados());
+        assertEquals(1, report.getRechazados());
+        assertEquals(2, report.getUsuarios());
+        assertEquals(3, report.getCuentas());
+        assertEquals(2, report.getBolsillos());
+        assertEquals(usuariosAntes + 2, count("UserEntity"));
+        assertEquals(bolsillosAntes + 2, count("PocketEntity"));
+        List<String> errores = errores(report);
+        assertEquals(1, errores.size());
+        assertTrue(errores.get(0).contains("\"linea\":3"));
+    }
+
+    /**
+     * Prueba que un archivo sin errores no cree archivo de errores.
+     */
+    @Test
+    void testImportarSinErrores() throws IOException {
+        ImportReportDTO report = importar("{\"cedula\":\"1\",\"name\":\"Ana\"}\n", ImportFormat.NDJSON);
+
+        assertEquals(1, report.getImportados());
+        assertNull(report.getArchivoErrores());
+    }
+}
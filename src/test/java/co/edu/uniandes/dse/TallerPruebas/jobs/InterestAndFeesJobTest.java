@@ -0,0 +1,182 @@
+package co.edu.uniandes.dse.TallerPruebas.jobs;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.BatchCheckpointEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.BalanceSnapshotRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.BatchCheckpointRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.DailyAccountAggregateRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.LedgerEntryRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.PocketRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import co.edu.uniandes.dse.TallerPruebas.services.DailyAggregateService;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService;
+
+/**
+ * Pruebas de la tarea de intereses y cuotas. Los bloques se procesan en otros
+ * hilos y en sus propias transacciones, así que la prueba no corre dentro de
+ * una transacción y limpia los datos al terminar.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ InterestAndFeesJob.class, ChunkedJobRunner.class, LedgerService.class, DailyAggregateService.class })
+@TestPropertySource(properties = { "jobs.batch.chunk-size=2", "jobs.batch.threads=2",
+        "jobs.interest-fees.monthly-fee=10", "jobs.interest-fees.monthly-rate=0.01" })
+public class InterestAndFeesJobTest {
+
+    private static final YearMonth PERIODO = YearMonth.of(2026, 9);
+
+    @Autowired
+    private InterestAndFeesJob job;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private DailyAccountAggregateRepository dailyAccountAggregateRepository;
+
+    @Autowired
+    private BatchCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    private List<AccountEntity> accountList = new ArrayList<>();
+
+    private PocketEntity pocket;
+
+    @BeforeEach
+    void setUp() {
+        clearData();
+        for (int i = 0; i < 5; i++) {
+            AccountEntity account = new AccountEntity();
+            account.setNumeroCuenta("000" + i);
+            account.setEstado(i == 4 ? "BLOQUEADA" : "ACTIVA");
+            account.setSaldo(i == 3 ? 4.0 : 100.0);
+            accountList.add(accountRepository.save(account));
+        }
+        pocket = new PocketEntity();
+        pocket.setNombre("Viaje");
+        pocket.setSaldo(500.0);
+        pocket.setMetaAhorro(300.0);
+        pocket.setAccount(accountList.get(0));
+        pocket = pocketRepository.save(pocket);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearData();
+    }
+
+    private void clearData() {
+        checkpointRepository.deleteAll();
+        transactionRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        balanceSnapshotRepository.deleteAll();
+        dailyAccountAggregateRepository.deleteAll();
+        pocketRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    private double saldo(AccountEntity account) {
+        return accountRepository.findById(account.getId()).get().getSaldo();
+    }
+
+    /**
+     * Prueba cobrar cuotas y abonar intereses: la cuota se limita al saldo, las
+     * cuentas bloqueadas no se tocan y el interés se calcula hasta la meta.
+     */
+    @Test
+    void testEjecutar() throws BusinessLogicException {
+        JobResult result = job.ejecutar(PERIODO);
+
+        assertEquals(3, result.bloques());
+        assertEquals(0, result.fallidos());
+        assertEquals(5, result.cuentas());
+        assertEquals(5, result.movimientos());
+        assertEquals(90.0, saldo(accountList.get(0)));
+        assertEquals(0.0, saldo(accountList.get(3)));
+        assertEquals(100.0, saldo(accountList.get(4)));
+        assertEquals(503.0, pocketRepository.findById(pocket.getId()).get().getSaldo());
+
+        List<TransactionEntity> transactions = transactionRepository.findAll();
+        assertEquals(5, transactions.size());
+        assertEquals(1, transactions.stream().filter(t -> "INTERES".equals(t.getConcepto())).count());
+        assertEquals(3, checkpointRepository.count());
+        // el banco recibe las cuotas y paga el interés
+        assertEquals(10.0 * 3 + 4.0 - 3.0,
+                ledgerService.getSaldo(LedgerService.LIBRO_BANCO, LedgerService.TITULAR_BANCO, null));
+        assertEquals(90.0, ledgerService.getSaldo(LedgerService.LIBRO_CUENTA, accountList.get(0).getId(), null));
+    }
+
+    /**
+     * Prueba que una segunda ejecución del mismo periodo no repita los cobros.
+     */
+    @Test
+    void testEjecutarDosVeces() {
+        job.ejecutar(PERIODO);
+        JobResult result = job.ejecutar(PERIODO);
+
+        assertEquals(0, result.bloques());
+        assertEquals(3, result.omitidos());
+        assertEquals(90.0, saldo(accountList.get(0)));
+        assertEquals(5, transactionRepository.count());
+    }
+
+    /**
+     * Prueba que una ejecución interrumpida se retome solo con las cuentas pendientes.
+     */
+    @Test
+    void testEjecutarRetoma() {
+        BatchCheckpointEntity checkpoint = new BatchCheckpointEntity();
+        checkpoint.setJob(InterestAndFeesJob.JOB);
+        checkpoint.setPeriodo(PERIODO.toString());
+        checkpoint.setDesdeId(0L);
+        checkpoint.setHastaId(accountList.get(1).getId());
+        checkpoint.setProcesados(2);
+        checkpoint.setMovimientos(0);
+        checkpoint.setFecha(new Date());
+        checkpointRepository.save(checkpoint);
+
+        JobResult result = job.ejecutar(PERIODO);
+
+        assertEquals(3, result.cuentas());
+        assertEquals(1, result.omitidos());
+        assertEquals(100.0, saldo(accountList.get(0)));
+        assertEquals(100.0, saldo(accountList.get(1)));
+        assertEquals(90.0, saldo(accountList.get(2)));
+        assertEquals(500.0, pocketRepository.findById(pocket.getId()).get().getSaldo());
+    }
+}
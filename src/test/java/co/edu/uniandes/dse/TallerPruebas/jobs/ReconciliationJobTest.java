@@ -0,0 +1,203 @@
+package co.edu.uniandes.dse.TallerPruebas.jobs;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.BalanceDiscrepancyEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.ReconciliationMarkEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.BalanceDiscrepancyRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.BalanceSnapshotRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.BatchCheckpointRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.LedgerEntryRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.PocketRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.ReconciliationMarkRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService;
+
+/**
+ * Pruebas de la conciliación de saldos. Los bloques se procesan en otros
+ * hilos y en sus propias transacciones, así que la prueba no corre dentro de
+ * una transacción y limpia los datos al terminar.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ ReconciliationJob.class, ChunkedJobRunner.class, LedgerService.class })
+@TestPropertySource(properties = { "jobs.batch.chunk-size=2", "jobs.batch.threads=2",
+        "jobs.reconciliation.lag-seconds=0" })
+public class ReconciliationJobTest {
+
+    @Autowired
+    private ReconciliationJob job;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private BatchCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ReconciliationMarkRepository markRepository;
+
+    @Autowired
+    private BalanceDiscrepancyRepository discrepancyRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    private final Date apertura = new Date(System.currentTimeMillis() - 600_000);
+
+    private AccountEntity movida;
+    private AccountEntity quieta;
+    private PocketEntity pocket;
+
+    /**
+     * Una cuenta abierta en el libro mayor con 100, que cargó 30 a su
+     * bolsillo, y otra cuenta sin movimientos.
+     */
+    @BeforeEach
+    void setUp() {
+        clearData();
+        movida = cuenta("0001", 70.0);
+        quieta = cuenta("0002", 50.0);
+        pocket = new PocketEntity();
+        pocket.setNombre("Viaje");
+        pocket.setSaldo(30.0);
+        pocket.setAccount(movida);
+        pocket = pocketRepository.save(pocket);
+
+        ledgerService.abrir(LedgerService.LIBRO_CUENTA, Map.of(movida.getId(), 100.0), apertura);
+        ledgerService.abrir(LedgerService.LIBRO_BOLSILLO, Map.of(pocket.getId(), 0.0), apertura);
+        transaction(movida, null, "SALIDA", 30.0, apertura);
+        transaction(movida, pocket, "ENTRADA", 30.0, apertura);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearData();
+    }
+
+    private void clearData() {
+        discrepancyRepository.deleteAll();
+        markRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        transactionRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        balanceSnapshotRepository.deleteAll();
+        pocketRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    private AccountEntity cuenta(String numero, double saldo) {
+        AccountEntity account = new AccountEntity();
+        account.setNumeroCuenta(numero);
+        account.setEstado("ACTIVA");
+        account.setSaldo(saldo);
+        return accountRepository.save(account);
+    }
+
+    private void transaction(AccountEntity account, PocketEntity pocket, String tipo, double monto, Date fecha) {
+        TransactionEntity transaction = new TransactionEntity();
+        transaction.setAccount(account);
+        transaction.setPocket(pocket);
+        transaction.setTipo(tipo);
+        transaction.setMonto(monto);
+        transaction.setFecha(fecha);
+        transactionRepository.save(transaction);
+    }
+
+    private void setSaldo(AccountEntity account, double saldo) {
+        AccountEntity actual = accountRepository.findById(account.getId()).get();
+        actual.setSaldo(saldo);
+        accountRepository.save(actual);
+    }
+
+    private ReconciliationMarkEntity marca(String tipo, Long titularId) {
+        return markRepository.findByTipoAndTitularIdIn(tipo, List.of(titularId)).get(0);
+    }
+
+    /**
+     * Prueba una conciliación sin diferencias: todas las marcas avanzan al corte.
+     */
+    @Test
+    void testEjecutarSinDiferencias() {
+        JobResult result = job.ejecutar("2026-10-01");
+
+        assertEquals(2, result.cuentas());
+        assertEquals(0, result.movimientos());
+        assertEquals(3, markRepository.count());
+        assertTrue(marca(ReconciliationJob.CUENTA, movida.getId()).getMarca().after(apertura));
+        assertEquals(70.0, marca(ReconciliationJob.CUENTA, movida.getId()).getSaldo());
+        assertEquals(30.0, marca(ReconciliationJob.BOLSILLO, pocket.getId()).getSaldo());
+        assertEquals(50.0, marca(ReconciliationJob.CUENTA, quieta.getId()).getSaldo());
+    }
+
+    /**
+     * Prueba que una diferencia se reporte y no mueva la marca del titular.
+     */
+    @Test
+    void testEjecutarConDiferencia() {
+        setSaldo(movida, 80.0);
+
+        JobResult result = job.ejecutar("2026-10-01");
+
+        assertEquals(1, result.movimientos());
+        List<BalanceDiscrepancyEntity> diferencias = discrepancyRepository
+                .findByEjecucionOrderByTitularIdAsc("2026-10-01");
+        assertEquals(1, diferencias.size());
+        assertEquals(movida.getId(), diferencias.get(0).getTitularId());
+        assertEquals(80.0, diferencias.get(0).getSaldoRegistrado());
+        assertEquals(70.0, diferencias.get(0).getSaldoEsperado());
+        assertEquals(apertura, marca(ReconciliationJob.CUENTA, movida.getId()).getMarca());
+
+        // la siguiente ejecución la vuelve a reportar
+        assertEquals(1, job.ejecutar("2026-10-02").movimientos());
+    }
+
+    /**
+     * Prueba que una ejecución posterior solo lea las transacciones desde la marca.
+     */
+    @Test
+    void testEjecutarIncremental() {
+        job.ejecutar("2026-10-01");
+        Date marca = marca(ReconciliationJob.CUENTA, movida.getId()).getMarca();
+
+        // una transacción nueva y otra anterior a la marca, que ya no se lee
+        transaction(movida, null, "SALIDA", 20.0, new Date(marca.getTime() + 1));
+        transaction(movida, null, "SALIDA", 999.0, apertura);
+        setSaldo(movida, 50.0);
+
+        JobResult result = job.ejecutar("2026-10-02");
+
+        assertEquals(0, result.movimientos());
+        assertTrue(marca(ReconciliationJob.CUENTA, movida.getId()).getMarca().after(marca));
+    }
+}
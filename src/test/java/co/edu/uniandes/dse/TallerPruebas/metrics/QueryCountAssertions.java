@@ -0,0 +1,65 @@
+package co.edu.uniandes.dse.TallerPruebas.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Aserciones sobre las sentencias SQL, las entidades cargadas y las colecciones
+ * inicializadas por un bloque de código, para fijar en las pruebas el número
+ * de consultas de una operación.
+ */
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    /**
+     * Ejecuta el bloque y devuelve lo que contó {@link QueryCounter} durante su ejecución.
+     */
+    public static QueryCounter.Counts count(Executable executable) {
+        QueryCounter.start();
+        try {
+            executable.execute();
+            return QueryCounter.current();
+        } catch (Throwable e) {
+            return fail("La operación medida falló", e);
+        } finally {
+            QueryCounter.reset();
+        }
+    }
+
+    /**
+     * Verifica que el bloque ejecute exactamente expected sentencias SQL.
+     */
+    public static QueryCounter.Counts assertStatementCount(int expected, Executable executable) {
+        QueryCounter.Counts counts = count(executable);
+        assertEquals(expected, counts.getStatements(), "Número de sentencias SQL");
+        return counts;
+    }
+
+    /**
+     * Verifica que el bloque ejecute exactamente esos select, insert y update,
+     * y ninguna otra sentencia salvo las de secuencias: esas dependen de
+     * cuántos ids del bloque reservado ya tomaron las pruebas anteriores.
+     */
+    public static QueryCounter.Counts assertStatements(int selects, int inserts, int updates,
+            Executable executable) {
+        QueryCounter.Counts counts = count(executable);
+        assertEquals(selects, counts.getStatements("select"), "Número de select");
+        assertEquals(inserts, counts.getStatements("insert"), "Número de insert");
+        assertEquals(updates, counts.getStatements("update"), "Número de update");
+        assertEquals(selects + inserts + updates + counts.getSequenceCalls(), counts.getStatements(),
+                "Número de sentencias SQL");
+        return counts;
+    }
+
+    /**
+     * Verifica que el bloque inicialice exactamente expected colecciones perezosas.
+     */
+    public static QueryCounter.Counts assertCollectionFetches(int expected, Executable executable) {
+        QueryCounter.Counts counts = count(executable);
+        assertEquals(expected, counts.getCollectionFetches(), "Número de colecciones inicializadas");
+        return counts;
+    }
+}
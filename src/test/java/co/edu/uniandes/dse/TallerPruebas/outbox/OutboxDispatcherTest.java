@@ -0,0 +1,191 @@
+package co.edu.uniandes.dse.TallerPruebas.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionEventDTO;
+import co.edu.uniandes.dse.TallerPruebas.entities.OutboxEventEntity;
+
+/**
+ * Pruebas del outbox con un consumidor local que guarda los eventos recibidos
+ * y puede simular una falla. Los lotes de 2 obligan a leer varios lotes.
+ */
+@DataJpaTest
+@Transactional
+@Import({ OutboxService.class, OutboxDispatcher.class, OutboxDispatcherTest.Config.class })
+@TestPropertySource(properties = { "outbox.dispatcher.batch-size=2", "outbox.dispatcher.backoff-ms=60000",
+        "outbox.dispatcher.max-attempts=2" })
+public class OutboxDispatcherTest {
+
+    /**
+     * Consumidor local de prueba.
+     */
+    static class RecordingListener implements OutboxListener {
+        private final List<TransactionEventDTO> recibidos = new ArrayList<>();
+        private boolean fallar;
+
+        @Override
+        public void onEvent(TransactionEventDTO event) {
+            if (fallar) {
+                throw new IllegalStateException("Consumidor no disponible");
+            }
+            recibidos.add(event);
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+
+    @Autowired
+    private RecordingListener listener;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.getEntityManager().createQuery("delete from OutboxEventEntity").executeUpdate();
+        listener.recibidos.clear();
+        listener.fallar = false;
+    }
+
+    private List<OutboxEventEntity> pendientes() {
+        entityManager.flush();
+        entityManager.clear();
+        return entityManager.getEntityManager()
+                .createQuery("select e from OutboxEventEntity e", OutboxEventEntity.class).getResultList();
+    }
+
+    /**
+     * Deja los eventos listos para reintentar de inmediato.
+     */
+    private void vencerEsperas() {
+        entityManager.getEntityManager().createQuery("update OutboxEventEntity e set e.proximoIntento = :ahora")
+                .setParameter("ahora", new Date()).executeUpdate();
+        entityManager.clear();
+    }
+
+    /**
+     * Prueba que todos los eventos se entreguen, en orden, y se borren del outbox.
+     */
+    @Test
+    void testDespachar() {
+        Date fecha = new Date();
+        long entregadosAntes = dispatcher.getEntregados();
+        outboxService.registrar(List.of(OutboxService.transferencia(1L, 10L, 20L, 100.0, fecha),
+                OutboxService.transferencia(2L, 20L, 10L, 50.0, fecha),
+                OutboxService.cargaBolsillo(3L, 10L, 30L, 25.0, fecha)));
+
+        assertEquals(3, dispatcher.despachar());
+
+        assertEquals(3, listener.recibidos.size());
+        assertEquals(OutboxService.CARGA_BOLSILLO, listener.recibidos.get(2).getTipo());
+        assertEquals(30L, listener.recibidos.get(2).getPocketId());
+        assertNotNull(listener.recibidos.get(0).getEventId());
+        assertTrue(pendientes().isEmpty());
+        assertEquals(entregadosAntes + 3, dispatcher.getEntregados());
+    }
+
+    /**
+     * Prueba que un evento rechazado se conserve y se reintente más tarde.
+     */
+    @Test
+    void testDespacharConsumidorFalla() {
+        outboxService.registrar(List.of(OutboxService.transferencia(1L, 10L, 20L, 100.0, new Date())));
+        listener.fallar = true;
+
+        assertEquals(0, dispatcher.despachar());
+
+        List<OutboxEventEntity> pendientes = pendientes();
+        assertEquals(1, pendientes.size());
+        assertEquals(1, pendientes.get(0).getIntentos());
+        assertTrue(pendientes.get(0).getProximoIntento().after(new Date()));
+
+        // antes del siguiente intento el evento no se vuelve a leer
+        listener.fallar = false;
+        assertEquals(0, dispatcher.despachar());
+        assertTrue(listener.recibidos.isEmpty());
+    }
+
+    /**
+     * Prueba que el lag incluya los eventos que esperan un reintento.
+     */
+    @Test
+    void testLagConEventosEnEspera() {
+        outboxService.registrar(List.of(OutboxService.transferencia(1L, 10L, 20L, 100.0, new Date())));
+        entityManager.getEntityManager().createQuery("update OutboxEventEntity e set e.fecha = :fecha")
+                .setParameter("fecha", new Date(System.currentTimeMillis() - 5000)).executeUpdate();
+        entityManager.clear();
+        listener.fallar = true;
+
+        dispatcher.despachar();
+        assertTrue(dispatcher.getLagMillis() >= 5000);
+
+        // en espera del reintento el evento no se lee, pero sigue contando
+        dispatcher.despachar();
+        assertTrue(dispatcher.getLagMillis() >= 5000);
+
+        listener.fallar = false;
+        vencerEsperas();
+        assertEquals(1, dispatcher.despachar());
+        assertEquals(0, dispatcher.getLagMillis());
+    }
+
+    /**
+     * Prueba que un evento ilegible se descarte después de max-attempts intentos.
+     */
+    @Test
+    void testDescartarEventoIlegible() {
+        OutboxEventEntity evento = new OutboxEventEntity();
+        evento.setTipo(OutboxService.TRANSFERENCIA);
+        evento.setPayload("{\"tipo\":");
+        evento.setFecha(new Date());
+        evento.setIntentos(0);
+        evento.setProximoIntento(new Date());
+        entityManager.persist(evento);
+        long descartadosAntes = dispatcher.getDescartados();
+
+        assertEquals(0, dispatcher.despachar());
+        assertNull(pendientes().get(0).getDescartado());
+
+        vencerEsperas();
+        assertEquals(0, dispatcher.despachar());
+        OutboxEventEntity descartado = pendientes().get(0);
+        assertEquals(2, descartado.getIntentos());
+        assertNotNull(descartado.getDescartado());
+        assertEquals(descartadosAntes + 1, dispatcher.getDescartados());
+        assertEquals(0, dispatcher.getLagMillis());
+
+        // un evento descartado no se vuelve a leer
+        vencerEsperas();
+        assertEquals(0, dispatcher.despachar());
+        assertEquals(2, pendientes().get(0).getIntentos());
+        assertTrue(listener.recibidos.isEmpty());
+    }
+}
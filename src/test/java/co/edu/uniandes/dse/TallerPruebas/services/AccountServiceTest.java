@@ -0,0 +1,164 @@
+package co.edu.uniandes.dse.TallerPruebas.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionSummaryDTO;
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.metrics.QueryCountAssertions;
+import co.edu.uniandes.dse.TallerPruebas.metrics.QueryCounter;
+import uk.co.jemos.podam.api.PodamFactory;
+import uk.co.jemos.podam.api.PodamFactoryImpl;
+
+/**
+ * Pruebas de lógica de AccountService
+ */
+@DataJpaTest
+@Transactional
+@Import(AccountService.class)
+public class AccountServiceTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private PodamFactory factory = new PodamFactoryImpl();
+
+    private List<AccountEntity> accountList = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        clearData();
+        insertData();
+    }
+
+    private void clearData() {
+        entityManager.getEntityManager().createQuery("delete from TransactionEntity").executeUpdate();
+        entityManager.getEntityManager().createQuery("delete from PocketEntity").executeUpdate();
+        entityManager.getEntityManager().createQuery("delete from AccountEntity").executeUpdate();
+    }
+
+    private void insertData() {
+        for (int i = 0; i < 2; i++) {
+            AccountEntity accountEntity = factory.manufacturePojo(AccountEntity.class);
+            entityManager.persist(accountEntity);
+            accountList.add(accountEntity);
+        }
+        for (int i = 0; i < 3; i++) {
+            PocketEntity pocketEntity = factory.manufacturePojo(PocketEntity.class);
+            pocketEntity.setAccount(accountList.get(0));
+            entityManager.persist(pocketEntity);
+        }
+        for (int i = 0; i < 5; i++) {
+            TransactionEntity transaction = new TransactionEntity();
+            transaction.setMonto(100.0 * (i + 1));
+            transaction.setFecha(new Date(1_000_000L * (i + 1)));
+            transaction.setTipo("SALIDA");
+            transaction.setAccount(accountList.get(0));
+            entityManager.persist(transaction);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Prueba que la cuenta se consulte con sus bolsillos en una sola sentencia.
+     */
+    @Test
+    void testGetAccountWithPockets() throws EntityNotFoundException {
+        QueryCounter.Counts counts = QueryCountAssertions.assertStatementCount(1, () -> {
+            AccountEntity account = accountService.getAccountWithPockets(accountList.get(0).getId());
+            assertEquals(3, account.getPockets().size());
+        });
+        assertEquals(0, counts.getCollectionFetches());
+    }
+
+    /**
+     * Prueba consultar una cuenta que no existe.
+     */
+    @Test
+    void testGetAccountWithPocketsInexistente() {
+        assertThrows(EntityNotFoundException.class, () -> accountService.getAccountWithPockets(0L));
+    }
+
+    /**
+     * Prueba que las transacciones recientes vengan de la más reciente a la más antigua.
+     */
+    @Test
+    void testGetRecentTransactions() throws EntityNotFoundException, BusinessLogicException {
+        List<TransactionSummaryDTO> recientes = accountService.getRecentTransactions(accountList.get(0).getId(), 3);
+
+        assertEquals(3, recientes.size());
+        assertEquals(500.0, recientes.get(0).getMonto());
+        assertEquals(300.0, recientes.get(2).getMonto());
+        assertTrue(accountService.getRecentTransactions(accountList.get(1).getId(), 3).isEmpty());
+    }
+
+    /**
+     * Prueba un límite inválido y una cuenta inexistente.
+     */
+    @Test
+    void testGetRecentTransactionsInvalido() {
+        assertThrows(BusinessLogicException.class,
+                () -> accountService.getRecentTransactions(accountList.get(0).getId(), 0));
+        assertThrows(EntityNotFoundException.class, () -> accountService.getRecentTransactions(0L, 10));
+    }
+
+    /**
+     * Prueba que la ETag de la cuenta cambie solo cuando cambia la cuenta y
+     * que la ETag con bolsillos también cambie al crear un bolsillo.
+     */
+    @Test
+    void testGetEtag() throws EntityNotFoundException {
+        Long accountId = accountList.get(0).getId();
+        String etag = accountService.getEtag(accountId);
+        String etagWithPockets = accountService.getEtagWithPockets(accountId);
+        assertEquals(etag, accountService.getEtag(accountId));
+        assertEquals(etagWithPockets, accountService.getEtagWithPockets(accountId));
+        assertNotEquals(etagWithPockets, accountService.getEtagWithPockets(accountList.get(1).getId()));
+
+        PocketEntity pocketEntity = factory.manufacturePojo(PocketEntity.class);
+        pocketEntity.setAccount(entityManager.find(AccountEntity.class, accountId));
+        entityManager.persist(pocketEntity);
+        entityManager.flush();
+        assertEquals(etag, accountService.getEtag(accountId));
+        String conBolsillo = accountService.getEtagWithPockets(accountId);
+        assertNotEquals(etagWithPockets, conBolsillo);
+
+        AccountEntity account = entityManager.find(AccountEntity.class, accountId);
+        account.setSaldo(account.getSaldo() + 1);
+        entityManager.flush();
+        assertNotEquals(etag, accountService.getEtag(accountId));
+        assertNotEquals(conBolsillo, accountService.getEtagWithPockets(accountId));
+    }
+
+    /**
+     * Prueba que la ETag se calcule en una sentencia y falle si la cuenta no existe.
+     */
+    @Test
+    void testGetEtagSinCargarCuenta() {
+        QueryCounter.Counts counts = QueryCountAssertions.assertStatementCount(1,
+                () -> accountService.getEtagWithPockets(accountList.get(0).getId()));
+        assertEquals(0, counts.getEntityLoads());
+        assertThrows(EntityNotFoundException.class, () -> accountService.getEtag(0L));
+        assertThrows(EntityNotFoundException.class, () -> accountService.getEtagWithPockets(0L));
+    }
+}
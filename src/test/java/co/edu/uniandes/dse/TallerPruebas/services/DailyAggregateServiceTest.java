@@ -0,0 +1,123 @@
+package co.edu.uniandes.dse.TallerPruebas.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import co.edu.uniandes.dse.TallerPruebas.dto.DailyAggregateDTO;
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+
+/**
+ * Pruebas de lógica de DailyAggregateService
+ */
+@DataJpaTest
+@Transactional
+@Import(DailyAggregateService.class)
+public class DailyAggregateServiceTest {
+
+    @Autowired
+    private DailyAggregateService dailyAggregateService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private AccountEntity account;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.getEntityManager().createQuery("delete from DailyAccountAggregateEntity").executeUpdate();
+        account = new AccountEntity();
+        account.setNumeroCuenta("0001");
+        account.setEstado("ACTIVA");
+        account.setSaldo(5000.0);
+        entityManager.persist(account);
+    }
+
+    private TransactionEntity transaction(String tipo, double monto, Date fecha) {
+        TransactionEntity transaction = new TransactionEntity();
+        transaction.setAccount(account);
+        transaction.setTipo(tipo);
+        transaction.setMonto(monto);
+        transaction.setFecha(fecha);
+        return transaction;
+    }
+
+    /**
+     * Prueba que varios registros del mismo día se acumulen en una sola fila.
+     */
+    @Test
+    void testRegistrar() throws EntityNotFoundException, BusinessLogicException {
+        Date ahora = new Date();
+        LocalDate hoy = dailyAggregateService.diaDe(ahora);
+
+        dailyAggregateService.registrar(List.of(transaction("SALIDA", 100.0, ahora),
+                transaction("ENTRADA", 40.0, ahora)));
+        dailyAggregateService.registrar(List.of(transaction("SALIDA", 50.0, ahora)));
+        // el update relativo no refresca la entidad ya cargada
+        entityManager.flush();
+        entityManager.clear();
+
+        List<DailyAggregateDTO> totales = dailyAggregateService.getTotalesDiarios(account.getId(), hoy, hoy);
+        assertEquals(1, totales.size());
+        assertEquals(150.0, totales.get(0).getTotalSalidas());
+        assertEquals(2L, totales.get(0).getCantidadSalidas());
+        assertEquals(40.0, totales.get(0).getTotalEntradas());
+        assertEquals(1L, totales.get(0).getCantidadEntradas());
+        assertEquals(1L, entityManager.getEntityManager()
+                .createQuery("select count(a) from DailyAccountAggregateEntity a", Long.class).getSingleResult());
+    }
+
+    /**
+     * Prueba que los días sin movimientos se devuelvan en cero.
+     */
+    @Test
+    void testGetTotalesDiariosRango() throws EntityNotFoundException, BusinessLogicException {
+        Date ahora = new Date();
+        LocalDate hoy = dailyAggregateService.diaDe(ahora);
+        dailyAggregateService.registrar(List.of(transaction("ENTRADA", 10.0, ahora)));
+
+        List<DailyAggregateDTO> totales = dailyAggregateService.getTotalesDiarios(account.getId(),
+                hoy.minusDays(2), hoy);
+
+        assertEquals(3, totales.size());
+        assertEquals(hoy.minusDays(2), totales.get(0).getDia());
+        assertEquals(0L, totales.get(0).getCantidadEntradas());
+        assertEquals(0.0, totales.get(1).getTotalEntradas());
+        assertEquals(10.0, totales.get(2).getTotalEntradas());
+    }
+
+    /**
+     * Prueba que se rechacen rangos inválidos.
+     */
+    @Test
+    void testGetTotalesDiariosRangoInvalido() {
+        LocalDate hoy = LocalDate.now();
+        assertThrows(BusinessLogicException.class,
+                () -> dailyAggregateService.getTotalesDiarios(account.getId(), hoy, hoy.minusDays(1)));
+        assertThrows(BusinessLogicException.class,
+                () -> dailyAggregateService.getTotalesDiarios(account.getId(), hoy.minusDays(400), hoy));
+    }
+
+    /**
+     * Prueba consultar los totales de una cuenta que no existe.
+     */
+    @Test
+    void testGetTotalesDiariosCuentaInexistente() {
+        LocalDate hoy = LocalDate.now();
+        assertThrows(EntityNotFoundException.class, () -> dailyAggregateService.getTotalesDiarios(0L, hoy, hoy));
+    }
+}
@@ -0,0 +1,162 @@
+package co.edu.uniandes.dse.TallerPruebas.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.BalanceSnapshotEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService.Posting;
+
+/**
+ * Pruebas de lógica de LedgerService
+ */
+@DataJpaTest
+@Transactional
+@Import(LedgerService.class)
+public class LedgerServiceTest {
+
+    private static final String CUENTA = LedgerService.LIBRO_CUENTA;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final long base = System.currentTimeMillis() - 60_000;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.getEntityManager().createQuery("delete from LedgerEntryEntity").executeUpdate();
+        entityManager.getEntityManager().createQuery("delete from BalanceSnapshotEntity").executeUpdate();
+    }
+
+    private Date at(long seconds) {
+        return new Date(base + seconds * 1000);
+    }
+
+    private void transferir(long source, long destination, double monto, Date fecha) {
+        ledgerService.registrar("TRANSFERENCIA", fecha, new Posting(CUENTA, source, -monto),
+                new Posting(CUENTA, destination, monto));
+    }
+
+    private List<BalanceSnapshotEntity> snapshots(long titularId) {
+        return entityManager.getEntityManager()
+                .createQuery("select s from BalanceSnapshotEntity s where s.titularId = :id",
+                        BalanceSnapshotEntity.class)
+                .setParameter("id", titularId).getResultList();
+    }
+
+    /**
+     * Prueba que el saldo sea la apertura más los asientos posteriores.
+     */
+    @Test
+    void testGetSaldo() throws BusinessLogicException {
+        ledgerService.abrir(CUENTA, Map.of(1L, 100.0, 2L, 50.0), at(0));
+        transferir(1L, 2L, 30.0, at(0));
+        ledgerService.abrir(CUENTA, Map.of(1L, 70.0, 2L, 80.0), at(1));
+        transferir(2L, 1L, 5.0, at(1));
+
+        assertEquals(75.0, ledgerService.getSaldo(CUENTA, 1L, null));
+        assertEquals(75.0, ledgerService.getSaldo(CUENTA, 2L, null));
+        // la segunda apertura no crea otro snapshot
+        assertEquals(1, snapshots(1L).size());
+    }
+
+    /**
+     * Prueba el saldo a una fecha intermedia.
+     */
+    @Test
+    void testGetSaldoEnFecha() throws BusinessLogicException {
+        ledgerService.abrir(CUENTA, Map.of(1L, 100.0, 2L, 0.0), at(0));
+        transferir(1L, 2L, 10.0, at(0));
+        transferir(1L, 2L, 20.0, at(10));
+
+        assertEquals(90.0, ledgerService.getSaldo(CUENTA, 1L, at(5)));
+        assertEquals(70.0, ledgerService.getSaldo(CUENTA, 1L, at(10)));
+        assertEquals(30.0, ledgerService.getSaldo(CUENTA, 2L, null));
+    }
+
+    /**
+     * Prueba que no se pueda consultar el saldo sin historial.
+     */
+    @Test
+    void testGetSaldoSinHistorial() {
+        ledgerService.abrir(CUENTA, Map.of(1L, 100.0), at(10));
+
+        assertThrows(BusinessLogicException.class, () -> ledgerService.getSaldo(CUENTA, 3L, null));
+        assertThrows(BusinessLogicException.class, () -> ledgerService.getSaldo(CUENTA, 1L, at(5)));
+    }
+
+    /**
+     * Prueba que se rechace un movimiento cuyos asientos no suman cero.
+     */
+    @Test
+    void testRegistrarDesbalanceado() {
+        assertThrows(IllegalArgumentException.class, () -> ledgerService.registrar("TRANSFERENCIA", at(0),
+                new Posting(CUENTA, 1L, -10.0), new Posting(CUENTA, 2L, 9.0)));
+    }
+
+    /**
+     * Prueba que abrirCuentas tome el saldo de la cuenta en la BD.
+     */
+    @Test
+    void testAbrirCuentas() throws BusinessLogicException {
+        AccountEntity account = new AccountEntity();
+        account.setNumeroCuenta("0001");
+        account.setEstado("ACTIVA");
+        account.setSaldo(500.0);
+        entityManager.persist(account);
+
+        Date corte = ledgerService.abrirCuentas(List.of(account.getId()));
+
+        assertEquals(500.0, ledgerService.getSaldo(CUENTA, account.getId(), corte));
+    }
+
+    /**
+     * Prueba que un snapshot consolide los asientos anteriores al corte sin cambiar el saldo.
+     */
+    @Test
+    void testTomarSnapshots() throws BusinessLogicException {
+        ledgerService.abrir(CUENTA, Map.of(1L, 100.0, 2L, 0.0), at(0));
+        transferir(1L, 2L, 10.0, at(0));
+        transferir(1L, 2L, 10.0, at(1));
+        transferir(1L, 2L, 10.0, at(20));
+
+        assertEquals(2, ledgerService.tomarSnapshots(at(10), 2, 100));
+        assertEquals(0, ledgerService.tomarSnapshots(at(10), 2, 100));
+
+        assertEquals(2, snapshots(1L).size());
+        assertEquals(70.0, ledgerService.getSaldo(CUENTA, 1L, null));
+        assertEquals(80.0, ledgerService.getSaldo(CUENTA, 1L, at(5)));
+        assertEquals(30.0, ledgerService.getSaldo(CUENTA, 2L, null));
+    }
+
+    /**
+     * Prueba que el banco se vuelva a abrir si su snapshot se borró, aunque ya
+     * se hubiera abierto antes en la misma instancia.
+     */
+    @Test
+    void testAbrirBancoSinSnapshot() throws BusinessLogicException {
+        String banco = LedgerService.LIBRO_BANCO;
+        ledgerService.abrir(banco, Map.of(LedgerService.TITULAR_BANCO, 0.0), at(0));
+        entityManager.getEntityManager().createQuery("delete from BalanceSnapshotEntity").executeUpdate();
+
+        ledgerService.abrir(banco, Map.of(LedgerService.TITULAR_BANCO, 0.0), at(1));
+
+        assertEquals(0.0, ledgerService.getSaldo(banco, LedgerService.TITULAR_BANCO, null));
+    }
+}
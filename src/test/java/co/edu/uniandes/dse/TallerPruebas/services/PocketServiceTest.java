@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import jakarta.transaction.Transactional;
 
@@ -13,11 +14,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountCache;
+import co.edu.uniandes.dse.TallerPruebas.concurrency.AccountLockManager;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionSummaryDTO;
 import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
 import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
 import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
 import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.idempotency.IdempotencyStore;
+import co.edu.uniandes.dse.TallerPruebas.metrics.QueryCountAssertions;
+import co.edu.uniandes.dse.TallerPruebas.metrics.QueryCounter;
+import co.edu.uniandes.dse.TallerPruebas.outbox.OutboxService;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
 import uk.co.jemos.podam.api.PodamFactory;
 import uk.co.jemos.podam.api.PodamFactoryImpl;
 
@@ -26,7 +37,8 @@ import uk.co.jemos.podam.api.PodamFactoryImpl;
  */
 @DataJpaTest
 @Transactional
-@Import(PocketService.class)
+@Import({ PocketService.class, AccountLockManager.class, AccountCache.class, IdempotencyStore.class,
+        LedgerService.class, DailyAggregateService.class, OutboxService.class })
 public class PocketServiceTest {
 
     @Autowired
@@ -35,6 +47,9 @@ public class PocketServiceTest {
     @Autowired
     private TestEntityManager entityManager;
 
+    @Autowired
+    private TransactionRepository transactionRepository;
+
     private PodamFactory factory = new PodamFactoryImpl();
 
     private List<AccountEntity> accountList = new ArrayList<>();
@@ -53,6 +68,11 @@ public class PocketServiceTest {
      * Limpia las tablas que están implicadas en la prueba.
      */
     private void clearData() {
+        entityManager.getEntityManager().createQuery("delete from OutboxEventEntity").executeUpdate();
+        entityManager.getEntityManager().createQuery("delete from TransactionEntity").executeUpdate();
+        entityManager.getEntityManager().createQuery("delete from DailyAccountAggregateEntity").executeUpdate();
+        entityManager.getEntityManager().createQuery("delete from LedgerEntryEntity").executeUpdate();
+        entityManager.getEntityManager().createQuery("delete from BalanceSnapshotEntity").executeUpdate();
         entityManager.getEntityManager().createQuery("delete from PocketEntity").executeUpdate();
         entityManager.getEntityManager().createQuery("delete from AccountEntity").executeUpdate();
     }
@@ -94,6 +114,26 @@ public class PocketServiceTest {
         assertEquals(newEntity.getNombre(), entity.getNombre());
     }
 
+    /**
+     * Prueba que crear un Pocket no cargue los bolsillos de la cuenta ni lea la cuenta.
+     */
+    @Test
+    void testCreatePocketQueryCount() {
+        AccountEntity account = accountList.get(0);
+        entityManager.flush();
+        entityManager.clear();
+
+        PocketEntity newEntity = factory.manufacturePojo(PocketEntity.class);
+        newEntity.setNombre("Bolsillo Medido");
+
+        // select: 1 de la caché de cuentas y 1 del nombre repetido; insert: el bolsillo
+        QueryCounter.Counts counts = QueryCountAssertions.assertStatements(2, 1, 0, () -> {
+            pocketService.createPocket(account.getId(), newEntity);
+            entityManager.flush();
+        });
+        assertEquals(0, counts.getCollectionFetches());
+    }
+
     /**
      * Prueba para crear un Pocket con una cuenta que no existe.
      */
@@ -156,6 +196,59 @@ public class PocketServiceTest {
         AccountEntity updatedAccount = entityManager.find(AccountEntity.class, account.getId());
         assertEquals(initialAccountBalance - amountToLoad, updatedAccount.getSaldo());
         assertEquals(initialPocketBalance + amountToLoad, result.getSaldo());
+
+        List<TransactionEntity> transactions = entityManager.getEntityManager()
+                .createQuery("select t from TransactionEntity t order by t.tipo", TransactionEntity.class)
+                .getResultList();
+        assertEquals(2, transactions.size());
+        assertEquals(pocket.getId(), transactions.get(0).getPocket().getId());
+        assertEquals("ENTRADA", transactions.get(0).getTipo());
+        assertNull(transactions.get(1).getPocket());
+        assertEquals(amountToLoad, transactions.get(1).getMonto());
+    }
+
+    /**
+     * Prueba que el historial de la cuenta muestre la carga solo como salida:
+     * la entrada del bolsillo no es un ingreso de la cuenta.
+     */
+    @Test
+    void testCargarBolsilloHistorialCuenta() throws EntityNotFoundException, BusinessLogicException {
+        AccountEntity account = accountList.get(0);
+        account.setSaldo(5000.0);
+        entityManager.merge(account);
+        PocketEntity pocket = pocketList.get(0);
+        pocket.setSaldo(0.0);
+        entityManager.merge(pocket);
+
+        pocketService.cargarBolsillo(account.getId(), pocket.getId(), 1500.0);
+
+        List<TransactionSummaryDTO> recientes = transactionRepository.findRecentByAccountId(account.getId(),
+                PageRequest.of(0, 10));
+        assertEquals(1, recientes.size());
+        assertEquals("SALIDA", recientes.get(0).getTipo());
+        try (Stream<TransactionSummaryDTO> historial = transactionRepository.streamByAccountId(account.getId())) {
+            assertEquals(List.of("SALIDA"), historial.map(TransactionSummaryDTO::getTipo).toList());
+        }
+    }
+
+    /**
+     * Prueba que un reintento con la misma clave no cargue el bolsillo dos veces.
+     */
+    @Test
+    void testCargarBolsilloIdempotente() throws EntityNotFoundException, BusinessLogicException {
+        AccountEntity account = accountList.get(0);
+        account.setSaldo(5000.0);
+        entityManager.merge(account);
+
+        PocketEntity pocket = pocketList.get(0);
+        pocket.setSaldo(0.0);
+        entityManager.merge(pocket);
+
+        pocketService.cargarBolsillo(account.getId(), pocket.getId(), 1500.0, "carga-1");
+        PocketEntity retry = pocketService.cargarBolsillo(account.getId(), pocket.getId(), 1500.0, "carga-1");
+
+        assertEquals(1500.0, retry.getSaldo());
+        assertEquals(3500.0, entityManager.find(AccountEntity.class, account.getId()).getSaldo());
     }
 
     /**
@@ -175,6 +268,21 @@ public class PocketServiceTest {
         });
     }
 
+    /**
+     * Prueba para mover dinero desde una cuenta bloqueada.
+     */
+    @Test
+    void testCargarBolsilloCuentaBloqueada() {
+        AccountEntity account = accountList.get(0);
+        account.setEstado("BLOQUEADA");
+        entityManager.merge(account);
+        PocketEntity pocket = pocketList.get(0);
+
+        BusinessLogicException e = assertThrows(BusinessLogicException.class,
+                () -> pocketService.cargarBolsillo(account.getId(), pocket.getId(), 1.0));
+        assertTrue(e.getMessage().contains("bloqueada"));
+    }
+
     /**
      * Prueba para mover dinero a un bolsillo que no existe.
      */
@@ -0,0 +1,100 @@
+package co.edu.uniandes.dse.TallerPruebas.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import uk.co.jemos.podam.api.PodamFactory;
+import uk.co.jemos.podam.api.PodamFactoryImpl;
+
+/**
+ * Pruebas de lógica de StatementExportService
+ */
+@DataJpaTest
+@Transactional
+@Import(StatementExportService.class)
+public class StatementExportServiceTest {
+
+    @Autowired
+    private StatementExportService statementExportService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private PodamFactory factory = new PodamFactoryImpl();
+
+    private AccountEntity account;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.getEntityManager().createQuery("delete from TransactionEntity").executeUpdate();
+        entityManager.getEntityManager().createQuery("delete from AccountEntity").executeUpdate();
+
+        account = factory.manufacturePojo(AccountEntity.class);
+        entityManager.persist(account);
+        for (int i = 0; i < 3; i++) {
+            TransactionEntity transaction = new TransactionEntity();
+            transaction.setMonto(1000.0 * (i + 1));
+            transaction.setFecha(new Date(1_700_000_000_000L + i * 1000L));
+            transaction.setTipo("SALIDA");
+            transaction.setAccount(account);
+            entityManager.persist(transaction);
+        }
+    }
+
+    /**
+     * Prueba exportar el extracto en CSV.
+     */
+    @Test
+    void testExportarCsv() throws EntityNotFoundException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = statementExportService.exportar(account.getId(), StatementFormat.CSV, () -> out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, count);
+        assertEquals(4, lines.length);
+        assertEquals("id,fecha,tipo,monto", lines[0]);
+        assertTrue(lines[1].endsWith(",2023-11-14T22:13:20Z,SALIDA,1000.0"));
+        assertTrue(lines[3].endsWith(",SALIDA,3000.0"));
+    }
+
+    /**
+     * Prueba exportar el extracto en NDJSON.
+     */
+    @Test
+    void testExportarNdjson() throws EntityNotFoundException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        statementExportService.exportar(account.getId(), StatementFormat.NDJSON, () -> out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":"));
+        assertTrue(lines[0].endsWith("\"tipo\":\"SALIDA\",\"monto\":1000.0}"));
+    }
+
+    /**
+     * Prueba exportar el extracto de una cuenta que no existe sin abrir la salida.
+     */
+    @Test
+    void testExportarCuentaInexistente() {
+        assertThrows(EntityNotFoundException.class, () -> statementExportService.exportar(0L, StatementFormat.CSV,
+                () -> fail("No se debe abrir la salida")));
+    }
+}
@@ -3,6 +3,7 @@ package co.edu.uniandes.dse.TallerPruebas.services;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import jakarta.transaction.Transactional;
@@ -14,16 +15,27 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountCache;
+import co.edu.uniandes.dse.TallerPruebas.concurrency.AccountLockManager;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransactionHistoryDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransferBatchMode;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransferRequestDTO;
+import co.edu.uniandes.dse.TallerPruebas.dto.TransferResultDTO;
 import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
 import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
 import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
 import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.idempotency.IdempotencyStore;
+import co.edu.uniandes.dse.TallerPruebas.metrics.QueryCountAssertions;
+import co.edu.uniandes.dse.TallerPruebas.metrics.QueryCounter;
+import co.edu.uniandes.dse.TallerPruebas.outbox.OutboxService;
 import uk.co.jemos.podam.api.PodamFactory;
 import uk.co.jemos.podam.api.PodamFactoryImpl;
 
 @DataJpaTest
 @Transactional
-@Import(TransactionService.class)
+@Import({ TransactionService.class, AccountService.class, AccountLockManager.class, AccountCache.class, IdempotencyStore.class,
+        LedgerService.class, DailyAggregateService.class, OutboxService.class })
 public class TransactionServiceTest {
 
     @Autowired
@@ -32,6 +44,15 @@ public class TransactionServiceTest {
     @Autowired
     private TestEntityManager entityManager;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountCache accountCache;
+
     private PodamFactory factory = new PodamFactoryImpl();
 
     private List<AccountEntity> accountList = new ArrayList<>();
@@ -43,7 +64,11 @@ public class TransactionServiceTest {
     }
 
     private void clearData() {
+        entityManager.getEntityManager().createQuery("delete from OutboxEventEntity").executeUpdate();
         entityManager.getEntityManager().createQuery("delete from TransactionEntity").executeUpdate();
+        entityManager.getEntityManager().createQuery("delete from LedgerEntryEntity").executeUpdate();
+        entityManager.getEntityManager().createQuery("delete from BalanceSnapshotEntity").executeUpdate();
+        entityManager.getEntityManager().createQuery("delete from DailyAccountAggregateEntity").executeUpdate();
         entityManager.getEntityManager().createQuery("delete from AccountEntity").executeUpdate();
     }
 
@@ -77,6 +102,100 @@ public class TransactionServiceTest {
         assertEquals("SALIDA", result.getTipo());
     }
 
+    /**
+     * Prueba que la transferencia deje la ENTRADA en la cuenta destino y asientos balanceados en el libro mayor.
+     */
+    @Test
+    void testTransferirFondosRegistraEntradaYAsientos() throws EntityNotFoundException, BusinessLogicException {
+        AccountEntity source = accountList.get(0);
+        AccountEntity destination = accountList.get(1);
+
+        transactionService.transferirFondos(source.getId(), destination.getId(), 1500.0);
+        entityManager.flush();
+
+        List<TransactionEntity> entradas = entityManager.getEntityManager()
+                .createQuery("select t from TransactionEntity t where t.account.id = :id and t.tipo = 'ENTRADA'",
+                        TransactionEntity.class)
+                .setParameter("id", destination.getId()).getResultList();
+        assertEquals(1, entradas.size());
+        assertEquals(1500.0, entradas.get(0).getMonto());
+
+        Double total = entityManager.getEntityManager()
+                .createQuery("select sum(e.monto) from LedgerEntryEntity e", Double.class).getSingleResult();
+        assertEquals(0.0, total, 1e-9);
+        // el evento de la transferencia queda en el outbox en la misma transacción
+        assertEquals(1L, entityManager.getEntityManager()
+                .createQuery("select count(e) from OutboxEventEntity e", Long.class).getSingleResult());
+    }
+
+    /**
+     * Prueba que una transferencia lea cada cuenta una sola vez y no inicialice colecciones.
+     */
+    @Test
+    void testTransferirFondosQueryCount() {
+        AccountEntity source = accountList.get(0);
+        AccountEntity destination = accountList.get(1);
+        entityManager.flush();
+        entityManager.clear();
+
+        // select: 2 de la caché de cuentas, 2 lecturas de cuentas y 1 de los snapshots del libro mayor;
+        // insert: uno en lote por tabla (snapshots, transacciones, asientos, totales diarios y outbox);
+        // update: 2 de los totales diarios y 1 en lote de ambas cuentas
+        QueryCounter.Counts counts = QueryCountAssertions.assertStatements(5, 5, 3, () -> {
+            transactionService.transferirFondos(source.getId(), destination.getId(), 100.0);
+            entityManager.flush();
+        });
+        assertEquals(0, counts.getCollectionFetches());
+        assertTrue(counts.getRepeatedStatements(3).isEmpty());
+    }
+
+    /**
+     * Prueba que un reintento con la misma clave devuelva la transacción original sin debitar de nuevo.
+     */
+    @Test
+    void testTransferirFondosIdempotente() throws EntityNotFoundException, BusinessLogicException {
+        AccountEntity source = accountList.get(0);
+        AccountEntity destination = accountList.get(1);
+
+        TransactionEntity first = transactionService.transferirFondos(source.getId(), destination.getId(), 1500.0,
+                "clave-1");
+        TransactionEntity retry = transactionService.transferirFondos(source.getId(), destination.getId(), 1500.0,
+                "clave-1");
+
+        assertEquals(first.getId(), retry.getId());
+        assertEquals(3500.0, entityManager.find(AccountEntity.class, source.getId()).getSaldo());
+        assertEquals(6500.0, entityManager.find(AccountEntity.class, destination.getId()).getSaldo());
+    }
+
+    /**
+     * Prueba que reutilizar una clave con otros datos sea un error.
+     */
+    @Test
+    void testTransferirFondosIdempotenteOtrosDatos() throws EntityNotFoundException, BusinessLogicException {
+        AccountEntity source = accountList.get(0);
+        AccountEntity destination = accountList.get(1);
+        transactionService.transferirFondos(source.getId(), destination.getId(), 1500.0, "clave-2");
+
+        assertThrows(BusinessLogicException.class,
+                () -> transactionService.transferirFondos(source.getId(), destination.getId(), 100.0, "clave-2"));
+    }
+
+    /**
+     * Prueba que la purga borre solo los registros de idempotencia anteriores a la fecha dada.
+     */
+    @Test
+    void testPurgarIdempotencia() throws EntityNotFoundException, BusinessLogicException {
+        AccountEntity source = accountList.get(0);
+        AccountEntity destination = accountList.get(1);
+        transactionService.transferirFondos(source.getId(), destination.getId(), 100.0, "clave-3");
+        long ahora = System.currentTimeMillis();
+
+        assertEquals(0, idempotencyStore.purgar(new Date(ahora - 3_600_000L)));
+        assertEquals(1, idempotencyStore.purgar(new Date(ahora + 1000)));
+        assertEquals(0L, entityManager.getEntityManager()
+                .createQuery("select count(r) from IdempotencyRecordEntity r", Long.class).getSingleResult());
+    }
+
     /**
      * Prueba: Fallo: Saldo de la cuenta origen es menor al monto.
      */
@@ -113,6 +232,42 @@ public class TransactionServiceTest {
         });
     }
 
+    /**
+     * Prueba que se rechace una transferencia hacia una cuenta bloqueada.
+     */
+    @Test
+    void testTransferirFondosCuentaBloqueada() {
+        AccountEntity source = accountList.get(0);
+        AccountEntity destination = accountList.get(1);
+        destination.setEstado("BLOQUEADA");
+        entityManager.merge(destination);
+
+        BusinessLogicException e = assertThrows(BusinessLogicException.class,
+                () -> transactionService.transferirFondos(source.getId(), destination.getId(), 1.0));
+        assertTrue(e.getMessage().contains("bloqueada"));
+    }
+
+    /**
+     * Prueba que el estado se valide sobre la cuenta bloqueada y no solo
+     * sobre la caché, que todavía la tiene activa.
+     */
+    @Test
+    void testTransferirFondosCuentaBloqueadaCacheDesactualizada() {
+        AccountEntity source = accountList.get(0);
+        AccountEntity destination = accountList.get(1);
+        entityManager.flush();
+        accountCache.get(destination.getId());
+        entityManager.getEntityManager().createQuery("update AccountEntity a set a.estado = 'BLOQUEADA' where a.id = :id")
+                .setParameter("id", destination.getId()).executeUpdate();
+        entityManager.clear();
+        assertFalse(accountCache.get(destination.getId()).orElseThrow().isBloqueada());
+
+        BusinessLogicException e = assertThrows(BusinessLogicException.class,
+                () -> transactionService.transferirFondos(source.getId(), destination.getId(), 1.0));
+        assertTrue(e.getMessage().contains("bloqueada"));
+        assertEquals(5000.0, entityManager.find(AccountEntity.class, source.getId()).getSaldo());
+    }
+
     /**
      * Prueba cuenta origen y destino son la misma.
      */
@@ -123,6 +278,190 @@ public class TransactionServiceTest {
             transactionService.transferirFondos(source.getId(), source.getId(), 1000.0);
         });
     }
-}
 
+    /**
+     * Prueba un lote de transferencias válidas: cada cuenta queda con su saldo neto.
+     */
+    @Test
+    void testTransferirFondosBatch() throws EntityNotFoundException, BusinessLogicException {
+        AccountEntity a = accountList.get(0);
+        AccountEntity b = accountList.get(1);
+        AccountEntity c = accountList.get(2);
+        List<TransferRequestDTO> transfers = List.of(
+                new TransferRequestDTO(a.getId(), b.getId(), 1000.0),
+                new TransferRequestDTO(b.getId(), c.getId(), 5500.0),
+                new TransferRequestDTO(c.getId(), a.getId(), 500.0));
+
+        List<TransferResultDTO> results = transactionService.transferirFondosBatch(transfers,
+                TransferBatchMode.ALL_OR_NOTHING);
+
+        assertEquals(3, results.size());
+        results.forEach(r -> {
+            assertTrue(r.isExitosa());
+            assertNotNull(r.getTransactionId());
+        });
+        assertEquals(4500.0, entityManager.find(AccountEntity.class, a.getId()).getSaldo());
+        assertEquals(500.0, entityManager.find(AccountEntity.class, b.getId()).getSaldo());
+        assertEquals(10000.0, entityManager.find(AccountEntity.class, c.getId()).getSaldo());
+    }
+
+    /**
+     * Prueba que un lote con neto cero para las cuentas cambie su ETag, porque
+     * su historial sí cambia.
+     */
+    @Test
+    void testTransferirFondosBatchNetoCeroCambiaEtag() throws EntityNotFoundException, BusinessLogicException {
+        AccountEntity a = accountList.get(0);
+        AccountEntity b = accountList.get(1);
+        String etagA = accountService.getEtag(a.getId());
+        String etagB = accountService.getEtag(b.getId());
+
+        transactionService.transferirFondosBatch(List.of(new TransferRequestDTO(a.getId(), b.getId(), 1000.0),
+                new TransferRequestDTO(b.getId(), a.getId(), 1000.0)), TransferBatchMode.ALL_OR_NOTHING);
+
+        assertEquals(5000.0, entityManager.find(AccountEntity.class, a.getId()).getSaldo());
+        assertNotEquals(etagA, accountService.getEtag(a.getId()));
+        assertNotEquals(etagB, accountService.getEtag(b.getId()));
+    }
+
+    /**
+     * Prueba que en modo ALL_OR_NOTHING un error rechace todo el lote.
+     */
+    @Test
+    void testTransferirFondosBatchAllOrNothing() {
+        AccountEntity a = accountList.get(0);
+        AccountEntity b = accountList.get(1);
+        List<TransferRequestDTO> transfers = List.of(
+                new TransferRequestDTO(a.getId(), b.getId(), 1000.0),
+                new TransferRequestDTO(a.getId(), b.getId(), 4500.0));
+
+        assertThrows(BusinessLogicException.class,
+                () -> transactionService.transferirFondosBatch(transfers, TransferBatchMode.ALL_OR_NOTHING));
+        assertEquals(5000.0, entityManager.find(AccountEntity.class, a.getId()).getSaldo());
+        assertEquals(5000.0, entityManager.find(AccountEntity.class, b.getId()).getSaldo());
+    }
+
+    /**
+     * Prueba que en modo PER_ITEM se apliquen solo las transferencias válidas.
+     */
+    @Test
+    void testTransferirFondosBatchPerItem() throws EntityNotFoundException, BusinessLogicException {
+        AccountEntity a = accountList.get(0);
+        AccountEntity b = accountList.get(1);
+        List<TransferRequestDTO> transfers = List.of(
+                new TransferRequestDTO(a.getId(), b.getId(), 1000.0),
+                new TransferRequestDTO(0L, b.getId(), 1000.0),
+                new TransferRequestDTO(a.getId(), b.getId(), 4500.0));
+
+        List<TransferResultDTO> results = transactionService.transferirFondosBatch(transfers,
+                TransferBatchMode.PER_ITEM);
+
+        assertTrue(results.get(0).isExitosa());
+        assertFalse(results.get(1).isExitosa());
+        assertFalse(results.get(2).isExitosa());
+        assertNull(results.get(2).getTransactionId());
+        assertEquals(4000.0, entityManager.find(AccountEntity.class, a.getId()).getSaldo());
+        assertEquals(6000.0, entityManager.find(AccountEntity.class, b.getId()).getSaldo());
+    }
+
+    /**
+     * Prueba que el lote rechace las transferencias desde o hacia una cuenta bloqueada.
+     */
+    @Test
+    void testTransferirFondosBatchCuentaBloqueada() throws EntityNotFoundException, BusinessLogicException {
+        AccountEntity a = accountList.get(0);
+        AccountEntity b = accountList.get(1);
+        AccountEntity c = accountList.get(2);
+        b.setEstado("BLOQUEADA");
+        entityManager.merge(b);
+        entityManager.flush();
+        List<TransferRequestDTO> transfers = List.of(
+                new TransferRequestDTO(a.getId(), b.getId(), 1000.0),
+                new TransferRequestDTO(b.getId(), c.getId(), 1000.0),
+                new TransferRequestDTO(a.getId(), c.getId(), 1000.0));
 
+        List<TransferResultDTO> results = transactionService.transferirFondosBatch(transfers,
+                TransferBatchMode.PER_ITEM);
+
+        assertFalse(results.get(0).isExitosa());
+        assertTrue(results.get(0).getMensaje().contains("bloqueada"));
+        assertFalse(results.get(1).isExitosa());
+        assertTrue(results.get(2).isExitosa());
+        assertEquals(5000.0, entityManager.find(AccountEntity.class, b.getId()).getSaldo());
+        assertEquals(6000.0, entityManager.find(AccountEntity.class, c.getId()).getSaldo());
+    }
+
+    /**
+     * Inserta transacciones en la cuenta dada, con un segundo de diferencia y tipos alternados.
+     */
+    private List<TransactionEntity> insertHistory(AccountEntity account, int count) {
+        List<TransactionEntity> history = new ArrayList<>();
+        long base = System.currentTimeMillis() - count * 1000L;
+        for (int i = 0; i < count; i++) {
+            TransactionEntity transaction = new TransactionEntity();
+            transaction.setMonto(100.0 + i);
+            transaction.setFecha(new Date(base + i * 1000L));
+            transaction.setTipo(i % 2 == 0 ? "SALIDA" : "ENTRADA");
+            transaction.setAccount(account);
+            entityManager.persist(transaction);
+            history.add(transaction);
+        }
+        return history;
+    }
+
+    /**
+     * Prueba recorrer el historial por páginas, de la más reciente a la más antigua.
+     */
+    @Test
+    void testGetHistorial() throws EntityNotFoundException, BusinessLogicException {
+        AccountEntity account = accountList.get(0);
+        List<TransactionEntity> history = insertHistory(account, 5);
+
+        TransactionHistoryDTO page1 = transactionService.getHistorial(account.getId(), null, null, null, null, 2);
+        TransactionHistoryDTO page2 = transactionService.getHistorial(account.getId(), null, null, null,
+                page1.getSiguienteCursor(), 2);
+        TransactionHistoryDTO page3 = transactionService.getHistorial(account.getId(), null, null, null,
+                page2.getSiguienteCursor(), 2);
+
+        assertEquals(history.get(4).getId(), page1.getTransacciones().get(0).getId());
+        assertEquals(history.get(3).getId(), page1.getTransacciones().get(1).getId());
+        assertEquals(history.get(2).getId(), page2.getTransacciones().get(0).getId());
+        assertEquals(history.get(1).getId(), page2.getTransacciones().get(1).getId());
+        assertEquals(1, page3.getTransacciones().size());
+        assertEquals(history.get(0).getId(), page3.getTransacciones().get(0).getId());
+        assertNull(page3.getSiguienteCursor());
+    }
+
+    /**
+     * Prueba filtrar el historial por tipo.
+     */
+    @Test
+    void testGetHistorialPorTipo() throws EntityNotFoundException, BusinessLogicException {
+        AccountEntity account = accountList.get(0);
+        insertHistory(account, 5);
+
+        TransactionHistoryDTO page = transactionService.getHistorial(account.getId(), "ENTRADA", null, null, null, 10);
+
+        assertEquals(2, page.getTransacciones().size());
+        page.getTransacciones().forEach(t -> assertEquals("ENTRADA", t.getTipo()));
+    }
+
+    /**
+     * Prueba consultar el historial de una cuenta que no existe.
+     */
+    @Test
+    void testGetHistorialCuentaInexistente() {
+        assertThrows(EntityNotFoundException.class,
+                () -> transactionService.getHistorial(0L, null, null, null, null, 10));
+    }
+
+    /**
+     * Prueba consultar el historial con un cursor inválido.
+     */
+    @Test
+    void testGetHistorialCursorInvalido() {
+        AccountEntity account = accountList.get(0);
+        assertThrows(BusinessLogicException.class,
+                () -> transactionService.getHistorial(account.getId(), null, null, null, "abc", 10));
+    }
+}
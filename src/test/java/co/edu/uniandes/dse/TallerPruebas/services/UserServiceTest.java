@@ -0,0 +1,75 @@
+package co.edu.uniandes.dse.TallerPruebas.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.UserEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.metrics.QueryCountAssertions;
+import co.edu.uniandes.dse.TallerPruebas.metrics.QueryCounter;
+import uk.co.jemos.podam.api.PodamFactory;
+import uk.co.jemos.podam.api.PodamFactoryImpl;
+
+/**
+ * Pruebas de lógica de UserService
+ */
+@DataJpaTest
+@Transactional
+@Import(UserService.class)
+public class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private PodamFactory factory = new PodamFactoryImpl();
+
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.getEntityManager().createQuery("delete from AccountEntity").executeUpdate();
+        entityManager.getEntityManager().createQuery("delete from UserEntity").executeUpdate();
+
+        user = factory.manufacturePojo(UserEntity.class);
+        entityManager.persist(user);
+        for (int i = 0; i < 3; i++) {
+            AccountEntity accountEntity = factory.manufacturePojo(AccountEntity.class);
+            accountEntity.setUser(user);
+            entityManager.persist(accountEntity);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Prueba que el usuario se consulte con sus cuentas en una sola sentencia.
+     */
+    @Test
+    void testGetUserWithAccounts() throws EntityNotFoundException {
+        QueryCounter.Counts counts = QueryCountAssertions.assertStatementCount(1, () -> {
+            UserEntity result = userService.getUserWithAccounts(user.getId());
+            assertEquals(3, result.getAccounts().size());
+        });
+        assertEquals(0, counts.getCollectionFetches());
+    }
+
+    /**
+     * Prueba consultar un usuario que no existe.
+     */
+    @Test
+    void testGetUserWithAccountsInexistente() {
+        assertThrows(EntityNotFoundException.class, () -> userService.getUserWithAccounts(0L));
+    }
+}
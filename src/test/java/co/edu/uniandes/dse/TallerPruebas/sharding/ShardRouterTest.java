@@ -0,0 +1,70 @@
+package co.edu.uniandes.dse.TallerPruebas.sharding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas del reparto de cuentas en shards.
+ */
+public class ShardRouterTest {
+
+    /**
+     * Prueba que los slots y las cuentas se repartan entre todos los shards.
+     */
+    @Test
+    void testReparto() {
+        ShardRouter router = new ShardRouter(List.of("shard0", "shard1", "shard2"));
+
+        Map<String, Integer> slots = router.contarSlots();
+        assertEquals(ShardRouter.SLOTS, slots.values().stream().mapToInt(Integer::intValue).sum());
+        slots.values().forEach(cantidad -> assertTrue(cantidad > ShardRouter.SLOTS / 6, slots.toString()));
+
+        int[] cuentas = new int[3];
+        for (long id = 1; id <= 30_000; id++) {
+            cuentas[router.getShards().indexOf(router.shardDe(id))]++;
+        }
+        for (int cantidad : cuentas) {
+            assertTrue(cantidad > 5_000, "Reparto desigual: " + cantidad);
+        }
+        assertEquals("shard0", router.getCatalogo());
+    }
+
+    /**
+     * Prueba que agregar un shard solo mueva slots hacia el shard nuevo.
+     */
+    @Test
+    void testAgregarShard() {
+        ShardRouter antes = new ShardRouter(List.of("shard0", "shard1", "shard2"));
+        ShardRouter despues = new ShardRouter(List.of("shard0", "shard1", "shard2", "shard3"));
+
+        int movidos = 0;
+        for (int slot = 0; slot < ShardRouter.SLOTS; slot++) {
+            if (!antes.ownerDe(slot).equals(despues.ownerDe(slot))) {
+                assertEquals("shard3", despues.ownerDe(slot));
+                movidos++;
+            }
+        }
+        assertTrue(movidos > ShardRouter.SLOTS / 8 && movidos < ShardRouter.SLOTS / 2, "Slots movidos: " + movidos);
+    }
+
+    /**
+     * Prueba reasignar un slot.
+     */
+    @Test
+    void testAsignar() {
+        ShardRouter router = new ShardRouter(List.of("shard0", "shard1"));
+        Long accountId = 42L;
+        int slot = router.slotDe(accountId);
+        String otro = router.shardDe(accountId).equals("shard0") ? "shard1" : "shard0";
+
+        router.asignar(slot, otro);
+
+        assertEquals(otro, router.shardDe(accountId));
+        assertTrue(router.slotsDe(otro).contains(slot));
+        assertThrows(IllegalArgumentException.class, () -> router.asignar(slot, "shard9"));
+    }
+}
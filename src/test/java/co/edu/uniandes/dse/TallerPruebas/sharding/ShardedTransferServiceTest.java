@@ -0,0 +1,598 @@
+package co.edu.uniandes.dse.TallerPruebas.sharding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountCache;
+import co.edu.uniandes.dse.TallerPruebas.concurrency.AccountLockManager;
+import co.edu.uniandes.dse.TallerPruebas.concurrency.OptimisticRetryAspect;
+import co.edu.uniandes.dse.TallerPruebas.config.ShardingConfig;
+import co.edu.uniandes.dse.TallerPruebas.dto.ImportReportDTO;
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.PocketEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransactionEntity;
+import co.edu.uniandes.dse.TallerPruebas.entities.TransferSagaEntity;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.BusinessLogicException;
+import co.edu.uniandes.dse.TallerPruebas.exceptions.EntityNotFoundException;
+import co.edu.uniandes.dse.TallerPruebas.idempotency.IdempotencyStore;
+import co.edu.uniandes.dse.TallerPruebas.imports.BulkImportService;
+import co.edu.uniandes.dse.TallerPruebas.imports.ImportFormat;
+import co.edu.uniandes.dse.TallerPruebas.jobs.ChunkedJobRunner;
+import co.edu.uniandes.dse.TallerPruebas.jobs.InterestAndFeesJob;
+import co.edu.uniandes.dse.TallerPruebas.jobs.JobResult;
+import co.edu.uniandes.dse.TallerPruebas.outbox.OutboxService;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.BalanceSnapshotRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.BatchCheckpointRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.DailyAccountAggregateRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.IdempotencyRecordRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.LedgerEntryRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.OutboxEventRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.PocketRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.ShardSlotRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransferSagaRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.UserRepository;
+import co.edu.uniandes.dse.TallerPruebas.services.DailyAggregateService;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService;
+import co.edu.uniandes.dse.TallerPruebas.services.TransactionService;
+import co.edu.uniandes.dse.TallerPruebas.services.UserService;
+
+/**
+ * Pruebas de las transferencias y el rebalanceo con tres shards H2 locales.
+ * Cada paso corre en la transacción de su shard, así que la prueba no corre
+ * dentro de una transacción y limpia los shards al terminar. Sin ventana de
+ * idempotencia en memoria, los reintentos consultan la tabla del shard, como
+ * los que llegan a otra instancia.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ActiveProfiles("shards-local")
+@Import({ ShardingConfig.class, ShardedTransferService.class, TransactionService.class, AccountLockManager.class,
+        AccountCache.class, IdempotencyStore.class, LedgerService.class, DailyAggregateService.class,
+        OutboxService.class, OptimisticRetryAspect.class, InterestAndFeesJob.class, ChunkedJobRunner.class,
+        BulkImportService.class, UserService.class })
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@TestPropertySource(properties = { "sharding.sagas.lag-seconds=0", "accounts.retry.max-attempts=20",
+        "idempotency.window.max-size=0" })
+public class ShardedTransferServiceTest {
+
+    @Autowired
+    private ShardedTransferService shardedTransferService;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
+    @Autowired
+    private ShardRouter router;
+
+    @Autowired
+    private ShardRebalancer rebalancer;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PocketRepository pocketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransferSagaRepository sagaRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private DailyAccountAggregateRepository aggregateRepository;
+
+    @Autowired
+    private ShardSlotRepository slotRepository;
+
+    @Autowired
+    private BatchCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private InterestAndFeesJob interestAndFeesJob;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clearData();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        clearData();
+    }
+
+    private void clearData() throws Exception {
+        for (String shard : router.getShards()) {
+            shardTemplate.enShard(shard, () -> {
+                sagaRepository.deleteAllInBatch();
+                outboxEventRepository.deleteAllInBatch();
+                ledgerEntryRepository.deleteAllInBatch();
+                balanceSnapshotRepository.deleteAllInBatch();
+                aggregateRepository.deleteAllInBatch();
+                transactionRepository.deleteAllInBatch();
+                pocketRepository.deleteAllInBatch();
+                accountRepository.deleteAllInBatch();
+                userRepository.deleteAllInBatch();
+                slotRepository.deleteAllInBatch();
+                checkpointRepository.deleteAllInBatch();
+                idempotencyRecordRepository.deleteAllInBatch();
+                return null;
+            });
+        }
+    }
+
+    private AccountEntity cuenta(String shard, double saldo) throws Exception {
+        return shardTemplate.enShard(shard, () -> {
+            AccountEntity account = new AccountEntity();
+            account.setNumeroCuenta(shard + "-" + saldo);
+            account.setEstado("ACTIVA");
+            account.setSaldo(saldo);
+            return accountRepository.save(account);
+        });
+    }
+
+    private double saldo(AccountEntity account) throws Exception {
+        return shardTemplate.enCuenta(account.getId(),
+                () -> accountRepository.findById(account.getId()).orElseThrow().getSaldo());
+    }
+
+    private void bloquear(AccountEntity account) throws Exception {
+        shardTemplate.enCuenta(account.getId(), () -> {
+            accountRepository.findById(account.getId()).orElseThrow().setEstado("BLOQUEADA");
+            return null;
+        });
+    }
+
+    private long contarSagas(String shard) throws Exception {
+        return shardTemplate.enShard(shard, () -> sagaRepository.count());
+    }
+
+    /**
+     * Un id de cuenta que el hash asigna al shard y que no existe.
+     */
+    private Long idInexistente(String shard) {
+        long id = 1L << 50;
+        while (!router.shardDe(id).equals(shard)) {
+            id++;
+        }
+        return id;
+    }
+
+    /**
+     * Guarda en el shard origen una transferencia que quedó en el paso 1.
+     */
+    private TransferSagaEntity pendiente(AccountEntity source, Long destinationId, double monto) throws Exception {
+        return shardTemplate.enCuenta(source.getId(), () -> {
+            TransferSagaEntity saga = new TransferSagaEntity();
+            saga.setReferencia("pendiente-" + destinationId);
+            saga.setRol(ShardedTransferService.ORIGEN);
+            saga.setEstado(ShardedTransferService.PENDIENTE);
+            saga.setSourceId(source.getId());
+            saga.setDestinationId(destinationId);
+            saga.setMonto(monto);
+            saga.setFecha(new Date(System.currentTimeMillis() - 1000));
+            sagaRepository.save(saga);
+            saga.setSagaId(saga.getId());
+            return saga;
+        });
+    }
+
+    /**
+     * Prueba que una cuenta nueva tome un id que el hash asigna al shard donde se crea.
+     */
+    @Test
+    void testCrearCuentaEnShard() throws Exception {
+        AccountEntity account = cuenta("shard1", 10.0);
+
+        assertEquals("shard1", router.shardDe(account.getId()));
+        assertFalse(shardTemplate.enShard("shard0", () -> accountRepository.existsById(account.getId())));
+        assertEquals(10.0, saldo(account));
+    }
+
+    /**
+     * Prueba una transferencia entre cuentas de shards distintos.
+     */
+    @Test
+    void testTransferirEntreShards() throws Exception {
+        AccountEntity source = cuenta("shard0", 1000.0);
+        AccountEntity destination = cuenta("shard1", 0.0);
+
+        TransactionEntity salida = shardedTransferService.transferirFondos(source.getId(), destination.getId(), 300.0,
+                null);
+
+        assertEquals("SALIDA", salida.getTipo());
+        assertEquals(700.0, saldo(source));
+        assertEquals(300.0, saldo(destination));
+        assertEquals(1, contarSagas("shard0"));
+        assertEquals(1, contarSagas("shard1"));
+        assertEquals(ShardedTransferService.COMPLETADA, shardTemplate.enShard("shard0",
+                () -> sagaRepository.findAll().get(0).getEstado()));
+        assertEquals(1, shardTemplate.enShard("shard0", () -> outboxEventRepository.count()));
+        assertEquals(700.0, shardTemplate.enCuenta(source.getId(),
+                () -> ledgerService.getSaldo(LedgerService.LIBRO_CUENTA, source.getId(), null)));
+        assertEquals(300.0, shardTemplate.enCuenta(destination.getId(),
+                () -> ledgerService.getSaldo(LedgerService.LIBRO_CUENTA, destination.getId(), null)));
+    }
+
+    /**
+     * Prueba que repetir una transferencia entre shards con la misma clave no la aplique dos veces.
+     */
+    @Test
+    void testTransferirEntreShardsIdempotente() throws Exception {
+        AccountEntity source = cuenta("shard0", 1000.0);
+        AccountEntity destination = cuenta("shard2", 0.0);
+
+        TransactionEntity primera = shardedTransferService.transferirFondos(source.getId(), destination.getId(),
+                100.0, "clave-1");
+        TransactionEntity segunda = shardedTransferService.transferirFondos(source.getId(), destination.getId(),
+                100.0, "clave-1");
+
+        assertEquals(primera.getId(), segunda.getId());
+        assertEquals(900.0, saldo(source));
+        assertEquals(100.0, saldo(destination));
+        assertThrows(BusinessLogicException.class, () -> shardedTransferService.transferirFondos(source.getId(),
+                destination.getId(), 200.0, "clave-1"));
+    }
+
+    /**
+     * Prueba las validaciones antes de debitar.
+     */
+    @Test
+    void testTransferirEntreShardsInvalida() throws Exception {
+        AccountEntity source = cuenta("shard0", 100.0);
+        AccountEntity destination = cuenta("shard1", 0.0);
+
+        assertThrows(BusinessLogicException.class, () -> shardedTransferService.transferirFondos(source.getId(),
+                destination.getId(), 500.0, null));
+        assertThrows(EntityNotFoundException.class, () -> shardedTransferService.transferirFondos(source.getId(),
+                idInexistente("shard1"), 10.0, null));
+        assertEquals(100.0, saldo(source));
+    }
+
+    /**
+     * Prueba que no se transfiera entre shards desde o hacia una cuenta bloqueada.
+     */
+    @Test
+    void testTransferirEntreShardsCuentaBloqueada() throws Exception {
+        AccountEntity source = cuenta("shard0", 100.0);
+        AccountEntity destination = cuenta("shard1", 0.0);
+        bloquear(destination);
+
+        assertThrows(BusinessLogicException.class, () -> shardedTransferService.transferirFondos(source.getId(),
+                destination.getId(), 10.0, null));
+        assertThrows(BusinessLogicException.class, () -> shardedTransferService.transferirFondos(destination.getId(),
+                source.getId(), 10.0, null));
+        assertEquals(100.0, saldo(source));
+        assertEquals(0, contarSagas("shard0"));
+    }
+
+    /**
+     * Prueba que una transferencia dentro de un shard no use la saga.
+     */
+    @Test
+    void testTransferirMismoShard() throws Exception {
+        AccountEntity source = cuenta("shard2", 500.0);
+        AccountEntity destination = cuenta("shard2", 0.0);
+
+        shardedTransferService.transferirFondos(source.getId(), destination.getId(), 50.0, null);
+
+        assertEquals(450.0, saldo(source));
+        assertEquals(50.0, saldo(destination));
+        assertEquals(0, contarSagas("shard2"));
+    }
+
+    /**
+     * Prueba transferencias concurrentes dentro de un shard mientras otro hilo
+     * modifica el saldo del origen sin pasar por los candados: los conflictos
+     * de versión se reintentan y ninguna transferencia se pierde.
+     */
+    @Test
+    void testTransferirMismoShardConcurrente() throws Exception {
+        AccountEntity source = cuenta("shard1", 1000.0);
+        AccountEntity destination = cuenta("shard1", 0.0);
+        int transferencias = 40;
+        int depositos = 40;
+
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < transferencias; i++) {
+                futures.add(executor.submit(() -> shardedTransferService.transferirFondos(source.getId(),
+                        destination.getId(), 10.0, null)));
+            }
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < depositos; i++) {
+                    depositar(source, 1.0);
+                }
+                return null;
+            }));
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1000.0 - 10.0 * transferencias + depositos, saldo(source));
+        assertEquals(10.0 * transferencias, saldo(destination));
+        assertEquals(0, contarSagas("shard1"));
+    }
+
+    /**
+     * Suma al saldo de la cuenta con una escritura directa, reintentando si choca
+     * con una transferencia.
+     */
+    private void depositar(AccountEntity account, double monto) throws Exception {
+        while (true) {
+            try {
+                shardTemplate.enCuenta(account.getId(), () -> {
+                    AccountEntity actual = accountRepository.findById(account.getId()).orElseThrow();
+                    actual.setSaldo(actual.getSaldo() + monto);
+                    return accountRepository.saveAndFlush(actual);
+                });
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Prueba que la cuota de manejo se cobre en las cuentas de todos los shards,
+     * cada uno con su propio titular del banco.
+     */
+    @Test
+    void testCobrarCuotasEnCadaShard() throws Exception {
+        List<AccountEntity> accounts = new ArrayList<>();
+        for (String shard : router.getShards()) {
+            accounts.add(cuenta(shard, 20000.0));
+        }
+
+        JobResult result = interestAndFeesJob.ejecutar(YearMonth.of(2026, 9));
+
+        assertEquals(accounts.size(), result.cuentas());
+        assertEquals(0, result.fallidos());
+        for (AccountEntity account : accounts) {
+            assertEquals(10100.0, saldo(account));
+        }
+        for (String shard : router.getShards()) {
+            assertEquals(9900.0, shardTemplate.enShard(shard, () -> ledgerService.getSaldo(LedgerService.LIBRO_BANCO,
+                    LedgerService.TITULAR_BANCO, null)));
+        }
+
+        // la segunda ejecución del periodo no cobra otra vez en ningún shard
+        assertEquals(0, interestAndFeesJob.ejecutar(YearMonth.of(2026, 9)).cuentas());
+    }
+
+    /**
+     * Prueba que una transferencia pendiente se termine acreditando el destino.
+     */
+    @Test
+    void testReanudarPendiente() throws Exception {
+        // el paso 1 ya debitó 100 del origen
+        AccountEntity source = cuenta("shard0", 900.0);
+        AccountEntity destination = cuenta("shard1", 0.0);
+        pendiente(source, destination.getId(), 100.0);
+
+        assertEquals(1, shardedTransferService.reanudarPendientes());
+
+        assertEquals(100.0, saldo(destination));
+        assertEquals(900.0, saldo(source));
+        assertEquals(ShardedTransferService.COMPLETADA, shardTemplate.enShard("shard0",
+                () -> sagaRepository.findAll().get(0).getEstado()));
+        assertEquals(0, shardedTransferService.reanudarPendientes());
+    }
+
+    /**
+     * Prueba que una transferencia pendiente cuyo destino se bloqueó después
+     * del débito se compense en el origen.
+     */
+    @Test
+    void testReanudarCompensaDestinoBloqueado() throws Exception {
+        AccountEntity source = cuenta("shard0", 900.0);
+        AccountEntity destination = cuenta("shard1", 0.0);
+        pendiente(source, destination.getId(), 100.0);
+        bloquear(destination);
+
+        assertEquals(1, shardedTransferService.reanudarPendientes());
+
+        assertEquals(1000.0, saldo(source));
+        assertEquals(0.0, saldo(destination));
+        assertEquals(ShardedTransferService.COMPENSADA, shardTemplate.enShard("shard0",
+                () -> sagaRepository.findAll().get(0).getEstado()));
+    }
+
+    /**
+     * Prueba que una transferencia cuyo destino no existe se compense en el origen.
+     */
+    @Test
+    void testReanudarCompensa() throws Exception {
+        AccountEntity source = cuenta("shard0", 900.0);
+        pendiente(source, idInexistente("shard1"), 100.0);
+
+        assertEquals(1, shardedTransferService.reanudarPendientes());
+
+        assertEquals(1000.0, saldo(source));
+        assertEquals(ShardedTransferService.COMPENSADA, shardTemplate.enShard("shard0",
+                () -> sagaRepository.findAll().get(0).getEstado()));
+    }
+
+    /**
+     * Prueba mover el slot de una cuenta con sus bolsillos y transacciones a otro shard.
+     */
+    @Test
+    void testMoverSlot() throws Exception {
+        AccountEntity account = cuenta("shard0", 1000.0);
+        AccountEntity destination = cuenta("shard0", 0.0);
+        shardedTransferService.transferirFondos(account.getId(), destination.getId(), 100.0, null);
+        shardTemplate.enCuenta(account.getId(), () -> {
+            PocketEntity pocket = new PocketEntity();
+            pocket.setNombre("Viaje");
+            pocket.setSaldo(0.0);
+            pocket.setAccount(accountRepository.findById(account.getId()).orElseThrow());
+            return pocketRepository.save(pocket);
+        });
+        int slot = router.slotDe(account.getId());
+
+        try {
+            assertTrue(rebalancer.moverSlot(slot, "shard1") >= 1);
+
+            assertEquals("shard1", router.shardDe(account.getId()));
+            assertEquals(900.0, saldo(account));
+            assertEquals(1, shardTemplate.enShard("shard1", () -> pocketRepository.findAll().stream()
+                    .filter(p -> p.getAccount().getId().equals(account.getId())).count()));
+            assertEquals(1, shardTemplate.enShard("shard1", () -> transactionRepository.findAll().stream()
+                    .filter(t -> t.getAccount().getId().equals(account.getId())).count()));
+            assertFalse(shardTemplate.enShard("shard0", () -> accountRepository.existsById(account.getId())));
+            assertEquals(900.0, shardTemplate.enCuenta(account.getId(),
+                    () -> ledgerService.getSaldo(LedgerService.LIBRO_CUENTA, account.getId(), null)));
+            assertEquals("shard1", shardTemplate.enShard(router.getCatalogo(),
+                    () -> slotRepository.findBySlot(slot).orElseThrow().getShard()));
+
+            // ahora la transferencia de vuelta es entre shards
+            if (!router.shardDe(destination.getId()).equals("shard1")) {
+                shardedTransferService.transferirFondos(destination.getId(), account.getId(), 100.0, null);
+                assertEquals(1000.0, saldo(account));
+                assertEquals(0.0, saldo(destination));
+            }
+        } finally {
+            rebalancer.moverSlot(slot, "shard0");
+        }
+        assertEquals("shard0", router.shardDe(account.getId()));
+        assertFalse(shardTemplate.enShard("shard1", () -> accountRepository.existsById(account.getId())));
+    }
+
+    /**
+     * Prueba que un reintento con la misma clave de idempotencia después de
+     * mover el slot de la cuenta origen devuelva la transferencia original, y
+     * que sus eventos sin entregar se muevan con la cuenta.
+     */
+    @Test
+    void testMoverSlotReintentoIdempotente() throws Exception {
+        AccountEntity account = cuenta("shard0", 1000.0);
+        AccountEntity destination = cuenta("shard0", 0.0);
+        TransactionEntity original = shardedTransferService.transferirFondos(account.getId(), destination.getId(),
+                100.0, "clave-mover");
+        int slot = router.slotDe(account.getId());
+
+        try {
+            rebalancer.moverSlot(slot, "shard1");
+            assertEquals(1, shardTemplate.enShard("shard1", () -> outboxEventRepository.count()));
+            assertEquals(0, shardTemplate.enShard("shard0", () -> outboxEventRepository.count()));
+
+            TransactionEntity reintento = shardedTransferService.transferirFondos(account.getId(),
+                    destination.getId(), 100.0, "clave-mover");
+
+            assertEquals(original.getId(), reintento.getId());
+            assertEquals(900.0, saldo(account));
+            assertEquals(100.0, saldo(destination));
+        } finally {
+            rebalancer.moverSlot(slot, "shard0");
+        }
+    }
+
+    /**
+     * Prueba que la importación escriba cada usuario con sus cuentas en el
+     * shard de su slot, y que la consulta del usuario junte sus cuentas de
+     * todos los shards después de mover una de ellas.
+     */
+    @Test
+    void testImportarYConsultarUsuarioEnShards() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            content.append("{\"cedula\":\"c").append(i).append("\",\"name\":\"Usuario ").append(i)
+                    .append("\",\"accounts\":[{\"numeroCuenta\":\"").append(i)
+                    .append("-1\",\"saldo\":10.0,\"estado\":\"ACTIVA\"},{\"numeroCuenta\":\"").append(i)
+                    .append("-2\",\"saldo\":20.0,\"estado\":\"ACTIVA\"}]}\n");
+        }
+        ImportReportDTO report = bulkImportService.importar(
+                new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.UTF_8)), ImportFormat.NDJSON);
+        assertEquals(20, report.getImportados());
+        assertEquals(40, report.getCuentas());
+
+        Map<Long, Long> usuarios = new HashMap<>();
+        int conCuentas = 0;
+        for (String shard : router.getShards()) {
+            Map<Long, Long> cuentas = shardTemplate.enShard(shard, () -> accountRepository.findAll().stream()
+                    .collect(Collectors.toMap(AccountEntity::getId, a -> a.getUser().getId())));
+            for (Long accountId : cuentas.keySet()) {
+                assertEquals(shard, router.shardDe(accountId));
+            }
+            conCuentas += cuentas.isEmpty() ? 0 : 1;
+            usuarios.putAll(cuentas);
+        }
+        assertEquals(40, usuarios.size());
+        assertTrue(conCuentas > 1);
+
+        Long accountId = usuarios.keySet().iterator().next();
+        Long userId = usuarios.get(accountId);
+        List<Long> esperadas = usuarios.entrySet().stream().filter(e -> e.getValue().equals(userId))
+                .map(Map.Entry::getKey).sorted().toList();
+        int slot = router.slotDe(accountId);
+        String origen = router.ownerDe(slot);
+        String destino = router.getShards().stream().filter(shard -> !shard.equals(origen)).findFirst().orElseThrow();
+        try {
+            rebalancer.moverSlot(slot, destino);
+
+            List<Long> consultadas = userService.getUserWithAccounts(userId).getAccounts().stream()
+                    .map(AccountEntity::getId).sorted().toList();
+            assertEquals(esperadas, consultadas);
+        } finally {
+            rebalancer.moverSlot(slot, origen);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package co.edu.uniandes.dse.TallerPruebas.transfers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import co.edu.uniandes.dse.TallerPruebas.cache.AccountCache;
+import co.edu.uniandes.dse.TallerPruebas.entities.AccountEntity;
+import co.edu.uniandes.dse.TallerPruebas.outbox.OutboxService;
+import co.edu.uniandes.dse.TallerPruebas.repositories.AccountRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.BalanceSnapshotRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.DailyAccountAggregateRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.LedgerEntryRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.OutboxEventRepository;
+import co.edu.uniandes.dse.TallerPruebas.repositories.TransactionRepository;
+import co.edu.uniandes.dse.TallerPruebas.services.DailyAggregateService;
+import co.edu.uniandes.dse.TallerPruebas.services.LedgerService;
+import co.edu.uniandes.dse.TallerPruebas.services.TransferValidator;
+
+/**
+ * Pruebas del motor de transferencias. Los shards persisten en sus propias
+ * transacciones, así que la prueba no corre dentro de una transacción y
+ * limpia los datos al terminar.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ TransferEngine.class, AccountCache.class, LedgerService.class, DailyAggregateService.class,
+        OutboxService.class })
+@TestPropertySource(properties = { "transfers.engine.enabled=true", "transfers.engine.shards=2" })
+public class TransferEngineTest {
+
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private DailyAccountAggregateRepository dailyAccountAggregateRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<AccountEntity> accountList = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        clearData();
+        for (int i = 0; i < 4; i++) {
+            AccountEntity account = new AccountEntity();
+            account.setNumeroCuenta("000" + i);
+            account.setEstado("ACTIVA");
+            account.setSaldo(5000.0);
+            accountList.add(accountRepository.save(account));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearData();
+    }
+
+    private void clearData() {
+        outboxEventRepository.deleteAll();
+        transactionRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        balanceSnapshotRepository.deleteAll();
+        dailyAccountAggregateRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    private TransferTicket await(TransferTicket ticket) throws Exception {
+        return ticket.getCompletion().get(10, TimeUnit.SECONDS);
+    }
+
+    private double saldo(AccountEntity account) {
+        return accountRepository.findById(account.getId()).get().getSaldo();
+    }
+
+    /**
+     * Devuelve una cuenta de un shard distinto al de la cuenta dada.
+     */
+    private AccountEntity otroShard(AccountEntity account) {
+        return accountList.stream()
+                .filter(a -> transferEngine.shardOf(a.getId()) != transferEngine.shardOf(account.getId()))
+                .findFirst().get();
+    }
+
+    /**
+     * Prueba una transferencia válida: se persisten ambos saldos, la fila SALIDA y los asientos.
+     */
+    @Test
+    void testSubmit() throws Exception {
+        AccountEntity source = accountList.get(0);
+        AccountEntity destination = accountList.get(1);
+
+        TransferTicket ticket = transferEngine.submit(source.getId(), destination.getId(), 1500.0);
+        assertNotNull(transferEngine.getTicket(ticket.getId()).orElse(null));
+
+        await(ticket);
+        assertEquals(TransferStatus.COMPLETADA, ticket.getEstado());
+        assertNotNull(ticket.getTransactionId());
+        assertEquals("SALIDA", transactionRepository.findById(ticket.getTransactionId()).get().getTipo());
+        assertEquals(3500.0, saldo(source));
+        assertEquals(6500.0, saldo(destination));
+        assertEquals(3500.0, ledgerService.getSaldo(LedgerService.LIBRO_CUENTA, source.getId(), null));
+        assertEquals(6500.0, ledgerService.getSaldo(LedgerService.LIBRO_CUENTA, destination.getId(), null));
+    }
+
+    /**
+     * Prueba que las transferencias se apliquen en orden de llegada contra el saldo en memoria.
+     */
+    @Test
+    void testSubmitOrdenDeLlegada() throws Exception {
+        AccountEntity source = accountList.get(0);
+        AccountEntity destination = accountList.get(1);
+
+        TransferTicket first = transferEngine.submit(source.getId(), destination.getId(), 2000.0);
+        TransferTicket second = transferEngine.submit(source.getId(), destination.getId(), 2000.0);
+        TransferTicket third = transferEngine.submit(source.getId(), destination.getId(), 2000.0);
+
+        assertEquals(TransferStatus.COMPLETADA, await(first).getEstado());
+        assertEquals(TransferStatus.COMPLETADA, await(second).getEstado());
+        assertEquals(TransferStatus.RECHAZADA, await(third).getEstado());
+        assertEquals("El monto de la transferencia debe ser menor o igual al saldo de la cuenta", third.getMensaje());
+        assertEquals(1000.0, saldo(source));
+    }
+
+    /**
+     * Prueba los rechazos por validación.
+     */
+    @Test
+    void testSubmitInvalida() throws Exception {
+        AccountEntity source = accountList.get(0);
+
+        assertEquals(TransferStatus.RECHAZADA, await(transferEngine.submit(0L, source.getId(), 10.0)).getEstado());
+        assertEquals(TransferStatus.RECHAZADA, await(transferEngine.submit(source.getId(), 0L, 10.0)).getEstado());
+        assertEquals(TransferStatus.RECHAZADA,
+                await(transferEngine.submit(source.getId(), source.getId(), 10.0)).getEstado());
+        assertEquals(TransferStatus.RECHAZADA,
+                await(transferEngine.submit(source.getId(), accountList.get(1).getId(), -10.0)).getEstado());
+        assertEquals(5000.0, saldo(source));
+    }
+
+    /**
+     * Prueba que el crédito recibido de otro shard quede disponible para debitar.
+     */
+    @Test
+    void testSubmitCreditoEntreShards() throws Exception {
+        AccountEntity account = accountList.get(0);
+        AccountEntity other = otroShard(account);
+
+        // el shard de account carga su saldo en memoria
+        assertEquals(TransferStatus.COMPLETADA, await(transferEngine.submit(account.getId(), other.getId(), 10.0))
+                .getEstado());
+        // other le transfiere desde otro shard
+        assertEquals(TransferStatus.COMPLETADA, await(transferEngine.submit(other.getId(), account.getId(), 1000.0))
+                .getEstado());
+        // solo alcanza si el crédito se reflejó en memoria
+        TransferTicket ticket = await(transferEngine.submit(account.getId(), other.getId(), 5500.0));
+
+        assertEquals(TransferStatus.COMPLETADA, ticket.getEstado());
+        assertEquals(490.0, saldo(account));
+        assertEquals(9510.0, saldo(other));
+    }
+
+    /**
+     * Prueba que un depósito hecho por fuera del motor se vea antes de rechazar
+     * por fondos insuficientes, y que la caché de segundo nivel quede al día.
+     */
+    @Test
+    void testSubmitDepositoExterno() throws Exception {
+        AccountEntity source = accountList.get(0);
+        AccountEntity destination = accountList.get(1);
+
+        // el shard carga el saldo de source en memoria
+        assertEquals(TransferStatus.COMPLETADA,
+                await(transferEngine.submit(source.getId(), destination.getId(), 1000.0)).getEstado());
+        AccountEntity actual = accountRepository.findById(source.getId()).get();
+        actual.setSaldo(actual.getSaldo() + 3000.0);
+        accountRepository.save(actual);
+
+        TransferTicket ticket = await(transferEngine.submit(source.getId(), destination.getId(), 6000.0));
+
+        assertEquals(TransferStatus.COMPLETADA, ticket.getEstado());
+        assertEquals(1000.0, saldo(source));
+        assertEquals(12000.0, saldo(destination));
+    }
+
+    /**
+     * Prueba que el estado se valide sobre las filas bloqueadas: una cuenta
+     * bloqueada que la caché todavía tiene activa solo rechaza sus transferencias.
+     */
+    @Test
+    void testSubmitCuentaBloqueada() throws Exception {
+        AccountEntity source = accountList.get(0);
+        AccountEntity destination = accountList.get(1);
+        AccountEntity other = accountList.get(2);
+
+        // la caché y el shard ya conocen ambas cuentas activas
+        assertEquals(TransferStatus.COMPLETADA,
+                await(transferEngine.submit(source.getId(), destination.getId(), 10.0)).getEstado());
+        jdbcTemplate.update("update account_entity set estado = 'BLOQUEADA' where id = ?", destination.getId());
+
+        TransferTicket bloqueada = transferEngine.submit(source.getId(), destination.getId(), 10.0);
+        TransferTicket valida = transferEngine.submit(source.getId(), other.getId(), 10.0);
+
+        assertEquals(TransferStatus.RECHAZADA, await(bloqueada).getEstado());
+        assertEquals(TransferValidator.MENSAJE_BLOQUEADA, bloqueada.getMensaje());
+        assertEquals(TransferStatus.COMPLETADA, await(valida).getEstado());
+        assertEquals(4980.0, saldo(source));
+        assertEquals(5010.0, saldo(destination));
+        assertEquals(5010.0, saldo(other));
+    }
+}
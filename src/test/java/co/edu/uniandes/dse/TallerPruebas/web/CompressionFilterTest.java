@@ -0,0 +1,148 @@
+package co.edu.uniandes.dse.TallerPruebas.web;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Pruebas de la compresión con un servlet que responde JSON con ETag fuerte y
+ * 304 cuando el If-None-Match coincide, como los controladores de lectura.
+ */
+public class CompressionFilterTest {
+
+    private static final String ETAG = "a7";
+
+    private CompressionFilter filter;
+    private String cuerpo;
+
+    /**
+     * Servlet de prueba que usa el mismo chequeo condicional que los controladores.
+     */
+    private class JsonServlet extends HttpServlet {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            if (new ServletWebRequest(request, response).checkNotModified(ETAG)) {
+                return;
+            }
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setHeader(HttpHeaders.ETAG, "\"" + ETAG + "\"");
+            response.getOutputStream().write(cuerpo.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        filter = new CompressionFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "minSize", 100);
+        ReflectionTestUtils.setField(filter, "excludedPaths", List.of("/accounts/*/transactions/export"));
+        cuerpo = "[" + "{\"id\":1,\"nombre\":\"Viaje\",\"saldo\":100.0},".repeat(20) + "{}]";
+    }
+
+    private MockHttpServletResponse get(String path, String acceptEncoding, String ifNoneMatch)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api" + path);
+        request.setContextPath("/api");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new JsonServlet()));
+        return response;
+    }
+
+    private static String descomprimir(byte[] contenido) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(contenido))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Prueba que un JSON grande se comprima y su ETag fuerte quede marcada como gzip.
+     */
+    @Test
+    void testComprimir() throws Exception {
+        MockHttpServletResponse response = get("/accounts/1/pockets", "gzip, deflate, br", null);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"" + ETAG + "-gzip\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertTrue(response.getContentAsByteArray().length < cuerpo.length());
+        assertEquals(cuerpo, descomprimir(response.getContentAsByteArray()));
+    }
+
+    /**
+     * Prueba que la ETag de la versión comprimida produzca un 304 con la misma ETag.
+     */
+    @Test
+    void testNoModificadoComprimido() throws Exception {
+        MockHttpServletResponse response = get("/accounts/1/pockets", "gzip", "\"" + ETAG + "-gzip\"");
+
+        assertEquals(304, response.getStatus());
+        assertEquals("\"" + ETAG + "-gzip\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        response = get("/accounts/1/pockets", "gzip", "\"otra\"");
+        assertEquals(200, response.getStatus());
+    }
+
+    /**
+     * Prueba que no se comprima sin gzip aceptado, con q=0 o con un cuerpo pequeño.
+     */
+    @Test
+    void testNoComprimir() throws Exception {
+        MockHttpServletResponse response = get("/accounts/1/pockets", null, null);
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"" + ETAG + "\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(cuerpo, response.getContentAsString());
+
+        response = get("/accounts/1/pockets", "gzip;q=0, identity", null);
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+
+        response = get("/accounts/1/pockets", null, "\"" + ETAG + "\"");
+        assertEquals(304, response.getStatus());
+
+        cuerpo = "{}";
+        response = get("/accounts/1/pockets", "gzip", null);
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"" + ETAG + "\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(cuerpo, response.getContentAsString());
+    }
+
+    /**
+     * Prueba que las rutas excluidas pasen sin acumular la respuesta.
+     */
+    @Test
+    void testRutaExcluida() throws Exception {
+        MockHttpServletResponse response = get("/accounts/1/transactions/export", "gzip", null);
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNull(response.getHeader(HttpHeaders.VARY));
+        assertEquals(cuerpo, response.getContentAsString());
+    }
+}
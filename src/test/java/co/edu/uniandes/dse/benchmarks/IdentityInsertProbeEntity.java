@@ -0,0 +1,33 @@
+package co.edu.uniandes.dse.benchmarks;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+
+import lombok.Data;
+
+/**
+ * Copia de las columnas de TransactionEntity con ids IDENTITY, usada como
+ * línea base en InsertThroughputBenchmarkTest. Está fuera del paquete de la
+ * aplicación para que solo la registre ese benchmark y no las demás pruebas.
+ */
+@Data
+@Entity
+public class IdentityInsertProbeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Double monto;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fecha;
+
+    private String tipo;
+}